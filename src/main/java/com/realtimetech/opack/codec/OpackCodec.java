@@ -52,12 +52,13 @@ public abstract class OpackCodec<I, O> {
 
     /**
      * Encodes the opack value through a specific codec.
+     * The codec does not lock, the threads can encode and decode through the same codec at the same time, so the codec must keep its scratch state per call or per thread.
      *
      * @param output     the output to encode
      * @param opackValue the opack value to encode
      * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec
      */
-    public final synchronized void encode(O output, OpackValue opackValue) throws EncodeException {
+    public final void encode(O output, OpackValue opackValue) throws EncodeException {
         try {
             this.doEncode(output, opackValue);
         } catch (Exception exception) {
@@ -67,12 +68,13 @@ public abstract class OpackCodec<I, O> {
 
     /**
      * Decodes the value encoded through a specific codec.
+     * The codec does not lock, the threads can encode and decode through the same codec at the same time.
      *
      * @param input the input to decode
      * @return decoded value
      * @throws DecodeException if a problem occurs during decoding; if the type of data to be decoded is not allowed in specific codec
      */
-    public final synchronized OpackValue decode(I input) throws DecodeException {
+    public final OpackValue decode(I input) throws DecodeException {
         try {
             return this.doDecode(input);
         } catch (Exception exception) {
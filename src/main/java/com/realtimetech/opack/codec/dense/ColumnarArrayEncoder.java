@@ -0,0 +1,586 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.codec.dense.writer.Writer;
+import com.realtimetech.opack.util.UTF8Util;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+final class ColumnarArrayEncoder {
+    static final int CONST_MIN_ROW_COUNT = 2;
+
+    static final byte CONST_COLUMN_FLAG_NULL_BITMAP = 0x01;
+
+    private int rowCount;
+    private Object[] keys;
+    private int[] keyLengths;
+
+    private Object[][] columnValues;
+    private byte[] columnTypes;
+    private boolean[] columnNullables;
+    private int[] columnPresentCounts;
+    private long[] columnLengths;
+
+    private final List<HashMap<String, Integer>> dictionaries;
+    private final List<List<String>> dictionaryStrings;
+    private final List<int[]> dictionaryLengths;
+
+    private long length;
+
+    /**
+     * Constructs the ColumnarArrayEncoder.
+     */
+    ColumnarArrayEncoder() {
+        this.columnValues = new Object[0][];
+        this.columnTypes = new byte[0];
+        this.columnNullables = new boolean[0];
+        this.columnPresentCounts = new int[0];
+        this.columnLengths = new long[0];
+
+        this.dictionaries = new ArrayList<>();
+        this.dictionaryStrings = new ArrayList<>();
+        this.dictionaryLengths = new ArrayList<>();
+    }
+
+    /**
+     * Returns the type of the literal value in dense format.
+     *
+     * @param value the literal value
+     * @return the type, or -1 if the value is not a literal value
+     */
+    private static byte getLiteralType(Object value) {
+        Class<?> type = value.getClass();
+
+        if (type == String.class) {
+            return DenseCodec.CONST_TYPE_STRING;
+        } else if (type == Integer.class) {
+            return DenseCodec.CONST_TYPE_INTEGER;
+        } else if (type == Long.class) {
+            return DenseCodec.CONST_TYPE_LONG;
+        } else if (type == Double.class) {
+            return DenseCodec.CONST_TYPE_DOUBLE;
+        } else if (type == Boolean.class) {
+            return DenseCodec.CONST_TYPE_BOOLEAN;
+        } else if (type == Float.class) {
+            return DenseCodec.CONST_TYPE_FLOAT;
+        } else if (type == Short.class) {
+            return DenseCodec.CONST_TYPE_SHORT;
+        } else if (type == Byte.class) {
+            return DenseCodec.CONST_TYPE_BYTE;
+        } else if (type == Character.class) {
+            return DenseCodec.CONST_TYPE_CHARACTER;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the number of bytes of the literal value of the type, excluding the type header.
+     *
+     * @param type the type of the literal value
+     * @return the number of bytes
+     */
+    static int getLiteralSize(byte type) {
+        if (type == DenseCodec.CONST_TYPE_BOOLEAN || type == DenseCodec.CONST_TYPE_BYTE) {
+            return 1;
+        } else if (type == DenseCodec.CONST_TYPE_CHARACTER || type == DenseCodec.CONST_TYPE_SHORT) {
+            return 2;
+        } else if (type == DenseCodec.CONST_TYPE_INTEGER || type == DenseCodec.CONST_TYPE_FLOAT) {
+            return 4;
+        } else if (type == DenseCodec.CONST_TYPE_LONG || type == DenseCodec.CONST_TYPE_DOUBLE) {
+            return 8;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the number of bytes of the literal value as a dense block.
+     *
+     * @param value the literal value
+     * @return the number of bytes, or -1 if the value is not a literal value
+     */
+    private static long getLiteralBlockLength(Object value) {
+        if (value == null) {
+            return 1;
+        }
+
+        byte type = getLiteralType(value);
+
+        if (type == -1) {
+            return -1;
+        } else if (type == DenseCodec.CONST_TYPE_STRING) {
+            return 1 + 4 + UTF8Util.getUTF8Length((String) value);
+        }
+
+        return 1 + getLiteralSize(type);
+    }
+
+    /**
+     * Ensures the capacity of the column arrays.
+     *
+     * @param columnCount the number of the columns
+     * @param rowCount    the number of the rows
+     */
+    private void ensureCapacity(int columnCount, int rowCount) {
+        if (this.columnTypes.length < columnCount) {
+            Object[][] columnValues = new Object[columnCount][];
+            System.arraycopy(this.columnValues, 0, columnValues, 0, this.columnValues.length);
+
+            this.columnValues = columnValues;
+            this.columnTypes = new byte[columnCount];
+            this.columnNullables = new boolean[columnCount];
+            this.columnPresentCounts = new int[columnCount];
+            this.columnLengths = new long[columnCount];
+        }
+
+        for (int index = 0; index < columnCount; index++) {
+            if (this.columnValues[index] == null || this.columnValues[index].length < rowCount) {
+                this.columnValues[index] = new Object[Math.max(rowCount, this.columnValues[index] == null ? 0 : this.columnValues[index].length << 1)];
+            }
+        }
+
+        while (this.dictionaries.size() < columnCount) {
+            this.dictionaries.add(new HashMap<>());
+            this.dictionaryStrings.add(new ArrayList<>());
+            this.dictionaryLengths.add(new int[16]);
+        }
+    }
+
+    /**
+     * Plans the columnar block of the array, if all elements are OpackObjects of the same keys whose values are the literal values of the same type in each key.
+     * The columnar block is planned only if it is smaller than the rows, the planned values are kept until the array is written.
+     *
+     * @param opackArray the array to plan
+     * @return true if the array is written as the columnar block
+     */
+    boolean plan(@NotNull OpackArray<Object> opackArray) {
+        return this.plan(opackArray, false);
+    }
+
+    /**
+     * Collects the values of the array which was planned as the columnar block before, the rows are not checked and the length of the rows is not measured again.
+     *
+     * @param opackArray the array which was planned
+     */
+    void replan(@NotNull OpackArray<Object> opackArray) {
+        this.plan(opackArray, true);
+    }
+
+    /**
+     * Plans the columnar block of the array, or collects the values of the array which was planned before.
+     *
+     * @param opackArray the array to plan
+     * @param planned    true if the array was planned before
+     * @return true if the array is written as the columnar block
+     */
+    private boolean plan(@NotNull OpackArray<Object> opackArray, boolean planned) {
+        int rowCount = opackArray.length();
+
+        this.rowCount = 0;
+
+        if (rowCount < CONST_MIN_ROW_COUNT) {
+            return false;
+        }
+
+        Object firstRow = opackArray.get(0);
+
+        if (firstRow == null || firstRow.getClass() != OpackObject.class) {
+            return false;
+        }
+
+        Object[] keys = ((OpackObject<Object, Object>) firstRow).keySet().toArray();
+        int columnCount = keys.length;
+
+        int[] keyLengths = new int[columnCount];
+        long keysLength = 0;
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            long keyLength = getLiteralBlockLength(keys[columnIndex]);
+
+            if (keyLength == -1) {
+                return false;
+            }
+
+            keyLengths[columnIndex] = (int) keyLength;
+            keysLength += keyLength;
+        }
+
+        this.ensureCapacity(columnCount, rowCount);
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            this.columnTypes[columnIndex] = DenseCodec.CONST_TYPE_NULL;
+            this.columnPresentCounts[columnIndex] = 0;
+        }
+
+        long rowsLength = 1 + 4 + 1 + (long) rowCount * (1 + 4 + keysLength);
+
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            Object row = opackArray.get(rowIndex);
+
+            if (!planned && (row == null || row.getClass() != OpackObject.class || ((OpackObject<Object, Object>) row).size() != columnCount)) {
+                this.clearValues(columnCount, rowIndex);
+                return false;
+            }
+
+            OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) row;
+
+            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                Object key = keys[columnIndex];
+                Object value = opackObject.get(key);
+
+                if (value == null) {
+                    if (!planned) {
+                        if (!opackObject.containsKey(key)) {
+                            this.clearValues(columnCount, rowIndex);
+                            return false;
+                        }
+
+                        rowsLength += 1;
+                    }
+                } else {
+                    byte type = getLiteralType(value);
+
+                    if (!planned) {
+                        byte columnType = this.columnTypes[columnIndex];
+
+                        if (type == -1 || (columnType != DenseCodec.CONST_TYPE_NULL && columnType != type)) {
+                            this.clearValues(columnCount, rowIndex);
+                            return false;
+                        }
+
+                        rowsLength += type == DenseCodec.CONST_TYPE_STRING ? 1 + 4 + UTF8Util.getUTF8Length((String) value) : 1 + getLiteralSize(type);
+                    }
+
+                    this.columnTypes[columnIndex] = type;
+                    this.columnPresentCounts[columnIndex]++;
+                }
+
+                this.columnValues[columnIndex][rowIndex] = value;
+            }
+        }
+
+        long length = 1 + 4 + 4 + 4 + keysLength;
+        int bitmapLength = (rowCount + 7) >>> 3;
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            byte columnType = this.columnTypes[columnIndex];
+            int presentCount = this.columnPresentCounts[columnIndex];
+            long columnLength;
+
+            this.columnNullables[columnIndex] = columnType != DenseCodec.CONST_TYPE_NULL && presentCount < rowCount;
+
+            if (columnType == DenseCodec.CONST_TYPE_STRING) {
+                columnLength = this.planDictionary(columnIndex, rowCount) + (long) presentCount * this.getIndexWidth(columnIndex);
+            } else {
+                columnLength = (long) presentCount * getLiteralSize(columnType);
+            }
+
+            if (this.columnNullables[columnIndex]) {
+                columnLength += bitmapLength;
+            }
+
+            this.columnLengths[columnIndex] = columnLength;
+            length += 1 + 1 + 4 + columnLength;
+        }
+
+        if (!planned && (length >= rowsLength || length > Integer.MAX_VALUE - 16)) {
+            this.clearValues(columnCount, rowCount);
+            return false;
+        }
+
+        this.rowCount = rowCount;
+        this.keys = keys;
+        this.keyLengths = keyLengths;
+        this.length = length;
+
+        return true;
+    }
+
+    /**
+     * Builds the dictionary of the distinct strings of the string column.
+     *
+     * @param columnIndex the index of the string column
+     * @param rowCount    the number of the rows
+     * @return the number of bytes of the dictionary and the index width
+     */
+    private long planDictionary(int columnIndex, int rowCount) {
+        HashMap<String, Integer> dictionary = this.dictionaries.get(columnIndex);
+        List<String> strings = this.dictionaryStrings.get(columnIndex);
+        int[] lengths = this.dictionaryLengths.get(columnIndex);
+
+        dictionary.clear();
+        strings.clear();
+
+        Object[] values = this.columnValues[columnIndex];
+        long length = 4 + 1;
+
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            String value = (String) values[rowIndex];
+
+            if (value != null && !dictionary.containsKey(value)) {
+                int dictionaryIndex = strings.size();
+
+                if (dictionaryIndex == lengths.length) {
+                    lengths = Arrays.copyOf(lengths, lengths.length << 1);
+                    this.dictionaryLengths.set(columnIndex, lengths);
+                }
+
+                lengths[dictionaryIndex] = UTF8Util.getUTF8Length(value);
+                length += 4 + lengths[dictionaryIndex];
+
+                dictionary.put(value, dictionaryIndex);
+                strings.add(value);
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the number of bytes of an index of the dictionary of the string column.
+     *
+     * @param columnIndex the index of the string column
+     * @return the number of bytes of an index
+     */
+    private int getIndexWidth(int columnIndex) {
+        int size = this.dictionaryStrings.get(columnIndex).size();
+
+        return size <= 0x100 ? 1 : size <= 0x10000 ? 2 : 4;
+    }
+
+    /**
+     * Clears the references to the planned values, so that the encoded values are not retained by the encoder.
+     *
+     * @param columnCount the number of the columns
+     * @param rowCount    the number of the rows to clear
+     */
+    private void clearValues(int columnCount, int rowCount) {
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            Arrays.fill(this.columnValues[columnIndex], 0, Math.min(rowCount + 1, this.columnValues[columnIndex].length), null);
+        }
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            this.dictionaries.get(columnIndex).clear();
+            this.dictionaryStrings.get(columnIndex).clear();
+        }
+    }
+
+    /**
+     * @return the number of bytes of the planned columnar block
+     */
+    long getLength() {
+        return this.length;
+    }
+
+    /**
+     * Drops the column arrays and the dictionaries if a column has grown over the max length, so that the encoder of a thread does not retain the buffers of its largest array.
+     *
+     * @param maxLength the max number of the rows to keep
+     */
+    void trim(int maxLength) {
+        boolean oversized = false;
+
+        for (int columnIndex = 0; columnIndex < this.columnValues.length; columnIndex++) {
+            if (this.columnValues[columnIndex].length > maxLength || this.dictionaryLengths.get(columnIndex).length > maxLength) {
+                oversized = true;
+                break;
+            }
+        }
+
+        if (oversized) {
+            this.columnValues = new Object[0][];
+            this.columnTypes = new byte[0];
+            this.columnNullables = new boolean[0];
+            this.columnPresentCounts = new int[0];
+            this.columnLengths = new long[0];
+
+            this.dictionaries.clear();
+            this.dictionaryStrings.clear();
+            this.dictionaryLengths.clear();
+        }
+    }
+
+    /**
+     * Clears the planned columnar block without writing it.
+     */
+    void clear() {
+        if (this.rowCount > 0) {
+            this.clearValues(this.keys.length, this.rowCount);
+            this.rowCount = 0;
+        }
+    }
+
+    /**
+     * Writes the literal value as a dense block.
+     *
+     * @param writer the writer to write the encoded data
+     * @param value  the literal value
+     * @param length the number of bytes of the literal block
+     * @throws IOException if an I/O error occurs when writing to byte stream
+     */
+    private static void writeLiteralBlock(Writer writer, Object value, int length) throws IOException {
+        if (value == null) {
+            writer.writeByte(DenseCodec.CONST_TYPE_NULL);
+            return;
+        }
+
+        byte type = getLiteralType(value);
+
+        writer.writeByte(type);
+
+        if (type == DenseCodec.CONST_TYPE_STRING) {
+            writer.writeInt(length - 1 - 4);
+            writer.writeUTF8((String) value, length - 1 - 4);
+        } else {
+            writeLiteral(writer, type, value);
+        }
+    }
+
+    /**
+     * Writes the literal value of the type without the type header.
+     *
+     * @param writer the writer to write the encoded data
+     * @param type   the type of the literal value
+     * @param value  the literal value
+     * @throws IOException if an I/O error occurs when writing to byte stream
+     */
+    private static void writeLiteral(Writer writer, byte type, Object value) throws IOException {
+        if (type == DenseCodec.CONST_TYPE_INTEGER) {
+            writer.writeInt((Integer) value);
+        } else if (type == DenseCodec.CONST_TYPE_LONG) {
+            writer.writeLong((Long) value);
+        } else if (type == DenseCodec.CONST_TYPE_DOUBLE) {
+            writer.writeDouble((Double) value);
+        } else if (type == DenseCodec.CONST_TYPE_BOOLEAN) {
+            writer.writeByte((Boolean) value ? 1 : 0);
+        } else if (type == DenseCodec.CONST_TYPE_FLOAT) {
+            writer.writeFloat((Float) value);
+        } else if (type == DenseCodec.CONST_TYPE_SHORT) {
+            writer.writeShort((Short) value);
+        } else if (type == DenseCodec.CONST_TYPE_BYTE) {
+            writer.writeByte((Byte) value);
+        } else if (type == DenseCodec.CONST_TYPE_CHARACTER) {
+            writer.writeChar((Character) value);
+        }
+    }
+
+    /**
+     * Writes the planned columnar block, and clears the references to the planned values.
+     * (columnar block protocol: header(1 byte), row count(4 bytes), column count(4 bytes), body length(4 bytes), key blocks, columns)
+     * (column protocol: type(1 byte), flags(1 byte), column length(4 bytes), null bitmap if flagged (1 bit per row), values of the non-null rows)
+     * (string column values: dictionary size(4 bytes), dictionary strings(4 bytes length, UTF-8 bytes), index width(1 byte), dictionary indexes)
+     *
+     * @param writer the writer to write the encoded data
+     * @throws IOException           if an I/O error occurs when writing to byte stream
+     * @throws IllegalStateException if the columnar block is not planned
+     */
+    void write(Writer writer) throws IOException {
+        int rowCount = this.rowCount;
+        int columnCount = this.keys == null ? 0 : this.keys.length;
+
+        if (rowCount == 0) {
+            throw new IllegalStateException("Columnar block is not planned.");
+        }
+
+        writer.writeByte(DenseCodec.CONST_TYPE_COLUMNAR_OPACK_ARRAY);
+        writer.writeInt(rowCount);
+        writer.writeInt(columnCount);
+        writer.writeInt((int) (this.length - 1 - 4 - 4 - 4));
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            writeLiteralBlock(writer, this.keys[columnIndex], this.keyLengths[columnIndex]);
+        }
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            Object[] values = this.columnValues[columnIndex];
+            byte columnType = this.columnTypes[columnIndex];
+            boolean nullable = this.columnNullables[columnIndex];
+
+            writer.writeByte(columnType);
+            writer.writeByte(nullable ? CONST_COLUMN_FLAG_NULL_BITMAP : 0);
+            writer.writeInt((int) this.columnLengths[columnIndex]);
+
+            if (nullable) {
+                for (int rowIndex = 0; rowIndex < rowCount; rowIndex += 8) {
+                    int bits = 0;
+
+                    for (int bit = 0; bit < 8 && rowIndex + bit < rowCount; bit++) {
+                        if (values[rowIndex + bit] != null) {
+                            bits |= 0x80 >>> bit;
+                        }
+                    }
+
+                    writer.writeByte(bits);
+                }
+            }
+
+            if (columnType == DenseCodec.CONST_TYPE_STRING) {
+                HashMap<String, Integer> dictionary = this.dictionaries.get(columnIndex);
+                List<String> strings = this.dictionaryStrings.get(columnIndex);
+                int[] lengths = this.dictionaryLengths.get(columnIndex);
+                int indexWidth = this.getIndexWidth(columnIndex);
+
+                writer.writeInt(strings.size());
+
+                for (int dictionaryIndex = 0; dictionaryIndex < strings.size(); dictionaryIndex++) {
+                    writer.writeInt(lengths[dictionaryIndex]);
+                    writer.writeUTF8(strings.get(dictionaryIndex), lengths[dictionaryIndex]);
+                }
+
+                writer.writeByte(indexWidth);
+
+                for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+                    if (values[rowIndex] != null) {
+                        int dictionaryIndex = dictionary.get((String) values[rowIndex]);
+
+                        if (indexWidth == 1) {
+                            writer.writeByte(dictionaryIndex);
+                        } else if (indexWidth == 2) {
+                            writer.writeShort((short) dictionaryIndex);
+                        } else {
+                            writer.writeInt(dictionaryIndex);
+                        }
+                    }
+                }
+            } else if (columnType != DenseCodec.CONST_TYPE_NULL) {
+                for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+                    if (values[rowIndex] != null) {
+                        writeLiteral(writer, columnType, values[rowIndex]);
+                    }
+                }
+            }
+        }
+
+        this.clearValues(columnCount, rowCount);
+        this.rowCount = 0;
+    }
+}
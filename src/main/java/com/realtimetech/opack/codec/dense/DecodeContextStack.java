@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.value.OpackValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+final class DecodeContextStack {
+    private OpackValue @NotNull [] values;
+    private int @NotNull [] sizes;
+    private int @NotNull [] offsets;
+    private Object @NotNull [] pendingKeys;
+
+    private int currentIndex;
+
+    private final int initialSize;
+
+    /**
+     * Constructs a DecodeContextStack with initial size.
+     *
+     * @param initialSize the initial size
+     */
+    DecodeContextStack(int initialSize) {
+        int size = Math.max(initialSize, 4);
+
+        this.values = new OpackValue[size];
+        this.sizes = new int[size];
+        this.offsets = new int[size];
+        this.pendingKeys = new Object[size];
+
+        this.currentIndex = 0;
+
+        this.initialSize = size;
+    }
+
+    /**
+     * Double the stack size.
+     */
+    private void growArray() {
+        int size = this.values.length << 1;
+
+        this.values = Arrays.copyOf(this.values, size);
+        this.sizes = Arrays.copyOf(this.sizes, size);
+        this.offsets = Arrays.copyOf(this.offsets, size);
+        this.pendingKeys = Arrays.copyOf(this.pendingKeys, size);
+    }
+
+    /**
+     * Pushes the context of the container being decoded, the offset starts at 0 and there is no pending key.
+     *
+     * @param value the container being decoded
+     * @param size  the number of elements of the container
+     */
+    void push(@NotNull OpackValue value, int size) {
+        if (this.currentIndex >= this.values.length) {
+            this.growArray();
+        }
+
+        this.values[this.currentIndex] = value;
+        this.sizes[this.currentIndex] = size;
+        this.offsets[this.currentIndex] = 0;
+        this.pendingKeys[this.currentIndex] = DenseCodec.CONTEXT_NULL_OBJECT;
+
+        this.currentIndex++;
+    }
+
+    /**
+     * Removes the top context, the references of the context are cleared.
+     *
+     * @throws EmptyStackException if this stack is empty
+     */
+    void pop() {
+        if (this.currentIndex == 0) {
+            throw new EmptyStackException();
+        }
+
+        this.currentIndex--;
+
+        this.values[this.currentIndex] = null;
+        this.pendingKeys[this.currentIndex] = null;
+    }
+
+    /**
+     * @return true if this stack is empty
+     */
+    boolean isEmpty() {
+        return this.currentIndex == 0;
+    }
+
+    /**
+     * @return the index of the top context
+     */
+    int getTopIndex() {
+        return this.currentIndex - 1;
+    }
+
+    /**
+     * @return the container of the top context
+     */
+    @NotNull OpackValue peekValue() {
+        if (this.currentIndex == 0) {
+            throw new EmptyStackException();
+        }
+
+        return this.values[this.currentIndex - 1];
+    }
+
+    /**
+     * @param index the index of the context
+     * @return the container of the context
+     */
+    @NotNull OpackValue getValue(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * @param index the index of the context
+     * @return the number of elements of the container
+     */
+    int getSize(int index) {
+        return this.sizes[index];
+    }
+
+    /**
+     * @param index the index of the context
+     * @return the number of elements already decoded
+     */
+    int getOffset(int index) {
+        return this.offsets[index];
+    }
+
+    /**
+     * @param index  the index of the context
+     * @param offset the number of elements already decoded
+     */
+    void setOffset(int index, int offset) {
+        this.offsets[index] = offset;
+    }
+
+    /**
+     * @param index the index of the context
+     * @return the key whose value is not decoded yet, or CONTEXT_NULL_OBJECT if there is no pending key
+     */
+    Object getPendingKey(int index) {
+        return this.pendingKeys[index];
+    }
+
+    /**
+     * @param index      the index of the context
+     * @param pendingKey the key whose value is not decoded yet, or CONTEXT_NULL_OBJECT if there is no pending key
+     */
+    void setPendingKey(int index, Object pendingKey) {
+        this.pendingKeys[index] = pendingKey;
+    }
+
+    /**
+     * Removes all contexts, the references of the contexts are cleared so that the stack can be reused.
+     */
+    void reset() {
+        Arrays.fill(this.values, 0, this.currentIndex, null);
+        Arrays.fill(this.pendingKeys, 0, this.currentIndex, null);
+
+        this.currentIndex = 0;
+    }
+
+    /**
+     * Removes all contexts, and drops the arrays if they have grown over both the max size and the initial size, so that a reused stack does not retain its largest arrays.
+     *
+     * @param maxSize the max size of the arrays to keep
+     */
+    void reset(int maxSize) {
+        if (this.values.length > Math.max(maxSize, this.initialSize)) {
+            this.values = new OpackValue[this.initialSize];
+            this.sizes = new int[this.initialSize];
+            this.offsets = new int[this.initialSize];
+            this.pendingKeys = new Object[this.initialSize];
+
+            this.currentIndex = 0;
+        } else {
+            this.reset();
+        }
+    }
+}
@@ -24,13 +24,18 @@ package com.realtimetech.opack.codec.dense;
 
 import com.realtimetech.opack.codec.OpackCodec;
 import com.realtimetech.opack.codec.dense.reader.ByteArrayReader;
+import com.realtimetech.opack.codec.dense.reader.CompressedReader;
 import com.realtimetech.opack.codec.dense.reader.Reader;
+import com.realtimetech.opack.codec.dense.writer.ByteArraySliceWriter;
 import com.realtimetech.opack.codec.dense.writer.ByteArrayWriter;
+import com.realtimetech.opack.codec.dense.writer.CompressedWriter;
 import com.realtimetech.opack.codec.dense.writer.Writer;
 import com.realtimetech.opack.exception.DecodeException;
 import com.realtimetech.opack.exception.EncodeException;
 import com.realtimetech.opack.util.OpackArrayConverter;
 import com.realtimetech.opack.util.ReflectionUtil;
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.util.UTF8Util;
 import com.realtimetech.opack.util.UnsafeOpackValue;
 import com.realtimetech.opack.util.structure.FastStack;
 import com.realtimetech.opack.util.structure.NativeList;
@@ -40,20 +45,34 @@ import com.realtimetech.opack.value.OpackValue;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 public final class DenseCodec extends OpackCodec<Reader, Writer> {
     public final static class Builder {
         private int encodeStackInitialSize;
         private int decodeStackInitialSize;
+        private int compressionBlockSize;
+        private StringCache stringCache;
+        private boolean packNativeArrays;
+        private boolean packFloatingArrays;
+        private boolean columnarArrays;
+        private boolean decodeColumns;
 
         boolean ignoreVersionCompare;
 
         public Builder() {
             this.encodeStackInitialSize = 128;
             this.decodeStackInitialSize = 128;
+            this.compressionBlockSize = 0;
+            this.stringCache = null;
+            this.packNativeArrays = false;
+            this.packFloatingArrays = false;
+            this.columnarArrays = false;
+            this.decodeColumns = false;
 
             this.ignoreVersionCompare = false;
         }
@@ -73,35 +92,205 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
             return this;
         }
 
+        public Builder setCompressionBlockSize(int compressionBlockSize) {
+            this.compressionBlockSize = compressionBlockSize;
+            return this;
+        }
+
+        public Builder setStringCache(StringCache stringCache) {
+            this.stringCache = stringCache;
+            return this;
+        }
+
+        public Builder setPackNativeArrays(boolean packNativeArrays) {
+            this.packNativeArrays = packNativeArrays;
+            return this;
+        }
+
+        public Builder setPackFloatingArrays(boolean packFloatingArrays) {
+            this.packFloatingArrays = packFloatingArrays;
+            return this;
+        }
+
+        public Builder setColumnarArrays(boolean columnarArrays) {
+            this.columnarArrays = columnarArrays;
+            return this;
+        }
+
+        public Builder setDecodeColumns(boolean decodeColumns) {
+            this.decodeColumns = decodeColumns;
+            return this;
+        }
+
+        /**
+         * Create the {@link DenseCodec DenseCodec}.
+         * The codec keeps the scratch buffers for each thread using it, so the codec should be created once and shared rather than created for each call.
+         *
+         * @return created dense codec
+         */
         public DenseCodec create() {
             return new DenseCodec(this);
         }
     }
 
+    private static final class IndexedFrame {
+        private final OpackValue opackValue;
+        private final Object[] keys;
+        private final int size;
+
+        private final int tablePosition;
+        private final long[] table;
+
+        private int index;
+
+        /**
+         * Constructs the frame of the indexed container being encoded.
+         *
+         * @param opackValue    the container being encoded
+         * @param size          the number of elements of the container
+         * @param tablePosition the position of the offset table
+         */
+        IndexedFrame(OpackValue opackValue, int size, int tablePosition) {
+            this.opackValue = opackValue;
+            this.keys = opackValue instanceof OpackObject ? ((OpackObject<?, ?>) opackValue).keySet().toArray() : null;
+            this.size = size;
+
+            this.tablePosition = tablePosition;
+            this.table = new long[size];
+
+            this.index = 0;
+        }
+    }
+
+    private static final class Context {
+        private final FastStack<Object> encodeStack;
+
+        private int[] stringLengthCache;
+        private int stringLengthCount;
+
+        private int[] arrayPlanCache;
+        private int arrayPlanCount;
+        private int arrayPlanIndex;
+
+        private final DecodeContextStack decodeContextStack;
+        private final DecodeContextStack projectionContextStack;
+        private final FastStack<DenseProjection> projectionStack;
+        private byte[] projectionKeyBuffer;
+
+        private final byte[] decodeStringBuffer;
+
+        private final NativeArrayPacker nativeArrayPacker;
+        private final ColumnarArrayEncoder columnarArrayEncoder;
+
+        /**
+         * Constructs the scratch state of a thread using the codec, so the threads can encode and decode through the codec at the same time.
+         *
+         * @param encodeStackInitialSize the initial size of the encode stack
+         * @param decodeStackInitialSize the initial size of the decode stack
+         * @param stringCache            the string cache of the codec, or null if not used
+         * @param packArrays             true if packing the native arrays or the floating arrays is enabled
+         * @param columnarArrays         true if encoding the columnar arrays is enabled
+         */
+        Context(int encodeStackInitialSize, int decodeStackInitialSize, StringCache stringCache, boolean packArrays, boolean columnarArrays) {
+            this.encodeStack = new FastStack<>(encodeStackInitialSize);
+
+            this.stringLengthCache = new int[64];
+            this.stringLengthCount = 0;
+
+            this.arrayPlanCache = new int[64];
+            this.arrayPlanCount = 0;
+            this.arrayPlanIndex = 0;
+
+            this.decodeContextStack = new DecodeContextStack(decodeStackInitialSize);
+            this.projectionContextStack = new DecodeContextStack(4);
+            this.projectionStack = new FastStack<>(4);
+            this.projectionKeyBuffer = new byte[64];
+
+            this.decodeStringBuffer = stringCache == null ? null : new byte[stringCache.getMaxLength()];
+
+            this.nativeArrayPacker = packArrays ? new NativeArrayPacker() : null;
+            this.columnarArrayEncoder = columnarArrays ? new ColumnarArrayEncoder() : null;
+        }
+
+        /**
+         * Drops the encoding buffers which have grown over the max length, so that the context does not retain the buffers of the largest value encoded by the thread.
+         *
+         * @param maxLength the max length of the buffers to keep
+         */
+        void trimEncode(int maxLength) {
+            this.encodeStack.reset(maxLength);
+
+            if (this.stringLengthCache.length > maxLength) {
+                this.stringLengthCache = new int[64];
+            }
+
+            if (this.arrayPlanCache.length > maxLength) {
+                this.arrayPlanCache = new int[64];
+            }
+
+            if (this.nativeArrayPacker != null) {
+                this.nativeArrayPacker.trim(maxLength);
+            }
+
+            if (this.columnarArrayEncoder != null) {
+                this.columnarArrayEncoder.trim(maxLength);
+            }
+        }
+
+        /**
+         * Drops the projection buffers which have grown over the max length, so that the context does not retain the buffers of the largest value decoded by the thread.
+         *
+         * @param maxLength the max length of the buffers to keep
+         */
+        void trimProjection(int maxLength) {
+            this.projectionContextStack.reset(maxLength);
+            this.projectionStack.reset(maxLength);
+
+            if (this.projectionKeyBuffer.length > maxLength) {
+                this.projectionKeyBuffer = new byte[64];
+            }
+        }
+    }
+
     /*
         DO NOT CHANGE CLASSIFIER
      */
     private static final byte[] CONST_DENSE_CODEC_CLASSIFIER = new byte[]{0x20, 0x22, 'D', 'S'};
+    private static final byte[] CONST_DENSE_CODEC_COMPRESSED_CLASSIFIER = new byte[]{0x20, 0x22, 'D', 'Z'};
+    static final byte[] CONST_DENSE_RECORD_STREAM_CLASSIFIER = new byte[]{0x20, 0x22, 'D', 'R'};
+    static final byte[] CONST_DENSE_INDEXED_CLASSIFIER = new byte[]{0x20, 0x22, 'D', 'I'};
+
+    private static final int CONST_MAX_COMPRESSION_BLOCK_SIZE = 1 << 26;
+
+    /*
+        The scratch buffers of a thread which have grown over this length are dropped after each call, the smaller ones are kept for the next call
+     */
+    private static final int CONST_MAX_RETAINED_LENGTH = 1 << 16;
 
     /*
         !! IMPORTANT !!
         If the structure of Dense Codec changes, you must change(increase) the version
+        The packed version is written by the codecs which pack the native arrays, the floating arrays or encode the columnar arrays, the streams of both versions are decoded
      */
-    private static final byte[] CONST_DENSE_CODEC_VERSION = new byte[]{0x00, 0x01};
+    static final byte[] CONST_DENSE_CODEC_VERSION = new byte[]{0x00, 0x01};
+    static final byte[] CONST_DENSE_CODEC_PACKED_VERSION = new byte[]{0x00, 0x02};
 
     private static final byte CONST_TYPE_OPACK_OBJECT = 0x00;
     private static final byte CONST_TYPE_OPACK_ARRAY = 0x01;
-
-    private static final byte CONST_TYPE_BOOLEAN = 0x10;
-    private static final byte CONST_TYPE_BYTE = 0x11;
-    private static final byte CONST_TYPE_CHARACTER = 0x12;
-    private static final byte CONST_TYPE_SHORT = 0x13;
-    private static final byte CONST_TYPE_INTEGER = 0x14;
-    private static final byte CONST_TYPE_FLOAT = 0x15;
-    private static final byte CONST_TYPE_LONG = 0x16;
-    private static final byte CONST_TYPE_DOUBLE = 0x17;
-    private static final byte CONST_TYPE_NULL = 0x18;
-    private static final byte CONST_TYPE_STRING = 0x19;
+    static final byte CONST_TYPE_INDEXED_OPACK_OBJECT = 0x02;
+    static final byte CONST_TYPE_INDEXED_OPACK_ARRAY = 0x03;
+    static final byte CONST_TYPE_COLUMNAR_OPACK_ARRAY = 0x04;
+
+    static final byte CONST_TYPE_BOOLEAN = 0x10;
+    static final byte CONST_TYPE_BYTE = 0x11;
+    static final byte CONST_TYPE_CHARACTER = 0x12;
+    static final byte CONST_TYPE_SHORT = 0x13;
+    static final byte CONST_TYPE_INTEGER = 0x14;
+    static final byte CONST_TYPE_FLOAT = 0x15;
+    static final byte CONST_TYPE_LONG = 0x16;
+    static final byte CONST_TYPE_DOUBLE = 0x17;
+    static final byte CONST_TYPE_NULL = 0x18;
+    static final byte CONST_TYPE_STRING = 0x19;
 
     private static final byte CONST_PRIMITIVE_BOOLEAN_NATIVE_ARRAY = 0x20;
     private static final byte CONST_PRIMITIVE_BYTE_NATIVE_ARRAY = 0x21;
@@ -121,32 +310,79 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
     private static final byte CONST_WRAPPER_LONG_NATIVE_ARRAY = 0x36;
     private static final byte CONST_WRAPPER_DOUBLE_NATIVE_ARRAY = 0x37;
 
+    private static final byte CONST_DELTA_INTEGER_NATIVE_ARRAY = 0x44;
+    private static final byte CONST_DELTA_LONG_NATIVE_ARRAY = 0x46;
+    private static final byte CONST_FRAME_OF_REFERENCE_INTEGER_NATIVE_ARRAY = 0x54;
+    private static final byte CONST_FRAME_OF_REFERENCE_LONG_NATIVE_ARRAY = 0x56;
+    private static final byte CONST_RUN_LENGTH_INTEGER_NATIVE_ARRAY = 0x64;
+    private static final byte CONST_RUN_LENGTH_LONG_NATIVE_ARRAY = 0x66;
+    private static final byte CONST_XOR_FLOAT_NATIVE_ARRAY = 0x75;
+    private static final byte CONST_XOR_DOUBLE_NATIVE_ARRAY = 0x77;
+
     private static final byte CONST_NO_NATIVE_ARRAY = 0x0F;
 
-    private static final Object CONTEXT_NULL_OBJECT = new Object();
-    private static final Object CONTEXT_BRANCH_CONTEXT_OBJECT = new Object();
+    static final Object CONTEXT_NULL_OBJECT = new Object();
+    static final Object CONTEXT_BRANCH_CONTEXT_OBJECT = new Object();
+
+    private final ThreadLocal<Context> contexts;
 
-    private final FastStack<Object> encodeStack;
+    private final StringCache stringCache;
 
-    private final FastStack<OpackValue> decodeStack;
-    private final FastStack<Object[]> decodeContextStack;
+    private final int decodeStackInitialSize;
+
+    private final boolean packNativeArrays;
+    private final boolean packFloatingArrays;
+
+    private final boolean decodeColumns;
 
     private final boolean ignoreVersionCompare;
+    private final int compressionBlockSize;
+
+    private final byte[] encodeVersion;
 
     /**
      * Constructs the DenseCodec with the builder of DenseCodec.
      *
      * @param builder the builder of DenseCodec
+     * @throws IllegalArgumentException if the compression block size is out of range
      */
     private DenseCodec(Builder builder) {
         super();
 
-        this.encodeStack = new FastStack<>(builder.encodeStackInitialSize);
+        if (builder.compressionBlockSize != 0 && (builder.compressionBlockSize < 16 || builder.compressionBlockSize > CONST_MAX_COMPRESSION_BLOCK_SIZE)) {
+            throw new IllegalArgumentException("Compression block size must be 0 or between 16 and " + CONST_MAX_COMPRESSION_BLOCK_SIZE + ", but got " + builder.compressionBlockSize + ".");
+        }
+
+        int encodeStackInitialSize = builder.encodeStackInitialSize;
+        int decodeStackInitialSize = builder.decodeStackInitialSize;
+        StringCache stringCache = builder.stringCache;
+        boolean packArrays = builder.packNativeArrays || builder.packFloatingArrays;
+        boolean columnarArrays = builder.columnarArrays;
+
+        this.contexts = ThreadLocal.withInitial(() -> new Context(encodeStackInitialSize, decodeStackInitialSize, stringCache, packArrays, columnarArrays));
+
+        this.decodeStackInitialSize = decodeStackInitialSize;
+
+        this.stringCache = stringCache;
 
-        this.decodeStack = new FastStack<>(builder.decodeStackInitialSize);
-        this.decodeContextStack = new FastStack<>(builder.decodeStackInitialSize);
+        this.packNativeArrays = builder.packNativeArrays;
+        this.packFloatingArrays = builder.packFloatingArrays;
+
+        this.decodeColumns = builder.decodeColumns;
 
         this.ignoreVersionCompare = builder.ignoreVersionCompare;
+        this.compressionBlockSize = builder.compressionBlockSize;
+
+        this.encodeVersion = packArrays || columnarArrays ? CONST_DENSE_CODEC_PACKED_VERSION : CONST_DENSE_CODEC_VERSION;
+    }
+
+    /**
+     * Returns the version written to the header of the encoded data, the packed version if the encoded data may contain the packed native arrays or the columnar arrays.
+     *
+     * @return the version
+     */
+    byte[] getEncodeVersion() {
+        return this.encodeVersion;
     }
 
     /**
@@ -159,13 +395,89 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
      */
     @Override
     protected void doEncode(Writer writer, OpackValue opackValue) throws IOException {
+        if (this.compressionBlockSize > 0) {
+            writer.writeBytes(CONST_DENSE_CODEC_COMPRESSED_CLASSIFIER);
+            writer.writeInt(this.compressionBlockSize);
+
+            CompressedWriter compressedWriter = new CompressedWriter(writer, this.compressionBlockSize);
+
+            this.encodeBody(compressedWriter, opackValue);
+
+            compressedWriter.finish();
+        } else {
+            this.encodeBody(writer, opackValue);
+        }
+    }
+
+    /**
+     * Encodes the OpackValue to the dense format data with the dense header.
+     *
+     * @param writer     the writer to write the encoded data
+     * @param opackValue the OpackValue to encode
+     * @throws IOException              if an I/O error occurs when writing to byte stream
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    private void encodeBody(Writer writer, OpackValue opackValue) throws IOException {
         writer.writeBytes(CONST_DENSE_CODEC_CLASSIFIER);
-        writer.writeBytes(CONST_DENSE_CODEC_VERSION);
+        writer.writeBytes(this.encodeVersion);
+
+        this.encodeBlocks(writer, opackValue);
+    }
+
+    /**
+     * Encodes the OpackValue to the dense format blocks without the dense header.
+     *
+     * @param writer     the writer to write the encoded data
+     * @param opackValue the OpackValue to encode
+     * @throws IOException              if an I/O error occurs when writing to byte stream
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    void encodeBlocks(Writer writer, OpackValue opackValue) throws IOException {
+        this.encodeBlocks(writer, opackValue, null);
+    }
+
+    /**
+     * Encodes the OpackValue to the dense format blocks without the dense header.
+     * If the measured writer is given, the strings are written directly in UTF-8 with the lengths cached by {@link #measureBlocks(OpackValue) measureBlocks}, and the arrays are packed or written as the columnar blocks by the plans cached by it.
+     *
+     * @param writer         the writer to write the encoded data
+     * @param rootObject     the OpackValue or the literal value to encode
+     * @param measuredWriter the slice writer sized by measuring the opack value, or null if not measured
+     * @throws IOException              if an I/O error occurs when writing to byte stream
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    private void encodeBlocks(Writer writer, Object rootObject, ByteArraySliceWriter measuredWriter) throws IOException {
+        Context context = this.contexts.get();
+
+        try {
+            this.encodeBlocks(context, writer, rootObject, measuredWriter);
+        } finally {
+            context.trimEncode(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
+
+    /**
+     * Encodes the OpackValue to the dense format blocks without the dense header, through the scratch state of the thread.
+     *
+     * @param context        the scratch state of the thread
+     * @param writer         the writer to write the encoded data
+     * @param rootObject     the OpackValue or the literal value to encode
+     * @param measuredWriter the slice writer sized by measuring the opack value, or null if not measured
+     * @throws IOException              if an I/O error occurs when writing to byte stream
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    private void encodeBlocks(Context context, Writer writer, Object rootObject, ByteArraySliceWriter measuredWriter) throws IOException {
+        FastStack<Object> encodeStack = context.encodeStack;
+        int stringLengthIndex = 0;
+        boolean measured = measuredWriter != null;
 
-        this.encodeStack.push(opackValue);
+        context.arrayPlanIndex = 0;
 
-        while (!this.encodeStack.isEmpty()) {
-            Object object = this.encodeStack.pop();
+        encodeStack.reset();
+        encodeStack.push(rootObject);
+
+        while (!encodeStack.isEmpty()) {
+            Object object = encodeStack.pop();
 
             if (object == null) {
                 writer.writeByte(CONST_TYPE_NULL);
@@ -187,8 +499,8 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
 
                 for (Object key : opackObject.keySet()) {
                     Object value = opackObject.get(key);
-                    this.encodeStack.push(value);
-                    this.encodeStack.push(key);
+                    encodeStack.push(value);
+                    encodeStack.push(key);
                 }
             } else if (objectType == OpackArray.class) {
                 OpackArray<Object> opackArray = (OpackArray<Object>) object;
@@ -197,6 +509,11 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
                 try {
                     List<?> opackArrayList = UnsafeOpackValue.getList(opackArray);
 
+                    if (context.columnarArrayEncoder != null && !(opackArrayList instanceof NativeList) && planColumnarArray(context, opackArray, measured)) {
+                        context.columnarArrayEncoder.write(writer);
+                        continue;
+                    }
+
                     writer.writeByte(CONST_TYPE_OPACK_ARRAY);
                     writer.writeInt(length);
 
@@ -250,40 +567,48 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
                         } else if (arrayType == int[].class) {
                             int[] array = (int[]) arrayObject;
 
-                            writer.writeByte(CONST_PRIMITIVE_INTEGER_NATIVE_ARRAY);
+                            if (!this.writePackedNativeArray(context, writer, array, measured)) {
+                                writer.writeByte(CONST_PRIMITIVE_INTEGER_NATIVE_ARRAY);
 
-                            for (int value : array) {
-                                writer.writeInt(value);
+                                for (int value : array) {
+                                    writer.writeInt(value);
+                                }
                             }
 
                             optimized = true;
                         } else if (arrayType == float[].class) {
                             float[] array = (float[]) arrayObject;
 
-                            writer.writeByte(CONST_PRIMITIVE_FLOAT_NATIVE_ARRAY);
+                            if (!this.writePackedNativeArray(context, writer, array, measured)) {
+                                writer.writeByte(CONST_PRIMITIVE_FLOAT_NATIVE_ARRAY);
 
-                            for (float value : array) {
-                                writer.writeFloat(value);
+                                for (float value : array) {
+                                    writer.writeFloat(value);
+                                }
                             }
 
                             optimized = true;
                         } else if (arrayType == long[].class) {
                             long[] array = (long[]) arrayObject;
 
-                            writer.writeByte(CONST_PRIMITIVE_LONG_NATIVE_ARRAY);
+                            if (!this.writePackedNativeArray(context, writer, array, measured)) {
+                                writer.writeByte(CONST_PRIMITIVE_LONG_NATIVE_ARRAY);
 
-                            for (long value : array) {
-                                writer.writeLong(value);
+                                for (long value : array) {
+                                    writer.writeLong(value);
+                                }
                             }
 
                             optimized = true;
                         } else if (arrayType == double[].class) {
                             double[] array = (double[]) arrayObject;
 
-                            writer.writeByte(CONST_PRIMITIVE_DOUBLE_NATIVE_ARRAY);
+                            if (!this.writePackedNativeArray(context, writer, array, measured)) {
+                                writer.writeByte(CONST_PRIMITIVE_DOUBLE_NATIVE_ARRAY);
 
-                            for (double value : array) {
-                                writer.writeDouble(value);
+                                for (double value : array) {
+                                    writer.writeDouble(value);
+                                }
                             }
 
                             optimized = true;
@@ -448,11 +773,12 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
                     writer.writeDouble((double) object);
                 } else if (objectType == String.class) {
                     String string = (String) object;
-                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+                    int length = measured ? context.stringLengthCache[stringLengthIndex++] : UTF8Util.getUTF8Length(string);
 
                     writer.writeByte(CONST_TYPE_STRING);
-                    writer.writeInt(bytes.length);
-                    writer.writeBytes(bytes);
+                    writer.writeInt(length);
+                    writer.writeUTF8(string, length);
                 } else {
                     throw new IllegalArgumentException(objectType + " is not allowed in dense format. (unknown literal object type).");
                 }
@@ -461,140 +787,811 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
     }
 
     /**
-     * Encodes the OpackValue to bytes through dense codec.
+     * Returns true if packing the type of the array is enabled.
      *
-     * @param opackValue the OpackValue to encode
-     * @return returns encoded bytes
-     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec
+     * @param arrayObject the array object of the native list
+     * @return true if the array is packable
      */
-    public byte[] encode(OpackValue opackValue) throws EncodeException {
-        ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+    private boolean isPackable(Object arrayObject) {
+        if (this.packNativeArrays && (arrayObject instanceof int[] || arrayObject instanceof long[])) {
+            return true;
+        }
+
+        return this.packFloatingArrays && (arrayObject instanceof float[] || arrayObject instanceof double[]);
+    }
 
-        this.encode(byteArrayWriter, opackValue);
+    /**
+     * Selects the packing of the packable int, long, float or double array.
+     *
+     * @param nativeArrayPacker the native array packer of the thread
+     * @param arrayObject       the array object of the native list
+     * @return the selected packing, or CONST_PACKING_NONE if the array is not packed
+     * @throws IOException if an I/O error occurs
+     */
+    private static int selectPacking(NativeArrayPacker nativeArrayPacker, Object arrayObject) throws IOException {
+        if (arrayObject instanceof int[]) {
+            return nativeArrayPacker.select((int[]) arrayObject);
+        } else if (arrayObject instanceof long[]) {
+            return nativeArrayPacker.select((long[]) arrayObject);
+        } else if (arrayObject instanceof float[]) {
+            return nativeArrayPacker.select((float[]) arrayObject);
+        } else if (arrayObject instanceof double[]) {
+            return nativeArrayPacker.select((double[]) arrayObject);
+        }
 
-        return byteArrayWriter.toByteArray();
+        return NativeArrayPacker.CONST_PACKING_NONE;
     }
 
     /**
-     * Decodes one block to OpackValue. (basic block protocol: header(1 byte), data (variable))
-     * If data of block to be decoded is OpackObject or OpackArray(excluding primitive array), returns CONTEXT_BRANCH_CONTEXT_OBJECT for linear decoding.
+     * Prepares the packable int, long, float or double array to be packed by the packing selected when measuring it.
      *
-     * @param reader the byte reader that wraps the data
-     * @return opack value or CONTEXT_BRANCH_CONTEXT_OBJECT
-     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format; if unknown block header is parsed
+     * @param nativeArrayPacker the native array packer of the thread
+     * @param arrayObject       the array object of the native list
+     * @param packing           the selected packing
+     * @param packedLength      the packed length of the selected packing
      */
-    Object decodeBlock(Reader reader) throws IOException {
-        byte b = (byte) reader.readByte();
+    private static void preparePacking(NativeArrayPacker nativeArrayPacker, Object arrayObject, int packing, int packedLength) {
+        if (arrayObject instanceof int[]) {
+            nativeArrayPacker.prepare((int[]) arrayObject, packing, packedLength);
+        } else if (arrayObject instanceof long[]) {
+            nativeArrayPacker.prepare((long[]) arrayObject, packing, packedLength);
+        } else if (arrayObject instanceof float[]) {
+            nativeArrayPacker.prepare((float[]) arrayObject, packing, packedLength);
+        } else if (arrayObject instanceof double[]) {
+            nativeArrayPacker.prepare((double[]) arrayObject, packing, packedLength);
+        }
+    }
 
-        if (b == CONST_TYPE_BOOLEAN) {
-            return (byte) reader.readByte() == 1;
-        } else if (b == CONST_TYPE_BYTE) {
-            return (byte) reader.readByte();
-        } else if (b == CONST_TYPE_CHARACTER) {
-            return reader.readChar();
-        } else if (b == CONST_TYPE_SHORT) {
-            return reader.readShort();
-        } else if (b == CONST_TYPE_INTEGER) {
-            return reader.readInt();
-        } else if (b == CONST_TYPE_FLOAT) {
-            return reader.readFloat();
-        } else if (b == CONST_TYPE_LONG) {
-            return reader.readLong();
-        } else if (b == CONST_TYPE_DOUBLE) {
-            return reader.readDouble();
-        } else if (b == CONST_TYPE_NULL) {
-            return null;
-        } else if (b == CONST_TYPE_STRING) {
-            int length = reader.readInt();
-            byte[] bytes = new byte[length];
-            reader.readBytes(bytes);
+    /**
+     * Caches the plan of an array measured by {@link #measureBlocks(OpackValue) measureBlocks}, the plans are read in the same order when encoding the measured value.
+     *
+     * @param context the context of the thread
+     * @param plan    the plan to cache
+     */
+    private static void cacheArrayPlan(Context context, int plan) {
+        if (context.arrayPlanCount == context.arrayPlanCache.length) {
+            context.arrayPlanCache = Arrays.copyOf(context.arrayPlanCache, context.arrayPlanCount << 1);
+        }
 
-            return new String(bytes, StandardCharsets.UTF_8);
-        } else if (b == CONST_TYPE_OPACK_OBJECT) {
-            int size = reader.readInt();
-            OpackObject<Object, Object> opackObject = new OpackObject<>(size);
+        context.arrayPlanCache[context.arrayPlanCount++] = plan;
+    }
 
-            decodeContextStack.push(new Object[]{size, 0, CONTEXT_NULL_OBJECT, CONTEXT_NULL_OBJECT});
-            decodeStack.push(opackObject);
+    /**
+     * Plans the columnar block of the array, or reads the plan cached when measuring the array.
+     *
+     * @param context    the context of the thread
+     * @param opackArray the array to plan
+     * @param measured   true if the array was measured by {@link #measureBlocks(OpackValue) measureBlocks}
+     * @return true if the array is written as the columnar block
+     */
+    private static boolean planColumnarArray(Context context, OpackArray<Object> opackArray, boolean measured) {
+        if (!measured) {
+            return context.columnarArrayEncoder.plan(opackArray);
+        }
 
-            return CONTEXT_BRANCH_CONTEXT_OBJECT;
-        } else if (b == CONST_TYPE_OPACK_ARRAY) {
-            int length = reader.readInt();
+        if (context.arrayPlanCache[context.arrayPlanIndex++] == 0) {
+            return false;
+        }
 
-            byte nativeType = (byte) reader.readByte();
+        context.columnarArrayEncoder.replan(opackArray);
 
-            if (nativeType == CONST_NO_NATIVE_ARRAY) {
-                OpackArray<Object> opackArray = new OpackArray<>(length);
+        return true;
+    }
 
-                decodeContextStack.push(new Object[]{length, 0});
-                decodeStack.push(opackArray);
+    /**
+     * Writes the int, long, float or double array packed by the packing which is smaller than the raw values, if packing the type of the array is enabled.
+     * If the array was measured, the packing cached when measuring it is used instead of selecting the packing again.
+     * (packed native array protocol: native type(1 byte), packed length(4 bytes), packed bytes (variable))
+     *
+     * @param context     the context of the thread
+     * @param writer      the writer to write the encoded data
+     * @param arrayObject the array object of the native list
+     * @param measured    true if the array was measured by {@link #measureBlocks(OpackValue) measureBlocks}
+     * @return true if the array is written, false if the array should be written as raw values
+     * @throws IOException if an I/O error occurs when writing to byte stream
+     */
+    private boolean writePackedNativeArray(Context context, Writer writer, Object arrayObject, boolean measured) throws IOException {
+        if (!this.isPackable(arrayObject)) {
+            return false;
+        }
 
-                return CONTEXT_BRANCH_CONTEXT_OBJECT;
-            } else {
-                if (nativeType == CONST_PRIMITIVE_BOOLEAN_NATIVE_ARRAY) {
-                    boolean[] array = new boolean[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = reader.readByte() == 1;
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_PRIMITIVE_BYTE_NATIVE_ARRAY) {
-                    byte[] array = new byte[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = (byte) reader.readByte();
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_PRIMITIVE_CHARACTER_NATIVE_ARRAY) {
-                    char[] array = new char[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = reader.readChar();
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_PRIMITIVE_SHORT_NATIVE_ARRAY) {
-                    short[] array = new short[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = reader.readShort();
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_PRIMITIVE_INTEGER_NATIVE_ARRAY) {
-                    int[] array = new int[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = reader.readInt();
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_PRIMITIVE_FLOAT_NATIVE_ARRAY) {
-                    float[] array = new float[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = reader.readFloat();
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_PRIMITIVE_LONG_NATIVE_ARRAY) {
-                    long[] array = new long[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = reader.readLong();
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_PRIMITIVE_DOUBLE_NATIVE_ARRAY) {
-                    double[] array = new double[length];
-                    for (int index = 0; index < array.length; index++) {
-                        array[index] = reader.readDouble();
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_WRAPPER_BOOLEAN_NATIVE_ARRAY) {
-                    Boolean[] array = new Boolean[length];
-                    for (int index = 0; index < array.length; index++) {
-                        boolean nullFlag = reader.readByte() == 1;
-                        if (nullFlag) {
-                            array[index] = reader.readByte() == 1;
-                        }
-                    }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_WRAPPER_BYTE_NATIVE_ARRAY) {
-                    Byte[] array = new Byte[length];
-                    for (int index = 0; index < array.length; index++) {
-                        boolean nullFlag = reader.readByte() == 1;
-                        if (nullFlag) {
-                            array[index] = (byte) reader.readByte();
-                        }
+        NativeArrayPacker nativeArrayPacker = context.nativeArrayPacker;
+        int packing;
+
+        if (measured) {
+            packing = context.arrayPlanCache[context.arrayPlanIndex++];
+
+            if (packing != NativeArrayPacker.CONST_PACKING_NONE) {
+                preparePacking(nativeArrayPacker, arrayObject, packing, context.arrayPlanCache[context.arrayPlanIndex++]);
+            }
+        } else {
+            packing = selectPacking(nativeArrayPacker, arrayObject);
+        }
+
+        if (packing == NativeArrayPacker.CONST_PACKING_NONE) {
+            return false;
+        }
+
+        boolean longArray = arrayObject instanceof long[];
+        byte nativeType;
+
+        if (packing == NativeArrayPacker.CONST_PACKING_XOR) {
+            nativeType = arrayObject instanceof double[] ? CONST_XOR_DOUBLE_NATIVE_ARRAY : CONST_XOR_FLOAT_NATIVE_ARRAY;
+        } else if (packing == NativeArrayPacker.CONST_PACKING_DELTA) {
+            nativeType = longArray ? CONST_DELTA_LONG_NATIVE_ARRAY : CONST_DELTA_INTEGER_NATIVE_ARRAY;
+        } else if (packing == NativeArrayPacker.CONST_PACKING_FRAME_OF_REFERENCE) {
+            nativeType = longArray ? CONST_FRAME_OF_REFERENCE_LONG_NATIVE_ARRAY : CONST_FRAME_OF_REFERENCE_INTEGER_NATIVE_ARRAY;
+        } else {
+            nativeType = longArray ? CONST_RUN_LENGTH_LONG_NATIVE_ARRAY : CONST_RUN_LENGTH_INTEGER_NATIVE_ARRAY;
+        }
+
+        int packedLength = nativeArrayPacker.getPackedLength();
+
+        writer.writeByte(nativeType);
+        writer.writeInt(packedLength);
+        writer.writeBytes(nativeArrayPacker.pack(), 0, packedLength);
+
+        return true;
+    }
+
+    /**
+     * Returns the packing of the native array type.
+     *
+     * @param nativeType the native array type
+     * @return the packing, or CONST_PACKING_NONE if the native array type is not packed
+     */
+    private static int getPacking(byte nativeType) {
+        if (nativeType == CONST_DELTA_INTEGER_NATIVE_ARRAY || nativeType == CONST_DELTA_LONG_NATIVE_ARRAY) {
+            return NativeArrayPacker.CONST_PACKING_DELTA;
+        } else if (nativeType == CONST_FRAME_OF_REFERENCE_INTEGER_NATIVE_ARRAY || nativeType == CONST_FRAME_OF_REFERENCE_LONG_NATIVE_ARRAY) {
+            return NativeArrayPacker.CONST_PACKING_FRAME_OF_REFERENCE;
+        } else if (nativeType == CONST_RUN_LENGTH_INTEGER_NATIVE_ARRAY || nativeType == CONST_RUN_LENGTH_LONG_NATIVE_ARRAY) {
+            return NativeArrayPacker.CONST_PACKING_RUN_LENGTH;
+        } else if (nativeType == CONST_XOR_FLOAT_NATIVE_ARRAY || nativeType == CONST_XOR_DOUBLE_NATIVE_ARRAY) {
+            return NativeArrayPacker.CONST_PACKING_XOR;
+        }
+
+        return NativeArrayPacker.CONST_PACKING_NONE;
+    }
+
+    /**
+     * Returns the number of bytes of the native array elements in dense format, or -1 if the array is not encoded natively.
+     *
+     * @param arrayObject the array object of the native list
+     * @return the number of bytes, or -1 if the array is not encoded natively
+     */
+    private static long measureNativeArray(Object arrayObject) {
+        Class<?> arrayType = arrayObject.getClass();
+
+        if (arrayType == boolean[].class) {
+            return ((boolean[]) arrayObject).length;
+        } else if (arrayType == byte[].class) {
+            return ((byte[]) arrayObject).length;
+        } else if (arrayType == char[].class) {
+            return ((char[]) arrayObject).length * 2L;
+        } else if (arrayType == short[].class) {
+            return ((short[]) arrayObject).length * 2L;
+        } else if (arrayType == int[].class) {
+            return ((int[]) arrayObject).length * 4L;
+        } else if (arrayType == float[].class) {
+            return ((float[]) arrayObject).length * 4L;
+        } else if (arrayType == long[].class) {
+            return ((long[]) arrayObject).length * 8L;
+        } else if (arrayType == double[].class) {
+            return ((double[]) arrayObject).length * 8L;
+        }
+
+        int elementSize;
+
+        if (arrayType == Boolean[].class || arrayType == Byte[].class) {
+            elementSize = 1;
+        } else if (arrayType == Character[].class || arrayType == Short[].class) {
+            elementSize = 2;
+        } else if (arrayType == Integer[].class || arrayType == Float[].class) {
+            elementSize = 4;
+        } else if (arrayType == Long[].class || arrayType == Double[].class) {
+            elementSize = 8;
+        } else {
+            return -1;
+        }
+
+        long size = 0;
+
+        for (Object value : (Object[]) arrayObject) {
+            size += value == null ? 1 : 1 + elementSize;
+        }
+
+        return size;
+    }
+
+    /**
+     * Measures the exact number of bytes of the dense format blocks of the OpackValue, and caches the UTF-8 lengths of the strings and the plans of the packed native arrays and the columnar arrays in encoding order.
+     * The cached lengths and plans are valid until the next call, so the opack value must not be modified before it is encoded.
+     *
+     * @param opackValue the OpackValue to measure
+     * @return the number of bytes
+     * @throws IOException              if an I/O error occurs when measuring the packed native arrays
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    private long measureBlocks(OpackValue opackValue) throws IOException {
+        Context context = this.contexts.get();
+        FastStack<Object> encodeStack = context.encodeStack;
+        long size = 0;
+
+        context.stringLengthCount = 0;
+        context.arrayPlanCount = 0;
+
+        encodeStack.reset();
+        encodeStack.push(opackValue);
+
+        while (!encodeStack.isEmpty()) {
+            Object object = encodeStack.pop();
+
+            if (object == null) {
+                size += 1;
+                continue;
+            }
+
+            Class<?> objectType = object.getClass();
+
+            if (objectType == String.class) {
+                int length = UTF8Util.getUTF8Length((String) object);
+
+                if (context.stringLengthCount == context.stringLengthCache.length) {
+                    context.stringLengthCache = Arrays.copyOf(context.stringLengthCache, context.stringLengthCount << 1);
+                }
+
+                context.stringLengthCache[context.stringLengthCount++] = length;
+
+                size += 1 + 4 + length;
+            } else if (objectType == Integer.class || objectType == Float.class) {
+                size += 1 + 4;
+            } else if (objectType == Long.class || objectType == Double.class) {
+                size += 1 + 8;
+            } else if (objectType == Boolean.class || objectType == Byte.class) {
+                size += 1 + 1;
+            } else if (objectType == Character.class || objectType == Short.class) {
+                size += 1 + 2;
+            } else if (objectType == OpackObject.class) {
+                OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) object;
+
+                size += 1 + 4;
+
+                for (Map.Entry<Object, Object> entry : opackObject.entrySet()) {
+                    encodeStack.push(entry.getValue());
+                    encodeStack.push(entry.getKey());
+                }
+            } else if (objectType == OpackArray.class) {
+                OpackArray<Object> opackArray = (OpackArray<Object>) object;
+                int length = opackArray.length();
+
+                try {
+                    List<?> opackArrayList = UnsafeOpackValue.getList(opackArray);
+                    long nativeSize = -1;
+
+                    if (context.columnarArrayEncoder != null && !(opackArrayList instanceof NativeList)) {
+                        boolean planned = context.columnarArrayEncoder.plan(opackArray);
+
+                        cacheArrayPlan(context, planned ? 1 : 0);
+
+                        if (planned) {
+                            size += context.columnarArrayEncoder.getLength();
+                            context.columnarArrayEncoder.clear();
+                            continue;
+                        }
+                    }
+
+                    size += 1 + 4 + 1;
+
+                    if (opackArrayList instanceof NativeList) {
+                        Object arrayObject = ((NativeList) opackArrayList).getArrayObject();
+                        int packing = NativeArrayPacker.CONST_PACKING_NONE;
+
+                        if (this.isPackable(arrayObject)) {
+                            packing = selectPacking(context.nativeArrayPacker, arrayObject);
+
+                            cacheArrayPlan(context, packing);
+                        }
+
+                        if (packing != NativeArrayPacker.CONST_PACKING_NONE) {
+                            int packedLength = context.nativeArrayPacker.getPackedLength();
+
+                            cacheArrayPlan(context, packedLength);
+
+                            nativeSize = 4 + packedLength;
+                        } else {
+                            nativeSize = measureNativeArray(arrayObject);
+                        }
+                    }
+
+                    if (nativeSize >= 0) {
+                        size += nativeSize;
+                    } else {
+                        for (int index = length - 1; index >= 0; index--) {
+                            Object value = opackArray.get(index);
+                            encodeStack.push(value);
+                        }
+                    }
+                } catch (InvocationTargetException | IllegalAccessException e) {
+                    throw new IllegalStateException("Failed to access the native list object in OpackArray.");
+                }
+            } else {
+                throw new IllegalArgumentException(objectType + " is not allowed in dense format. (unknown literal object type).");
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Measures the exact number of bytes of the OpackValue encoded in dense format without compression.
+     *
+     * @param opackValue the OpackValue to measure
+     * @return the number of bytes
+     * @throws EncodeException if the type of data to be encoded is not allowed in dense format
+     */
+    public long measure(OpackValue opackValue) throws EncodeException {
+        try {
+            return CONST_DENSE_CODEC_CLASSIFIER.length + CONST_DENSE_CODEC_VERSION.length + this.measureBlocks(opackValue);
+        } catch (IOException | RuntimeException exception) {
+            throw new EncodeException(exception);
+        } finally {
+            this.contexts.get().trimEncode(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
+
+    /**
+     * Encodes the OpackValue with the dense header into the slice writer which is sized by measuring the opack value.
+     *
+     * @param measuredWriter the slice writer sized by measuring the opack value
+     * @param opackValue     the OpackValue to encode
+     * @throws IOException              if an I/O error occurs when writing to byte stream
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    private void encodeMeasured(ByteArraySliceWriter measuredWriter, OpackValue opackValue) throws IOException {
+        measuredWriter.writeBytes(CONST_DENSE_CODEC_CLASSIFIER);
+        measuredWriter.writeBytes(this.encodeVersion);
+
+        this.encodeBlocks(measuredWriter, opackValue, measuredWriter);
+    }
+
+    /**
+     * Encodes the OpackValue into the byte array starting at offset through dense codec.
+     * The encoded length can be known in advance by {@link #measure(OpackValue) measure}.
+     *
+     * @param opackValue the OpackValue to encode
+     * @param bytes      the byte array to write
+     * @param offset     the start offset in the byte array
+     * @return the number of bytes written
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in dense format; if the byte array does not have enough space
+     */
+    public int encode(OpackValue opackValue, byte[] bytes, int offset) throws EncodeException {
+        try {
+            if (this.compressionBlockSize > 0) {
+                ByteArraySliceWriter byteArraySliceWriter = new ByteArraySliceWriter(bytes, offset, bytes.length - offset);
+
+                this.doEncode(byteArraySliceWriter, opackValue);
+
+                return byteArraySliceWriter.getLength();
+            }
+
+            long size = CONST_DENSE_CODEC_CLASSIFIER.length + CONST_DENSE_CODEC_VERSION.length + this.measureBlocks(opackValue);
+
+            if (size > bytes.length - offset) {
+                throw new IOException("Byte array does not have enough space. (need " + size + " bytes, remaining " + (bytes.length - offset) + " bytes)");
+            }
+
+            ByteArraySliceWriter byteArraySliceWriter = new ByteArraySliceWriter(bytes, offset, (int) size);
+
+            this.encodeMeasured(byteArraySliceWriter, opackValue);
+
+            return byteArraySliceWriter.getLength();
+        } catch (Exception exception) {
+            throw new EncodeException(exception);
+        } finally {
+            this.contexts.get().trimEncode(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
+
+    /**
+     * Encodes the OpackValue to bytes through dense codec.
+     *
+     * @param opackValue the OpackValue to encode
+     * @return returns encoded bytes
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec
+     */
+    public byte[] encode(OpackValue opackValue) throws EncodeException {
+        if (this.compressionBlockSize > 0) {
+            ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+
+            this.encode(byteArrayWriter, opackValue);
+
+            return byteArrayWriter.toByteArray();
+        }
+
+        try {
+            long size = CONST_DENSE_CODEC_CLASSIFIER.length + CONST_DENSE_CODEC_VERSION.length + this.measureBlocks(opackValue);
+
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Encoded data is too large for byte array. (" + size + " bytes)");
+            }
+
+            byte[] bytes = new byte[(int) size];
+
+            this.encodeMeasured(new ByteArraySliceWriter(bytes, 0, bytes.length), opackValue);
+
+            return bytes;
+        } catch (Exception exception) {
+            throw new EncodeException(exception);
+        } finally {
+            this.contexts.get().trimEncode(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
+
+    /**
+     * Returns the hash of the key stored in the offset table of the indexed object, the OpackValue keys are hashed to 0 because their hashes are not stable.
+     *
+     * @param key the key
+     * @return the hash of the key
+     */
+    static int getIndexedKeyHash(Object key) {
+        if (key == null || key instanceof OpackValue) {
+            return 0;
+        }
+
+        return key.hashCode();
+    }
+
+    /**
+     * Encodes the OpackValue to the indexed dense format, which can be read partially through {@link DenseIndex DenseIndex}.
+     * Each OpackObject and OpackArray carries the byte length and the offset table, the object entries are sorted by the hash of the key, and the array elements are addressed by the element index.
+     * The native arrays and the keys are encoded as same as the dense format, the indexed dense format is also decoded completely by {@link #decode(byte[]) decode}.
+     *
+     * @param opackValue the OpackValue to encode
+     * @return the encoded bytes
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in dense format
+     */
+    public byte[] encodeIndexed(OpackValue opackValue) throws EncodeException {
+        try {
+            ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+
+            byteArrayWriter.writeBytes(CONST_DENSE_INDEXED_CLASSIFIER);
+            byteArrayWriter.writeBytes(this.encodeVersion);
+
+            this.encodeIndexedBlocks(byteArrayWriter, opackValue);
+
+            return byteArrayWriter.toByteArray();
+        } catch (Exception exception) {
+            throw new EncodeException(exception);
+        }
+    }
+
+    /**
+     * Encodes the value to the indexed dense format blocks, the offset tables and the byte lengths are patched after the children are written.
+     *
+     * @param byteArrayWriter the writer to write the encoded data
+     * @param value           the value to encode
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    private void encodeIndexedBlocks(ByteArrayWriter byteArrayWriter, Object value) throws IOException {
+        FastStack<IndexedFrame> frameStack = new FastStack<>();
+
+        this.encodeIndexedValue(byteArrayWriter, frameStack, value);
+
+        while (!frameStack.isEmpty()) {
+            IndexedFrame frame = frameStack.peek();
+
+            if (frame.index < frame.size) {
+                int index = frame.index++;
+                int offset = byteArrayWriter.getLength() - (frame.tablePosition + frame.table.length * (frame.keys != null ? 8 : 4));
+
+                if (frame.keys != null) {
+                    Object key = frame.keys[index];
+
+                    frame.table[index] = ((long) getIndexedKeyHash(key) << 32) | (offset & 0xFFFFFFFFL);
+
+                    this.encodeBlocks(byteArrayWriter, key, null);
+                    this.encodeIndexedValue(byteArrayWriter, frameStack, ((OpackObject<Object, Object>) frame.opackValue).get(key));
+                } else {
+                    frame.table[index] = offset;
+
+                    this.encodeIndexedValue(byteArrayWriter, frameStack, ((OpackArray<Object>) frame.opackValue).get(index));
+                }
+
+                continue;
+            }
+
+            frameStack.pop();
+
+            byteArrayWriter.putInt(frame.tablePosition - 4, byteArrayWriter.getLength() - frame.tablePosition);
+
+            if (frame.keys != null) {
+                Arrays.sort(frame.table);
+
+                for (int index = 0; index < frame.size; index++) {
+                    byteArrayWriter.putInt(frame.tablePosition + index * 8, (int) (frame.table[index] >> 32));
+                    byteArrayWriter.putInt(frame.tablePosition + index * 8 + 4, (int) frame.table[index]);
+                }
+            } else {
+                for (int index = 0; index < frame.size; index++) {
+                    byteArrayWriter.putInt(frame.tablePosition + index * 4, (int) frame.table[index]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the value to the indexed dense format, the header of the container is written and the frame is pushed to encode its elements.
+     *
+     * @param byteArrayWriter the writer to write the encoded data
+     * @param frameStack      the stack of the frames of the indexed containers
+     * @param value           the value to encode
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in dense format
+     */
+    private void encodeIndexedValue(ByteArrayWriter byteArrayWriter, FastStack<IndexedFrame> frameStack, Object value) throws IOException {
+        int size;
+        int tableLength;
+
+        if (value instanceof OpackObject) {
+            size = ((OpackObject<?, ?>) value).size();
+            tableLength = size * 8;
+
+            byteArrayWriter.writeByte(CONST_TYPE_INDEXED_OPACK_OBJECT);
+        } else if (value instanceof OpackArray) {
+            OpackArray<?> opackArray = (OpackArray<?>) value;
+
+            try {
+                List<?> opackArrayList = UnsafeOpackValue.getList(opackArray);
+
+                if (opackArrayList instanceof NativeList && measureNativeArray(((NativeList) opackArrayList).getArrayObject()) >= 0) {
+                    this.encodeBlocks(byteArrayWriter, value, null);
+                    return;
+                }
+            } catch (InvocationTargetException | IllegalAccessException e) {
+                throw new IllegalStateException("Failed to access the native list object in OpackArray.");
+            }
+
+            size = opackArray.length();
+            tableLength = size * 4;
+
+            byteArrayWriter.writeByte(CONST_TYPE_INDEXED_OPACK_ARRAY);
+        } else {
+            this.encodeBlocks(byteArrayWriter, value, null);
+            return;
+        }
+
+        byteArrayWriter.writeInt(size);
+        byteArrayWriter.writeInt(0);
+
+        int tablePosition = byteArrayWriter.getLength();
+
+        for (int index = 0; index < tableLength; index += 4) {
+            byteArrayWriter.writeInt(0);
+        }
+
+        frameStack.push(new IndexedFrame((OpackValue) value, size, tablePosition));
+    }
+
+    /**
+     * Returns the minimum number of bytes which the next block needs, the block may need more bytes if it has variable length elements.
+     *
+     * @param byteBuffer the byte buffer placed at the next block
+     * @return the minimum number of bytes, or -1 if the byte buffer does not have enough bytes to know it
+     */
+    static long peekBlockSize(ByteBuffer byteBuffer) {
+        int position = byteBuffer.position();
+        int remaining = byteBuffer.remaining();
+
+        if (remaining < 1) {
+            return -1;
+        }
+
+        byte b = byteBuffer.get(position);
+
+        if (b == CONST_TYPE_BOOLEAN || b == CONST_TYPE_BYTE) {
+            return 1 + 1;
+        } else if (b == CONST_TYPE_CHARACTER || b == CONST_TYPE_SHORT) {
+            return 1 + 2;
+        } else if (b == CONST_TYPE_INTEGER || b == CONST_TYPE_FLOAT || b == CONST_TYPE_OPACK_OBJECT) {
+            return 1 + 4;
+        } else if (b == CONST_TYPE_LONG || b == CONST_TYPE_DOUBLE) {
+            return 1 + 8;
+        } else if (b == CONST_TYPE_INDEXED_OPACK_OBJECT || b == CONST_TYPE_INDEXED_OPACK_ARRAY) {
+            if (remaining < 1 + 4) {
+                return -1;
+            }
+
+            return 1 + 4 + 4 + (long) byteBuffer.getInt(position + 1) * (b == CONST_TYPE_INDEXED_OPACK_OBJECT ? 8 : 4);
+        } else if (b == CONST_TYPE_STRING) {
+            if (remaining < 1 + 4) {
+                return -1;
+            }
+
+            return 1 + 4 + (long) byteBuffer.getInt(position + 1);
+        } else if (b == CONST_TYPE_COLUMNAR_OPACK_ARRAY) {
+            if (remaining < 1 + 4 + 4 + 4) {
+                return -1;
+            }
+
+            return 1 + 4 + 4 + 4 + (long) byteBuffer.getInt(position + 1 + 4 + 4);
+        } else if (b == CONST_TYPE_OPACK_ARRAY) {
+            if (remaining < 1 + 4 + 1) {
+                return -1;
+            }
+
+            long length = byteBuffer.getInt(position + 1);
+            byte nativeType = byteBuffer.get(position + 1 + 4);
+
+            if (nativeType == CONST_PRIMITIVE_BOOLEAN_NATIVE_ARRAY || nativeType == CONST_PRIMITIVE_BYTE_NATIVE_ARRAY) {
+                return 1 + 4 + 1 + length;
+            } else if (nativeType == CONST_PRIMITIVE_CHARACTER_NATIVE_ARRAY || nativeType == CONST_PRIMITIVE_SHORT_NATIVE_ARRAY) {
+                return 1 + 4 + 1 + length * 2;
+            } else if (nativeType == CONST_PRIMITIVE_INTEGER_NATIVE_ARRAY || nativeType == CONST_PRIMITIVE_FLOAT_NATIVE_ARRAY) {
+                return 1 + 4 + 1 + length * 4;
+            } else if (nativeType == CONST_PRIMITIVE_LONG_NATIVE_ARRAY || nativeType == CONST_PRIMITIVE_DOUBLE_NATIVE_ARRAY) {
+                return 1 + 4 + 1 + length * 8;
+            } else if (nativeType == CONST_NO_NATIVE_ARRAY) {
+                return 1 + 4 + 1;
+            } else if (getPacking(nativeType) != NativeArrayPacker.CONST_PACKING_NONE) {
+                if (remaining < 1 + 4 + 1 + 4) {
+                    return -1;
+                }
+
+                return 1 + 4 + 1 + 4 + (long) byteBuffer.getInt(position + 1 + 4 + 1);
+            }
+
+            return 1 + 4 + 1 + length;
+        }
+
+        return 1;
+    }
+
+    /**
+     * Decodes one block to OpackValue. (basic block protocol: header(1 byte), data (variable))
+     * If data of block to be decoded is OpackObject or OpackArray(excluding primitive array), returns CONTEXT_BRANCH_CONTEXT_OBJECT for linear decoding.
+     * The reader is read completely before the stacks are modified, so a block that failed to be read leaves the stacks untouched.
+     *
+     * @param reader             the byte reader that wraps the data
+     * @param decodeContextStack the stack of decoding contexts
+     * @return opack value or CONTEXT_BRANCH_CONTEXT_OBJECT
+     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format; if unknown block header is parsed
+     */
+    Object decodeBlock(Reader reader, DecodeContextStack decodeContextStack) throws IOException {
+        return this.decodeBlock((byte) reader.readByte(), reader, decodeContextStack);
+    }
+
+    /**
+     * Decodes one block whose header is already read.
+     *
+     * @param b                  the block header
+     * @param reader             the byte reader that wraps the data
+     * @param decodeContextStack the stack of decoding contexts
+     * @return opack value or CONTEXT_BRANCH_CONTEXT_OBJECT
+     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format; if unknown block header is parsed
+     */
+    private Object decodeBlock(byte b, Reader reader, DecodeContextStack decodeContextStack) throws IOException {
+
+        if (b == CONST_TYPE_BOOLEAN) {
+            return (byte) reader.readByte() == 1;
+        } else if (b == CONST_TYPE_BYTE) {
+            return (byte) reader.readByte();
+        } else if (b == CONST_TYPE_CHARACTER) {
+            return reader.readChar();
+        } else if (b == CONST_TYPE_SHORT) {
+            return reader.readShort();
+        } else if (b == CONST_TYPE_INTEGER) {
+            return reader.readInt();
+        } else if (b == CONST_TYPE_FLOAT) {
+            return reader.readFloat();
+        } else if (b == CONST_TYPE_LONG) {
+            return reader.readLong();
+        } else if (b == CONST_TYPE_DOUBLE) {
+            return reader.readDouble();
+        } else if (b == CONST_TYPE_NULL) {
+            return null;
+        } else if (b == CONST_TYPE_STRING) {
+            return this.decodeString(reader, reader.readInt());
+        } else if (b == CONST_TYPE_COLUMNAR_OPACK_ARRAY) {
+            return this.decodeColumnarArray(reader, null, decodeContextStack);
+        } else if (b == CONST_TYPE_OPACK_OBJECT) {
+            int size = reader.readInt();
+            OpackObject<Object, Object> opackObject = new OpackObject<>(size);
+
+            decodeContextStack.push(opackObject, size);
+
+            return CONTEXT_BRANCH_CONTEXT_OBJECT;
+        } else if (b == CONST_TYPE_INDEXED_OPACK_OBJECT || b == CONST_TYPE_INDEXED_OPACK_ARRAY) {
+            int size = reader.readInt();
+            int tableLength = b == CONST_TYPE_INDEXED_OPACK_OBJECT ? size * 2 : size;
+
+            // Skip the byte length and the offset table, which are only used by random access
+            reader.readInt();
+            for (int index = 0; index < tableLength; index++) {
+                reader.readInt();
+            }
+
+            OpackValue opackValue = b == CONST_TYPE_INDEXED_OPACK_OBJECT ? new OpackObject<>(size) : new OpackArray<>(size);
+            decodeContextStack.push(opackValue, size);
+
+            return CONTEXT_BRANCH_CONTEXT_OBJECT;
+        } else if (b == CONST_TYPE_OPACK_ARRAY) {
+            int length = reader.readInt();
+
+            byte nativeType = (byte) reader.readByte();
+
+            if (nativeType == CONST_NO_NATIVE_ARRAY) {
+                OpackArray<Object> opackArray = new OpackArray<>(length);
+
+                decodeContextStack.push(opackArray, length);
+
+                return CONTEXT_BRANCH_CONTEXT_OBJECT;
+            } else {
+                if (nativeType == CONST_PRIMITIVE_BOOLEAN_NATIVE_ARRAY) {
+                    boolean[] array = new boolean[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = reader.readByte() == 1;
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_PRIMITIVE_BYTE_NATIVE_ARRAY) {
+                    byte[] array = new byte[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = (byte) reader.readByte();
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_PRIMITIVE_CHARACTER_NATIVE_ARRAY) {
+                    char[] array = new char[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = reader.readChar();
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_PRIMITIVE_SHORT_NATIVE_ARRAY) {
+                    short[] array = new short[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = reader.readShort();
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_PRIMITIVE_INTEGER_NATIVE_ARRAY) {
+                    int[] array = new int[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = reader.readInt();
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_PRIMITIVE_FLOAT_NATIVE_ARRAY) {
+                    float[] array = new float[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = reader.readFloat();
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_PRIMITIVE_LONG_NATIVE_ARRAY) {
+                    long[] array = new long[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = reader.readLong();
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_PRIMITIVE_DOUBLE_NATIVE_ARRAY) {
+                    double[] array = new double[length];
+                    for (int index = 0; index < array.length; index++) {
+                        array[index] = reader.readDouble();
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_WRAPPER_BOOLEAN_NATIVE_ARRAY) {
+                    Boolean[] array = new Boolean[length];
+                    for (int index = 0; index < array.length; index++) {
+                        boolean nullFlag = reader.readByte() == 1;
+                        if (nullFlag) {
+                            array[index] = reader.readByte() == 1;
+                        }
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_WRAPPER_BYTE_NATIVE_ARRAY) {
+                    Byte[] array = new Byte[length];
+                    for (int index = 0; index < array.length; index++) {
+                        boolean nullFlag = reader.readByte() == 1;
+                        if (nullFlag) {
+                            array[index] = (byte) reader.readByte();
+                        }
                     }
                     return OpackArray.createWithArrayObject(array);
                 } else if (nativeType == CONST_WRAPPER_CHARACTER_NATIVE_ARRAY) {
@@ -614,135 +1611,882 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
                             array[index] = reader.readShort();
                         }
                     }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_WRAPPER_INTEGER_NATIVE_ARRAY) {
-                    Integer[] array = new Integer[length];
-                    for (int index = 0; index < array.length; index++) {
-                        boolean nullFlag = reader.readByte() == 1;
-                        if (nullFlag) {
-                            array[index] = reader.readInt();
-                        }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_WRAPPER_INTEGER_NATIVE_ARRAY) {
+                    Integer[] array = new Integer[length];
+                    for (int index = 0; index < array.length; index++) {
+                        boolean nullFlag = reader.readByte() == 1;
+                        if (nullFlag) {
+                            array[index] = reader.readInt();
+                        }
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_WRAPPER_FLOAT_NATIVE_ARRAY) {
+                    Float[] array = new Float[length];
+                    for (int index = 0; index < array.length; index++) {
+                        boolean nullFlag = reader.readByte() == 1;
+                        if (nullFlag) {
+                            array[index] = reader.readFloat();
+                        }
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_WRAPPER_LONG_NATIVE_ARRAY) {
+                    Long[] array = new Long[length];
+                    for (int index = 0; index < array.length; index++) {
+                        boolean nullFlag = reader.readByte() == 1;
+                        if (nullFlag) {
+                            array[index] = reader.readLong();
+                        }
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (nativeType == CONST_WRAPPER_DOUBLE_NATIVE_ARRAY) {
+                    Double[] array = new Double[length];
+                    for (int index = 0; index < array.length; index++) {
+                        boolean nullFlag = reader.readByte() == 1;
+                        if (nullFlag) {
+                            array[index] = reader.readDouble();
+                        }
+                    }
+                    return OpackArray.createWithArrayObject(array);
+                } else if (getPacking(nativeType) != NativeArrayPacker.CONST_PACKING_NONE) {
+                    int packedLength = reader.readInt();
+
+                    if (packedLength < 0) {
+                        throw new IllegalArgumentException("Packed native array has invalid packed length. (got " + packedLength + ")");
+                    }
+
+                    if (nativeType == CONST_XOR_DOUBLE_NATIVE_ARRAY) {
+                        double[] array = new double[length];
+                        NativeArrayPacker.unpackXor(reader, packedLength, array, null, length);
+                        return OpackArray.createWithArrayObject(array);
+                    } else if (nativeType == CONST_XOR_FLOAT_NATIVE_ARRAY) {
+                        float[] array = new float[length];
+                        NativeArrayPacker.unpackXor(reader, packedLength, null, array, length);
+                        return OpackArray.createWithArrayObject(array);
+                    } else if (nativeType == CONST_DELTA_LONG_NATIVE_ARRAY || nativeType == CONST_FRAME_OF_REFERENCE_LONG_NATIVE_ARRAY || nativeType == CONST_RUN_LENGTH_LONG_NATIVE_ARRAY) {
+                        long[] array = new long[length];
+                        NativeArrayPacker.unpack(getPacking(nativeType), reader, packedLength, array, null, length);
+                        return OpackArray.createWithArrayObject(array);
+                    } else {
+                        int[] array = new int[length];
+                        NativeArrayPacker.unpack(getPacking(nativeType), reader, packedLength, null, array, length);
+                        return OpackArray.createWithArrayObject(array);
+                    }
+                } else {
+                    throw new IllegalArgumentException(nativeType + " is not registered native array type binary in dense format. (unknown native array type)");
+                }
+            }
+        }
+
+        throw new IllegalArgumentException(b + " is not registered block header binary in dense codec. (unknown block header)");
+    }
+
+    /**
+     * Decodes the byte array encoded through the dense codec to OpackValue.
+     *
+     * @param reader the reader to decode
+     * @return opack value
+     * @throws IllegalArgumentException if the decoded value is not a opack value
+     */
+    @Override
+    protected OpackValue doDecode(Reader reader) throws IOException {
+        return this.decodeData(reader, null);
+    }
+
+    /**
+     * Decodes the dense format data to OpackValue, only the projected values are decoded if the projection is given.
+     *
+     * @param reader     the reader to decode
+     * @param projection the projection of the values to decode, or null to decode the whole data
+     * @return opack value
+     * @throws IllegalArgumentException if the decoded value is not a opack value
+     */
+    private OpackValue decodeData(Reader reader, DenseProjection projection) throws IOException {
+        byte[] classifier = new byte[CONST_DENSE_CODEC_CLASSIFIER.length];
+        reader.readBytes(classifier);
+
+        if (Arrays.equals(CONST_DENSE_CODEC_COMPRESSED_CLASSIFIER, classifier)) {
+            int blockSize = reader.readInt();
+
+            if (blockSize < 16 || blockSize > CONST_MAX_COMPRESSION_BLOCK_SIZE) {
+                throw new IllegalArgumentException("Decoding data has invalid compression block size. (got " + blockSize + ")");
+            }
+
+            CompressedReader compressedReader = new CompressedReader(reader, blockSize);
+            compressedReader.readBytes(classifier);
+
+            OpackValue opackValue = this.decodeBody(compressedReader, classifier, projection);
+
+            compressedReader.finish();
+
+            return opackValue;
+        }
+
+        return this.decodeBody(reader, classifier, projection);
+    }
+
+    /**
+     * Verifies the classifier and the version of the dense format data.
+     *
+     * @param classifier the classifier
+     * @param version    the version
+     * @throws IllegalArgumentException if the classifier is not dense format; if the version does not match current versions of dense codec
+     */
+    void verifyHeader(byte[] classifier, byte[] version) {
+        if (Arrays.equals(CONST_DENSE_CODEC_COMPRESSED_CLASSIFIER, classifier)) {
+            throw new IllegalArgumentException("Decoding data is compressed dense format data, which is not allowed here.");
+        }
+
+        if (!Arrays.equals(CONST_DENSE_CODEC_CLASSIFIER, classifier) && !Arrays.equals(CONST_DENSE_INDEXED_CLASSIFIER, classifier)) {
+            throw new IllegalArgumentException("Decoding data is not dense format data. (Expected " + Arrays.toString(CONST_DENSE_CODEC_CLASSIFIER) + ", got " + Arrays.toString(classifier) + ")");
+        }
+
+        this.verifyVersion(version);
+    }
+
+    /**
+     * Verifies the version of the dense format data, unless the version comparison is ignored.
+     *
+     * @param version the version
+     * @throws IllegalArgumentException if the version does not match current versions of dense codec
+     */
+    void verifyVersion(byte[] version) {
+        if (!this.ignoreVersionCompare) {
+            if (!Arrays.equals(CONST_DENSE_CODEC_VERSION, version) && !Arrays.equals(CONST_DENSE_CODEC_PACKED_VERSION, version)) {
+                throw new IllegalArgumentException("Decoding data does not match current versions of dense codec. (Expected " + Arrays.toString(CONST_DENSE_CODEC_VERSION) + " or " + Arrays.toString(CONST_DENSE_CODEC_PACKED_VERSION) + ", got " + Arrays.toString(version) + ")");
+            }
+        }
+    }
+
+    /**
+     * Decodes the dense format data after the classifier to OpackValue.
+     *
+     * @param reader     the reader to decode
+     * @param classifier the classifier which is already read
+     * @param projection the projection of the values to decode, or null to decode the whole data
+     * @return opack value
+     * @throws IllegalArgumentException if the decoded value is not a opack value
+     */
+    private OpackValue decodeBody(Reader reader, byte[] classifier, DenseProjection projection) throws IOException {
+        byte[] version = new byte[CONST_DENSE_CODEC_VERSION.length];
+        reader.readBytes(version);
+
+        this.verifyHeader(classifier, version);
+
+        if (projection == null || projection.isAll()) {
+            return this.decodeBlocks(reader);
+        }
+
+        Object rootValue;
+
+        try {
+            rootValue = this.decodeProjected(reader, projection);
+        } finally {
+            this.contexts.get().trimProjection(CONST_MAX_RETAINED_LENGTH);
+        }
+
+        if (rootValue instanceof OpackValue) {
+            return (OpackValue) rootValue;
+        }
+
+        throw new IllegalArgumentException((rootValue == null ? "null" : rootValue.getClass()) + " is not a type of opack value. (root value must be opack value)");
+    }
+
+    /**
+     * Decodes one value projected by the projection, the blocks of the keys which are not projected are skipped without being decoded.
+     * The elements of the arrays are projected by the same projection as the array.
+     * The containers are decoded iteratively through the projection context stack and the parallel stack of their projections, so deeply nested values do not overflow the call stack.
+     *
+     * @param reader     the reader to decode
+     * @param projection the projection of the value
+     * @return the decoded value
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format
+     */
+    private Object decodeProjected(Reader reader, DenseProjection projection) throws IOException {
+        Context context = this.contexts.get();
+        DecodeContextStack projectionContextStack = context.projectionContextStack;
+        FastStack<DenseProjection> projectionStack = context.projectionStack;
+
+        projectionContextStack.reset();
+        projectionStack.reset();
+
+        Object rootBlock = this.decodeProjectedBlock(reader, projection, projectionContextStack, projectionStack);
+
+        if (rootBlock != CONTEXT_BRANCH_CONTEXT_OBJECT) {
+            return rootBlock;
+        }
+
+        OpackValue rootValue = projectionContextStack.peekValue();
+
+        while (!projectionContextStack.isEmpty()) {
+            int contextIndex = projectionContextStack.getTopIndex();
+
+            OpackValue opackValue = projectionContextStack.getValue(contextIndex);
+            int size = projectionContextStack.getSize(contextIndex);
+            int index = projectionContextStack.getOffset(contextIndex);
+            DenseProjection contextProjection = projectionStack.peek();
+
+            boolean bypass = false;
+
+            if (opackValue instanceof OpackObject) {
+                OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) opackValue;
+
+                for (; index < size; index++) {
+                    byte keyType = (byte) reader.readByte();
+
+                    Object key = null;
+                    DenseProjection child = null;
+
+                    if (keyType == CONST_TYPE_STRING) {
+                        int length = reader.readInt();
+
+                        if (context.projectionKeyBuffer.length < length) {
+                            context.projectionKeyBuffer = new byte[Math.max(length, context.projectionKeyBuffer.length << 1)];
+                        }
+
+                        reader.readBytes(context.projectionKeyBuffer, 0, length);
+
+                        int keyIndex = contextProjection.findStringKey(context.projectionKeyBuffer, length);
+
+                        if (keyIndex != -1) {
+                            key = contextProjection.getStringKey(keyIndex);
+                            child = contextProjection.getStringKeyChild(keyIndex);
+                        }
+                    } else if (contextProjection.hasNonStringKeys()) {
+                        key = this.decodeValue(keyType, reader);
+                        child = contextProjection.getChild(key);
+                    } else {
+                        this.skipBlock(keyType, reader);
+                    }
+
+                    if (child == null) {
+                        this.skipBlock(reader);
+                        continue;
+                    }
+
+                    Object value = this.decodeProjectedBlock(reader, child, projectionContextStack, projectionStack);
+
+                    if (value == CONTEXT_BRANCH_CONTEXT_OBJECT) {
+                        index++;
+                        opackObject.put(key, projectionContextStack.peekValue());
+
+                        bypass = true;
+                        break;
+                    }
+
+                    opackObject.put(key, value);
+                }
+            } else {
+                OpackArray<Object> opackArray = (OpackArray<Object>) opackValue;
+
+                for (; index < size; index++) {
+                    Object value = this.decodeProjectedBlock(reader, contextProjection, projectionContextStack, projectionStack);
+
+                    if (value == CONTEXT_BRANCH_CONTEXT_OBJECT) {
+                        index++;
+                        opackArray.add(projectionContextStack.peekValue());
+
+                        bypass = true;
+                        break;
+                    }
+
+                    opackArray.add(value);
+                }
+            }
+
+            if (!bypass) {
+                projectionContextStack.pop();
+                projectionStack.pop();
+            } else {
+                projectionContextStack.setOffset(contextIndex, index);
+            }
+        }
+
+        return rootValue;
+    }
+
+    /**
+     * Decodes one block projected by the projection, the container blocks are pushed to the stacks with their projection instead of being decoded.
+     *
+     * @param reader                 the reader to decode
+     * @param projection             the projection of the block
+     * @param projectionContextStack the context stack of the containers being decoded
+     * @param projectionStack        the stack of the projections of the containers being decoded
+     * @return the decoded value, or CONTEXT_BRANCH_CONTEXT_OBJECT if the block is a container pushed to the stacks
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format
+     */
+    private Object decodeProjectedBlock(Reader reader, DenseProjection projection, DecodeContextStack projectionContextStack, FastStack<DenseProjection> projectionStack) throws IOException {
+        if (projection.isAll()) {
+            return this.decodeValue(reader);
+        }
+
+        byte b = (byte) reader.readByte();
+
+        if (b == CONST_TYPE_COLUMNAR_OPACK_ARRAY) {
+            return this.decodeColumnarArray(reader, projection, projectionContextStack);
+        }
+
+        Object block = this.decodeBlock(b, reader, projectionContextStack);
+
+        if (block == CONTEXT_BRANCH_CONTEXT_OBJECT) {
+            projectionStack.push(projection);
+        }
+
+        return block;
+    }
+
+    /**
+     * Decodes the UTF-8 bytes of the string, through the string cache if the codec has one and the string is not longer than its max length.
+     *
+     * @param reader the reader placed at the bytes of the string
+     * @param length the number of bytes of the string
+     * @return the decoded string
+     * @throws IOException if an I/O error occurs
+     */
+    private String decodeString(Reader reader, int length) throws IOException {
+        if (this.stringCache != null) {
+            if (length <= this.stringCache.getMaxLength()) {
+                byte[] decodeStringBuffer = this.contexts.get().decodeStringBuffer;
+
+                reader.readBytes(decodeStringBuffer, 0, length);
+
+                return this.stringCache.get(decodeStringBuffer, 0, length);
+            }
+
+            this.stringCache.recordBypass();
+        }
+
+        return reader.readUTF8(length);
+    }
+
+    /**
+     * Decodes the columnar block whose header is already read, to the array of the rows, or to the object of the column arrays if decoding the columns is enabled.
+     * If the projection is given, only the columns of the projected keys are decoded and the other columns are skipped by their lengths.
+     *
+     * @param reader             the reader placed after the header of the columnar block
+     * @param projection         the projection of the rows, or null to decode all columns
+     * @param decodeContextStack the decode context stack of the caller, only used to decode the literal keys
+     * @return the array of the rows, or the object of the column arrays
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the columnar block is corrupted
+     */
+    private OpackValue decodeColumnarArray(Reader reader, DenseProjection projection, DecodeContextStack decodeContextStack) throws IOException {
+        int rowCount = reader.readInt();
+        int columnCount = reader.readInt();
+
+        // Skip the body length, which is only used to skip the block
+        reader.readInt();
+
+        if (rowCount < 0 || columnCount < 0) {
+            throw new IllegalArgumentException("Columnar block has invalid size. (rows " + rowCount + ", columns " + columnCount + ")");
+        }
+
+        Object[] keys = new Object[columnCount];
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            byte keyType = (byte) reader.readByte();
+
+            if (keyType < CONST_TYPE_BOOLEAN || keyType > CONST_TYPE_STRING) {
+                throw new IllegalArgumentException(keyType + " is not allowed as a key of columnar block. (keys must be literal blocks)");
+            }
+
+            keys[columnIndex] = this.decodeBlock(keyType, reader, decodeContextStack);
+        }
+
+        OpackArray<Object> rows = null;
+        List<OpackObject<Object, Object>> rowObjects = null;
+        OpackObject<Object, Object> columns = null;
+
+        if (this.decodeColumns) {
+            columns = new OpackObject<>(columnCount);
+        } else {
+            rows = new OpackArray<>(rowCount);
+            rowObjects = new ArrayList<>(rowCount);
+
+            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+                OpackObject<Object, Object> rowObject = new OpackObject<>(columnCount);
+
+                rowObjects.add(rowObject);
+                rows.add(rowObject);
+            }
+        }
+
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            byte columnType = (byte) reader.readByte();
+            byte flags = (byte) reader.readByte();
+            int columnLength = reader.readInt();
+
+            if (projection != null && !projection.isAll() && projection.getChild(keys[columnIndex]) == null) {
+                reader.skipBytes(columnLength);
+                continue;
+            }
+
+            byte[] bitmap = null;
+
+            if ((flags & ColumnarArrayEncoder.CONST_COLUMN_FLAG_NULL_BITMAP) != 0) {
+                bitmap = new byte[(rowCount + 7) >>> 3];
+                reader.readBytes(bitmap);
+            }
+
+            Object column = this.decodeColumn(reader, columnType, rowCount, bitmap, this.decodeColumns && bitmap == null);
+
+            if (this.decodeColumns) {
+                if (column.getClass() == Object[].class || column.getClass() == String[].class) {
+                    OpackArray<Object> opackArray = new OpackArray<>(rowCount);
+
+                    for (Object value : (Object[]) column) {
+                        opackArray.add(value);
                     }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_WRAPPER_FLOAT_NATIVE_ARRAY) {
-                    Float[] array = new Float[length];
-                    for (int index = 0; index < array.length; index++) {
-                        boolean nullFlag = reader.readByte() == 1;
-                        if (nullFlag) {
-                            array[index] = reader.readFloat();
-                        }
+
+                    columns.put(keys[columnIndex], opackArray);
+                } else {
+                    columns.put(keys[columnIndex], OpackArray.createWithArrayObject(column));
+                }
+            } else {
+                Object[] values = (Object[]) column;
+
+                for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+                    rowObjects.get(rowIndex).put(keys[columnIndex], values[rowIndex]);
+                }
+            }
+        }
+
+        return this.decodeColumns ? columns : rows;
+    }
+
+    /**
+     * Returns true if the row is not null in the null bitmap.
+     *
+     * @param bitmap   the null bitmap, or null if the column has no null
+     * @param rowIndex the index of the row
+     * @return true if the row is not null
+     */
+    private static boolean isPresent(byte[] bitmap, int rowIndex) {
+        return bitmap == null || (bitmap[rowIndex >>> 3] & (0x80 >>> (rowIndex & 7))) != 0;
+    }
+
+    /**
+     * Decodes the values of the column, to the primitive array if requested, otherwise to the wrapper array, the string array or the object array of nulls.
+     *
+     * @param reader    the reader placed at the values of the column
+     * @param type      the type of the column
+     * @param rowCount  the number of the rows
+     * @param bitmap    the null bitmap, or null if the column has no null
+     * @param primitive true to decode the primitive type column to the primitive array, the column must not have null
+     * @return the array of the values
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the column is corrupted
+     */
+    private Object decodeColumn(Reader reader, byte type, int rowCount, byte[] bitmap, boolean primitive) throws IOException {
+        if (type == CONST_TYPE_NULL) {
+            return new Object[rowCount];
+        } else if (type == CONST_TYPE_STRING) {
+            int dictionarySize = reader.readInt();
+
+            if (dictionarySize < 0) {
+                throw new IllegalArgumentException("Columnar block has invalid dictionary size. (got " + dictionarySize + ")");
+            }
+
+            String[] dictionary = new String[dictionarySize];
+
+            for (int index = 0; index < dictionarySize; index++) {
+                dictionary[index] = this.decodeString(reader, reader.readInt());
+            }
+
+            int indexWidth = reader.readByte();
+            String[] array = new String[rowCount];
+
+            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+                if (isPresent(bitmap, rowIndex)) {
+                    int index = indexWidth == 1 ? reader.readByte() & 0xFF : indexWidth == 2 ? reader.readShort() & 0xFFFF : reader.readInt();
+
+                    if (index < 0 || index >= dictionarySize) {
+                        throw new IllegalArgumentException("Columnar block has invalid dictionary index. (got " + index + ", dictionary size " + dictionarySize + ")");
                     }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_WRAPPER_LONG_NATIVE_ARRAY) {
-                    Long[] array = new Long[length];
-                    for (int index = 0; index < array.length; index++) {
-                        boolean nullFlag = reader.readByte() == 1;
-                        if (nullFlag) {
-                            array[index] = reader.readLong();
-                        }
+
+                    array[rowIndex] = dictionary[index];
+                }
+            }
+
+            return array;
+        } else if (type == CONST_TYPE_BOOLEAN) {
+            if (primitive) {
+                boolean[] array = new boolean[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = reader.readByte() == 1;
+                }
+                return array;
+            }
+
+            Boolean[] array = new Boolean[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = reader.readByte() == 1;
+                }
+            }
+            return array;
+        } else if (type == CONST_TYPE_BYTE) {
+            if (primitive) {
+                byte[] array = new byte[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = (byte) reader.readByte();
+                }
+                return array;
+            }
+
+            Byte[] array = new Byte[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = (byte) reader.readByte();
+                }
+            }
+            return array;
+        } else if (type == CONST_TYPE_CHARACTER) {
+            if (primitive) {
+                char[] array = new char[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = reader.readChar();
+                }
+                return array;
+            }
+
+            Character[] array = new Character[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = reader.readChar();
+                }
+            }
+            return array;
+        } else if (type == CONST_TYPE_SHORT) {
+            if (primitive) {
+                short[] array = new short[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = reader.readShort();
+                }
+                return array;
+            }
+
+            Short[] array = new Short[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = reader.readShort();
+                }
+            }
+            return array;
+        } else if (type == CONST_TYPE_INTEGER) {
+            if (primitive) {
+                int[] array = new int[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = reader.readInt();
+                }
+                return array;
+            }
+
+            Integer[] array = new Integer[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = reader.readInt();
+                }
+            }
+            return array;
+        } else if (type == CONST_TYPE_FLOAT) {
+            if (primitive) {
+                float[] array = new float[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = reader.readFloat();
+                }
+                return array;
+            }
+
+            Float[] array = new Float[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = reader.readFloat();
+                }
+            }
+            return array;
+        } else if (type == CONST_TYPE_LONG) {
+            if (primitive) {
+                long[] array = new long[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = reader.readLong();
+                }
+                return array;
+            }
+
+            Long[] array = new Long[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = reader.readLong();
+                }
+            }
+            return array;
+        } else if (type == CONST_TYPE_DOUBLE) {
+            if (primitive) {
+                double[] array = new double[rowCount];
+                for (int index = 0; index < rowCount; index++) {
+                    array[index] = reader.readDouble();
+                }
+                return array;
+            }
+
+            Double[] array = new Double[rowCount];
+            for (int index = 0; index < rowCount; index++) {
+                if (isPresent(bitmap, index)) {
+                    array[index] = reader.readDouble();
+                }
+            }
+            return array;
+        }
+
+        throw new IllegalArgumentException(type + " is not allowed as a column type of columnar block. (unknown column type)");
+    }
+
+    /**
+     * Returns the number of bytes of an element of the native array type.
+     *
+     * @param nativeType the native array type
+     * @return the number of bytes of an element
+     */
+    private static int getNativeElementSize(byte nativeType) {
+        int index = nativeType & 0x07;
+
+        return index < 2 ? 1 : index < 4 ? 2 : index < 6 ? 4 : 8;
+    }
+
+    /**
+     * Skips one block including its children without decoding them, the strings, the native arrays and the indexed containers are jumped by their lengths.
+     *
+     * @param reader the reader to skip
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if unknown block header is parsed
+     */
+    private void skipBlock(Reader reader) throws IOException {
+        this.skipBlock((byte) reader.readByte(), reader);
+    }
+
+    /**
+     * Skips one block whose header binary is already read, including its children without decoding them.
+     *
+     * @param header the header binary of the block to skip
+     * @param reader the reader to skip
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if unknown block header is parsed
+     */
+    private void skipBlock(byte header, Reader reader) throws IOException {
+        long remaining = 1;
+        byte b = header;
+
+        while (true) {
+            remaining--;
+
+            if (b == CONST_TYPE_BOOLEAN || b == CONST_TYPE_BYTE) {
+                reader.skipBytes(1);
+            } else if (b == CONST_TYPE_CHARACTER || b == CONST_TYPE_SHORT) {
+                reader.skipBytes(2);
+            } else if (b == CONST_TYPE_INTEGER || b == CONST_TYPE_FLOAT) {
+                reader.skipBytes(4);
+            } else if (b == CONST_TYPE_LONG || b == CONST_TYPE_DOUBLE) {
+                reader.skipBytes(8);
+            } else if (b == CONST_TYPE_STRING) {
+                reader.skipBytes(reader.readInt());
+            } else if (b == CONST_TYPE_OPACK_OBJECT) {
+                remaining += 2L * reader.readInt();
+            } else if (b == CONST_TYPE_INDEXED_OPACK_OBJECT || b == CONST_TYPE_INDEXED_OPACK_ARRAY) {
+                reader.readInt();
+                reader.skipBytes(reader.readInt());
+            } else if (b == CONST_TYPE_COLUMNAR_OPACK_ARRAY) {
+                reader.readInt();
+                reader.readInt();
+                reader.skipBytes(reader.readInt());
+            } else if (b == CONST_TYPE_OPACK_ARRAY) {
+                int length = reader.readInt();
+                byte nativeType = (byte) reader.readByte();
+
+                if (nativeType == CONST_NO_NATIVE_ARRAY) {
+                    remaining += length;
+                } else if (getPacking(nativeType) != NativeArrayPacker.CONST_PACKING_NONE) {
+                    reader.skipBytes(reader.readInt());
+                } else if (nativeType >= CONST_PRIMITIVE_BOOLEAN_NATIVE_ARRAY && nativeType <= CONST_PRIMITIVE_DOUBLE_NATIVE_ARRAY) {
+                    long skipLength = (long) length * getNativeElementSize(nativeType);
+
+                    while (skipLength > 0) {
+                        int chunk = (int) Math.min(skipLength, Integer.MAX_VALUE);
+
+                        reader.skipBytes(chunk);
+                        skipLength -= chunk;
                     }
-                    return OpackArray.createWithArrayObject(array);
-                } else if (nativeType == CONST_WRAPPER_DOUBLE_NATIVE_ARRAY) {
-                    Double[] array = new Double[length];
-                    for (int index = 0; index < array.length; index++) {
-                        boolean nullFlag = reader.readByte() == 1;
-                        if (nullFlag) {
-                            array[index] = reader.readDouble();
+                } else if (nativeType >= CONST_WRAPPER_BOOLEAN_NATIVE_ARRAY && nativeType <= CONST_WRAPPER_DOUBLE_NATIVE_ARRAY) {
+                    int elementSize = getNativeElementSize(nativeType);
+
+                    for (int index = 0; index < length; index++) {
+                        if (reader.readByte() == 1) {
+                            reader.skipBytes(elementSize);
                         }
                     }
-                    return OpackArray.createWithArrayObject(array);
                 } else {
-                    throw new IllegalArgumentException(nativeType + " is not registered native array type binary in dense format. (unknown native array type)");
+                    throw new IllegalArgumentException(nativeType + " is not registered native array type in dense codec. (unknown native array type)");
                 }
+            } else if (b != CONST_TYPE_NULL) {
+                throw new IllegalArgumentException(b + " is not registered block header binary in dense codec. (unknown block header)");
+            }
+
+            if (remaining == 0) {
+                break;
             }
+
+            b = (byte) reader.readByte();
         }
+    }
 
-        throw new IllegalArgumentException(b + " is not registered block header binary in dense codec. (unknown block header)");
+    /**
+     * Decodes only the values projected by the projection, the other blocks are skipped without being decoded.
+     *
+     * @param reader     the reader to decode
+     * @param projection the projection of the values to decode
+     * @return the projected opack value
+     * @throws DecodeException if a problem occurs during decoding; if the type of data to be decoded is not allowed in dense format
+     */
+    public OpackValue decode(Reader reader, DenseProjection projection) throws DecodeException {
+        try {
+            return this.decodeData(reader, projection);
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
+        }
     }
 
     /**
-     * Decodes the byte array encoded through the dense codec to OpackValue.
+     * Calls {@code decode(new ByteArrayReader(bytes), projection)}
+     *
+     * @param bytes      the bytes to decode
+     * @param projection the projection of the values to decode
+     * @return the projected opack value
+     * @throws DecodeException if a problem occurs during decoding; if the type of data to be decoded is not allowed in dense format
+     */
+    public OpackValue decode(byte[] bytes, DenseProjection projection) throws DecodeException {
+        return this.decode(new ByteArrayReader(bytes), projection);
+    }
+
+    /**
+     * Decodes the dense format blocks without the dense header to OpackValue.
      *
      * @param reader the reader to decode
      * @return opack value
+     * @throws IOException              if an I/O error occurs
      * @throws IllegalArgumentException if the decoded value is not a opack value
      */
-    @Override
-    protected OpackValue doDecode(Reader reader) throws IOException {
-        byte[] classifier = new byte[CONST_DENSE_CODEC_CLASSIFIER.length];
-        reader.readBytes(classifier);
+    OpackValue decodeBlocks(Reader reader) throws IOException {
+        Object rootValue = this.decodeValue(reader);
 
-        if (!Arrays.equals(CONST_DENSE_CODEC_CLASSIFIER, classifier)) {
-            throw new IllegalArgumentException("Decoding data is not dense format data. (Expected " + Arrays.toString(CONST_DENSE_CODEC_CLASSIFIER) + ", got " + Arrays.toString(classifier) + ")");
+        if (rootValue instanceof OpackValue) {
+            return (OpackValue) rootValue;
         }
 
-        byte[] version = new byte[CONST_DENSE_CODEC_VERSION.length];
-        reader.readBytes(version);
+        throw new IllegalArgumentException((rootValue == null ? "null" : rootValue.getClass()) + " is not a type of opack value. (root value must be opack value)");
+    }
 
-        if (!this.ignoreVersionCompare) {
-            if (!Arrays.equals(CONST_DENSE_CODEC_VERSION, version)) {
-                throw new IllegalArgumentException("Decoding data does not match current version of dense codec. (Expected " + Arrays.toString(CONST_DENSE_CODEC_VERSION) + ", got " + Arrays.toString(version) + ")");
-            }
+    /**
+     * Decodes one value of the dense format blocks, the value can be a literal value as well as an OpackValue.
+     *
+     * @param reader the reader to decode
+     * @return the decoded value
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format
+     */
+    Object decodeValue(Reader reader) throws IOException {
+        return this.decodeValue((byte) reader.readByte(), reader);
+    }
+
+    /**
+     * Decodes one value whose block header is already read.
+     *
+     * @param b      the block header
+     * @param reader the reader to decode
+     * @return the decoded value
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format
+     */
+    private Object decodeValue(byte b, Reader reader) throws IOException {
+        DecodeContextStack decodeContextStack = this.contexts.get().decodeContextStack;
+
+        decodeContextStack.reset();
+
+        try {
+            return this.decodeValue(b, reader, decodeContextStack);
+        } finally {
+            decodeContextStack.reset(CONST_MAX_RETAINED_LENGTH);
         }
+    }
+
+    /**
+     * Decodes one value whose block header is already read, through the decode context stack of the thread.
+     *
+     * @param b                  the block header
+     * @param reader             the reader to decode
+     * @param decodeContextStack the empty decode context stack of the thread
+     * @return the decoded value
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be decoded is not allowed in dense format
+     */
+    private Object decodeValue(byte b, Reader reader, DecodeContextStack decodeContextStack) throws IOException {
+        Object rootBlock = this.decodeBlock(b, reader, decodeContextStack);
 
-        this.decodeStack.reset();
-        this.decodeContextStack.reset();
+        if (rootBlock != CONTEXT_BRANCH_CONTEXT_OBJECT) {
+            return rootBlock;
+        }
 
-        this.decodeBlock(reader);
-        OpackValue rootValue = this.decodeStack.peek();
+        OpackValue rootValue = decodeContextStack.peekValue();
 
-        while (!this.decodeStack.isEmpty()) {
-            OpackValue opackValue = this.decodeStack.peek();
-            Object[] context = this.decodeContextStack.peek();
+        while (!decodeContextStack.isEmpty()) {
+            int contextIndex = decodeContextStack.getTopIndex();
 
-            Integer size = (Integer) context[0];
-            Integer offset = (Integer) context[1];
+            OpackValue opackValue = decodeContextStack.getValue(contextIndex);
+            int size = decodeContextStack.getSize(contextIndex);
+            int index = decodeContextStack.getOffset(contextIndex);
 
             boolean bypass = false;
-            int index = offset;
 
             if (opackValue instanceof OpackObject) {
                 OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) opackValue;
 
                 for (; index < size; index++) {
-                    Object key = context[2];
-                    Object value = context[3];
+                    Object key = decodeContextStack.getPendingKey(contextIndex);
 
                     if (key == CONTEXT_NULL_OBJECT) {
-                        key = this.decodeBlock(reader);
+                        key = this.decodeBlock(reader, decodeContextStack);
+
                         if (key == CONTEXT_BRANCH_CONTEXT_OBJECT) {
-                            context[2] = this.decodeStack.peek();
+                            decodeContextStack.setPendingKey(contextIndex, decodeContextStack.peekValue());
                             bypass = true;
                             break;
-                        } else {
-                            context[2] = key;
                         }
+                    } else {
+                        decodeContextStack.setPendingKey(contextIndex, CONTEXT_NULL_OBJECT);
                     }
 
-                    if (value == CONTEXT_NULL_OBJECT) {
-                        value = this.decodeBlock(reader);
-                        if (value == CONTEXT_BRANCH_CONTEXT_OBJECT) {
-                            context[3] = this.decodeStack.peek();
-                            bypass = true;
-                            break;
-                        } else {
-                            context[3] = value;
-                        }
+                    Object value = this.decodeBlock(reader, decodeContextStack);
+
+                    if (value == CONTEXT_BRANCH_CONTEXT_OBJECT) {
+                        index++;
+                        opackObject.put(key, decodeContextStack.peekValue());
+
+                        bypass = true;
+                        break;
                     }
 
                     opackObject.put(key, value);
-                    context[2] = CONTEXT_NULL_OBJECT;
-                    context[3] = CONTEXT_NULL_OBJECT;
                 }
             } else if (opackValue instanceof OpackArray) {
                 OpackArray<Object> opackArray = (OpackArray<Object>) opackValue;
 
                 for (; index < size; index++) {
-                    Object value = this.decodeBlock(reader);
+                    Object value = this.decodeBlock(reader, decodeContextStack);
 
                     if (value == CONTEXT_BRANCH_CONTEXT_OBJECT) {
                         index++;
-                        opackArray.add(this.decodeStack.peek());
+                        opackArray.add(decodeContextStack.peekValue());
 
                         bypass = true;
                         break;
@@ -755,16 +2499,25 @@ public final class DenseCodec extends OpackCodec<Reader, Writer> {
             }
 
             if (!bypass) {
-                this.decodeStack.pop();
-                this.decodeContextStack.pop();
+                decodeContextStack.pop();
             } else {
-                context[1] = index;
+                decodeContextStack.setOffset(contextIndex, index);
             }
         }
 
         return rootValue;
     }
 
+    /**
+     * Creates the push-based decoder that decodes the dense format data fed in arbitrary chunks.
+     * The created decoder is not thread-safe, and does not support the compressed frame.
+     *
+     * @return created incremental decoder
+     */
+    public DenseIncrementalDecoder createIncrementalDecoder() {
+        return new DenseIncrementalDecoder(this, this.decodeStackInitialSize);
+    }
+
     /**
      * Decodes the byte array encoded through the dense codec to OpackValue.
      *
@@ -0,0 +1,456 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.codec.dense.reader.Reader;
+import com.realtimetech.opack.exception.DecodeException;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class DenseIncrementalDecoder {
+    /**
+     * Thrown when the fed bytes end in the middle of a block.
+     */
+    private static final class UnderflowException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        UnderflowException() {
+            super("Fed bytes end in the middle of a block.");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final UnderflowException UNDERFLOW_EXCEPTION = new UnderflowException();
+
+    private static final Object CONTEXT_UNDERFLOW_OBJECT = new Object();
+
+    private static final int CONST_HEADER_LENGTH = 6;
+
+    /**
+     * The reader over the currently fed byte buffer, which throws {@link UnderflowException UnderflowException} instead of reading past the limit.
+     */
+    private static final class FeedReader implements Reader {
+        private ByteBuffer byteBuffer;
+
+        private void assertSize(int size) throws UnderflowException {
+            if (this.byteBuffer.remaining() < size) {
+                throw UNDERFLOW_EXCEPTION;
+            }
+        }
+
+        @Override
+        public int readByte() throws IOException {
+            this.assertSize(1);
+
+            return this.byteBuffer.get() & 0xFF;
+        }
+
+        @Override
+        public char readChar() throws IOException {
+            this.assertSize(2);
+
+            return this.byteBuffer.getChar();
+        }
+
+        @Override
+        public short readShort() throws IOException {
+            this.assertSize(2);
+
+            return this.byteBuffer.getShort();
+        }
+
+        @Override
+        public int readInt() throws IOException {
+            this.assertSize(4);
+
+            return this.byteBuffer.getInt();
+        }
+
+        @Override
+        public float readFloat() throws IOException {
+            this.assertSize(4);
+
+            return this.byteBuffer.getFloat();
+        }
+
+        @Override
+        public long readLong() throws IOException {
+            this.assertSize(8);
+
+            return this.byteBuffer.getLong();
+        }
+
+        @Override
+        public double readDouble() throws IOException {
+            this.assertSize(8);
+
+            return this.byteBuffer.getDouble();
+        }
+
+        @Override
+        public void readBytes(byte[] bytes) throws IOException {
+            this.readBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+            this.assertSize(length);
+
+            this.byteBuffer.get(bytes, offset, length);
+        }
+    }
+
+    private final @NotNull DenseCodec denseCodec;
+
+    private final @NotNull DecodeContextStack decodeContextStack;
+
+    private final @NotNull FeedReader feedReader;
+    private @NotNull ByteBuffer pendingBuffer;
+    private long copiedBytes;
+
+    private boolean headerDecoded;
+    private OpackValue rootValue;
+    private boolean completed;
+
+    /**
+     * Constructs the DenseIncrementalDecoder, use {@link DenseCodec#createIncrementalDecoder() createIncrementalDecoder}.
+     *
+     * @param denseCodec the dense codec that provides the decoding options
+     * @param stackSize  the initial size of the decode stacks
+     */
+    DenseIncrementalDecoder(@NotNull DenseCodec denseCodec, int stackSize) {
+        this.denseCodec = denseCodec;
+
+        this.decodeContextStack = new DecodeContextStack(stackSize);
+
+        this.feedReader = new FeedReader();
+        this.pendingBuffer = ByteBuffer.allocate(1024);
+
+        this.reset();
+    }
+
+    /**
+     * Resets this decoder to decode the next message, the internal buffers are reused.
+     */
+    public void reset() {
+        this.decodeContextStack.reset();
+
+        this.pendingBuffer.clear();
+        this.copiedBytes = 0;
+
+        this.headerDecoded = false;
+        this.rootValue = null;
+        this.completed = false;
+    }
+
+    /**
+     * Returns true if the root value has been decoded completely.
+     *
+     * @return true if the root value has been decoded completely
+     */
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    /**
+     * Returns the decoded root value.
+     *
+     * @return the decoded root value
+     * @throws IllegalStateException if the root value has not been decoded completely yet
+     */
+    public @NotNull OpackValue getResult() {
+        if (!this.completed) {
+            throw new IllegalStateException("Root value has not been decoded completely yet.");
+        }
+
+        return this.rootValue;
+    }
+
+    /**
+     * Returns the number of bytes copied to the pending buffer since the last reset, only the bytes of the blocks straddling the fed chunks are copied.
+     *
+     * @return the number of bytes copied to the pending buffer
+     */
+    public long getCopiedBytes() {
+        return this.copiedBytes;
+    }
+
+    /**
+     * Appends the bytes of the byte buffer to the pending buffer.
+     *
+     * @param byteBuffer the byte buffer to append
+     * @param length     the number of bytes to append
+     */
+    private void appendPending(ByteBuffer byteBuffer, int length) {
+        if (this.pendingBuffer.remaining() < length) {
+            int need = this.pendingBuffer.position() + length;
+            int capacity = this.pendingBuffer.capacity();
+
+            do {
+                capacity = capacity << 1;
+            } while (need > capacity);
+
+            ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+
+            this.pendingBuffer.flip();
+            newBuffer.put(this.pendingBuffer);
+
+            this.pendingBuffer = newBuffer;
+        }
+
+        int limit = byteBuffer.limit();
+
+        byteBuffer.limit(byteBuffer.position() + length);
+        this.pendingBuffer.put(byteBuffer);
+        byteBuffer.limit(limit);
+
+        this.copiedBytes += length;
+    }
+
+    /**
+     * Returns the number of bytes which the pending buffer needs to decode the block at its start.
+     * If the size of the block is not known yet, one byte is needed to read more of its header.
+     * If the block is still incomplete with its minimum size, it has variable length elements and the pending bytes are doubled.
+     *
+     * @return the number of bytes to append to the pending buffer
+     */
+    private int getPendingShortage() {
+        int pendingLength = this.pendingBuffer.position();
+
+        if (!this.headerDecoded) {
+            return CONST_HEADER_LENGTH - pendingLength;
+        }
+
+        ByteBuffer pendingView = this.pendingBuffer.duplicate();
+        pendingView.flip();
+
+        long blockSize = DenseCodec.peekBlockSize(pendingView);
+
+        if (blockSize == -1) {
+            return 1;
+        } else if (blockSize > pendingLength) {
+            return (int) Math.min(blockSize - pendingLength, Integer.MAX_VALUE);
+        }
+
+        return pendingLength;
+    }
+
+    /**
+     * Feeds the chunk of dense format data, and decodes as many blocks as possible.
+     * The bytes are decoded directly from the byte buffer, only the incomplete block at the end of the chunk is copied until the next chunk is fed.
+     * When the next chunk is fed, only the bytes missing from that block are copied, and the decoding continues directly from the chunk after the block.
+     * If the root value is completed, the bytes after the end of the root value are not consumed and remain in the byte buffer.
+     * The dense format is big-endian, so the byte buffer is read in big-endian order and its own order is restored after feeding.
+     *
+     * @param byteBuffer the chunk to feed
+     * @return true if the root value has been decoded completely
+     * @throws DecodeException if a problem occurs during decoding; if the type of data to be decoded is not allowed in dense format
+     */
+    public boolean feed(@NotNull ByteBuffer byteBuffer) throws DecodeException {
+        if (this.completed) {
+            return true;
+        }
+
+        ByteOrder byteOrder = byteBuffer.order();
+
+        try {
+            byteBuffer.order(ByteOrder.BIG_ENDIAN);
+
+            while (this.pendingBuffer.position() > 0) {
+                int shortage = this.getPendingShortage();
+
+                if (byteBuffer.remaining() < shortage) {
+                    this.appendPending(byteBuffer, byteBuffer.remaining());
+
+                    return false;
+                }
+
+                this.appendPending(byteBuffer, shortage);
+                this.pendingBuffer.flip();
+
+                this.completed = this.decode(this.pendingBuffer);
+
+                if (this.completed) {
+                    byteBuffer.position(byteBuffer.position() - this.pendingBuffer.remaining());
+                    this.pendingBuffer.clear();
+
+                    return true;
+                }
+
+                this.pendingBuffer.compact();
+            }
+
+            this.completed = this.decode(byteBuffer);
+
+            if (!this.completed) {
+                this.appendPending(byteBuffer, byteBuffer.remaining());
+            }
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
+        } finally {
+            byteBuffer.order(byteOrder);
+        }
+
+        return this.completed;
+    }
+
+    /**
+     * Decodes one block, and restores the position of the byte buffer if the block is not fed completely.
+     *
+     * @param byteBuffer the byte buffer to decode
+     * @return opack value or CONTEXT_BRANCH_CONTEXT_OBJECT or CONTEXT_UNDERFLOW_OBJECT
+     * @throws IOException if an I/O error occurs
+     */
+    private Object decodeBlock(ByteBuffer byteBuffer) throws IOException {
+        long blockSize = DenseCodec.peekBlockSize(byteBuffer);
+
+        if (blockSize == -1 || blockSize > byteBuffer.remaining()) {
+            return CONTEXT_UNDERFLOW_OBJECT;
+        }
+
+        int position = byteBuffer.position();
+
+        try {
+            return this.denseCodec.decodeBlock(this.feedReader, this.decodeContextStack);
+        } catch (UnderflowException exception) {
+            byteBuffer.position(position);
+
+            return CONTEXT_UNDERFLOW_OBJECT;
+        }
+    }
+
+    /**
+     * Decodes blocks from the byte buffer until the bytes run out or the root value is completed.
+     *
+     * @param byteBuffer the byte buffer to decode
+     * @return true if the root value has been decoded completely
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the decoded value is not a opack value
+     */
+    private boolean decode(ByteBuffer byteBuffer) throws IOException {
+        this.feedReader.byteBuffer = byteBuffer;
+
+        if (!this.headerDecoded) {
+            if (byteBuffer.remaining() < CONST_HEADER_LENGTH) {
+                return false;
+            }
+
+            byte[] classifier = new byte[4];
+            byte[] version = new byte[CONST_HEADER_LENGTH - classifier.length];
+
+            byteBuffer.get(classifier);
+            byteBuffer.get(version);
+
+            this.denseCodec.verifyHeader(classifier, version);
+            this.headerDecoded = true;
+        }
+
+        if (this.rootValue == null) {
+            Object value = this.decodeBlock(byteBuffer);
+
+            if (value == CONTEXT_UNDERFLOW_OBJECT) {
+                return false;
+            } else if (value == DenseCodec.CONTEXT_BRANCH_CONTEXT_OBJECT) {
+                this.rootValue = this.decodeContextStack.peekValue();
+            } else if (value instanceof OpackValue) {
+                this.rootValue = (OpackValue) value;
+            } else {
+                throw new IllegalArgumentException((value == null ? "null" : value.getClass()) + " is not a type of opack value. (root value must be opack value)");
+            }
+        }
+
+        DecodeContextStack decodeContextStack = this.decodeContextStack;
+
+        while (!decodeContextStack.isEmpty()) {
+            int contextIndex = decodeContextStack.getTopIndex();
+
+            OpackValue opackValue = decodeContextStack.getValue(contextIndex);
+            int size = decodeContextStack.getSize(contextIndex);
+            int index = decodeContextStack.getOffset(contextIndex);
+
+            if (index >= size) {
+                decodeContextStack.pop();
+
+                continue;
+            }
+
+            if (opackValue instanceof OpackObject) {
+                OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) opackValue;
+                Object key = decodeContextStack.getPendingKey(contextIndex);
+
+                if (key == DenseCodec.CONTEXT_NULL_OBJECT) {
+                    key = this.decodeBlock(byteBuffer);
+
+                    if (key == CONTEXT_UNDERFLOW_OBJECT) {
+                        return false;
+                    } else if (key == DenseCodec.CONTEXT_BRANCH_CONTEXT_OBJECT) {
+                        decodeContextStack.setPendingKey(contextIndex, decodeContextStack.peekValue());
+                        continue;
+                    }
+
+                    decodeContextStack.setPendingKey(contextIndex, key);
+                }
+
+                Object value = this.decodeBlock(byteBuffer);
+
+                if (value == CONTEXT_UNDERFLOW_OBJECT) {
+                    return false;
+                } else if (value == DenseCodec.CONTEXT_BRANCH_CONTEXT_OBJECT) {
+                    value = decodeContextStack.peekValue();
+                }
+
+                opackObject.put(key, value);
+
+                decodeContextStack.setOffset(contextIndex, index + 1);
+                decodeContextStack.setPendingKey(contextIndex, DenseCodec.CONTEXT_NULL_OBJECT);
+            } else if (opackValue instanceof OpackArray) {
+                OpackArray<Object> opackArray = (OpackArray<Object>) opackValue;
+                Object value = this.decodeBlock(byteBuffer);
+
+                if (value == CONTEXT_UNDERFLOW_OBJECT) {
+                    return false;
+                } else if (value == DenseCodec.CONTEXT_BRANCH_CONTEXT_OBJECT) {
+                    value = decodeContextStack.peekValue();
+                }
+
+                opackArray.add(value);
+
+                decodeContextStack.setOffset(contextIndex, index + 1);
+            } else {
+                throw new IllegalArgumentException(opackValue.getClass() + " is not a type of opack value. (unknown opack value type)");
+            }
+        }
+
+        return true;
+    }
+}
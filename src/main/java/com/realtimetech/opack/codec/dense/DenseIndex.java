@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.codec.dense.reader.ByteArrayReader;
+import com.realtimetech.opack.exception.DecodeException;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+public final class DenseIndex {
+    private static final int CONST_HEADER_LENGTH = 6;
+
+    private final @NotNull DenseCodec denseCodec;
+    private final byte @NotNull [] bytes;
+
+    /**
+     * Constructs the DenseIndex that reads the indexed dense format data encoded by {@link DenseCodec#encodeIndexed(OpackValue) encodeIndexed}.
+     * The bytes are not copied, so they must not be modified while this index is used.
+     *
+     * @param denseCodec the dense codec to decode the addressed values
+     * @param bytes      the indexed dense format data
+     * @throws IllegalArgumentException if the bytes are not indexed dense format data; if the version does not match current versions of dense codec
+     */
+    public DenseIndex(@NotNull DenseCodec denseCodec, byte @NotNull [] bytes) {
+        if (bytes.length < CONST_HEADER_LENGTH + 1) {
+            throw new IllegalArgumentException("Data is too short to be indexed dense format data. (length " + bytes.length + ")");
+        }
+
+        byte[] classifier = Arrays.copyOfRange(bytes, 0, DenseCodec.CONST_DENSE_INDEXED_CLASSIFIER.length);
+
+        if (!Arrays.equals(DenseCodec.CONST_DENSE_INDEXED_CLASSIFIER, classifier)) {
+            throw new IllegalArgumentException("Data is not indexed dense format data. (Expected " + Arrays.toString(DenseCodec.CONST_DENSE_INDEXED_CLASSIFIER) + ", got " + Arrays.toString(classifier) + ")");
+        }
+
+        denseCodec.verifyVersion(Arrays.copyOfRange(bytes, classifier.length, CONST_HEADER_LENGTH));
+
+        this.denseCodec = denseCodec;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the big-endian int at the position.
+     *
+     * @param position the position of the int
+     * @return the int
+     * @throws IllegalArgumentException if the position is out of the bytes
+     */
+    private int getInt(int position) {
+        if (position < 0 || position + 4 > this.bytes.length) {
+            throw new IllegalArgumentException("Indexed dense format data is corrupted. (position " + position + " is out of length " + this.bytes.length + ")");
+        }
+
+        return ((this.bytes[position] & 0xFF) << 24) |
+                ((this.bytes[position + 1] & 0xFF) << 16) |
+                ((this.bytes[position + 2] & 0xFF) << 8) |
+                ((this.bytes[position + 3] & 0xFF) << 0);
+    }
+
+    /**
+     * Returns the value addressed by the path, only the addressed value is decoded.
+     * Each element of the path is the key of the object or the element index(int) of the array, so reading a value costs O(depth) lookups instead of decoding the whole data.
+     * The native arrays are decoded as a whole when the path reaches into them.
+     *
+     * @param path the keys and the element indexes from the root
+     * @return the addressed OpackValue or literal value, or null if the path does not exist
+     * @throws DecodeException if a problem occurs during decoding; if the data is corrupted
+     */
+    public Object get(Object @NotNull ... path) throws DecodeException {
+        try {
+            int position = CONST_HEADER_LENGTH;
+
+            for (int depth = 0; depth < path.length; depth++) {
+                byte type = this.bytes[position];
+
+                if (type == DenseCodec.CONST_TYPE_INDEXED_OPACK_OBJECT) {
+                    position = this.findValue(position, path[depth]);
+                } else if (type == DenseCodec.CONST_TYPE_INDEXED_OPACK_ARRAY) {
+                    position = this.findElement(position, path[depth]);
+                } else {
+                    return this.getMaterialized(this.decode(position), path, depth);
+                }
+
+                if (position == -1) {
+                    return null;
+                }
+            }
+
+            return this.decode(position);
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
+        }
+    }
+
+    /**
+     * Returns the position of the value of the key in the indexed object, by the binary search on the offset table sorted by the hash of the key.
+     *
+     * @param position the position of the indexed object
+     * @param key      the key to find
+     * @return the position of the value, or -1 if the key does not exist
+     * @throws IOException if an I/O error occurs
+     */
+    private int findValue(int position, Object key) throws IOException {
+        int size = this.getInt(position + 1);
+        int tablePosition = position + 1 + 4 + 4;
+        int entriesPosition = tablePosition + size * 8;
+        int hash = DenseCodec.getIndexedKeyHash(key);
+
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (this.getInt(tablePosition + middle * 8) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        byte[] keyBytes = key instanceof String ? ((String) key).getBytes(StandardCharsets.UTF_8) : null;
+
+        for (int index = low; index < size && this.getInt(tablePosition + index * 8) == hash; index++) {
+            int keyPosition = entriesPosition + this.getInt(tablePosition + index * 8 + 4);
+
+            if (keyBytes != null) {
+                if (this.bytes[keyPosition] == DenseCodec.CONST_TYPE_STRING) {
+                    int keyStart = keyPosition + 1 + 4;
+                    int keyEnd = keyStart + this.getInt(keyPosition + 1);
+
+                    if (keyEnd <= this.bytes.length && Arrays.equals(this.bytes, keyStart, keyEnd, keyBytes, 0, keyBytes.length)) {
+                        return keyEnd;
+                    }
+                }
+            } else {
+                ByteArrayReader byteArrayReader = new ByteArrayReader(this.bytes, keyPosition, this.bytes.length - keyPosition);
+
+                if (Objects.equals(this.denseCodec.decodeValue(byteArrayReader), key)) {
+                    return byteArrayReader.getPosition();
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the position of the element of the element index in the indexed array.
+     *
+     * @param position the position of the indexed array
+     * @param index    the element index, must be an Integer
+     * @return the position of the element, or -1 if the element index is out of the array
+     */
+    private int findElement(int position, Object index) {
+        int length = this.getInt(position + 1);
+
+        if (!(index instanceof Integer)) {
+            return -1;
+        }
+
+        int elementIndex = (Integer) index;
+
+        if (elementIndex < 0 || elementIndex >= length) {
+            return -1;
+        }
+
+        int tablePosition = position + 1 + 4 + 4;
+
+        return tablePosition + length * 4 + this.getInt(tablePosition + elementIndex * 4);
+    }
+
+    /**
+     * Decodes the value at the position.
+     *
+     * @param position the position of the value
+     * @return the decoded value
+     * @throws IOException if an I/O error occurs
+     */
+    private Object decode(int position) throws IOException {
+        return this.denseCodec.decodeValue(new ByteArrayReader(this.bytes, position, this.bytes.length - position));
+    }
+
+    /**
+     * Follows the rest of the path on the decoded value, for the values which are not indexed such as the native arrays.
+     *
+     * @param value the decoded value
+     * @param path  the path
+     * @param depth the depth of the path to follow from
+     * @return the addressed value, or null if the path does not exist
+     */
+    private Object getMaterialized(Object value, Object @NotNull [] path, int depth) {
+        for (; depth < path.length; depth++) {
+            if (value instanceof OpackObject) {
+                value = ((OpackObject<Object, Object>) value).get(path[depth]);
+            } else if (value instanceof OpackArray && path[depth] instanceof Integer) {
+                OpackArray<Object> opackArray = (OpackArray<Object>) value;
+                int index = (Integer) path[depth];
+
+                if (index < 0 || index >= opackArray.length()) {
+                    return null;
+                }
+
+                value = opackArray.get(index);
+            } else {
+                return null;
+            }
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.Opacker;
+import com.realtimetech.opack.bake.BakedType;
+import com.realtimetech.opack.bake.TypeBaker;
+import com.realtimetech.opack.exception.BakeException;
+import com.realtimetech.opack.util.ReflectionUtil;
+import com.realtimetech.opack.value.OpackValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public final class DenseProjection {
+    public final static class Builder {
+        private final Map<Object, Object> root;
+        private boolean all;
+
+        public Builder() {
+            this.root = new LinkedHashMap<>();
+            this.all = false;
+        }
+
+        /**
+         * Adds the path of the keys to be decoded, the whole value at the end of the path is decoded.
+         * The arrays are projected element-wise, so the path does not contain the element indexes.
+         * If a path is a prefix of another path, the shorter path wins.
+         *
+         * @param path the keys from the root
+         * @return this builder
+         */
+        public Builder addPath(Object @NotNull ... path) {
+            if (path.length == 0) {
+                this.all = true;
+                return this;
+            }
+
+            Map<Object, Object> children = this.root;
+
+            for (int depth = 0; depth < path.length; depth++) {
+                Object child = children.get(path[depth]);
+
+                if (depth == path.length - 1) {
+                    children.put(path[depth], Boolean.TRUE);
+                } else if (child == Boolean.TRUE) {
+                    break;
+                } else {
+                    if (child == null) {
+                        child = new LinkedHashMap<>();
+                        children.put(path[depth], child);
+                    }
+
+                    children = (Map<Object, Object>) child;
+                }
+            }
+
+            return this;
+        }
+
+        /**
+         * Create the {@link DenseProjection DenseProjection}.
+         *
+         * @return created dense projection
+         */
+        public DenseProjection create() {
+            return this.all ? new DenseProjection(null) : new DenseProjection(this.root);
+        }
+    }
+
+    /**
+     * Creates the projection of the fields of the type, the keys are the names of the fields that the opacker serializes.
+     * The fields of the nested types are projected recursively, and the arrays of them are projected element-wise.
+     * The fields which have transformers, collections, maps, abstract and recursive types are decoded as a whole because their structure is not known by the declared type.
+     *
+     * @param opacker the opacker that serializes the type
+     * @param type    the type to project
+     * @return the created projection
+     * @throws BakeException if a problem occurs during baking the type
+     */
+    public static @NotNull DenseProjection fromType(@NotNull Opacker opacker, @NotNull Class<?> type) throws BakeException {
+        TypeBaker typeBaker = new TypeBaker(opacker);
+        Map<Object, Object> children = new LinkedHashMap<>();
+
+        DenseProjection.addType(typeBaker, children, type, new HashSet<>());
+
+        return new DenseProjection(children);
+    }
+
+    /**
+     * Adds the fields of the type to the children.
+     *
+     * @param typeBaker     the type baker to bake the type
+     * @param children      the children to add the fields
+     * @param type          the type to project
+     * @param visitingTypes the types being projected, to stop at the recursive types
+     * @throws BakeException if a problem occurs during baking the type
+     */
+    private static void addType(@NotNull TypeBaker typeBaker, @NotNull Map<Object, Object> children, @NotNull Class<?> type, @NotNull Set<Class<?>> visitingTypes) throws BakeException {
+        visitingTypes.add(type);
+
+        for (BakedType.Property property : typeBaker.get(type).getFields()) {
+            Class<?> fieldType = property.getType();
+
+            while (fieldType.isArray()) {
+                fieldType = fieldType.getComponentType();
+            }
+
+            if (property.getTransformer() == null && !visitingTypes.contains(fieldType) && DenseProjection.isProjectableType(typeBaker, fieldType)) {
+                Map<Object, Object> fieldChildren = new LinkedHashMap<>();
+
+                DenseProjection.addType(typeBaker, fieldChildren, fieldType, visitingTypes);
+                children.put(property.getName(), fieldChildren);
+            } else {
+                children.put(property.getName(), Boolean.TRUE);
+            }
+        }
+
+        visitingTypes.remove(type);
+    }
+
+    /**
+     * Returns true if the type is serialized to an OpackObject of its fields.
+     *
+     * @param typeBaker the type baker to bake the type
+     * @param type      the type
+     * @return true if the type is serialized to an OpackObject of its fields
+     * @throws BakeException if a problem occurs during baking the type
+     */
+    private static boolean isProjectableType(@NotNull TypeBaker typeBaker, @NotNull Class<?> type) throws BakeException {
+        if (type.isPrimitive() || type.isEnum() || type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type == Object.class || type == String.class) {
+            return false;
+        }
+
+        if (ReflectionUtil.isWrapperType(type) || OpackValue.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            return false;
+        }
+
+        return typeBaker.get(type).getTransformers().length == 0;
+    }
+
+    private final Map<Object, DenseProjection> children;
+
+    private final byte[][] stringKeyBytes;
+    private final String[] stringKeys;
+    private final DenseProjection[] stringKeyChildren;
+    private final boolean nonStringKeys;
+
+    /**
+     * Constructs the DenseProjection from the tree of the builder.
+     *
+     * @param children the map of the key to the children map or Boolean.TRUE for the whole value, or null to decode the whole value
+     */
+    private DenseProjection(Map<Object, Object> children) {
+        if (children == null) {
+            this.children = null;
+
+            this.stringKeyBytes = null;
+            this.stringKeys = null;
+            this.stringKeyChildren = null;
+            this.nonStringKeys = false;
+
+            return;
+        }
+
+        this.children = new HashMap<>();
+
+        int stringKeyCount = 0;
+        for (Object key : children.keySet()) {
+            if (key instanceof String) {
+                stringKeyCount++;
+            }
+        }
+
+        this.stringKeyBytes = new byte[stringKeyCount][];
+        this.stringKeys = new String[stringKeyCount];
+        this.stringKeyChildren = new DenseProjection[stringKeyCount];
+        this.nonStringKeys = stringKeyCount < children.size();
+
+        int stringKeyIndex = 0;
+
+        for (Map.Entry<Object, Object> entry : children.entrySet()) {
+            DenseProjection child = new DenseProjection(entry.getValue() == Boolean.TRUE ? null : (Map<Object, Object>) entry.getValue());
+            this.children.put(entry.getKey(), child);
+
+            if (entry.getKey() instanceof String) {
+                this.stringKeys[stringKeyIndex] = (String) entry.getKey();
+                this.stringKeyBytes[stringKeyIndex] = ((String) entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                this.stringKeyChildren[stringKeyIndex] = child;
+
+                stringKeyIndex++;
+            }
+        }
+    }
+
+    /**
+     * @return true if the whole value is decoded
+     */
+    boolean isAll() {
+        return this.children == null;
+    }
+
+    /**
+     * @return true if any key which is not a string is projected, otherwise the keys which are not strings are skipped without being decoded
+     */
+    boolean hasNonStringKeys() {
+        return this.nonStringKeys;
+    }
+
+    /**
+     * Returns the projection of the key.
+     *
+     * @param key the key
+     * @return the projection of the key, or null if the key is not projected
+     */
+    DenseProjection getChild(Object key) {
+        return this.children.get(key);
+    }
+
+    /**
+     * Returns the index of the string key which has the UTF-8 bytes, so that the key is matched without creating the string.
+     *
+     * @param bytes  the byte array containing the UTF-8 bytes
+     * @param length the number of bytes
+     * @return the index of the string key, or -1 if the key is not projected
+     */
+    int findStringKey(byte @NotNull [] bytes, int length) {
+        for (int index = 0; index < this.stringKeyBytes.length; index++) {
+            byte[] keyBytes = this.stringKeyBytes[index];
+
+            if (keyBytes.length == length && Arrays.equals(keyBytes, 0, length, bytes, 0, length)) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param index the index of the string key
+     * @return the string key
+     */
+    String getStringKey(int index) {
+        return this.stringKeys[index];
+    }
+
+    /**
+     * @param index the index of the string key
+     * @return the projection of the string key
+     */
+    DenseProjection getStringKeyChild(int index) {
+        return this.stringKeyChildren[index];
+    }
+}
@@ -0,0 +1,817 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.codec.dense.reader.BitReader;
+import com.realtimetech.opack.codec.dense.reader.Reader;
+import com.realtimetech.opack.codec.dense.writer.BitWriter;
+import com.realtimetech.opack.codec.dense.writer.ByteArraySliceWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+final class NativeArrayPacker {
+    static final int CONST_PACKING_NONE = 0;
+    static final int CONST_PACKING_DELTA = 1;
+    static final int CONST_PACKING_FRAME_OF_REFERENCE = 2;
+    static final int CONST_PACKING_RUN_LENGTH = 3;
+    static final int CONST_PACKING_XOR = 4;
+
+    private long[] values;
+    private int length;
+
+    private int packing;
+    private int packedLength;
+
+    private long minimum;
+    private int bitWidth;
+
+    private int valueWidth;
+
+    private byte[] buffer;
+
+    /**
+     * Constructs the NativeArrayPacker.
+     */
+    NativeArrayPacker() {
+        this.values = new long[64];
+        this.length = 0;
+
+        this.packing = CONST_PACKING_NONE;
+        this.packedLength = 0;
+
+        this.buffer = new byte[64];
+    }
+
+    /**
+     * Returns the zigzag encoded value, so that the small negative values have the small unsigned values.
+     *
+     * @param value the value
+     * @return the zigzag encoded value
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Returns the number of bytes of the unsigned value encoded in varint.
+     *
+     * @param value the unsigned value
+     * @return the number of bytes
+     */
+    private static int getVarintLength(long value) {
+        return ((64 - Long.numberOfLeadingZeros(value | 1)) * 9 + 64) >>> 6;
+    }
+
+    /**
+     * Ensures the capacity of the values.
+     *
+     * @param length the number of values
+     */
+    private void ensureValues(int length) {
+        if (this.values.length < length) {
+            this.values = new long[Math.max(length, this.values.length << 1)];
+        }
+    }
+
+    /**
+     * Loads the values of the int array.
+     *
+     * @param array the int array
+     */
+    private void load(int @NotNull [] array) {
+        this.ensureValues(array.length);
+
+        for (int index = 0; index < array.length; index++) {
+            this.values[index] = array[index];
+        }
+    }
+
+    /**
+     * Loads the values of the long array.
+     *
+     * @param array the long array
+     */
+    private void load(long @NotNull [] array) {
+        this.ensureValues(array.length);
+
+        System.arraycopy(array, 0, this.values, 0, array.length);
+    }
+
+    /**
+     * Loads the bits of the values of the float array.
+     *
+     * @param array the float array
+     */
+    private void load(float @NotNull [] array) {
+        this.ensureValues(array.length);
+
+        for (int index = 0; index < array.length; index++) {
+            this.values[index] = Float.floatToRawIntBits(array[index]) & 0xFFFFFFFFL;
+        }
+    }
+
+    /**
+     * Loads the bits of the values of the double array.
+     *
+     * @param array the double array
+     */
+    private void load(double @NotNull [] array) {
+        this.ensureValues(array.length);
+
+        for (int index = 0; index < array.length; index++) {
+            this.values[index] = Double.doubleToRawLongBits(array[index]);
+        }
+    }
+
+    /**
+     * Selects the packing of the int array which has the smallest packed length, the values are kept until the array is packed.
+     *
+     * @param array the int array
+     * @return the selected packing, or CONST_PACKING_NONE if no packing is smaller than the raw values
+     */
+    int select(int @NotNull [] array) {
+        this.load(array);
+
+        return this.select(array.length, 4);
+    }
+
+    /**
+     * Selects the packing of the long array which has the smallest packed length, the values are kept until the array is packed.
+     *
+     * @param array the long array
+     * @return the selected packing, or CONST_PACKING_NONE if no packing is smaller than the raw values
+     */
+    int select(long @NotNull [] array) {
+        this.load(array);
+
+        return this.select(array.length, 8);
+    }
+
+    /**
+     * Selects the xor packing of the float array if it is smaller than the raw values, the bits of the values are kept until the array is packed.
+     *
+     * @param array the float array
+     * @return CONST_PACKING_XOR, or CONST_PACKING_NONE if the xor packing is not smaller than the raw values
+     * @throws IOException if an I/O error occurs
+     */
+    int select(float @NotNull [] array) throws IOException {
+        this.load(array);
+
+        return this.selectXor(array.length, 32);
+    }
+
+    /**
+     * Selects the xor packing of the double array if it is smaller than the raw values, the bits of the values are kept until the array is packed.
+     *
+     * @param array the double array
+     * @return CONST_PACKING_XOR, or CONST_PACKING_NONE if the xor packing is not smaller than the raw values
+     * @throws IOException if an I/O error occurs
+     */
+    int select(double @NotNull [] array) throws IOException {
+        this.load(array);
+
+        return this.selectXor(array.length, 64);
+    }
+
+    /**
+     * Prepares the int array to be packed by the packing which was selected for the same values before, without measuring the packings again.
+     *
+     * @param array        the int array
+     * @param packing      the selected packing
+     * @param packedLength the packed length of the selected packing
+     */
+    void prepare(int @NotNull [] array, int packing, int packedLength) {
+        this.load(array);
+        this.prepare(array.length, 32, packing, packedLength);
+    }
+
+    /**
+     * Prepares the long array to be packed by the packing which was selected for the same values before, without measuring the packings again.
+     *
+     * @param array        the long array
+     * @param packing      the selected packing
+     * @param packedLength the packed length of the selected packing
+     */
+    void prepare(long @NotNull [] array, int packing, int packedLength) {
+        this.load(array);
+        this.prepare(array.length, 64, packing, packedLength);
+    }
+
+    /**
+     * Prepares the float array to be packed by the xor packing which was selected for the same values before, without measuring the packing again.
+     *
+     * @param array        the float array
+     * @param packing      the selected packing
+     * @param packedLength the packed length of the selected packing
+     */
+    void prepare(float @NotNull [] array, int packing, int packedLength) {
+        this.load(array);
+        this.prepare(array.length, 32, packing, packedLength);
+    }
+
+    /**
+     * Prepares the double array to be packed by the xor packing which was selected for the same values before, without measuring the packing again.
+     *
+     * @param array        the double array
+     * @param packing      the selected packing
+     * @param packedLength the packed length of the selected packing
+     */
+    void prepare(double @NotNull [] array, int packing, int packedLength) {
+        this.load(array);
+        this.prepare(array.length, 64, packing, packedLength);
+    }
+
+    /**
+     * Restores the state of the selected packing of the loaded values, only the frame of the frame of reference packing is computed again.
+     *
+     * @param length       the number of values
+     * @param valueWidth   the number of bits of a value
+     * @param packing      the selected packing
+     * @param packedLength the packed length of the selected packing
+     */
+    private void prepare(int length, int valueWidth, int packing, int packedLength) {
+        this.length = length;
+        this.valueWidth = valueWidth;
+
+        this.packing = packing;
+        this.packedLength = packedLength;
+
+        if (packing == CONST_PACKING_FRAME_OF_REFERENCE) {
+            long[] values = this.values;
+            long minimum = values[0];
+            long maximum = values[0];
+
+            for (int index = 1; index < length; index++) {
+                long value = values[index];
+
+                if (value < minimum) {
+                    minimum = value;
+                } else if (value > maximum) {
+                    maximum = value;
+                }
+            }
+
+            this.minimum = minimum;
+            this.bitWidth = 64 - Long.numberOfLeadingZeros(maximum - minimum);
+        }
+    }
+
+    /**
+     * Measures the length of the values packed by xor, and selects it if it is smaller than the raw values.
+     *
+     * @param length     the number of values
+     * @param valueWidth the number of bits of a value
+     * @return CONST_PACKING_XOR, or CONST_PACKING_NONE if the xor packing is not smaller than the raw values
+     * @throws IOException if an I/O error occurs
+     */
+    private int selectXor(int length, int valueWidth) throws IOException {
+        this.length = length;
+        this.packing = CONST_PACKING_NONE;
+        this.valueWidth = valueWidth;
+
+        if (length == 0) {
+            return CONST_PACKING_NONE;
+        }
+
+        long packedLength = (this.xor(null) + 7) >>> 3;
+
+        if (packedLength + 4 >= (long) length * (valueWidth >>> 3) || packedLength > Integer.MAX_VALUE - 16) {
+            return CONST_PACKING_NONE;
+        }
+
+        this.packing = CONST_PACKING_XOR;
+        this.packedLength = (int) packedLength;
+
+        return CONST_PACKING_XOR;
+    }
+
+    /**
+     * Packs the bits of the values by xor with the previous value, the xor is written by the leading and trailing zero bits in the way of Gorilla.
+     * (first value: value width bits, same value: '0', xor in the previous window: '10' meaningful bits, xor in a new window: '11' leading zero bits(5 bits) meaningful bit length - 1(6 bits) meaningful bits)
+     * If the bit writer is not given, the bits are only counted.
+     *
+     * @param bitWriter the bit writer to write the bits, or null to count the bits
+     * @return the number of the bits
+     * @throws IOException if an I/O error occurs
+     */
+    private long xor(BitWriter bitWriter) throws IOException {
+        long[] values = this.values;
+        int length = this.length;
+        int valueWidth = this.valueWidth;
+        int unusedWidth = 64 - valueWidth;
+
+        long previous = values[0];
+        long bitLength = valueWidth;
+
+        int previousLeading = -1;
+        int previousTrailing = 0;
+
+        if (bitWriter != null) {
+            bitWriter.writeBits(previous, valueWidth);
+        }
+
+        for (int index = 1; index < length; index++) {
+            long value = values[index];
+            long xor = value ^ previous;
+
+            if (xor == 0) {
+                bitLength += 1;
+
+                if (bitWriter != null) {
+                    bitWriter.writeBits(0, 1);
+                }
+            } else {
+                int leading = Math.min(Long.numberOfLeadingZeros(xor) - unusedWidth, 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+
+                if (previousLeading != -1 && leading >= previousLeading && trailing >= previousTrailing) {
+                    int meaningful = valueWidth - previousLeading - previousTrailing;
+
+                    bitLength += 2 + meaningful;
+
+                    if (bitWriter != null) {
+                        bitWriter.writeBits(0b10, 2);
+                        bitWriter.writeBits(xor >>> previousTrailing, meaningful);
+                    }
+                } else {
+                    int meaningful = valueWidth - leading - trailing;
+
+                    bitLength += 2 + 5 + 6 + meaningful;
+
+                    if (bitWriter != null) {
+                        bitWriter.writeBits(0b11, 2);
+                        bitWriter.writeBits(leading, 5);
+                        bitWriter.writeBits(meaningful - 1, 6);
+                        bitWriter.writeBits(xor >>> trailing, meaningful);
+                    }
+
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+
+            previous = value;
+        }
+
+        return bitLength;
+    }
+
+    /**
+     * Measures the packed lengths of all packings in one pass over the values, and selects the smallest one.
+     *
+     * @param length      the number of values
+     * @param elementSize the number of bytes of a raw value
+     * @return the selected packing, or CONST_PACKING_NONE if no packing is smaller than the raw values
+     */
+    private int select(int length, int elementSize) {
+        long[] values = this.values;
+
+        this.length = length;
+        this.packing = CONST_PACKING_NONE;
+
+        if (length == 0) {
+            return CONST_PACKING_NONE;
+        }
+
+        long minimum = values[0];
+        long maximum = values[0];
+
+        long deltaLength = 0;
+        long runLengthLength = 0;
+
+        long previous = 0;
+        int runLength = 0;
+
+        for (int index = 0; index < length; index++) {
+            long value = values[index];
+
+            if (value < minimum) {
+                minimum = value;
+            } else if (value > maximum) {
+                maximum = value;
+            }
+
+            deltaLength += getVarintLength(zigzag(value - previous));
+
+            if (index > 0 && value == previous) {
+                runLength++;
+            } else {
+                if (runLength > 0) {
+                    runLengthLength += getVarintLength(runLength) + getVarintLength(zigzag(previous));
+                }
+
+                runLength = 1;
+            }
+
+            previous = value;
+        }
+
+        runLengthLength += getVarintLength(runLength) + getVarintLength(zigzag(previous));
+
+        int bitWidth = 64 - Long.numberOfLeadingZeros(maximum - minimum);
+        long frameLength = getVarintLength(zigzag(minimum)) + 1 + (((long) length * bitWidth + 7) >>> 3);
+
+        long packedLength = (long) length * elementSize - 4;
+        int packing = CONST_PACKING_NONE;
+
+        if (deltaLength < packedLength) {
+            packedLength = deltaLength;
+            packing = CONST_PACKING_DELTA;
+        }
+
+        if (frameLength < packedLength) {
+            packedLength = frameLength;
+            packing = CONST_PACKING_FRAME_OF_REFERENCE;
+        }
+
+        if (runLengthLength < packedLength) {
+            packedLength = runLengthLength;
+            packing = CONST_PACKING_RUN_LENGTH;
+        }
+
+        if (packing == CONST_PACKING_NONE || packedLength > Integer.MAX_VALUE - 16) {
+            return CONST_PACKING_NONE;
+        }
+
+        this.packing = packing;
+        this.packedLength = (int) packedLength;
+
+        this.minimum = minimum;
+        this.bitWidth = bitWidth;
+
+        return packing;
+    }
+
+    /**
+     * Drops the values and the buffer if they have grown over the max length, so that the packer of a thread does not retain the buffers of its largest array.
+     *
+     * @param maxLength the max length of the values and the buffer to keep
+     */
+    void trim(int maxLength) {
+        if (this.values.length > maxLength) {
+            this.values = new long[64];
+        }
+
+        if (this.buffer.length > maxLength) {
+            this.buffer = new byte[64];
+        }
+    }
+
+    /**
+     * @return the number of bytes of the values packed by the selected packing
+     */
+    int getPackedLength() {
+        return this.packedLength;
+    }
+
+    /**
+     * Writes the unsigned value in varint to the buffer.
+     *
+     * @param value the unsigned value
+     * @param index the index of the buffer to write
+     * @return the index after the written bytes
+     */
+    private int writeVarint(long value, int index) {
+        byte[] buffer = this.buffer;
+
+        while ((value & ~0x7FL) != 0) {
+            buffer[index++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[index++] = (byte) value;
+
+        return index;
+    }
+
+    /**
+     * Packs the selected values by the selected packing.
+     *
+     * @return the buffer containing the packed bytes, valid until the next call
+     * @throws IOException           if an I/O error occurs
+     * @throws IllegalStateException if no packing is selected
+     */
+    byte @NotNull [] pack() throws IOException {
+        if (this.packing == CONST_PACKING_NONE) {
+            throw new IllegalStateException("No packing is selected.");
+        }
+
+        if (this.buffer.length < this.packedLength) {
+            this.buffer = new byte[Math.max(this.packedLength, this.buffer.length << 1)];
+        }
+
+        long[] values = this.values;
+        int length = this.length;
+        int index = 0;
+
+        if (this.packing == CONST_PACKING_XOR) {
+            ByteArraySliceWriter byteArraySliceWriter = new ByteArraySliceWriter(this.buffer, 0, this.packedLength);
+            BitWriter bitWriter = new BitWriter(byteArraySliceWriter);
+
+            this.xor(bitWriter);
+            bitWriter.flush();
+
+            index = byteArraySliceWriter.getLength();
+        } else if (this.packing == CONST_PACKING_DELTA) {
+            long previous = 0;
+
+            for (int valueIndex = 0; valueIndex < length; valueIndex++) {
+                index = this.writeVarint(zigzag(values[valueIndex] - previous), index);
+                previous = values[valueIndex];
+            }
+        } else if (this.packing == CONST_PACKING_FRAME_OF_REFERENCE) {
+            byte[] buffer = this.buffer;
+            long minimum = this.minimum;
+            int bitWidth = this.bitWidth;
+
+            index = this.writeVarint(zigzag(minimum), index);
+            buffer[index++] = (byte) bitWidth;
+
+            long bits = 0;
+            int bitCount = 0;
+
+            for (int valueIndex = 0; valueIndex < length; valueIndex++) {
+                long value = values[valueIndex] - minimum;
+                int written = 0;
+
+                while (written < bitWidth) {
+                    int chunk = Math.min(bitWidth - written, 64 - bitCount);
+
+                    bits |= ((value >>> written) & (chunk == 64 ? -1L : (1L << chunk) - 1)) << bitCount;
+                    bitCount += chunk;
+                    written += chunk;
+
+                    while (bitCount >= 8) {
+                        buffer[index++] = (byte) bits;
+                        bits >>>= 8;
+                        bitCount -= 8;
+                    }
+                }
+            }
+
+            if (bitCount > 0) {
+                buffer[index++] = (byte) bits;
+            }
+        } else {
+            long previous = values[0];
+            int runLength = 0;
+
+            for (int valueIndex = 0; valueIndex < length; valueIndex++) {
+                if (values[valueIndex] == previous) {
+                    runLength++;
+                } else {
+                    index = this.writeVarint(runLength, index);
+                    index = this.writeVarint(zigzag(previous), index);
+
+                    previous = values[valueIndex];
+                    runLength = 1;
+                }
+            }
+
+            index = this.writeVarint(runLength, index);
+            index = this.writeVarint(zigzag(previous), index);
+        }
+
+        if (index != this.packedLength) {
+            throw new IllegalStateException("Packed length does not match the measured length. (expected " + this.packedLength + ", got " + index + ")");
+        }
+
+        return this.buffer;
+    }
+
+    /**
+     * Unpacks the packed bytes from the reader to the values, the values are stored to either the long array or the int array.
+     *
+     * @param packing    the packing of the bytes
+     * @param reader     the reader placed at the packed bytes
+     * @param length     the number of the packed bytes
+     * @param longValues the long array to store the unpacked values, or null
+     * @param intValues  the int array to store the unpacked values, or null
+     * @param count      the number of the values to unpack
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the packed bytes are corrupted
+     */
+    static void unpack(int packing, @NotNull Reader reader, int length, long[] longValues, int[] intValues, int count) throws IOException {
+        Unpacker unpacker = new Unpacker(reader, length);
+
+        if (packing == CONST_PACKING_DELTA) {
+            long previous = 0;
+
+            for (int index = 0; index < count; index++) {
+                previous += unzigzag(unpacker.readVarint());
+
+                if (longValues != null) {
+                    longValues[index] = previous;
+                } else {
+                    intValues[index] = (int) previous;
+                }
+            }
+        } else if (packing == CONST_PACKING_FRAME_OF_REFERENCE) {
+            long minimum = unzigzag(unpacker.readVarint());
+            int bitWidth = unpacker.readByte();
+
+            if (bitWidth > 64) {
+                throw new IllegalArgumentException("Packed native array has invalid bit width. (got " + bitWidth + ")");
+            }
+
+            for (int index = 0; index < count; index++) {
+                long value = minimum + unpacker.readBits(bitWidth);
+
+                if (longValues != null) {
+                    longValues[index] = value;
+                } else {
+                    intValues[index] = (int) value;
+                }
+            }
+        } else if (packing == CONST_PACKING_RUN_LENGTH) {
+            int index = 0;
+
+            while (index < count) {
+                long runLength = unpacker.readVarint();
+                long value = unzigzag(unpacker.readVarint());
+
+                if (runLength <= 0 || runLength > count - index) {
+                    throw new IllegalArgumentException("Packed native array has invalid run length. (got " + runLength + ", remaining " + (count - index) + ")");
+                }
+
+                if (longValues != null) {
+                    Arrays.fill(longValues, index, index + (int) runLength, value);
+                } else {
+                    Arrays.fill(intValues, index, index + (int) runLength, (int) value);
+                }
+
+                index += (int) runLength;
+            }
+        } else {
+            throw new IllegalArgumentException(packing + " is not a packing of native array. (unknown packing)");
+        }
+
+        if (unpacker.remaining != 0) {
+            throw new IllegalArgumentException("Packed native array has " + unpacker.remaining + " bytes left after unpacking.");
+        }
+    }
+
+    /**
+     * Unpacks the bits of the values packed by xor from the reader, the values are stored to either the double array or the float array.
+     *
+     * @param reader       the reader placed at the packed bytes
+     * @param length       the number of the packed bytes
+     * @param doubleValues the double array to store the unpacked values, or null
+     * @param floatValues  the float array to store the unpacked values, or null
+     * @param count        the number of the values to unpack
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the packed bytes are corrupted
+     */
+    static void unpackXor(@NotNull Reader reader, int length, double[] doubleValues, float[] floatValues, int count) throws IOException {
+        BitReader bitReader = new BitReader(reader, length);
+        int valueWidth = doubleValues != null ? 64 : 32;
+
+        long value = 0;
+
+        int leading = -1;
+        int trailing = 0;
+
+        for (int index = 0; index < count; index++) {
+            if (index == 0) {
+                value = bitReader.readBits(valueWidth);
+            } else if (bitReader.readBits(1) != 0) {
+                if (bitReader.readBits(1) != 0) {
+                    leading = (int) bitReader.readBits(5);
+                    trailing = valueWidth - leading - (int) bitReader.readBits(6) - 1;
+
+                    if (trailing < 0) {
+                        throw new IllegalArgumentException("Packed native array has invalid xor window. (leading " + leading + ", trailing " + trailing + ")");
+                    }
+                } else if (leading == -1) {
+                    throw new IllegalArgumentException("Packed native array refers to the previous xor window before any window.");
+                }
+
+                value ^= bitReader.readBits(valueWidth - leading - trailing) << trailing;
+            }
+
+            if (doubleValues != null) {
+                doubleValues[index] = Double.longBitsToDouble(value);
+            } else {
+                floatValues[index] = Float.intBitsToFloat((int) value);
+            }
+        }
+
+        if (bitReader.getRemaining() != 0) {
+            throw new IllegalArgumentException("Packed native array has " + bitReader.getRemaining() + " bytes left after unpacking.");
+        }
+    }
+
+    /**
+     * Returns the value of the zigzag encoded value.
+     *
+     * @param value the zigzag encoded value
+     * @return the value
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Unpacker {
+        private final Reader reader;
+        private int remaining;
+
+        private long bits;
+        private int bitCount;
+
+        /**
+         * Constructs the Unpacker over the packed bytes.
+         *
+         * @param reader the reader placed at the packed bytes
+         * @param length the number of the packed bytes
+         */
+        Unpacker(Reader reader, int length) {
+            this.reader = reader;
+            this.remaining = length;
+        }
+
+        /**
+         * @return the next byte as an unsigned value
+         * @throws IOException              if an I/O error occurs
+         * @throws IllegalArgumentException if the packed bytes end
+         */
+        int readByte() throws IOException {
+            if (this.remaining <= 0) {
+                throw new IllegalArgumentException("Packed native array ends before all values are unpacked.");
+            }
+
+            this.remaining--;
+
+            return this.reader.readByte() & 0xFF;
+        }
+
+        /**
+         * @return the next unsigned varint
+         * @throws IOException              if an I/O error occurs
+         * @throws IllegalArgumentException if the varint is longer than 10 bytes; if the packed bytes end
+         */
+        long readVarint() throws IOException {
+            long value = 0;
+
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = this.readByte();
+
+                value |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IllegalArgumentException("Packed native array has too long varint.");
+        }
+
+        /**
+         * @param bitWidth the number of bits to read
+         * @return the next value of the bit width
+         * @throws IOException              if an I/O error occurs
+         * @throws IllegalArgumentException if the packed bytes end
+         */
+        long readBits(int bitWidth) throws IOException {
+            long value = 0;
+            int read = 0;
+
+            while (read < bitWidth) {
+                if (this.bitCount == 0) {
+                    this.bits = this.readByte();
+                    this.bitCount = 8;
+                }
+
+                int chunk = Math.min(bitWidth - read, this.bitCount);
+
+                value |= (this.bits & ((1L << chunk) - 1)) << read;
+                this.bits >>>= chunk;
+                this.bitCount -= chunk;
+                read += chunk;
+            }
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.codec.dense.reader.ByteArrayReader;
+import com.realtimetech.opack.exception.DecodeException;
+import com.realtimetech.opack.value.OpackValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public final class RecordReader implements Closeable {
+    private final @NotNull DenseCodec denseCodec;
+    private final @NotNull SeekableByteChannel channel;
+
+    private final long channelSize;
+
+    private @NotNull ByteBuffer buffer;
+    private long bufferOffset;
+
+    private long @NotNull [] recordOffsets;
+    private boolean indexed;
+
+    private int nextRecord;
+
+    /**
+     * Constructs the RecordReader that reads the record stream file.
+     *
+     * @param denseCodec the dense codec to decode the records
+     * @param path       the path of the record stream file
+     * @throws IOException              if an I/O error occurs; if the index of the record stream is corrupted
+     * @throws IllegalArgumentException if the file is not a record stream; if the version does not match current versions of dense codec
+     */
+    public RecordReader(@NotNull DenseCodec denseCodec, @NotNull Path path) throws IOException {
+        this(denseCodec, FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Constructs the RecordReader and loads the record offsets.
+     * If the record stream has the trailer, the offsets are loaded from the index segments; otherwise, the records are scanned sequentially and a truncated record at the end is ignored.
+     *
+     * @param denseCodec the dense codec to decode the records
+     * @param channel    the channel of the record stream, which is closed when this reader is closed or fails to be constructed
+     * @throws IOException              if an I/O error occurs; if the index of the record stream is corrupted
+     * @throws IllegalArgumentException if the channel is not a record stream; if the version does not match current versions of dense codec
+     */
+    public RecordReader(@NotNull DenseCodec denseCodec, @NotNull SeekableByteChannel channel) throws IOException {
+        this.denseCodec = denseCodec;
+        this.channel = channel;
+
+        this.channelSize = channel.size();
+
+        this.buffer = ByteBuffer.allocate(1 << 16);
+        this.buffer.limit(0);
+        this.bufferOffset = 0;
+
+        this.nextRecord = 0;
+        this.recordOffsets = new long[0];
+
+        try {
+            this.fill(0, RecordWriter.CONST_HEADER_LENGTH);
+
+            byte[] classifier = new byte[DenseCodec.CONST_DENSE_RECORD_STREAM_CLASSIFIER.length];
+            byte[] version = new byte[DenseCodec.CONST_DENSE_CODEC_VERSION.length];
+
+            this.buffer.position(0);
+            this.buffer.get(classifier);
+            this.buffer.get(version);
+            int indexInterval = this.buffer.getInt();
+
+            if (!Arrays.equals(DenseCodec.CONST_DENSE_RECORD_STREAM_CLASSIFIER, classifier)) {
+                throw new IllegalArgumentException("Reading data is not dense record stream. (Expected " + Arrays.toString(DenseCodec.CONST_DENSE_RECORD_STREAM_CLASSIFIER) + ", got " + Arrays.toString(classifier) + ")");
+            }
+
+            this.denseCodec.verifyVersion(version);
+
+            if (indexInterval < 1 || indexInterval > RecordWriter.CONST_MAX_INDEX_INTERVAL) {
+                throw new IOException("Record stream has invalid index interval. (got " + indexInterval + ")");
+            }
+
+            long[] recordOffsets = this.loadIndex();
+
+            if (recordOffsets == null) {
+                this.recordOffsets = this.scanRecords();
+                this.indexed = false;
+            } else {
+                this.recordOffsets = recordOffsets;
+                this.indexed = true;
+            }
+        } catch (IOException | RuntimeException exception) {
+            this.channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Makes the buffer contain the bytes in the range, reading from the channel only if the range is not buffered.
+     * After this method, the range starts at {@code (int) (offset - bufferOffset)} of the buffer.
+     *
+     * @param offset the offset of the range in the channel
+     * @param length the length of the range
+     * @throws IOException if an I/O error occurs; if the range exceeds the end of the channel
+     */
+    private void fill(long offset, int length) throws IOException {
+        if (offset >= this.bufferOffset && offset + length <= this.bufferOffset + this.buffer.limit()) {
+            return;
+        }
+
+        if (offset < 0 || length < 0 || offset + length > this.channelSize) {
+            throw new EOFException("Range [" + offset + ", " + offset + " + " + length + ") exceeds the end of record stream. (size " + this.channelSize + ")");
+        }
+
+        if (this.buffer.capacity() < length) {
+            int capacity = this.buffer.capacity();
+
+            do {
+                capacity = capacity << 1;
+            } while (capacity < length && capacity > 0);
+
+            this.buffer = ByteBuffer.allocate(capacity > 0 ? capacity : length);
+        }
+
+        this.buffer.clear();
+        this.bufferOffset = offset;
+        this.channel.position(offset);
+
+        while (this.buffer.position() < length) {
+            if (this.channel.read(this.buffer) < 0) {
+                throw new EOFException("Reached end of record stream.");
+            }
+        }
+
+        this.buffer.flip();
+    }
+
+    /**
+     * Returns the position in the buffer of the offset, the offset must be filled.
+     *
+     * @param offset the offset in the channel
+     * @return the position in the buffer
+     */
+    private int bufferIndex(long offset) {
+        return (int) (offset - this.bufferOffset);
+    }
+
+    /**
+     * Loads the record offsets from the index segments which the trailer points.
+     *
+     * @return the record offsets, or null if the record stream does not have the trailer
+     * @throws IOException if an I/O error occurs; if the index segments are corrupted
+     */
+    private long[] loadIndex() throws IOException {
+        if (this.channelSize < RecordWriter.CONST_HEADER_LENGTH + RecordWriter.CONST_TRAILER_LENGTH) {
+            return null;
+        }
+
+        long trailerOffset = this.channelSize - RecordWriter.CONST_TRAILER_LENGTH;
+        this.fill(trailerOffset, RecordWriter.CONST_TRAILER_LENGTH);
+
+        int trailerIndex = this.bufferIndex(trailerOffset);
+        byte[] magic = new byte[RecordWriter.CONST_TRAILER_MAGIC.length];
+
+        this.buffer.position(trailerIndex + 4 + 8 + 8);
+        this.buffer.get(magic);
+
+        if (this.buffer.getInt(trailerIndex) != RecordWriter.CONST_TRAILER_MARKER || !Arrays.equals(RecordWriter.CONST_TRAILER_MAGIC, magic)) {
+            return null;
+        }
+
+        long indexOffset = this.buffer.getLong(trailerIndex + 4);
+        long recordCount = this.buffer.getLong(trailerIndex + 4 + 8);
+
+        if (recordCount < 0 || recordCount > Integer.MAX_VALUE - 8) {
+            throw new IOException("Record stream has invalid record count. (got " + recordCount + ")");
+        }
+
+        long[] recordOffsets = new long[(int) recordCount];
+        int remaining = recordOffsets.length;
+
+        while (indexOffset != -1) {
+            this.fill(indexOffset, 4 + 4);
+
+            int marker = this.buffer.getInt(this.bufferIndex(indexOffset));
+            int count = this.buffer.getInt(this.bufferIndex(indexOffset) + 4);
+
+            if (marker != RecordWriter.CONST_INDEX_MARKER || count < 1 || count > remaining) {
+                throw new IOException("Record stream has corrupted index segment at " + indexOffset + ".");
+            }
+
+            this.fill(indexOffset + 4 + 4, count * 8 + 8);
+            int index = this.bufferIndex(indexOffset + 4 + 4);
+
+            remaining -= count;
+
+            for (int offsetIndex = 0; offsetIndex < count; offsetIndex++) {
+                recordOffsets[remaining + offsetIndex] = this.buffer.getLong(index + offsetIndex * 8);
+            }
+
+            indexOffset = this.buffer.getLong(index + count * 8);
+        }
+
+        if (remaining != 0) {
+            throw new IOException("Record stream index misses " + remaining + " records.");
+        }
+
+        return recordOffsets;
+    }
+
+    /**
+     * Scans the records sequentially to collect the record offsets, which is used when the record stream is not finished.
+     *
+     * @return the record offsets
+     * @throws IOException if an I/O error occurs; if unknown marker is parsed
+     */
+    private long[] scanRecords() throws IOException {
+        long[] recordOffsets = new long[1024];
+        int recordCount = 0;
+
+        long offset = RecordWriter.CONST_HEADER_LENGTH;
+
+        while (offset + 4 <= this.channelSize) {
+            this.fill(offset, 4);
+            int marker = this.buffer.getInt(this.bufferIndex(offset));
+
+            if (marker >= 0) {
+                if (offset + 4 + marker > this.channelSize) {
+                    break;
+                }
+
+                if (recordCount == recordOffsets.length) {
+                    recordOffsets = Arrays.copyOf(recordOffsets, recordCount << 1);
+                }
+
+                recordOffsets[recordCount++] = offset;
+                offset += 4 + marker;
+            } else if (marker == RecordWriter.CONST_INDEX_MARKER) {
+                if (offset + 4 + 4 > this.channelSize) {
+                    break;
+                }
+
+                this.fill(offset, 4 + 4);
+                int count = this.buffer.getInt(this.bufferIndex(offset) + 4);
+
+                if (count < 1) {
+                    throw new IOException("Record stream has corrupted index segment at " + offset + ".");
+                }
+
+                offset += 4 + 4 + count * 8L + 8;
+            } else if (marker == RecordWriter.CONST_TRAILER_MARKER) {
+                break;
+            } else {
+                throw new IOException(marker + " is not registered marker in record stream. (at " + offset + ")");
+            }
+        }
+
+        return Arrays.copyOf(recordOffsets, recordCount);
+    }
+
+    /**
+     * Returns true if the record offsets were loaded from the index, or false if the records were scanned because the stream was not finished.
+     *
+     * @return true if the record offsets were loaded from the index
+     */
+    public boolean isIndexed() {
+        return this.indexed;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        return this.recordOffsets.length;
+    }
+
+    /**
+     * Moves to the record, the next call of {@link #next() next} returns the record.
+     *
+     * @param recordIndex the index of the record
+     * @throws IndexOutOfBoundsException if the record index is out of range
+     */
+    public void seek(long recordIndex) {
+        if (recordIndex < 0 || recordIndex > this.recordOffsets.length) {
+            throw new IndexOutOfBoundsException("Record index " + recordIndex + " is out of range. (record count " + this.recordOffsets.length + ")");
+        }
+
+        this.nextRecord = (int) recordIndex;
+    }
+
+    /**
+     * Returns true if there are more records to read.
+     *
+     * @return true if there are more records to read
+     */
+    public boolean hasNext() {
+        return this.nextRecord < this.recordOffsets.length;
+    }
+
+    /**
+     * Reads the next record, the buffer that holds the record bytes is reused for the following records.
+     *
+     * @return the decoded opack value
+     * @throws DecodeException        if a problem occurs during decoding; if the type of data to be decoded is not allowed in dense format
+     * @throws NoSuchElementException if there are no more records
+     */
+    public @NotNull OpackValue next() throws DecodeException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more records. (record count " + this.recordOffsets.length + ")");
+        }
+
+        long offset = this.recordOffsets[this.nextRecord];
+
+        try {
+            this.fill(offset, 4);
+            int length = this.buffer.getInt(this.bufferIndex(offset));
+
+            this.fill(offset + 4, length);
+            ByteArrayReader byteArrayReader = new ByteArrayReader(this.buffer.array(), this.bufferIndex(offset + 4), length);
+
+            OpackValue opackValue = this.denseCodec.decodeBlocks(byteArrayReader);
+
+            this.nextRecord++;
+
+            return opackValue;
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
+        }
+    }
+
+    /**
+     * Reads the record at the index.
+     *
+     * @param recordIndex the index of the record
+     * @return the decoded opack value
+     * @throws DecodeException           if a problem occurs during decoding; if the type of data to be decoded is not allowed in dense format
+     * @throws IndexOutOfBoundsException if the record index is out of range
+     */
+    public @NotNull OpackValue read(long recordIndex) throws DecodeException {
+        if (recordIndex == this.recordOffsets.length) {
+            throw new IndexOutOfBoundsException("Record index " + recordIndex + " is out of range. (record count " + this.recordOffsets.length + ")");
+        }
+
+        this.seek(recordIndex);
+
+        return this.next();
+    }
+
+    /**
+     * Closes the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
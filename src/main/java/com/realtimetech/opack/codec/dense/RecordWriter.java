@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense;
+
+import com.realtimetech.opack.codec.dense.writer.ByteArrayWriter;
+import com.realtimetech.opack.codec.dense.writer.Writer;
+import com.realtimetech.opack.exception.EncodeException;
+import com.realtimetech.opack.value.OpackValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public final class RecordWriter {
+    /*
+        Record stream structure
+        header  : classifier(4 bytes), dense version(2 bytes), index interval(4 bytes)
+        record  : length(4 bytes, >= 0), dense blocks without header(length bytes)
+        index   : CONST_INDEX_MARKER(4 bytes), count(4 bytes), record offsets(count * 8 bytes), previous index offset(8 bytes, -1 if first)
+        trailer : CONST_TRAILER_MARKER(4 bytes), last index offset(8 bytes), record count(8 bytes), CONST_TRAILER_MAGIC(4 bytes)
+     */
+    static final int CONST_HEADER_LENGTH = 4 + 2 + 4;
+    static final int CONST_TRAILER_LENGTH = 4 + 8 + 8 + 4;
+
+    static final int CONST_INDEX_MARKER = -1;
+    static final int CONST_TRAILER_MARKER = -2;
+    static final byte[] CONST_TRAILER_MAGIC = new byte[]{'D', 'R', 'I', 'X'};
+
+    static final int CONST_MAX_INDEX_INTERVAL = 1 << 20;
+
+    private final @NotNull DenseCodec denseCodec;
+    private final @NotNull Writer writer;
+
+    private final @NotNull ByteArrayWriter recordWriter;
+
+    private final long @NotNull [] indexOffsets;
+    private int indexCount;
+
+    private long currentOffset;
+    private long lastIndexOffset;
+    private long recordCount;
+
+    private boolean finished;
+
+    /**
+     * Calls {@code new RecordWriter(denseCodec, writer, 1024)}
+     *
+     * @param denseCodec the dense codec to encode the records
+     * @param writer     the writer placed at the start of the record stream
+     * @throws IOException if an I/O error occurs when writing the header
+     */
+    public RecordWriter(@NotNull DenseCodec denseCodec, @NotNull Writer writer) throws IOException {
+        this(denseCodec, writer, 1024);
+    }
+
+    /**
+     * Constructs the RecordWriter and writes the header of the record stream.
+     * The record offsets are relative to the position of the writer at construction, so the writer must be placed at the start of the file.
+     *
+     * @param denseCodec    the dense codec to encode the records
+     * @param writer        the writer placed at the start of the record stream
+     * @param indexInterval the number of records between the index segments
+     * @throws IOException              if an I/O error occurs when writing the header
+     * @throws IllegalArgumentException if the index interval is out of range
+     */
+    public RecordWriter(@NotNull DenseCodec denseCodec, @NotNull Writer writer, int indexInterval) throws IOException {
+        if (indexInterval < 1 || indexInterval > CONST_MAX_INDEX_INTERVAL) {
+            throw new IllegalArgumentException("Index interval must be between 1 and " + CONST_MAX_INDEX_INTERVAL + ", but got " + indexInterval + ".");
+        }
+
+        this.denseCodec = denseCodec;
+        this.writer = writer;
+
+        this.recordWriter = new ByteArrayWriter();
+
+        this.indexOffsets = new long[indexInterval];
+        this.indexCount = 0;
+
+        this.lastIndexOffset = -1;
+        this.recordCount = 0;
+        this.finished = false;
+
+        this.writer.writeBytes(DenseCodec.CONST_DENSE_RECORD_STREAM_CLASSIFIER);
+        this.writer.writeBytes(denseCodec.getEncodeVersion());
+        this.writer.writeInt(indexInterval);
+
+        this.currentOffset = CONST_HEADER_LENGTH;
+    }
+
+    /**
+     * Returns the number of records written.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Appends the opack value as a record.
+     * The record is encoded into a reused buffer first, so a value that fails to be encoded does not corrupt the stream.
+     *
+     * @param opackValue the opack value to write
+     * @return the index of the written record
+     * @throws EncodeException       if a problem occurs during encoding; if the type of data to be encoded is not allowed in dense format
+     * @throws IllegalStateException if this writer is already finished
+     */
+    public long write(@NotNull OpackValue opackValue) throws EncodeException {
+        if (this.finished) {
+            throw new IllegalStateException("Record writer is already finished.");
+        }
+
+        try {
+            this.recordWriter.reset();
+            this.denseCodec.encodeBlocks(this.recordWriter, opackValue);
+
+            int length = this.recordWriter.getLength();
+
+            this.writer.writeInt(length);
+            this.recordWriter.writeTo(this.writer);
+
+            this.indexOffsets[this.indexCount++] = this.currentOffset;
+            this.currentOffset += 4 + length;
+
+            if (this.indexCount == this.indexOffsets.length) {
+                this.writeIndex();
+            }
+        } catch (IOException | RuntimeException exception) {
+            throw new EncodeException(exception);
+        }
+
+        return this.recordCount++;
+    }
+
+    /**
+     * Writes the index segment of the records written after the previous index segment.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeIndex() throws IOException {
+        this.writer.writeInt(CONST_INDEX_MARKER);
+        this.writer.writeInt(this.indexCount);
+
+        for (int index = 0; index < this.indexCount; index++) {
+            this.writer.writeLong(this.indexOffsets[index]);
+        }
+
+        this.writer.writeLong(this.lastIndexOffset);
+
+        this.lastIndexOffset = this.currentOffset;
+        this.currentOffset += 4 + 4 + this.indexCount * 8L + 8;
+        this.indexCount = 0;
+    }
+
+    /**
+     * Writes the last index segment and the trailer, the underlying writer is not closed.
+     * A stream without the trailer is still readable by scanning the records sequentially.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+
+        if (this.indexCount > 0) {
+            this.writeIndex();
+        }
+
+        this.writer.writeInt(CONST_TRAILER_MARKER);
+        this.writer.writeLong(this.lastIndexOffset);
+        this.writer.writeLong(this.recordCount);
+        this.writer.writeBytes(CONST_TRAILER_MAGIC);
+
+        this.currentOffset += CONST_TRAILER_LENGTH;
+        this.finished = true;
+    }
+}
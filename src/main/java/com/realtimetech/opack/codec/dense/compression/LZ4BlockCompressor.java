@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.compression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public final class LZ4BlockCompressor {
+    private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+
+    private static final int HASH_LOG = 14;
+    private static final int SKIP_TRIGGER = 6;
+
+    private static final int RUN_MASK = 0x0F;
+
+    /**
+     * Returns the maximum length of the compressed data for the specific length of the source data.
+     *
+     * @param length the length of the source data
+     * @return the maximum length of the compressed data
+     */
+    public static int maxCompressedLength(int length) {
+        return length + (length / 255) + 16;
+    }
+
+    private final int @NotNull [] hashTable;
+
+    /**
+     * Constructs a LZ4BlockCompressor.
+     */
+    public LZ4BlockCompressor() {
+        this.hashTable = new int[1 << HASH_LOG];
+    }
+
+    /**
+     * Returns the hash table index of 4 bytes sequence.
+     *
+     * @param sequence the 4 bytes sequence
+     * @return the hash table index
+     */
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    /**
+     * Reads 4 bytes in little-endian at the index of the byte array.
+     *
+     * @param bytes the byte array
+     * @param index the index
+     * @return the read int
+     */
+    private static int readInt(byte[] bytes, int index) {
+        return (int) INT_HANDLE.get(bytes, index);
+    }
+
+    /**
+     * Writes the variable length (sum of 255 runs) of literal or match.
+     *
+     * @param destination the destination byte array
+     * @param index       the index to write
+     * @param length      the remaining length to write
+     * @return the next index
+     */
+    private static int writeLength(byte[] destination, int index, int length) {
+        while (length >= 255) {
+            destination[index++] = (byte) 255;
+            length -= 255;
+        }
+
+        destination[index++] = (byte) length;
+
+        return index;
+    }
+
+    /**
+     * Writes one sequence (token, literals, offset, match length).
+     *
+     * @param source        the source byte array
+     * @param literalStart  the start index of literals
+     * @param literalLength the length of literals
+     * @param destination   the destination byte array
+     * @param index         the index to write
+     * @param offset        the match offset, ignored if match length is 0
+     * @param matchLength   the match length, 0 if this sequence is the last sequence
+     * @return the next index
+     */
+    private static int writeSequence(byte[] source, int literalStart, int literalLength, byte[] destination, int index, int offset, int matchLength) {
+        int tokenIndex = index++;
+        int token = 0;
+
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            index = writeLength(destination, index, literalLength - RUN_MASK);
+        } else {
+            token = literalLength << 4;
+        }
+
+        System.arraycopy(source, literalStart, destination, index, literalLength);
+        index += literalLength;
+
+        if (matchLength > 0) {
+            destination[index++] = (byte) offset;
+            destination[index++] = (byte) (offset >>> 8);
+
+            int length = matchLength - MIN_MATCH;
+
+            if (length >= RUN_MASK) {
+                token |= RUN_MASK;
+                index = writeLength(destination, index, length - RUN_MASK);
+            } else {
+                token |= length;
+            }
+        }
+
+        destination[tokenIndex] = (byte) token;
+
+        return index;
+    }
+
+    /**
+     * Compresses the source data into LZ4 block format.
+     * The destination must have at least {@link #maxCompressedLength(int) maxCompressedLength(length)} bytes from the destination offset.
+     *
+     * @param source            the source byte array
+     * @param sourceOffset      the start offset of the source data
+     * @param sourceLength      the length of the source data
+     * @param destination       the destination byte array
+     * @param destinationOffset the start offset in the destination
+     * @return the length of the compressed data
+     */
+    public int compress(byte @NotNull [] source, int sourceOffset, int sourceLength, byte @NotNull [] destination, int destinationOffset) {
+        int sourceEnd = sourceOffset + sourceLength;
+        int anchor = sourceOffset;
+        int index = destinationOffset;
+
+        if (sourceLength > MATCH_FIND_LIMIT) {
+            int matchFindLimit = sourceEnd - MATCH_FIND_LIMIT;
+            int matchLimit = sourceEnd - LAST_LITERALS;
+
+            Arrays.fill(this.hashTable, -1);
+
+            int pointer = sourceOffset;
+            int searchCount = 1 << SKIP_TRIGGER;
+
+            while (pointer < matchFindLimit) {
+                int sequence = readInt(source, pointer);
+                int hash = hash(sequence);
+                int reference = this.hashTable[hash];
+
+                this.hashTable[hash] = pointer;
+
+                if (reference < 0 || pointer - reference > MAX_DISTANCE || readInt(source, reference) != sequence) {
+                    pointer += searchCount++ >>> SKIP_TRIGGER;
+                    continue;
+                }
+
+                while (pointer > anchor && reference > sourceOffset && source[pointer - 1] == source[reference - 1]) {
+                    pointer--;
+                    reference--;
+                }
+
+                int matchLength = MIN_MATCH;
+
+                while (pointer + matchLength < matchLimit && source[reference + matchLength] == source[pointer + matchLength]) {
+                    matchLength++;
+                }
+
+                index = writeSequence(source, anchor, pointer - anchor, destination, index, pointer - reference, matchLength);
+
+                pointer += matchLength;
+                anchor = pointer;
+                searchCount = 1 << SKIP_TRIGGER;
+
+                if (pointer - 2 < matchFindLimit) {
+                    this.hashTable[hash(readInt(source, pointer - 2))] = pointer - 2;
+                }
+            }
+        }
+
+        index = writeSequence(source, anchor, sourceEnd - anchor, destination, index, 0, 0);
+
+        return index - destinationOffset;
+    }
+
+    /**
+     * Decompresses the LZ4 block format data.
+     *
+     * @param source            the source byte array
+     * @param sourceOffset      the start offset of the compressed data
+     * @param sourceLength      the length of the compressed data
+     * @param destination       the destination byte array
+     * @param destinationOffset the start offset in the destination
+     * @param destinationLength the maximum length of the decompressed data
+     * @return the length of the decompressed data
+     * @throws IOException if the compressed data is malformed
+     */
+    public static int decompress(byte @NotNull [] source, int sourceOffset, int sourceLength, byte @NotNull [] destination, int destinationOffset, int destinationLength) throws IOException {
+        int sourceEnd = sourceOffset + sourceLength;
+        int destinationEnd = destinationOffset + destinationLength;
+
+        int pointer = sourceOffset;
+        int index = destinationOffset;
+
+        while (pointer < sourceEnd) {
+            int token = source[pointer++] & 0xFF;
+            int literalLength = token >>> 4;
+
+            if (literalLength == RUN_MASK) {
+                int value;
+
+                do {
+                    if (pointer >= sourceEnd) {
+                        throw new IOException("Malformed LZ4 block, literal length is out of range.");
+                    }
+
+                    value = source[pointer++] & 0xFF;
+                    literalLength += value;
+                } while (value == 255);
+            }
+
+            if (literalLength > sourceEnd - pointer || literalLength > destinationEnd - index) {
+                throw new IOException("Malformed LZ4 block, literals are out of range.");
+            }
+
+            System.arraycopy(source, pointer, destination, index, literalLength);
+            pointer += literalLength;
+            index += literalLength;
+
+            if (pointer == sourceEnd) {
+                return index - destinationOffset;
+            }
+
+            if (pointer + 2 > sourceEnd) {
+                throw new IOException("Malformed LZ4 block, offset is out of range.");
+            }
+
+            int offset = (source[pointer] & 0xFF) | ((source[pointer + 1] & 0xFF) << 8);
+            pointer += 2;
+
+            if (offset == 0 || offset > index - destinationOffset) {
+                throw new IOException("Malformed LZ4 block, got invalid match offset " + offset + ".");
+            }
+
+            int matchLength = token & RUN_MASK;
+
+            if (matchLength == RUN_MASK) {
+                int value;
+
+                do {
+                    if (pointer >= sourceEnd) {
+                        throw new IOException("Malformed LZ4 block, match length is out of range.");
+                    }
+
+                    value = source[pointer++] & 0xFF;
+                    matchLength += value;
+                } while (value == 255);
+            }
+
+            matchLength += MIN_MATCH;
+
+            if (matchLength > destinationEnd - index) {
+                throw new IOException("Malformed LZ4 block, match is out of range.");
+            }
+
+            int matchIndex = index - offset;
+
+            if (offset >= matchLength) {
+                System.arraycopy(destination, matchIndex, destination, index, matchLength);
+                index += matchLength;
+            } else {
+                int matchEnd = index + matchLength;
+
+                while (index < matchEnd) {
+                    destination[index++] = destination[matchIndex++];
+                }
+            }
+        }
+
+        throw new IOException("Malformed LZ4 block, the last sequence must be literals.");
+    }
+}
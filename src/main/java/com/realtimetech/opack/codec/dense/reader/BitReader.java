@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.realtimetech.opack.codec.dense.reader;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+public class BitReader {
+    private final Reader reader;
+    private long remaining;
+
+    private long bits;
+    private int bitCount;
+
+    /**
+     * Constructs the BitReader which reads the bits written by {@link com.realtimetech.opack.codec.dense.writer.BitWriter BitWriter} from the reader.
+     *
+     * @param reader the reader to read the bytes
+     * @param length the number of the bytes which can be read
+     */
+    public BitReader(@NotNull Reader reader, long length) {
+        this.reader = reader;
+        this.remaining = length;
+
+        this.bits = 0;
+        this.bitCount = 0;
+    }
+
+    /**
+     * Returns the number of the whole bytes not read yet, the bits remaining in the byte being read are not counted.
+     *
+     * @return the number of the whole bytes not read yet
+     */
+    public long getRemaining() {
+        return this.remaining + (this.bitCount >>> 3);
+    }
+
+    /**
+     * Fills the bit buffer with the next bytes as many as possible.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void fill() throws IOException {
+        while (this.bitCount <= 56 && this.remaining > 0) {
+            this.remaining--;
+
+            this.bits = (this.bits << 8) | (this.reader.readByte() & 0xFF);
+            this.bitCount += 8;
+        }
+    }
+
+    /**
+     * Returns the mask of the lowest bits.
+     *
+     * @param bitCount the number of the lowest bits, between 1 and 64
+     * @return the mask
+     */
+    private static long getMask(int bitCount) {
+        return bitCount == 64 ? -1L : (1L << bitCount) - 1;
+    }
+
+    /**
+     * Reads the bits as the lowest bits of the value.
+     *
+     * @param bitCount the number of the bits to read, between 0 and 64
+     * @return the value containing the bits
+     * @throws IOException              if an I/O error occurs; if the length of the bytes is reached
+     * @throws IllegalArgumentException if the bit count is out of range
+     */
+    public long readBits(int bitCount) throws IOException {
+        if (bitCount < 0 || bitCount > 64) {
+            throw new IllegalArgumentException("Bit count must be between 0 and 64, but got " + bitCount + ".");
+        }
+
+        if (bitCount == 0) {
+            return 0;
+        }
+
+        if (bitCount > this.bitCount) {
+            this.fill();
+        }
+
+        if (bitCount <= this.bitCount) {
+            this.bitCount -= bitCount;
+
+            return (this.bits >>> this.bitCount) & getMask(bitCount);
+        }
+
+        int highBitCount = this.bitCount;
+        long value = highBitCount == 0 ? 0 : this.bits & getMask(highBitCount);
+
+        this.bitCount = 0;
+        this.fill();
+
+        int lowBitCount = bitCount - highBitCount;
+
+        if (lowBitCount > this.bitCount) {
+            throw new EOFException("Reached end of bits.");
+        }
+
+        this.bitCount -= lowBitCount;
+
+        return (value << lowBitCount) | ((this.bits >>> this.bitCount) & getMask(lowBitCount));
+    }
+
+    /**
+     * Reads one bit.
+     *
+     * @return the bit
+     * @throws IOException if an I/O error occurs; if the length of the bytes is reached
+     */
+    public boolean readBit() throws IOException {
+        return this.readBits(1) == 1;
+    }
+}
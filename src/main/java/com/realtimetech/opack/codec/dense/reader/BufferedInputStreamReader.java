@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.reader;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class BufferedInputStreamReader implements Reader {
+    private final @NotNull InputStream inputStream;
+
+    private final byte @NotNull [] buffer;
+    private int bufferIndex;
+    private int bufferLength;
+
+    /**
+     * Calls {@code new BufferedInputStreamReader(inputStream, 8192)}
+     *
+     * @param inputStream the input stream to read
+     */
+    public BufferedInputStreamReader(@NotNull InputStream inputStream) {
+        this(inputStream, 8192);
+    }
+
+    /**
+     * Constructs a BufferedInputStreamReader that reads the input stream by chunks of the buffer size.
+     * The reader may read ahead of the decoded data, so the bytes after the decoded data remain in the buffer.
+     *
+     * @param inputStream the input stream to read
+     * @param bufferSize  the size of the buffer
+     * @throws IllegalArgumentException if the buffer size is smaller than 8
+     */
+    public BufferedInputStreamReader(@NotNull InputStream inputStream, int bufferSize) {
+        if (bufferSize < 8) {
+            throw new IllegalArgumentException("Buffer size must be at least 8, but got " + bufferSize + ".");
+        }
+
+        this.inputStream = inputStream;
+
+        this.buffer = new byte[bufferSize];
+        this.bufferIndex = 0;
+        this.bufferLength = 0;
+    }
+
+    /**
+     * Reads from the input stream until the buffer has the size bytes.
+     *
+     * @param size the size to be read
+     * @throws IOException if an I/O error occurs; if the end of the stream has been reached
+     */
+    private void ensureSize(int size) throws IOException {
+        int remaining = this.bufferLength - this.bufferIndex;
+
+        if (remaining < size) {
+            System.arraycopy(this.buffer, this.bufferIndex, this.buffer, 0, remaining);
+
+            this.bufferIndex = 0;
+            this.bufferLength = remaining;
+
+            while (this.bufferLength < size) {
+                int read = this.inputStream.read(this.buffer, this.bufferLength, this.buffer.length - this.bufferLength);
+
+                if (read < 0) {
+                    throw new EOFException("Reached end of stream.");
+                }
+
+                this.bufferLength += read;
+            }
+        }
+    }
+
+    /**
+     * Reads the next byte of data from the input stream.
+     * The value byte is returned as an int in the range 0 to 255.
+     *
+     * @return the byte read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public int readByte() throws IOException {
+        this.ensureSize(1);
+
+        return this.buffer[this.bufferIndex++] & 0xFF;
+    }
+
+    /**
+     * Reads the next character of data from the input stream.
+     *
+     * @return the character read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public char readChar() throws IOException {
+        return (char) this.readShort();
+    }
+
+    /**
+     * Reads the next short of data from the input stream.
+     *
+     * @return the short read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public short readShort() throws IOException {
+        this.ensureSize(2);
+
+        byte byte1 = this.buffer[this.bufferIndex++];
+        byte byte2 = this.buffer[this.bufferIndex++];
+
+        return (short) (((byte1 & 0xFF) << 8) |
+                ((byte2 & 0xFF) << 0));
+    }
+
+    /**
+     * Reads the next int of data from the input stream.
+     *
+     * @return the int read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public int readInt() throws IOException {
+        this.ensureSize(4);
+
+        byte byte1 = this.buffer[this.bufferIndex++];
+        byte byte2 = this.buffer[this.bufferIndex++];
+        byte byte3 = this.buffer[this.bufferIndex++];
+        byte byte4 = this.buffer[this.bufferIndex++];
+
+        return ((byte1 & 0xFF) << 24) |
+                ((byte2 & 0xFF) << 16) |
+                ((byte3 & 0xFF) << 8) |
+                ((byte4 & 0xFF) << 0);
+    }
+
+    /**
+     * Reads the next float of data from the input stream.
+     *
+     * @return the float read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(this.readInt());
+    }
+
+    /**
+     * Reads the next long of data from the input stream.
+     *
+     * @return the long read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public long readLong() throws IOException {
+        this.ensureSize(8);
+
+        int high = ((this.buffer[this.bufferIndex] & 0xFF) << 24) |
+                ((this.buffer[this.bufferIndex + 1] & 0xFF) << 16) |
+                ((this.buffer[this.bufferIndex + 2] & 0xFF) << 8) |
+                ((this.buffer[this.bufferIndex + 3] & 0xFF) << 0);
+        int low = ((this.buffer[this.bufferIndex + 4] & 0xFF) << 24) |
+                ((this.buffer[this.bufferIndex + 5] & 0xFF) << 16) |
+                ((this.buffer[this.bufferIndex + 6] & 0xFF) << 8) |
+                ((this.buffer[this.bufferIndex + 7] & 0xFF) << 0);
+
+        this.bufferIndex += 8;
+
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads the next double of data from the input stream.
+     *
+     * @return the double read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(this.readLong());
+    }
+
+    /**
+     * Reads the next bytes of data from the input stream.
+     *
+     * @param bytes the byte array to write the bytes read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached
+     */
+    @Override
+    public void readBytes(byte[] bytes) throws IOException {
+        this.readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the next length bytes of data into the byte array starting at offset, the bytes larger than the buffer are read from the input stream directly.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached before length bytes are read
+     */
+    @Override
+    public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length <= this.buffer.length) {
+            this.ensureSize(length);
+
+            System.arraycopy(this.buffer, this.bufferIndex, bytes, offset, length);
+            this.bufferIndex += length;
+
+            return;
+        }
+
+        int buffered = this.bufferLength - this.bufferIndex;
+
+        System.arraycopy(this.buffer, this.bufferIndex, bytes, offset, buffered);
+        this.bufferIndex = this.bufferLength;
+
+        if (this.inputStream.readNBytes(bytes, offset + buffered, length - buffered) < length - buffered) {
+            throw new EOFException("Reached end of stream.");
+        }
+    }
+
+    /**
+     * Reads the next length bytes of data and decodes them in UTF-8 directly from the buffer if the bytes fit in the buffer.
+     *
+     * @param length the number of bytes to read
+     * @return the decoded string
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached before length bytes are read
+     */
+    @Override
+    public String readUTF8(int length) throws IOException {
+        if (length > this.buffer.length) {
+            return Reader.super.readUTF8(length);
+        }
+
+        this.ensureSize(length);
+
+        String string = new String(this.buffer, this.bufferIndex, length, StandardCharsets.UTF_8);
+        this.bufferIndex += length;
+
+        return string;
+    }
+
+    /**
+     * Skips the next length bytes of data, the bytes larger than the buffer are skipped on the input stream directly.
+     *
+     * @param length the number of bytes to skip
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached before length bytes are skipped
+     */
+    @Override
+    public void skipBytes(int length) throws IOException {
+        if (length <= this.buffer.length) {
+            this.ensureSize(length);
+            this.bufferIndex += length;
+
+            return;
+        }
+
+        int remaining = length - (this.bufferLength - this.bufferIndex);
+
+        this.bufferIndex = 0;
+        this.bufferLength = 0;
+
+        while (remaining > 0) {
+            long skipped = this.inputStream.skip(remaining);
+
+            if (skipped <= 0) {
+                if (this.inputStream.read() < 0) {
+                    throw new EOFException("Reached end of stream.");
+                }
+
+                skipped = 1;
+            }
+
+            remaining -= skipped;
+        }
+    }
+}
@@ -25,9 +25,11 @@ package com.realtimetech.opack.codec.dense.reader;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class ByteArrayReader implements Reader {
     private final byte @NotNull [] bytes;
+    private final int limit;
 
     private int currentIndex;
 
@@ -37,8 +39,34 @@ public class ByteArrayReader implements Reader {
      * @param bytes the bytes
      */
     public ByteArrayReader(byte @NotNull [] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Constructs a ByteArrayReader that reads only the range of the bytes, so that a part of a larger reusable array can be read.
+     *
+     * @param bytes  the bytes
+     * @param offset the start offset in the bytes
+     * @param length the number of bytes to be read
+     * @throws IllegalArgumentException if the range is out of the bytes
+     */
+    public ByteArrayReader(byte @NotNull [] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length || offset + length < 0) {
+            throw new IllegalArgumentException("Range [" + offset + ", " + offset + " + " + length + ") is out of the bytes. (length " + bytes.length + ")");
+        }
+
         this.bytes = bytes;
-        this.currentIndex = 0;
+        this.limit = offset + length;
+        this.currentIndex = offset;
+    }
+
+    /**
+     * Returns the index of the next byte to be read in the bytes.
+     *
+     * @return the position
+     */
+    public int getPosition() {
+        return this.currentIndex;
     }
 
     /**
@@ -47,7 +75,7 @@ public class ByteArrayReader implements Reader {
      * @param size the size to be read
      */
     private void assertSize(int size) throws IOException {
-        if (this.currentIndex + size > this.bytes.length) {
+        if (this.currentIndex + size > this.limit) {
             throw new IOException("Reached end of array.");
         }
     }
@@ -172,10 +200,52 @@ public class ByteArrayReader implements Reader {
      * @throws IOException if an I/O exception occurs
      */
     public void readBytes(byte[] bytes) throws IOException {
-        this.assertSize(bytes.length);
+        this.readBytes(bytes, 0, bytes.length);
+    }
 
-        System.arraycopy(this.bytes, this.currentIndex, bytes, 0, bytes.length);
+    /**
+     * Reads the next length bytes of data from the input stream into the byte array starting at offset.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException if an I/O exception occurs
+     */
+    public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        this.assertSize(length);
+
+        System.arraycopy(this.bytes, this.currentIndex, bytes, offset, length);
+
+        this.currentIndex += length;
+    }
+
+    /**
+     * Reads the next length bytes of data and decodes them in UTF-8 directly from the array without the intermediate byte array.
+     *
+     * @param length the number of bytes to read
+     * @return the decoded string
+     * @throws IOException if an I/O exception occurs
+     */
+    @Override
+    public String readUTF8(int length) throws IOException {
+        this.assertSize(length);
+
+        String string = new String(this.bytes, this.currentIndex, length, StandardCharsets.UTF_8);
+        this.currentIndex += length;
+
+        return string;
+    }
+
+    /**
+     * Skips the next length bytes of data by moving the position.
+     *
+     * @param length the number of bytes to skip
+     * @throws IOException if an I/O exception occurs
+     */
+    @Override
+    public void skipBytes(int length) throws IOException {
+        this.assertSize(length);
 
-        this.currentIndex += bytes.length;
+        this.currentIndex += length;
     }
 }
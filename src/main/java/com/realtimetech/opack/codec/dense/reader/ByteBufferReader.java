@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.reader;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class ByteBufferReader implements Reader {
+    private final @NotNull ByteBuffer byteBuffer;
+
+    /**
+     * Constructs a ByteBufferReader that reads from the position to the limit of the byte buffer in the byte order of the byte buffer.
+     * The position of the byte buffer is advanced as the data is read.
+     *
+     * @param byteBuffer the byte buffer to read
+     */
+    public ByteBufferReader(@NotNull ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+    }
+
+    /**
+     * Assert size
+     *
+     * @param size the size to be read
+     * @throws EOFException if the limit of the buffer has been reached
+     */
+    private void assertSize(int size) throws EOFException {
+        if (this.byteBuffer.remaining() < size) {
+            throw new EOFException("Reached limit of buffer.");
+        }
+    }
+
+    /**
+     * Reads the next byte of data from the buffer.
+     * The value byte is returned as an int in the range 0 to 255.
+     *
+     * @return the byte read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public int readByte() throws IOException {
+        this.assertSize(1);
+
+        return this.byteBuffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads the next character of data from the buffer.
+     *
+     * @return the character read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public char readChar() throws IOException {
+        this.assertSize(2);
+
+        return this.byteBuffer.getChar();
+    }
+
+    /**
+     * Reads the next short of data from the buffer.
+     *
+     * @return the short read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public short readShort() throws IOException {
+        this.assertSize(2);
+
+        return this.byteBuffer.getShort();
+    }
+
+    /**
+     * Reads the next int of data from the buffer.
+     *
+     * @return the int read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public int readInt() throws IOException {
+        this.assertSize(4);
+
+        return this.byteBuffer.getInt();
+    }
+
+    /**
+     * Reads the next float of data from the buffer.
+     *
+     * @return the float read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public float readFloat() throws IOException {
+        this.assertSize(4);
+
+        return this.byteBuffer.getFloat();
+    }
+
+    /**
+     * Reads the next long of data from the buffer.
+     *
+     * @return the long read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public long readLong() throws IOException {
+        this.assertSize(8);
+
+        return this.byteBuffer.getLong();
+    }
+
+    /**
+     * Reads the next double of data from the buffer.
+     *
+     * @return the double read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public double readDouble() throws IOException {
+        this.assertSize(8);
+
+        return this.byteBuffer.getDouble();
+    }
+
+    /**
+     * Reads the next bytes of data from the buffer.
+     *
+     * @param bytes the byte array to write the bytes read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public void readBytes(byte[] bytes) throws IOException {
+        this.readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the next length bytes of data from the buffer into the byte array starting at offset.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        this.assertSize(length);
+
+        this.byteBuffer.get(bytes, offset, length);
+    }
+
+    /**
+     * Reads the next length bytes of data and decodes them in UTF-8, the bytes of a heap buffer are decoded directly from the backing array.
+     *
+     * @param length the number of bytes to read
+     * @return the decoded string
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public String readUTF8(int length) throws IOException {
+        this.assertSize(length);
+
+        if (!this.byteBuffer.hasArray()) {
+            return Reader.super.readUTF8(length);
+        }
+
+        int position = this.byteBuffer.position();
+        String string = new String(this.byteBuffer.array(), this.byteBuffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+        this.byteBuffer.position(position + length);
+
+        return string;
+    }
+
+    /**
+     * Skips the next length bytes of data by moving the position of the buffer.
+     *
+     * @param length the number of bytes to skip
+     * @throws IOException if an I/O exception occurs; if the limit of the buffer has been reached
+     */
+    @Override
+    public void skipBytes(int length) throws IOException {
+        this.assertSize(length);
+
+        this.byteBuffer.position(this.byteBuffer.position() + length);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.reader;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class ChannelReader implements Reader {
+    private final @NotNull ReadableByteChannel channel;
+    private final @NotNull ByteBuffer byteBuffer;
+
+    private byte[] stringBuffer;
+
+    /**
+     * Calls {@code new ChannelReader(channel, 65536, ByteOrder.BIG_ENDIAN)}
+     *
+     * @param channel the channel to read
+     */
+    public ChannelReader(@NotNull ReadableByteChannel channel) {
+        this(channel, 1 << 16, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Constructs a ChannelReader that reads through a reusable direct buffer, the channel must be in blocking mode.
+     * The reader may read ahead of the decoded data, so the bytes after the decoded data remain in the buffer.
+     *
+     * @param channel    the channel to read
+     * @param bufferSize the size of the direct buffer
+     * @param byteOrder  the byte order of the primitives
+     * @throws IllegalArgumentException if the buffer size is smaller than 8
+     */
+    public ChannelReader(@NotNull ReadableByteChannel channel, int bufferSize, @NotNull ByteOrder byteOrder) {
+        if (bufferSize < 8) {
+            throw new IllegalArgumentException("Buffer size must be at least 8, but got " + bufferSize + ".");
+        }
+
+        this.channel = channel;
+        this.byteBuffer = ByteBuffer.allocateDirect(bufferSize).order(byteOrder);
+        this.byteBuffer.limit(0);
+
+        this.stringBuffer = new byte[64];
+    }
+
+    /**
+     * Reads from the channel until the buffer has the size bytes.
+     *
+     * @param size the size to be read
+     * @throws IOException if an I/O error occurs; if the end of the channel has been reached
+     */
+    private void ensureSize(int size) throws IOException {
+        if (this.byteBuffer.remaining() < size) {
+            this.byteBuffer.compact();
+
+            while (this.byteBuffer.position() < size) {
+                if (this.channel.read(this.byteBuffer) < 0) {
+                    this.byteBuffer.flip();
+
+                    throw new EOFException("Reached end of channel.");
+                }
+            }
+
+            this.byteBuffer.flip();
+        }
+    }
+
+    /**
+     * Reads the next byte of data from the channel.
+     * The value byte is returned as an int in the range 0 to 255.
+     *
+     * @return the byte read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public int readByte() throws IOException {
+        this.ensureSize(1);
+
+        return this.byteBuffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads the next character of data from the channel.
+     *
+     * @return the character read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public char readChar() throws IOException {
+        this.ensureSize(2);
+
+        return this.byteBuffer.getChar();
+    }
+
+    /**
+     * Reads the next short of data from the channel.
+     *
+     * @return the short read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public short readShort() throws IOException {
+        this.ensureSize(2);
+
+        return this.byteBuffer.getShort();
+    }
+
+    /**
+     * Reads the next int of data from the channel.
+     *
+     * @return the int read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public int readInt() throws IOException {
+        this.ensureSize(4);
+
+        return this.byteBuffer.getInt();
+    }
+
+    /**
+     * Reads the next float of data from the channel.
+     *
+     * @return the float read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public float readFloat() throws IOException {
+        this.ensureSize(4);
+
+        return this.byteBuffer.getFloat();
+    }
+
+    /**
+     * Reads the next long of data from the channel.
+     *
+     * @return the long read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public long readLong() throws IOException {
+        this.ensureSize(8);
+
+        return this.byteBuffer.getLong();
+    }
+
+    /**
+     * Reads the next double of data from the channel.
+     *
+     * @return the double read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public double readDouble() throws IOException {
+        this.ensureSize(8);
+
+        return this.byteBuffer.getDouble();
+    }
+
+    /**
+     * Reads the next bytes of data from the channel.
+     *
+     * @param bytes the byte array to write the bytes read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public void readBytes(byte[] bytes) throws IOException {
+        this.readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the next length bytes of data into the byte array starting at offset, the bytes larger than the buffer are read from the channel directly.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length <= this.byteBuffer.capacity()) {
+            this.ensureSize(length);
+            this.byteBuffer.get(bytes, offset, length);
+
+            return;
+        }
+
+        int buffered = this.byteBuffer.remaining();
+        this.byteBuffer.get(bytes, offset, buffered);
+
+        ByteBuffer wrappedBuffer = ByteBuffer.wrap(bytes, offset + buffered, length - buffered);
+
+        while (wrappedBuffer.hasRemaining()) {
+            if (this.channel.read(wrappedBuffer) < 0) {
+                throw new EOFException("Reached end of channel.");
+            }
+        }
+    }
+
+    /**
+     * Reads the next length bytes of data and decodes them in UTF-8, the bytes not larger than the buffer are read into the reusable string buffer.
+     *
+     * @param length the number of bytes to read
+     * @return the decoded string
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public String readUTF8(int length) throws IOException {
+        if (length > this.byteBuffer.capacity()) {
+            return Reader.super.readUTF8(length);
+        }
+
+        if (this.stringBuffer.length < length) {
+            this.stringBuffer = new byte[Math.min(Math.max(length, this.stringBuffer.length << 1), this.byteBuffer.capacity())];
+        }
+
+        this.ensureSize(length);
+        this.byteBuffer.get(this.stringBuffer, 0, length);
+
+        return new String(this.stringBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the next length bytes of data by moving the position of the buffer, the bytes after the buffered bytes are read through the buffer and dropped.
+     *
+     * @param length the number of bytes to skip
+     * @throws IOException if an I/O exception occurs; if the end of the channel has been reached
+     */
+    @Override
+    public void skipBytes(int length) throws IOException {
+        while (length > this.byteBuffer.remaining()) {
+            length -= this.byteBuffer.remaining();
+
+            this.byteBuffer.clear();
+
+            if (this.channel.read(this.byteBuffer) < 0) {
+                this.byteBuffer.flip();
+
+                throw new EOFException("Reached end of channel.");
+            }
+
+            this.byteBuffer.flip();
+        }
+
+        this.byteBuffer.position(this.byteBuffer.position() + length);
+    }
+}
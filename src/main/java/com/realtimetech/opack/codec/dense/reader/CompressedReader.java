@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.reader;
+
+import com.realtimetech.opack.codec.dense.compression.LZ4BlockCompressor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+public class CompressedReader implements Reader {
+    private final @NotNull Reader reader;
+
+    private final byte @NotNull [] block;
+    private final byte @NotNull [] compressedBlock;
+
+    private int currentIndex;
+    private int blockLength;
+
+    private boolean finished;
+
+    /**
+     * Constructs a CompressedReader.
+     * The blocks are decompressed one by one as the data is read.
+     *
+     * @param reader    the reader to read the compressed blocks
+     * @param blockSize the size of the uncompressed block, which was used to write the blocks
+     * @throws IllegalArgumentException if the block size is less than 16
+     */
+    public CompressedReader(@NotNull Reader reader, int blockSize) {
+        if (blockSize < 16) {
+            throw new IllegalArgumentException("Block size must be at least 16 bytes, but got " + blockSize + ".");
+        }
+
+        this.reader = reader;
+
+        this.block = new byte[blockSize];
+        this.compressedBlock = new byte[LZ4BlockCompressor.maxCompressedLength(blockSize)];
+
+        this.currentIndex = 0;
+        this.blockLength = 0;
+
+        this.finished = false;
+    }
+
+    /**
+     * Reads and decompresses the next block from the underlying reader.
+     *
+     * @throws IOException if the end of frame has been reached; if the block is malformed
+     */
+    private void readBlock() throws IOException {
+        if (this.finished) {
+            throw new EOFException("Reached end of compressed frame.");
+        }
+
+        int rawLength = this.reader.readInt();
+
+        if (rawLength == 0) {
+            this.finished = true;
+
+            throw new EOFException("Reached end of compressed frame.");
+        }
+
+        int compressedLength = this.reader.readInt();
+
+        if (rawLength < 0 || rawLength > this.block.length || compressedLength <= 0 || compressedLength > rawLength) {
+            throw new IOException("Malformed compressed block header. (raw " + rawLength + ", compressed " + compressedLength + ")");
+        }
+
+        if (compressedLength == rawLength) {
+            this.reader.readBytes(this.block, 0, rawLength);
+        } else {
+            this.reader.readBytes(this.compressedBlock, 0, compressedLength);
+
+            int length = LZ4BlockCompressor.decompress(this.compressedBlock, 0, compressedLength, this.block, 0, rawLength);
+
+            if (length != rawLength) {
+                throw new IOException("Malformed compressed block, expected " + rawLength + " bytes but got " + length + " bytes.");
+            }
+        }
+
+        this.currentIndex = 0;
+        this.blockLength = rawLength;
+    }
+
+    /**
+     * Reads the end of frame mark, the underlying reader is placed right after this compressed frame.
+     *
+     * @throws IOException if the unread data remains in this frame
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+
+        if (this.currentIndex != this.blockLength || this.reader.readInt() != 0) {
+            throw new IOException("Compressed frame has unread data.");
+        }
+
+        this.finished = true;
+    }
+
+    /**
+     * Returns true if the current block has the require size.
+     *
+     * @param requireSize the size to be read
+     * @return true if the current block has the require size
+     * @throws IOException if an I/O exception occurs
+     */
+    private boolean hasBlock(int requireSize) throws IOException {
+        if (this.currentIndex == this.blockLength) {
+            this.readBlock();
+        }
+
+        return this.currentIndex + requireSize <= this.blockLength;
+    }
+
+    /**
+     * Reads the next byte of data from the input stream.
+     * The value byte is returned as an int in the range 0 to 255.
+     *
+     * @return the byte read
+     * @throws IOException if an I/O exception occurs
+     */
+    public int readByte() throws IOException {
+        if (this.currentIndex == this.blockLength) {
+            this.readBlock();
+        }
+
+        return this.block[this.currentIndex++] & 0xFF;
+    }
+
+    /**
+     * Reads the next character of data from the input stream.
+     *
+     * @return the character read
+     * @throws IOException if an I/O exception occurs
+     */
+    public char readChar() throws IOException {
+        return (char) this.readShort();
+    }
+
+    /**
+     * Reads the next short of data from the input stream.
+     *
+     * @return the short read
+     * @throws IOException if an I/O exception occurs
+     */
+    public short readShort() throws IOException {
+        if (this.hasBlock(2)) {
+            byte byte1 = this.block[this.currentIndex++];
+            byte byte2 = this.block[this.currentIndex++];
+
+            return (short) (((byte1 & 0xFF) << 8) |
+                    ((byte2 & 0xFF) << 0));
+        }
+
+        return (short) ((this.readByte() << 8) |
+                (this.readByte() << 0));
+    }
+
+    /**
+     * Reads the next int of data from the input stream.
+     *
+     * @return the int read
+     * @throws IOException if an I/O exception occurs
+     */
+    public int readInt() throws IOException {
+        if (this.hasBlock(4)) {
+            byte byte1 = this.block[this.currentIndex++];
+            byte byte2 = this.block[this.currentIndex++];
+            byte byte3 = this.block[this.currentIndex++];
+            byte byte4 = this.block[this.currentIndex++];
+
+            return ((byte1 & 0xFF) << 24) |
+                    ((byte2 & 0xFF) << 16) |
+                    ((byte3 & 0xFF) << 8) |
+                    ((byte4 & 0xFF) << 0);
+        }
+
+        return (this.readByte() << 24) |
+                (this.readByte() << 16) |
+                (this.readByte() << 8) |
+                (this.readByte() << 0);
+    }
+
+    /**
+     * Reads the next float of data from the input stream.
+     *
+     * @return the float read
+     * @throws IOException if an I/O exception occurs
+     */
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(this.readInt());
+    }
+
+    /**
+     * Reads the next long of data from the input stream.
+     *
+     * @return the long read
+     * @throws IOException if an I/O exception occurs
+     */
+    public long readLong() throws IOException {
+        if (this.hasBlock(8)) {
+            byte byte1 = this.block[this.currentIndex++];
+            byte byte2 = this.block[this.currentIndex++];
+            byte byte3 = this.block[this.currentIndex++];
+            byte byte4 = this.block[this.currentIndex++];
+            byte byte5 = this.block[this.currentIndex++];
+            byte byte6 = this.block[this.currentIndex++];
+            byte byte7 = this.block[this.currentIndex++];
+            byte byte8 = this.block[this.currentIndex++];
+
+            return ((((long) byte1 & 0xFF) << 56) |
+                    (((long) byte2 & 0xFF) << 48) |
+                    (((long) byte3 & 0xFF) << 40) |
+                    (((long) byte4 & 0xFF) << 32) |
+                    (((long) byte5 & 0xFF) << 24) |
+                    (((long) byte6 & 0xFF) << 16) |
+                    (((long) byte7 & 0xFF) << 8) |
+                    (((long) byte8 & 0xFF) << 0));
+        }
+
+        return (((long) this.readInt() & 0xFFFFFFFFL) << 32) |
+                (((long) this.readInt() & 0xFFFFFFFFL) << 0);
+    }
+
+    /**
+     * Reads the next double of data from the input stream.
+     *
+     * @return the double read
+     * @throws IOException if an I/O exception occurs
+     */
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(this.readLong());
+    }
+
+    /**
+     * Reads the next bytes of data from the input stream.
+     *
+     * @param bytes the byte array to write the bytes read
+     * @throws IOException if an I/O exception occurs
+     */
+    public void readBytes(byte[] bytes) throws IOException {
+        this.readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the next length bytes of data from the input stream into the byte array starting at offset.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException if an I/O exception occurs
+     */
+    public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (this.currentIndex == this.blockLength) {
+                this.readBlock();
+            }
+
+            int size = Math.min(length, this.blockLength - this.currentIndex);
+
+            System.arraycopy(this.block, this.currentIndex, bytes, offset, size);
+
+            this.currentIndex += size;
+            offset += size;
+            length -= size;
+        }
+    }
+}
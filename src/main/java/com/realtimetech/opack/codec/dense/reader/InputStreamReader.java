@@ -22,6 +22,7 @@
 
 package com.realtimetech.opack.codec.dense.reader;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -127,6 +128,20 @@ public class InputStreamReader implements Reader {
      * @throws IOException if an I/O exception occurs
      */
     public void readBytes(byte[] bytes) throws IOException {
-        this.inputStream.readNBytes(bytes, 0, bytes.length);
+        this.readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the next length bytes of data from the input stream into the byte array starting at offset.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException if an I/O exception occurs; if the end of the stream has been reached before length bytes are read
+     */
+    public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (this.inputStream.readNBytes(bytes, offset, length) < length) {
+            throw new EOFException("Reached end of stream.");
+        }
     }
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.reader;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedFileReader implements Reader, Closeable {
+    /*
+        Each region is mapped with CONST_REGION_OVERLAP extra bytes, so that a primitive which starts in a region never crosses the end of the mapping.
+     */
+    private static final int CONST_DEFAULT_REGION_SIZE = 1 << 30;
+    private static final int CONST_REGION_OVERLAP = 8;
+    private static final int CONST_MAX_STRING_BUFFER_SIZE = 1 << 16;
+
+    private final @NotNull FileChannel fileChannel;
+    private final boolean ownChannel;
+
+    private final long fileSize;
+    private final int regionSize;
+
+    private MappedByteBuffer region;
+    private long regionOffset;
+
+    private byte[] stringBuffer;
+
+    /**
+     * Constructs a MappedFileReader that maps the file, the file is closed when this reader is closed.
+     *
+     * @param path the path of the file to read
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedFileReader(@NotNull Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), CONST_DEFAULT_REGION_SIZE, true);
+    }
+
+    /**
+     * Constructs a MappedFileReader that maps the file from the current position of the channel.
+     *
+     * @param fileChannel the file channel to read
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedFileReader(@NotNull FileChannel fileChannel) throws IOException {
+        this(fileChannel, CONST_DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Constructs a MappedFileReader that maps the file from the current position of the channel by regions of the size.
+     *
+     * @param fileChannel the file channel to read
+     * @param regionSize  the size of each mapped region
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the region size is out of range
+     */
+    public MappedFileReader(@NotNull FileChannel fileChannel, int regionSize) throws IOException {
+        this(fileChannel, regionSize, false);
+    }
+
+    private MappedFileReader(@NotNull FileChannel fileChannel, int regionSize, boolean ownChannel) throws IOException {
+        if (regionSize < CONST_REGION_OVERLAP || regionSize > Integer.MAX_VALUE - CONST_REGION_OVERLAP) {
+            if (ownChannel) {
+                fileChannel.close();
+            }
+
+            throw new IllegalArgumentException("Region size must be between " + CONST_REGION_OVERLAP + " and " + (Integer.MAX_VALUE - CONST_REGION_OVERLAP) + ", but got " + regionSize + ".");
+        }
+
+        this.fileChannel = fileChannel;
+        this.ownChannel = ownChannel;
+
+        this.fileSize = fileChannel.size();
+        this.regionSize = regionSize;
+
+        this.stringBuffer = new byte[64];
+
+        this.map(fileChannel.position());
+    }
+
+    /**
+     * Maps the region which starts at the offset.
+     *
+     * @param offset the offset of the region in the file
+     * @throws IOException if an I/O error occurs
+     */
+    private void map(long offset) throws IOException {
+        long length = Math.min(this.fileSize - offset, (long) this.regionSize + CONST_REGION_OVERLAP);
+
+        this.region = this.fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, Math.max(length, 0));
+        this.regionOffset = offset;
+    }
+
+    /**
+     * Maps the next region if the position has passed the end of the current region, and asserts size.
+     *
+     * @param size the size to be read
+     * @throws IOException if an I/O error occurs; if the end of the file has been reached
+     */
+    private void assertSize(int size) throws IOException {
+        if (this.region.position() >= this.regionSize) {
+            this.map(this.regionOffset + this.region.position());
+        }
+
+        if (this.region.remaining() < size) {
+            throw new EOFException("Reached end of file.");
+        }
+    }
+
+    /**
+     * Returns the current position in the file.
+     *
+     * @return the position
+     */
+    public long getPosition() {
+        return this.regionOffset + this.region.position();
+    }
+
+    /**
+     * Reads the next byte of data from the mapped file.
+     * The value byte is returned as an int in the range 0 to 255.
+     *
+     * @return the byte read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public int readByte() throws IOException {
+        this.assertSize(1);
+
+        return this.region.get() & 0xFF;
+    }
+
+    /**
+     * Reads the next character of data from the mapped file.
+     *
+     * @return the character read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public char readChar() throws IOException {
+        this.assertSize(2);
+
+        return this.region.getChar();
+    }
+
+    /**
+     * Reads the next short of data from the mapped file.
+     *
+     * @return the short read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public short readShort() throws IOException {
+        this.assertSize(2);
+
+        return this.region.getShort();
+    }
+
+    /**
+     * Reads the next int of data from the mapped file.
+     *
+     * @return the int read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public int readInt() throws IOException {
+        this.assertSize(4);
+
+        return this.region.getInt();
+    }
+
+    /**
+     * Reads the next float of data from the mapped file.
+     *
+     * @return the float read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public float readFloat() throws IOException {
+        this.assertSize(4);
+
+        return this.region.getFloat();
+    }
+
+    /**
+     * Reads the next long of data from the mapped file.
+     *
+     * @return the long read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public long readLong() throws IOException {
+        this.assertSize(8);
+
+        return this.region.getLong();
+    }
+
+    /**
+     * Reads the next double of data from the mapped file.
+     *
+     * @return the double read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public double readDouble() throws IOException {
+        this.assertSize(8);
+
+        return this.region.getDouble();
+    }
+
+    /**
+     * Reads the next bytes of data from the mapped file.
+     *
+     * @param bytes the byte array to write the bytes read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public void readBytes(byte[] bytes) throws IOException {
+        this.readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the next length bytes of data from the mapped file into the byte array starting at offset, across the regions if needed.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (this.getPosition() + length > this.fileSize) {
+            throw new EOFException("Reached end of file.");
+        }
+
+        while (length > 0) {
+            this.assertSize(1);
+
+            int size = Math.min(length, this.region.remaining());
+
+            this.region.get(bytes, offset, size);
+
+            offset += size;
+            length -= size;
+        }
+    }
+
+    /**
+     * Reads the next length bytes of data and decodes them in UTF-8, the bytes are read into the reusable string buffer unless they are longer than its max size.
+     *
+     * @param length the number of bytes to read
+     * @return the decoded string
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public String readUTF8(int length) throws IOException {
+        if (length > CONST_MAX_STRING_BUFFER_SIZE) {
+            return Reader.super.readUTF8(length);
+        }
+
+        if (this.stringBuffer.length < length) {
+            this.stringBuffer = new byte[Math.min(Math.max(length, this.stringBuffer.length << 1), CONST_MAX_STRING_BUFFER_SIZE)];
+        }
+
+        this.readBytes(this.stringBuffer, 0, length);
+
+        return new String(this.stringBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the next length bytes of data by moving the position in the current region, or by mapping the region at the new position.
+     *
+     * @param length the number of bytes to skip
+     * @throws IOException if an I/O exception occurs; if the end of the file has been reached
+     */
+    @Override
+    public void skipBytes(int length) throws IOException {
+        long position = this.getPosition() + length;
+
+        if (position > this.fileSize) {
+            throw new EOFException("Reached end of file.");
+        }
+
+        long regionPosition = position - this.regionOffset;
+
+        if (regionPosition <= this.region.limit()) {
+            this.region.position((int) regionPosition);
+        } else {
+            this.map(position);
+        }
+    }
+
+    /**
+     * Closes the file channel if this reader opened it.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.ownChannel) {
+            this.fileChannel.close();
+        }
+    }
+}
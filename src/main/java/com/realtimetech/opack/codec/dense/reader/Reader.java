@@ -23,6 +23,7 @@
 package com.realtimetech.opack.codec.dense.reader;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public interface Reader {
     /**
@@ -89,4 +90,55 @@ public interface Reader {
      * @throws IOException if an I/O exception occurs
      */
     public void readBytes(byte[] bytes) throws IOException;
+
+    /**
+     * Reads the next length bytes of data from the input stream into the byte array starting at offset, the readers override this to read into the array directly.
+     *
+     * @param bytes  the byte array to write the bytes read
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to read
+     * @throws IOException               if an I/O exception occurs
+     * @throws IndexOutOfBoundsException if the range is out of the byte array
+     */
+    public default void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") is out of bounds for length " + bytes.length + ".");
+        }
+
+        if (offset == 0 && length == bytes.length) {
+            this.readBytes(bytes);
+            return;
+        }
+
+        byte[] buffer = new byte[length];
+        this.readBytes(buffer);
+
+        System.arraycopy(buffer, 0, bytes, offset, length);
+    }
+
+    /**
+     * Reads the next length bytes of data and decodes them in UTF-8, the readers backed by a byte array decode the string directly without the intermediate byte array.
+     *
+     * @param length the number of bytes to read
+     * @return the decoded string
+     * @throws IOException if an I/O exception occurs
+     */
+    public default String readUTF8(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        this.readBytes(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the next length bytes of data without decoding them.
+     *
+     * @param length the number of bytes to skip
+     * @throws IOException if an I/O exception occurs
+     */
+    public default void skipBytes(int length) throws IOException {
+        for (int index = 0; index < length; index++) {
+            this.readByte();
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.realtimetech.opack.codec.dense.writer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public class BitWriter {
+    private final Writer writer;
+
+    private long bits;
+    private int bitCount;
+
+    private long bitLength;
+
+    /**
+     * Constructs the BitWriter which writes the bits to the writer in most significant bit first order.
+     *
+     * @param writer the writer to write the bytes
+     */
+    public BitWriter(@NotNull Writer writer) {
+        this.writer = writer;
+
+        this.bits = 0;
+        this.bitCount = 0;
+
+        this.bitLength = 0;
+    }
+
+    /**
+     * Returns the number of bits written, excluding the padding bits of {@link #flush() flush}.
+     *
+     * @return the number of bits written
+     */
+    public long getBitLength() {
+        return this.bitLength;
+    }
+
+    /**
+     * Writes the lowest bits of the value, the whole longs are written to the writer as soon as they are filled.
+     *
+     * @param value    the value containing the bits
+     * @param bitCount the number of the lowest bits to write, between 0 and 64
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the bit count is out of range
+     */
+    public void writeBits(long value, int bitCount) throws IOException {
+        if (bitCount < 0 || bitCount > 64) {
+            throw new IllegalArgumentException("Bit count must be between 0 and 64, but got " + bitCount + ".");
+        }
+
+        if (bitCount == 0) {
+            return;
+        }
+
+        long maskedValue = bitCount == 64 ? value : value & ((1L << bitCount) - 1);
+        int freeBitCount = 64 - this.bitCount;
+
+        if (bitCount < freeBitCount) {
+            this.bits |= maskedValue << (freeBitCount - bitCount);
+            this.bitCount += bitCount;
+        } else {
+            int restBitCount = bitCount - freeBitCount;
+
+            this.writer.writeLong(this.bits | (maskedValue >>> restBitCount));
+
+            this.bits = restBitCount == 0 ? 0 : maskedValue << (64 - restBitCount);
+            this.bitCount = restBitCount;
+        }
+
+        this.bitLength += bitCount;
+    }
+
+    /**
+     * Writes one bit.
+     *
+     * @param bit the bit
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeBit(boolean bit) throws IOException {
+        this.writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Writes the pending bits to the writer, the last byte is padded with zero bits.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        int byteCount = (this.bitCount + 7) >>> 3;
+
+        for (int index = 0; index < byteCount; index++) {
+            this.writer.writeByte((int) (this.bits >>> (56 - (index << 3))));
+        }
+
+        this.bits = 0;
+        this.bitCount = 0;
+        this.bitLength = (this.bitLength + 7) & ~7L;
+    }
+}
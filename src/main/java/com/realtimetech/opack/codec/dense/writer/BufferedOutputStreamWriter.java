@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.writer;
+
+import com.realtimetech.opack.util.UTF8Util;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class BufferedOutputStreamWriter implements Writer {
+    private final @NotNull OutputStream outputStream;
+
+    private final byte @NotNull [] buffer;
+    private int bufferIndex;
+
+    /**
+     * Calls {@code new BufferedOutputStreamWriter(outputStream, 8192)}
+     *
+     * @param outputStream the output stream to write
+     */
+    public BufferedOutputStreamWriter(@NotNull OutputStream outputStream) {
+        this(outputStream, 8192);
+    }
+
+    /**
+     * Constructs a BufferedOutputStreamWriter that writes to the output stream by chunks of the buffer size, {@link #flush() flush} must be called after encoding.
+     *
+     * @param outputStream the output stream to write
+     * @param bufferSize   the size of the buffer
+     * @throws IllegalArgumentException if the buffer size is smaller than 8
+     */
+    public BufferedOutputStreamWriter(@NotNull OutputStream outputStream, int bufferSize) {
+        if (bufferSize < 8) {
+            throw new IllegalArgumentException("Buffer size must be at least 8, but got " + bufferSize + ".");
+        }
+
+        this.outputStream = outputStream;
+
+        this.buffer = new byte[bufferSize];
+        this.bufferIndex = 0;
+    }
+
+    /**
+     * Writes the buffered bytes to the output stream if the buffer does not have enough space.
+     *
+     * @param size the size to be written
+     * @throws IOException if an I/O error occurs
+     */
+    private void ensureSize(int size) throws IOException {
+        if (this.buffer.length - this.bufferIndex < size) {
+            this.flushBuffer();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the output stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void flushBuffer() throws IOException {
+        if (this.bufferIndex > 0) {
+            this.outputStream.write(this.buffer, 0, this.bufferIndex);
+            this.bufferIndex = 0;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the output stream and flushes the output stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        this.flushBuffer();
+        this.outputStream.flush();
+    }
+
+    /**
+     * Writes the specified byte to the buffer.
+     *
+     * @param value the byte
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeByte(int value) throws IOException {
+        this.ensureSize(1);
+
+        this.buffer[this.bufferIndex++] = (byte) value;
+    }
+
+    /**
+     * Writes the specified character to the buffer.
+     *
+     * @param value the character
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeChar(char value) throws IOException {
+        this.writeShort((short) value);
+    }
+
+    /**
+     * Writes the specified short to the buffer.
+     *
+     * @param value the short
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeShort(short value) throws IOException {
+        this.ensureSize(2);
+
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 8) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified int to the buffer.
+     *
+     * @param value the int
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeInt(int value) throws IOException {
+        this.ensureSize(4);
+
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 24) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 16) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 8) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified float to the buffer.
+     *
+     * @param value the float
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeFloat(float value) throws IOException {
+        this.writeInt(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Writes the specified long to the buffer.
+     *
+     * @param value the long
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeLong(long value) throws IOException {
+        this.ensureSize(8);
+
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 56) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 48) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 40) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 32) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 24) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 16) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 8) & 0xff);
+        this.buffer[this.bufferIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified double to the buffer.
+     *
+     * @param value the double
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeDouble(double value) throws IOException {
+        this.writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes the specified bytes to the buffer.
+     *
+     * @param bytes the bytes
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeBytes(byte[] bytes) throws IOException {
+        this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes length bytes from the byte array starting at offset, the bytes larger than the buffer are written to the output stream directly.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length <= this.buffer.length) {
+            this.ensureSize(length);
+
+            System.arraycopy(bytes, offset, this.buffer, this.bufferIndex, length);
+            this.bufferIndex += length;
+        } else {
+            this.flushBuffer();
+            this.outputStream.write(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Writes the string encoded in UTF-8 directly to the buffer if the string fits in the buffer.
+     *
+     * @param string     the string to write
+     * @param utf8Length the number of bytes of the string encoded in UTF-8
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeUTF8(String string, int utf8Length) throws IOException {
+        if (utf8Length <= this.buffer.length) {
+            this.ensureSize(utf8Length);
+
+            this.bufferIndex = UTF8Util.encodeUTF8(string, utf8Length, this.buffer, this.bufferIndex);
+        } else {
+            this.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.writer;
+
+import com.realtimetech.opack.util.UTF8Util;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public class ByteArraySliceWriter implements Writer {
+    private final byte @NotNull [] bytes;
+
+    private final int offset;
+    private final int limit;
+
+    private int currentIndex;
+
+    /**
+     * Constructs a ByteArraySliceWriter that writes into the range of the bytes without reallocation.
+     *
+     * @param bytes  the bytes to write into
+     * @param offset the start offset in the bytes
+     * @param length the number of bytes that can be written
+     * @throws IllegalArgumentException if the range is out of the bytes
+     */
+    public ByteArraySliceWriter(byte @NotNull [] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length || offset + length < 0) {
+            throw new IllegalArgumentException("Range [" + offset + ", " + offset + " + " + length + ") is out of the bytes. (length " + bytes.length + ")");
+        }
+
+        this.bytes = bytes;
+
+        this.offset = offset;
+        this.limit = offset + length;
+
+        this.currentIndex = offset;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes written
+     */
+    public int getLength() {
+        return this.currentIndex - this.offset;
+    }
+
+    /**
+     * Assert size
+     *
+     * @param size the size to be written
+     * @throws IOException if the slice does not have enough space
+     */
+    private void assertSize(int size) throws IOException {
+        if (this.currentIndex + size > this.limit) {
+            throw new IOException("Reached end of slice. (need " + size + " bytes, remaining " + (this.limit - this.currentIndex) + " bytes)");
+        }
+    }
+
+    /**
+     * Writes the specified byte to the slice.
+     *
+     * @param value the byte
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeByte(int value) throws IOException {
+        this.assertSize(1);
+
+        this.bytes[this.currentIndex++] = (byte) value;
+    }
+
+    /**
+     * Writes the specified character to the slice.
+     *
+     * @param value the character
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeChar(char value) throws IOException {
+        this.writeShort((short) value);
+    }
+
+    /**
+     * Writes the specified short to the slice.
+     *
+     * @param value the short
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeShort(short value) throws IOException {
+        this.assertSize(2);
+
+        this.bytes[this.currentIndex++] = (byte) ((value >> 8) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified int to the slice.
+     *
+     * @param value the int
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeInt(int value) throws IOException {
+        this.assertSize(4);
+
+        this.bytes[this.currentIndex++] = (byte) ((value >> 24) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 16) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 8) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified float to the slice.
+     *
+     * @param value the float
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeFloat(float value) throws IOException {
+        this.writeInt(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Writes the specified long to the slice.
+     *
+     * @param value the long
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeLong(long value) throws IOException {
+        this.assertSize(8);
+
+        this.bytes[this.currentIndex++] = (byte) ((value >> 56) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 48) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 40) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 32) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 24) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 16) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 8) & 0xff);
+        this.bytes[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified double to the slice.
+     *
+     * @param value the double
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeDouble(double value) throws IOException {
+        this.writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes the specified bytes to the slice.
+     *
+     * @param bytes the bytes
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeBytes(byte[] bytes) throws IOException {
+        this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes length bytes from the byte array starting at offset to the slice.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        this.assertSize(length);
+
+        System.arraycopy(bytes, offset, this.bytes, this.currentIndex, length);
+        this.currentIndex += length;
+    }
+
+    /**
+     * Writes the string encoded in UTF-8 directly to the slice without the intermediate byte array.
+     *
+     * @param string     the string to write
+     * @param utf8Length the number of bytes of the string encoded in UTF-8
+     * @throws IOException if the slice does not have enough space
+     */
+    @Override
+    public void writeUTF8(@NotNull String string, int utf8Length) throws IOException {
+        this.assertSize(utf8Length);
+
+        this.currentIndex = UTF8Util.encodeUTF8(string, utf8Length, this.bytes, this.currentIndex);
+    }
+}
@@ -22,6 +22,8 @@
 
 package com.realtimetech.opack.codec.dense.writer;
 
+import com.realtimetech.opack.util.UTF8Util;
+
 import java.io.IOException;
 
 public class ByteArrayWriter implements Writer {
@@ -43,6 +45,7 @@ public class ByteArrayWriter implements Writer {
      * @param initialSize the initial size
      */
     public ByteArrayWriter(int initialSize) {
+        this.bytes = new byte[1];
         this.currentIndex = 0;
         this.actualLength = 1;
 
@@ -140,6 +143,24 @@ public class ByteArrayWriter implements Writer {
         this.bytes[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
     }
 
+    /**
+     * Overwrites the int at the index of the bytes already written, for the formats that patch the lengths after writing the contents.
+     *
+     * @param index the index of the bytes to overwrite
+     * @param value the int
+     * @throws IndexOutOfBoundsException if the int at the index has not been written
+     */
+    public void putInt(int index, int value) {
+        if (index < 0 || index + 4 > this.currentIndex) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of the written bytes. (length " + this.currentIndex + ")");
+        }
+
+        this.bytes[index] = (byte) ((value >> 24) & 0xff);
+        this.bytes[index + 1] = (byte) ((value >> 16) & 0xff);
+        this.bytes[index + 2] = (byte) ((value >> 8) & 0xff);
+        this.bytes[index + 3] = (byte) ((value >> 0) & 0xff);
+    }
+
     /**
      * Writes the specified float to this output stream.
      *
@@ -186,10 +207,46 @@ public class ByteArrayWriter implements Writer {
      * @throws IOException if an I/O error occurs; if the output stream has been closed.
      */
     public void writeBytes(byte[] bytes) throws IOException {
-        this.increaseArray(bytes.length);
+        this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes len bytes from the specified byte array starting at offset to this output stream.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        this.increaseArray(length);
+
+        System.arraycopy(bytes, offset, this.bytes, this.currentIndex, length);
+        this.currentIndex += length;
+    }
 
-        System.arraycopy(bytes, 0, this.bytes, this.currentIndex, bytes.length);
-        this.currentIndex += bytes.length;
+    /**
+     * Writes the string encoded in UTF-8 directly to the array without the intermediate byte array.
+     *
+     * @param string     the string to write
+     * @param utf8Length the number of bytes of the string encoded in UTF-8
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeUTF8(String string, int utf8Length) throws IOException {
+        this.increaseArray(utf8Length);
+
+        this.currentIndex = UTF8Util.encodeUTF8(string, utf8Length, this.bytes, this.currentIndex);
+    }
+
+    /**
+     * Writes all the bytes in this writer to the specified writer without copying them to a new array.
+     *
+     * @param writer the writer to write the bytes to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writer.writeBytes(this.bytes, 0, this.currentIndex);
     }
 
     /**
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.writer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class ByteBufferWriter implements Writer {
+    private @NotNull ByteBuffer byteBuffer;
+
+    /**
+     * Calls {@code new ByteBufferWriter(1024, false)}
+     */
+    public ByteBufferWriter() {
+        this(1024, false);
+    }
+
+    /**
+     * Constructs a ByteBufferWriter that writes into a new big-endian buffer.
+     *
+     * @param initialCapacity the initial capacity of the buffer
+     * @param direct          true if the buffer should be allocated outside the heap
+     */
+    public ByteBufferWriter(int initialCapacity, boolean direct) {
+        this(direct ? ByteBuffer.allocateDirect(initialCapacity) : ByteBuffer.allocate(initialCapacity));
+    }
+
+    /**
+     * Constructs a ByteBufferWriter that writes from the position of the byte buffer in the byte order of the byte buffer.
+     * If the byte buffer is full, it is replaced with a larger buffer of the same kind, so the buffer must be obtained by {@link #getByteBuffer() getByteBuffer}.
+     *
+     * @param byteBuffer the byte buffer to write into
+     */
+    public ByteBufferWriter(@NotNull ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+    }
+
+    /**
+     * Returns the byte buffer that contains the written bytes before its position.
+     *
+     * @return the byte buffer
+     */
+    public @NotNull ByteBuffer getByteBuffer() {
+        return this.byteBuffer;
+    }
+
+    /**
+     * Returns the byte order of the buffer.
+     *
+     * @return the byte order
+     */
+    public @NotNull ByteOrder getByteOrder() {
+        return this.byteBuffer.order();
+    }
+
+    /**
+     * If the needSize is larger than the remaining size, replace the buffer with a larger buffer.
+     *
+     * @param requireSize the need more size
+     */
+    private void increaseBuffer(int requireSize) {
+        if (this.byteBuffer.remaining() < requireSize) {
+            int need = this.byteBuffer.position() + requireSize;
+            int capacity = Math.max(this.byteBuffer.capacity(), 16);
+
+            do {
+                capacity = capacity << 1;
+            } while (need > capacity && capacity > 0);
+
+            if (capacity < need) {
+                capacity = need;
+            }
+
+            ByteBuffer oldBuffer = this.byteBuffer;
+            ByteBuffer newBuffer = oldBuffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+
+            newBuffer.order(oldBuffer.order());
+            oldBuffer.flip();
+            newBuffer.put(oldBuffer);
+
+            this.byteBuffer = newBuffer;
+        }
+    }
+
+    /**
+     * Writes the specified byte to the buffer.
+     *
+     * @param value the byte
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeByte(int value) throws IOException {
+        this.increaseBuffer(1);
+
+        this.byteBuffer.put((byte) value);
+    }
+
+    /**
+     * Writes the specified character to the buffer.
+     *
+     * @param value the character
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeChar(char value) throws IOException {
+        this.increaseBuffer(2);
+
+        this.byteBuffer.putChar(value);
+    }
+
+    /**
+     * Writes the specified short to the buffer.
+     *
+     * @param value the short
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeShort(short value) throws IOException {
+        this.increaseBuffer(2);
+
+        this.byteBuffer.putShort(value);
+    }
+
+    /**
+     * Writes the specified int to the buffer.
+     *
+     * @param value the int
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeInt(int value) throws IOException {
+        this.increaseBuffer(4);
+
+        this.byteBuffer.putInt(value);
+    }
+
+    /**
+     * Writes the specified float to the buffer.
+     *
+     * @param value the float
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeFloat(float value) throws IOException {
+        this.increaseBuffer(4);
+
+        this.byteBuffer.putFloat(value);
+    }
+
+    /**
+     * Writes the specified long to the buffer.
+     *
+     * @param value the long
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeLong(long value) throws IOException {
+        this.increaseBuffer(8);
+
+        this.byteBuffer.putLong(value);
+    }
+
+    /**
+     * Writes the specified double to the buffer.
+     *
+     * @param value the double
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeDouble(double value) throws IOException {
+        this.increaseBuffer(8);
+
+        this.byteBuffer.putDouble(value);
+    }
+
+    /**
+     * Writes the specified bytes to the buffer.
+     *
+     * @param bytes the bytes
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeBytes(byte[] bytes) throws IOException {
+        this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes length bytes from the byte array starting at offset to the buffer.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        this.increaseBuffer(length);
+
+        this.byteBuffer.put(bytes, offset, length);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.writer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+public class ChannelWriter implements Writer {
+    private final @NotNull WritableByteChannel channel;
+    private final @NotNull ByteBuffer byteBuffer;
+
+    /**
+     * Calls {@code new ChannelWriter(channel, 65536, ByteOrder.BIG_ENDIAN)}
+     *
+     * @param channel the channel to write
+     */
+    public ChannelWriter(@NotNull WritableByteChannel channel) {
+        this(channel, 1 << 16, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Constructs a ChannelWriter that writes through a reusable direct buffer, the channel must be in blocking mode and {@link #flush() flush} must be called after encoding.
+     * The dense format is big-endian, the data written in the other byte order must be read in the same byte order.
+     *
+     * @param channel    the channel to write
+     * @param bufferSize the size of the direct buffer
+     * @param byteOrder  the byte order of the primitives
+     * @throws IllegalArgumentException if the buffer size is smaller than 8
+     */
+    public ChannelWriter(@NotNull WritableByteChannel channel, int bufferSize, @NotNull ByteOrder byteOrder) {
+        if (bufferSize < 8) {
+            throw new IllegalArgumentException("Buffer size must be at least 8, but got " + bufferSize + ".");
+        }
+
+        this.channel = channel;
+        this.byteBuffer = ByteBuffer.allocateDirect(bufferSize).order(byteOrder);
+    }
+
+    /**
+     * Flushes the buffer if the buffer does not have enough space.
+     *
+     * @param size the size to be written
+     * @throws IOException if an I/O error occurs
+     */
+    private void ensureSize(int size) throws IOException {
+        if (this.byteBuffer.remaining() < size) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Writes all the buffered bytes to the channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        this.byteBuffer.flip();
+
+        while (this.byteBuffer.hasRemaining()) {
+            this.channel.write(this.byteBuffer);
+        }
+
+        this.byteBuffer.clear();
+    }
+
+    /**
+     * Writes the specified byte to the buffer.
+     *
+     * @param value the byte
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeByte(int value) throws IOException {
+        this.ensureSize(1);
+
+        this.byteBuffer.put((byte) value);
+    }
+
+    /**
+     * Writes the specified character to the buffer.
+     *
+     * @param value the character
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeChar(char value) throws IOException {
+        this.ensureSize(2);
+
+        this.byteBuffer.putChar(value);
+    }
+
+    /**
+     * Writes the specified short to the buffer.
+     *
+     * @param value the short
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeShort(short value) throws IOException {
+        this.ensureSize(2);
+
+        this.byteBuffer.putShort(value);
+    }
+
+    /**
+     * Writes the specified int to the buffer.
+     *
+     * @param value the int
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeInt(int value) throws IOException {
+        this.ensureSize(4);
+
+        this.byteBuffer.putInt(value);
+    }
+
+    /**
+     * Writes the specified float to the buffer.
+     *
+     * @param value the float
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeFloat(float value) throws IOException {
+        this.ensureSize(4);
+
+        this.byteBuffer.putFloat(value);
+    }
+
+    /**
+     * Writes the specified long to the buffer.
+     *
+     * @param value the long
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeLong(long value) throws IOException {
+        this.ensureSize(8);
+
+        this.byteBuffer.putLong(value);
+    }
+
+    /**
+     * Writes the specified double to the buffer.
+     *
+     * @param value the double
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeDouble(double value) throws IOException {
+        this.ensureSize(8);
+
+        this.byteBuffer.putDouble(value);
+    }
+
+    /**
+     * Writes the specified bytes to the buffer.
+     *
+     * @param bytes the bytes
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeBytes(byte[] bytes) throws IOException {
+        this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes length bytes from the byte array starting at offset, the bytes larger than the buffer are written to the channel directly.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length <= this.byteBuffer.remaining()) {
+            this.byteBuffer.put(bytes, offset, length);
+        } else if (length <= this.byteBuffer.capacity()) {
+            this.flush();
+            this.byteBuffer.put(bytes, offset, length);
+        } else {
+            this.flush();
+
+            ByteBuffer wrappedBuffer = ByteBuffer.wrap(bytes, offset, length);
+
+            while (wrappedBuffer.hasRemaining()) {
+                this.channel.write(wrappedBuffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.writer;
+
+import com.realtimetech.opack.codec.dense.compression.LZ4BlockCompressor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public class CompressedWriter implements Writer {
+    private final @NotNull Writer writer;
+    private final @NotNull LZ4BlockCompressor compressor;
+
+    private final byte @NotNull [] block;
+    private final byte @NotNull [] compressedBlock;
+
+    private int currentIndex;
+
+    /**
+     * Constructs a CompressedWriter.
+     * The written data is split into independently compressed blocks of the block size.
+     *
+     * @param writer    the writer to write the compressed blocks
+     * @param blockSize the size of the uncompressed block
+     * @throws IllegalArgumentException if the block size is less than 16
+     */
+    public CompressedWriter(@NotNull Writer writer, int blockSize) {
+        if (blockSize < 16) {
+            throw new IllegalArgumentException("Block size must be at least 16 bytes, but got " + blockSize + ".");
+        }
+
+        this.writer = writer;
+        this.compressor = new LZ4BlockCompressor();
+
+        this.block = new byte[blockSize];
+        this.compressedBlock = new byte[LZ4BlockCompressor.maxCompressedLength(blockSize)];
+
+        this.currentIndex = 0;
+    }
+
+    /**
+     * If the remaining space of the current block is smaller than the require size, flush the current block.
+     *
+     * @param requireSize the need more size
+     * @throws IOException if an I/O error occurs
+     */
+    private void ensureBlock(int requireSize) throws IOException {
+        if (this.currentIndex + requireSize > this.block.length) {
+            this.flushBlock();
+        }
+    }
+
+    /**
+     * Compresses the current block and writes it to the underlying writer.
+     * (block protocol: raw length(4 bytes), compressed length(4 bytes), data (variable), the block is stored without compression if compressed length equals raw length)
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void flushBlock() throws IOException {
+        if (this.currentIndex == 0) {
+            return;
+        }
+
+        int compressedLength = this.compressor.compress(this.block, 0, this.currentIndex, this.compressedBlock, 0);
+
+        this.writer.writeInt(this.currentIndex);
+
+        if (compressedLength < this.currentIndex) {
+            this.writer.writeInt(compressedLength);
+            this.writer.writeBytes(this.compressedBlock, 0, compressedLength);
+        } else {
+            this.writer.writeInt(this.currentIndex);
+            this.writer.writeBytes(this.block, 0, this.currentIndex);
+        }
+
+        this.currentIndex = 0;
+    }
+
+    /**
+     * Flushes the remaining block and writes the end of frame mark.
+     * This writer must not be used after finishing.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        this.flushBlock();
+        this.writer.writeInt(0);
+    }
+
+    /**
+     * Writes the specified byte to this output stream.
+     *
+     * @param value the byte
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeByte(int value) throws IOException {
+        this.ensureBlock(1);
+
+        this.block[this.currentIndex++] = (byte) value;
+    }
+
+    /**
+     * Writes the specified character to this output stream.
+     *
+     * @param value the character
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeChar(char value) throws IOException {
+        this.ensureBlock(2);
+
+        this.block[this.currentIndex++] = (byte) ((value >> 8) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified short to this output stream.
+     *
+     * @param value the short
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeShort(short value) throws IOException {
+        this.ensureBlock(2);
+
+        this.block[this.currentIndex++] = (byte) ((value >> 8) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified int to this output stream.
+     *
+     * @param value the int
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeInt(int value) throws IOException {
+        this.ensureBlock(4);
+
+        this.block[this.currentIndex++] = (byte) ((value >> 24) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 16) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 8) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified float to this output stream.
+     *
+     * @param value the float
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeFloat(float value) throws IOException {
+        this.writeInt(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Writes the specified long to this output stream.
+     *
+     * @param value the long
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeLong(long value) throws IOException {
+        this.ensureBlock(8);
+
+        this.block[this.currentIndex++] = (byte) ((value >> 56) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 48) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 40) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 32) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 24) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 16) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 8) & 0xff);
+        this.block[this.currentIndex++] = (byte) ((value >> 0) & 0xff);
+    }
+
+    /**
+     * Writes the specified double to this output stream.
+     *
+     * @param value the double
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeDouble(double value) throws IOException {
+        this.writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes the specified bytes to this output stream.
+     *
+     * @param bytes the byte array to write
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes len bytes from the specified byte array starting at offset to this output stream.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (this.currentIndex == this.block.length) {
+                this.flushBlock();
+            }
+
+            int size = Math.min(length, this.block.length - this.currentIndex);
+
+            System.arraycopy(bytes, offset, this.block, this.currentIndex, size);
+
+            this.currentIndex += size;
+            offset += size;
+            length -= size;
+        }
+    }
+}
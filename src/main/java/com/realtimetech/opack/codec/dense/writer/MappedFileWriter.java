@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.dense.writer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedFileWriter implements Writer, Closeable {
+    /*
+        Each region is mapped with CONST_REGION_OVERLAP extra bytes, so that a primitive which starts in a region never crosses the end of the mapping.
+     */
+    private static final int CONST_DEFAULT_REGION_SIZE = 1 << 26;
+    private static final int CONST_REGION_OVERLAP = 8;
+
+    private final @NotNull FileChannel fileChannel;
+    private final boolean ownChannel;
+    private final long initialSize;
+
+    private final int regionSize;
+
+    private MappedByteBuffer region;
+    private long regionOffset;
+
+    private boolean closed;
+
+    /**
+     * Constructs a MappedFileWriter that creates or truncates the file, the file is closed when this writer is closed.
+     *
+     * @param path the path of the file to write
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedFileWriter(@NotNull Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE), CONST_DEFAULT_REGION_SIZE, true);
+    }
+
+    /**
+     * Constructs a MappedFileWriter that writes from the current position of the channel.
+     *
+     * @param fileChannel the file channel opened for reading and writing
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedFileWriter(@NotNull FileChannel fileChannel) throws IOException {
+        this(fileChannel, CONST_DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Constructs a MappedFileWriter that writes from the current position of the channel by regions of the size.
+     *
+     * @param fileChannel the file channel opened for reading and writing
+     * @param regionSize  the size of each mapped region, the file grows by this size
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the region size is out of range
+     */
+    public MappedFileWriter(@NotNull FileChannel fileChannel, int regionSize) throws IOException {
+        this(fileChannel, regionSize, false);
+    }
+
+    private MappedFileWriter(@NotNull FileChannel fileChannel, int regionSize, boolean ownChannel) throws IOException {
+        if (regionSize < CONST_REGION_OVERLAP || regionSize > Integer.MAX_VALUE - CONST_REGION_OVERLAP) {
+            if (ownChannel) {
+                fileChannel.close();
+            }
+
+            throw new IllegalArgumentException("Region size must be between " + CONST_REGION_OVERLAP + " and " + (Integer.MAX_VALUE - CONST_REGION_OVERLAP) + ", but got " + regionSize + ".");
+        }
+
+        this.fileChannel = fileChannel;
+        this.ownChannel = ownChannel;
+        this.initialSize = fileChannel.size();
+
+        this.regionSize = regionSize;
+        this.closed = false;
+
+        this.map(fileChannel.position());
+    }
+
+    /**
+     * Maps the region which starts at the offset, the file grows to contain the region.
+     *
+     * @param offset the offset of the region in the file
+     * @throws IOException if an I/O error occurs
+     */
+    private void map(long offset) throws IOException {
+        this.region = this.fileChannel.map(FileChannel.MapMode.READ_WRITE, offset, (long) this.regionSize + CONST_REGION_OVERLAP);
+        this.regionOffset = offset;
+    }
+
+    /**
+     * Maps the next region if the position has passed the end of the current region.
+     *
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    private void ensureRegion() throws IOException {
+        if (this.closed) {
+            throw new IOException("Mapped file writer has been closed.");
+        }
+
+        if (this.region.position() >= this.regionSize) {
+            this.map(this.regionOffset + this.region.position());
+        }
+    }
+
+    /**
+     * Returns the current position in the file.
+     *
+     * @return the position
+     */
+    public long getPosition() {
+        return this.regionOffset + this.region.position();
+    }
+
+    /**
+     * Writes the specified byte to the mapped file.
+     *
+     * @param value the byte
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeByte(int value) throws IOException {
+        this.ensureRegion();
+
+        this.region.put((byte) value);
+    }
+
+    /**
+     * Writes the specified character to the mapped file.
+     *
+     * @param value the character
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeChar(char value) throws IOException {
+        this.ensureRegion();
+
+        this.region.putChar(value);
+    }
+
+    /**
+     * Writes the specified short to the mapped file.
+     *
+     * @param value the short
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeShort(short value) throws IOException {
+        this.ensureRegion();
+
+        this.region.putShort(value);
+    }
+
+    /**
+     * Writes the specified int to the mapped file.
+     *
+     * @param value the int
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeInt(int value) throws IOException {
+        this.ensureRegion();
+
+        this.region.putInt(value);
+    }
+
+    /**
+     * Writes the specified float to the mapped file.
+     *
+     * @param value the float
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeFloat(float value) throws IOException {
+        this.ensureRegion();
+
+        this.region.putFloat(value);
+    }
+
+    /**
+     * Writes the specified long to the mapped file.
+     *
+     * @param value the long
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeLong(long value) throws IOException {
+        this.ensureRegion();
+
+        this.region.putLong(value);
+    }
+
+    /**
+     * Writes the specified double to the mapped file.
+     *
+     * @param value the double
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeDouble(double value) throws IOException {
+        this.ensureRegion();
+
+        this.region.putDouble(value);
+    }
+
+    /**
+     * Writes the specified bytes to the mapped file.
+     *
+     * @param bytes the bytes
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeBytes(byte[] bytes) throws IOException {
+        this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes length bytes from the byte array starting at offset to the mapped file, across the regions if needed.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs; if this writer has been closed
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            this.ensureRegion();
+
+            int size = Math.min(length, this.region.remaining());
+
+            this.region.put(bytes, offset, size);
+
+            offset += size;
+            length -= size;
+        }
+    }
+
+    /**
+     * Forces the written content to the storage device and removes the region padding past the written position, the content which was in the file before this writer was constructed is kept.
+     * Closes the file channel if this writer opened it, otherwise the channel is placed at the written position.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+
+        long position = this.getPosition();
+
+        this.closed = true;
+
+        this.region.force();
+        this.fileChannel.truncate(Math.max(this.initialSize, position));
+        this.fileChannel.force(false);
+
+        if (this.ownChannel) {
+            this.fileChannel.close();
+        } else {
+            this.fileChannel.position(position);
+        }
+    }
+}
@@ -128,4 +128,16 @@ public class OutputStreamWriter implements Writer{
     public void writeBytes(byte[] bytes) throws IOException {
         this.outputStream.write(bytes);
     }
+
+    /**
+     * Writes len bytes from the specified byte array starting at offset to this output stream.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        this.outputStream.write(bytes, offset, length);
+    }
 }
@@ -23,6 +23,8 @@
 package com.realtimetech.opack.codec.dense.writer;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public interface Writer {
     /**
@@ -88,4 +90,36 @@ public interface Writer {
      * @throws IOException if an I/O error occurs; if the output stream has been closed.
      */
     public void writeBytes(byte[] bytes) throws IOException;
+
+    /**
+     * Writes len bytes from the specified byte array starting at offset to this output stream, the writers override this to write from the array directly.
+     *
+     * @param bytes  the byte array to write
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to write
+     * @throws IOException               if an I/O error occurs; if the output stream has been closed.
+     * @throws IndexOutOfBoundsException if the range is out of the byte array
+     */
+    public default void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") is out of bounds for length " + bytes.length + ".");
+        }
+
+        if (offset == 0 && length == bytes.length) {
+            this.writeBytes(bytes);
+        } else {
+            this.writeBytes(Arrays.copyOfRange(bytes, offset, offset + length));
+        }
+    }
+
+    /**
+     * Writes the string encoded in UTF-8, the writers backed by a byte array encode the string directly without the intermediate byte array.
+     *
+     * @param string     the string to write
+     * @param utf8Length the number of bytes of the string encoded in UTF-8, see {@link com.realtimetech.opack.util.UTF8Util#getUTF8Length(String) getUTF8Length}
+     * @throws IOException if an I/O error occurs; if the output stream has been closed.
+     */
+    public default void writeUTF8(String string, int utf8Length) throws IOException {
+        this.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.util.StringWriter;
+import com.realtimetech.opack.util.UnsafeOpackValue;
+import com.realtimetech.opack.util.structure.FastStack;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+abstract class AbstractJsonDecoder {
+    private static final int CONST_STATE_VALUE = 0;
+    private static final int CONST_STATE_FIRST_VALUE = 1;
+    private static final int CONST_STATE_FIRST_KEY = 2;
+    private static final int CONST_STATE_COLON = 3;
+    private static final int CONST_STATE_NEXT = 4;
+    private static final int CONST_STATE_END = 5;
+
+    private static final Object CONST_NO_KEY = new Object();
+
+    private final FastStack<OpackValue> containerStack;
+    private final FastStack<Object> collectionStack;
+    private final FastStack<Object> keyStack;
+
+    protected final StringWriter stringWriter;
+    protected char[] numberBuffer;
+
+    protected final StringCache stringCache;
+
+    /**
+     * Constructs the AbstractJsonDecoder with the decode stacks.
+     *
+     * @param stackInitialSize the initial size of the decode stacks
+     * @param stringCache      the string cache to canonicalize the decoded strings, or null if not used
+     */
+    AbstractJsonDecoder(int stackInitialSize, StringCache stringCache) {
+        this.containerStack = new FastStack<>(stackInitialSize);
+        this.collectionStack = new FastStack<>(stackInitialSize);
+        this.keyStack = new FastStack<>(stackInitialSize);
+
+        this.stringWriter = new StringWriter();
+        this.numberBuffer = new char[32];
+
+        this.stringCache = stringCache;
+    }
+
+    /**
+     * Returns the next character, the multibyte characters only appear in the strings, so the bytes are returned as is for the byte inputs.
+     *
+     * @return the next character, or -1 if the input reaches the end
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract int next() throws IOException;
+
+    /**
+     * Returns the next character which is not a whitespace.
+     *
+     * @return the next character, or -1 if the input reaches the end
+     * @throws IOException if an I/O error occurs
+     */
+    protected abstract int nextToken() throws IOException;
+
+    /**
+     * Reads the string whose open quote is already read.
+     *
+     * @return the string
+     * @throws IOException if an I/O error occurs; if the string is not closed; if the string has an unknown escape
+     */
+    protected abstract String readString() throws IOException;
+
+    /**
+     * Reads the number whose first character is already read.
+     *
+     * @param first the first character of the number
+     * @return the number
+     * @throws IOException if an I/O error occurs; if the number is malformed
+     */
+    protected abstract Object readNumber(char first) throws IOException;
+
+    /**
+     * Returns the position of the next character in the input, for the error messages.
+     *
+     * @return the position of the next character
+     */
+    protected abstract long getPosition();
+
+    /**
+     * Releases the references to the values decoded by the last decoding, and drops the buffers which have grown over the max retained length of the json codec.
+     */
+    protected void reset() {
+        this.containerStack.reset(JsonCodec.CONST_MAX_RETAINED_LENGTH);
+        this.collectionStack.reset(JsonCodec.CONST_MAX_RETAINED_LENGTH);
+        this.keyStack.reset(JsonCodec.CONST_MAX_RETAINED_LENGTH);
+        this.stringWriter.reset(JsonCodec.CONST_MAX_RETAINED_LENGTH);
+
+        if (this.numberBuffer.length > JsonCodec.CONST_MAX_RETAINED_LENGTH) {
+            this.numberBuffer = new char[32];
+        }
+    }
+
+    /**
+     * Creates the exception of the unexpected character at the last read position.
+     *
+     * @param expected  the description of the expected token
+     * @param character the unexpected character, or -1 if the input reaches the end
+     * @return the created exception
+     */
+    protected IOException unexpected(String expected, int character) {
+        long position = this.getPosition() - 1;
+
+        if (character == -1) {
+            return new EOFException("Expected " + expected + ", but reached the end of json at " + (position + 1) + ".");
+        }
+
+        return new IOException("Expected " + expected + ", but got " + (char) character + " at " + position + ".");
+    }
+
+    /**
+     * Parses the json into the opack value.
+     *
+     * @return the decoded opack value
+     * @throws IOException if an I/O error occurs; if the json is malformed; if the root value is not an object or an array
+     */
+    protected OpackValue parse() throws IOException {
+        FastStack<OpackValue> containerStack = this.containerStack;
+        FastStack<Object> collectionStack = this.collectionStack;
+        FastStack<Object> keyStack = this.keyStack;
+
+        int state = CONST_STATE_VALUE;
+        OpackValue root = null;
+
+        while (true) {
+            int character = this.nextToken();
+            Object value;
+
+            if (state == CONST_STATE_END) {
+                if (character == -1) {
+                    return root;
+                }
+
+                throw this.unexpected("end of json", character);
+            } else if (state == CONST_STATE_COLON) {
+                if (character != ':') {
+                    throw this.unexpected("colon", character);
+                }
+
+                state = CONST_STATE_VALUE;
+                continue;
+            } else if (state == CONST_STATE_NEXT) {
+                if (character == ',') {
+                    state = CONST_STATE_VALUE;
+                    continue;
+                }
+
+                if (character != '}' && character != ']') {
+                    throw this.unexpected("comma or close", character);
+                }
+
+                value = this.close(character);
+            } else if ((state == CONST_STATE_FIRST_KEY && character == '}') || (state == CONST_STATE_FIRST_VALUE && character == ']')) {
+                value = this.close(character);
+            } else if (character == '{') {
+                OpackObject<Object, Object> opackObject = new OpackObject<>();
+
+                try {
+                    collectionStack.push(UnsafeOpackValue.getMap(opackObject));
+                } catch (InvocationTargetException | IllegalAccessException exception) {
+                    throw new IllegalStateException("Failed to access the underlying map of OpackObject.");
+                }
+
+                containerStack.push(opackObject);
+                keyStack.push(CONST_NO_KEY);
+
+                state = CONST_STATE_FIRST_KEY;
+                continue;
+            } else if (character == '[') {
+                OpackArray<Object> opackArray = new OpackArray<>();
+
+                try {
+                    collectionStack.push(UnsafeOpackValue.getList(opackArray));
+                } catch (InvocationTargetException | IllegalAccessException exception) {
+                    throw new IllegalStateException("Failed to access the underlying list of OpackArray.");
+                }
+
+                containerStack.push(opackArray);
+
+                state = CONST_STATE_FIRST_VALUE;
+                continue;
+            } else {
+                value = this.readLiteral(character);
+            }
+
+            if (containerStack.isEmpty()) {
+                if (!(value instanceof OpackValue)) {
+                    throw new IOException("Root value must be an object or an array, but got " + (value == null ? "null" : value.getClass().getSimpleName()) + ".");
+                }
+
+                root = (OpackValue) value;
+                state = CONST_STATE_END;
+            } else if (containerStack.peek() instanceof OpackObject) {
+                Object key = keyStack.pop();
+
+                if (key == CONST_NO_KEY) {
+                    keyStack.push(value);
+                    state = CONST_STATE_COLON;
+                } else {
+                    ((Map<Object, Object>) collectionStack.peek()).put(key, value);
+                    keyStack.push(CONST_NO_KEY);
+                    state = CONST_STATE_NEXT;
+                }
+            } else {
+                ((List<Object>) collectionStack.peek()).add(value);
+                state = CONST_STATE_NEXT;
+            }
+        }
+    }
+
+    /**
+     * Closes the current container by the close character.
+     *
+     * @param character the close character
+     * @return the closed container
+     * @throws IOException if the close character does not match the current container
+     */
+    private OpackValue close(int character) throws IOException {
+        OpackValue container = this.containerStack.peek();
+
+        if (character == '}' && container instanceof OpackObject) {
+            this.keyStack.pop();
+        } else if (character != ']' || !(container instanceof OpackArray)) {
+            throw this.unexpected(container instanceof OpackObject ? "close of object" : "close of array", character);
+        }
+
+        this.containerStack.pop();
+        this.collectionStack.pop();
+
+        return container;
+    }
+
+    /**
+     * Reads the literal value starting with the character.
+     *
+     * @param character the first character of the literal
+     * @return the literal value
+     * @throws IOException if an I/O error occurs; if the literal is malformed
+     */
+    private Object readLiteral(int character) throws IOException {
+        switch (character) {
+            case '\"':
+                return this.readString();
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                return this.readNumber((char) character);
+            case 't':
+                this.expect("true");
+                return true;
+            case 'f':
+                this.expect("false");
+                return false;
+            case 'n':
+                this.expect("null");
+                return null;
+            default:
+                throw this.unexpected("value", character);
+        }
+    }
+
+    /**
+     * Reads the rest of the keyword whose first character is already read.
+     *
+     * @param keyword the keyword
+     * @throws IOException if an I/O error occurs; if the characters do not match the keyword
+     */
+    private void expect(String keyword) throws IOException {
+        for (int index = 1; index < keyword.length(); index++) {
+            int character = this.next();
+
+            if (character != keyword.charAt(index)) {
+                throw this.unexpected(keyword, character);
+            }
+        }
+    }
+
+    /**
+     * Reads the escape sequence whose backslash is already read, and writes the escaped character to the string writer.
+     *
+     * @throws IOException if an I/O error occurs; if the escape is unknown
+     */
+    protected void readEscape() throws IOException {
+        int character = this.next();
+
+        switch (character) {
+            case '\"':
+            case '\\':
+            case '/':
+                this.stringWriter.write((char) character);
+                break;
+            case 'b':
+                this.stringWriter.write('\b');
+                break;
+            case 'f':
+                this.stringWriter.write('\f');
+                break;
+            case 'n':
+                this.stringWriter.write('\n');
+                break;
+            case 'r':
+                this.stringWriter.write('\r');
+                break;
+            case 't':
+                this.stringWriter.write('\t');
+                break;
+            case 'u':
+                char result = 0;
+
+                for (int index = 0; index < 4; index++) {
+                    int unicode = this.next();
+
+                    result <<= 4;
+
+                    if (unicode >= '0' && unicode <= '9') {
+                        result += (unicode - '0');
+                    } else if (unicode >= 'a' && unicode <= 'f') {
+                        result += (unicode - 'a' + 10);
+                    } else if (unicode >= 'A' && unicode <= 'F') {
+                        result += (unicode - 'A' + 10);
+                    } else {
+                        throw this.unexpected("hex digit of unicode escape", unicode);
+                    }
+                }
+
+                this.stringWriter.write(result);
+                break;
+            default:
+                throw this.unexpected("escape character", character);
+        }
+    }
+
+    /**
+     * Appends the character of the number to the number buffer.
+     *
+     * @param length    the number of characters in the number buffer
+     * @param character the character to append
+     * @return the number of characters in the number buffer after appending
+     */
+    protected int appendNumber(int length, char character) {
+        if (length == this.numberBuffer.length) {
+            this.numberBuffer = Arrays.copyOf(this.numberBuffer, length << 1);
+        }
+
+        this.numberBuffer[length] = character;
+
+        return length + 1;
+    }
+
+    /**
+     * Parses the number in the number buffer without creating the string, see {@link JsonNumberParser#parse(char[], int, int) parse}.
+     *
+     * @param length the number of characters in the number buffer
+     * @return the number
+     * @throws IOException if the number is malformed
+     */
+    protected Object parseNumber(int length) throws IOException {
+        try {
+            return JsonNumberParser.parse(this.numberBuffer, 0, length);
+        } catch (NumberFormatException exception) {
+            throw new IOException("Parsed malformed number " + new String(this.numberBuffer, 0, length) + " before " + this.getPosition() + ".", exception);
+        }
+    }
+}
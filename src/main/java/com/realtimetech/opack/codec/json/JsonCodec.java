@@ -23,7 +23,9 @@
 package com.realtimetech.opack.codec.json;
 
 import com.realtimetech.opack.codec.OpackCodec;
+import com.realtimetech.opack.exception.DecodeException;
 import com.realtimetech.opack.exception.EncodeException;
+import com.realtimetech.opack.util.StringCache;
 import com.realtimetech.opack.util.StringWriter;
 import com.realtimetech.opack.util.UnsafeOpackValue;
 import com.realtimetech.opack.util.structure.FastStack;
@@ -34,8 +36,12 @@ import com.realtimetech.opack.value.OpackValue;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -43,20 +49,30 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
     public final static class Builder {
         private int encodeStackInitialSize;
         private int encodeStringBufferSize;
+        private int encodeBufferSize;
         private int decodeStackInitialSize;
+        private int decodeBufferSize;
 
         private boolean allowOpackValueToKeyValue;
         private boolean enableConvertCharacterToString;
         private boolean usePrettyFormat;
+        private boolean useStructuralIndex;
+
+        private StringCache stringCache;
 
         public Builder() {
             this.allowOpackValueToKeyValue = false;
             this.enableConvertCharacterToString = false;
             this.usePrettyFormat = false;
+            this.useStructuralIndex = false;
 
             this.encodeStringBufferSize = 1024;
             this.encodeStackInitialSize = 128;
+            this.encodeBufferSize = 8192;
             this.decodeStackInitialSize = 128;
+            this.decodeBufferSize = 8192;
+
+            this.stringCache = null;
         }
 
         public Builder setEncodeStringBufferSize(int encodeStringBufferSize) {
@@ -69,11 +85,21 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
             return this;
         }
 
+        public Builder setEncodeBufferSize(int encodeBufferSize) {
+            this.encodeBufferSize = encodeBufferSize;
+            return this;
+        }
+
         public Builder setDecodeStackInitialSize(int decodeStackInitialSize) {
             this.decodeStackInitialSize = decodeStackInitialSize;
             return this;
         }
 
+        public Builder setDecodeBufferSize(int decodeBufferSize) {
+            this.decodeBufferSize = decodeBufferSize;
+            return this;
+        }
+
         public Builder setAllowOpackValueToKeyValue(boolean allowOpackValueToKeyValue) {
             this.allowOpackValueToKeyValue = allowOpackValueToKeyValue;
             return this;
@@ -89,8 +115,19 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
             return this;
         }
 
+        public Builder setUseStructuralIndex(boolean useStructuralIndex) {
+            this.useStructuralIndex = useStructuralIndex;
+            return this;
+        }
+
+        public Builder setStringCache(StringCache stringCache) {
+            this.stringCache = stringCache;
+            return this;
+        }
+
         /**
          * Create the {@link JsonCodec JsonCodec}.
+         * The codec keeps the scratch buffers for each thread using it, so the codec should be created once and shared rather than created for each call.
          *
          * @return created json codec
          */
@@ -99,6 +136,41 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
         }
     }
 
+    private static final class Context {
+        private final StringWriter encodeStringWriter;
+        private final FastStack<Object> encodeStack;
+        private final JsonFrameStack encodeFrameStack;
+        private final JsonNumberWriter encodeNumberWriter;
+
+        private JsonUTF8Writer utf8Writer;
+
+        private final FastStack<Integer> decodeBaseStack;
+        private final FastStack<Object> decodeValueStack;
+        private final StringWriter decodeStringWriter;
+
+        private JsonStreamDecoder streamDecoder;
+        private JsonUTF8Decoder utf8Decoder;
+        private JsonIndexDecoder indexDecoder;
+
+        /**
+         * Constructs the scratch state of a thread using the codec, so the threads can encode and decode through the codec at the same time.
+         *
+         * @param encodeStringBufferSize the initial size of the encode string buffers
+         * @param encodeStackInitialSize the initial size of the encode stack
+         * @param decodeStackInitialSize the initial size of the decode stacks
+         */
+        Context(int encodeStringBufferSize, int encodeStackInitialSize, int decodeStackInitialSize) {
+            this.encodeStringWriter = new StringWriter(encodeStringBufferSize);
+            this.encodeStack = new FastStack<>(encodeStackInitialSize);
+            this.encodeFrameStack = new JsonFrameStack(encodeStackInitialSize);
+            this.encodeNumberWriter = new JsonNumberWriter();
+
+            this.decodeBaseStack = new FastStack<>(decodeStackInitialSize);
+            this.decodeValueStack = new FastStack<>(decodeStackInitialSize);
+            this.decodeStringWriter = new StringWriter();
+        }
+    }
+
     private static final char[] CONST_U2028 = "\\u2028".toCharArray();
     private static final char[] CONST_U2029 = "\\u2029".toCharArray();
 
@@ -138,17 +210,24 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
         CONST_REPLACEMENT_CHARACTERS['\f'] = new char[]{'\\', 'f'};
     }
 
-    private final StringWriter encodeLiteralStringWriter;
-    private final StringWriter encodeStringWriter;
-    private final FastStack<Object> encodeStack;
+    /*
+        The scratch buffers of a thread which have grown over this length are dropped after each call, the smaller ones are kept for the next call
+     */
+    static final int CONST_MAX_RETAINED_LENGTH = 1 << 16;
+
+    private final ThreadLocal<Context> contexts;
 
-    private final FastStack<Integer> decodeBaseStack;
-    private final FastStack<Object> decodeValueStack;
-    private final StringWriter decodeStringWriter;
+    private final int encodeStringBufferSize;
+    private final int encodeBufferSize;
+    private final int decodeStackInitialSize;
+    private final int decodeBufferSize;
 
     private final boolean allowOpackValueToKeyValue;
     private final boolean enableConvertCharacterToString;
     private final boolean usePrettyFormat;
+    private final boolean useStructuralIndex;
+
+    private final StringCache stringCache;
 
     /**
      * Constructs the JsonCodec with the builder of JsonCodec.
@@ -158,29 +237,45 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
     private JsonCodec(Builder builder) {
         super();
 
-        this.encodeLiteralStringWriter = new StringWriter(builder.encodeStringBufferSize);
-        this.encodeStringWriter = new StringWriter(builder.encodeStringBufferSize);
-        this.encodeStack = new FastStack<>(builder.encodeStackInitialSize);
+        int encodeStringBufferSize = builder.encodeStringBufferSize;
+        int encodeStackInitialSize = builder.encodeStackInitialSize;
+        int decodeStackInitialSize = builder.decodeStackInitialSize;
+
+        this.contexts = ThreadLocal.withInitial(() -> new Context(encodeStringBufferSize, encodeStackInitialSize, decodeStackInitialSize));
+
+        if (builder.encodeBufferSize < 8) {
+            throw new IllegalArgumentException("Encode buffer size must be at least 8, but got " + builder.encodeBufferSize + ".");
+        }
+
+        if (builder.decodeBufferSize < 1) {
+            throw new IllegalArgumentException("Decode buffer size must be positive, but got " + builder.decodeBufferSize + ".");
+        }
+
+        this.encodeStringBufferSize = encodeStringBufferSize;
+        this.encodeBufferSize = builder.encodeBufferSize;
 
-        this.decodeBaseStack = new FastStack<>(builder.decodeStackInitialSize);
-        this.decodeValueStack = new FastStack<>(builder.decodeStackInitialSize);
-        this.decodeStringWriter = new StringWriter();
+        this.decodeStackInitialSize = decodeStackInitialSize;
+        this.decodeBufferSize = builder.decodeBufferSize;
 
         this.allowOpackValueToKeyValue = builder.allowOpackValueToKeyValue;
         this.enableConvertCharacterToString = builder.enableConvertCharacterToString;
         this.usePrettyFormat = builder.usePrettyFormat;
+        this.useStructuralIndex = builder.useStructuralIndex;
+
+        this.stringCache = builder.stringCache;
     }
 
     /**
      * Encodes the literal object.
      *
-     * @param writer the string writer for writing encoded object
-     * @param object the object to encode
-     * @return whether object is encoded
+     * @param writer       the string writer for writing encoded object
+     * @param numberWriter the number writer to write the numbers without creating the strings
+     * @param object       the object to encode
+     * @return whether object is encoded, false if the object is an object or an array
      * @throws IllegalArgumentException if the type of data to be encoded is not allowed in json format
      * @throws ArithmeticException      if the data to be encoded is infinite
      */
-    private boolean encodeLiteral(final Writer writer, Object object) throws IOException {
+    private boolean encodeLiteral(final Writer writer, JsonNumberWriter numberWriter, Object object) throws IOException {
         if (object == null) {
             writer.write(CONST_NULL_CHARACTER);
 
@@ -189,25 +284,24 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
 
         Class<?> objectType = object.getClass();
 
-        if (objectType == OpackObject.class) {
-            this.encodeStack.push(object);
-
-            return false;
-        } else if (objectType == OpackArray.class) {
-            this.encodeStack.push(object);
-
+        if (objectType == OpackObject.class || objectType == OpackArray.class) {
             return false;
         } else if (objectType == String.class) {
             String string = (String) object;
-            char[] charArray = string.toCharArray();
+
+            if (writer instanceof JsonUTF8Writer) {
+                ((JsonUTF8Writer) writer).writeString(string);
+
+                return true;
+            }
 
             writer.write(CONST_STRING_OPEN_CHARACTER);
 
             int last = 0;
-            int length = charArray.length;
+            int length = string.length();
 
             for (int index = 0; index < length; index++) {
-                char character = charArray[index];
+                char character = string.charAt(index);
                 char[] replacement = null;
 
                 if (character < CONST_REPLACEMENT_CHARACTERS.length) {
@@ -220,7 +314,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
 
                 if (replacement != null) {
                     if (last < index) {
-                        writer.write(charArray, last, index - last);
+                        writer.write(string, last, index - last);
                     }
 
                     writer.write(replacement);
@@ -229,7 +323,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
             }
 
             if (last < length) {
-                writer.write(charArray, last, length - last);
+                writer.write(string, last, length - last);
             }
 
             writer.write(CONST_STRING_CLOSE_CHARACTER);
@@ -256,27 +350,50 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
             if (numberType == Character.class) {
                 if (enableConvertCharacterToString) {
                     writer.write(CONST_STRING_OPEN_CHARACTER);
-                    writer.write(object.toString());
+                    writer.write((char) object);
                     writer.write(CONST_STRING_CLOSE_CHARACTER);
                 } else {
-                    writer.write(Integer.toString((char) object));
+                    numberWriter.writeLong(writer, (char) object);
                 }
             } else {
-                writer.write(object.toString());
+                this.encodeNumber(writer, numberWriter, object);
             }
 
             return true;
         }
     }
 
+    /**
+     * Encodes the number through the number writer, the other literals are encoded by toString.
+     *
+     * @param writer       the writer
+     * @param numberWriter the number writer to write the numbers without creating the strings
+     * @param object       the number or the other literal to encode
+     * @throws IOException if an I/O error occurs
+     */
+    private void encodeNumber(@NotNull Writer writer, @NotNull JsonNumberWriter numberWriter, @NotNull Object object) throws IOException {
+        Class<?> numberType = object.getClass();
+
+        if (numberType == Double.class) {
+            numberWriter.writeDouble(writer, (Double) object);
+        } else if (numberType == Float.class) {
+            numberWriter.writeFloat(writer, (Float) object);
+        } else if (numberType == Long.class || numberType == Integer.class || numberType == Short.class || numberType == Byte.class) {
+            numberWriter.writeLong(writer, ((Number) object).longValue());
+        } else {
+            writer.write(object.toString());
+        }
+    }
+
     /**
      * Encodes the {@link NativeList NativeList} to writer
      *
-     * @param writer     the writer
-     * @param nativeList the native list to encode
+     * @param writer       the writer
+     * @param numberWriter the number writer to write the numbers without creating the strings
+     * @param nativeList   the native list to encode
      * @throws IllegalArgumentException if the type of data to be encoded is not allowed in json format
      */
-    private boolean encodeNativeArray(@NotNull Writer writer, @NotNull NativeList nativeList) throws IOException {
+    private boolean encodeNativeArray(@NotNull Writer writer, @NotNull JsonNumberWriter numberWriter, @NotNull NativeList nativeList) throws IOException {
         Object arrayObject = nativeList.getArrayObject();
         Class<?> arrayType = arrayObject.getClass();
 
@@ -310,7 +427,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                     writer.write(CONST_SEPARATOR_CHARACTER);
                 }
 
-                writer.write(Byte.toString(array[index]));
+                numberWriter.writeLong(writer, array[index]);
             }
 
             writer.write(CONST_ARRAY_CLOSE_CHARACTER);
@@ -328,10 +445,10 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
 
                 if (enableConvertCharacterToString) {
                     writer.write(CONST_STRING_OPEN_CHARACTER);
-                    writer.write(Character.toString(array[index]));
+                    writer.write(array[index]);
                     writer.write(CONST_STRING_CLOSE_CHARACTER);
                 } else {
-                    writer.write(Integer.toString(array[index]));
+                    numberWriter.writeLong(writer, array[index]);
                 }
             }
 
@@ -348,7 +465,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                     writer.write(CONST_SEPARATOR_CHARACTER);
                 }
 
-                writer.write(Short.toString(array[index]));
+                numberWriter.writeLong(writer, array[index]);
             }
 
             writer.write(CONST_ARRAY_CLOSE_CHARACTER);
@@ -364,7 +481,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                     writer.write(CONST_SEPARATOR_CHARACTER);
                 }
 
-                writer.write(Integer.toString(array[index]));
+                numberWriter.writeLong(writer, array[index]);
             }
 
             writer.write(CONST_ARRAY_CLOSE_CHARACTER);
@@ -380,7 +497,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                     writer.write(CONST_SEPARATOR_CHARACTER);
                 }
 
-                writer.write(Float.toString(array[index]));
+                numberWriter.writeFloat(writer, array[index]);
             }
 
             writer.write(CONST_ARRAY_CLOSE_CHARACTER);
@@ -396,7 +513,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                     writer.write(CONST_SEPARATOR_CHARACTER);
                 }
 
-                writer.write(Long.toString(array[index]));
+                numberWriter.writeLong(writer, array[index]);
             }
 
             writer.write(CONST_ARRAY_CLOSE_CHARACTER);
@@ -412,7 +529,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                     writer.write(CONST_SEPARATOR_CHARACTER);
                 }
 
-                writer.write(Double.toString(array[index]));
+                numberWriter.writeDouble(writer, array[index]);
             }
 
             writer.write(CONST_ARRAY_CLOSE_CHARACTER);
@@ -455,10 +572,10 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                 } else {
                     if (enableConvertCharacterToString) {
                         writer.write(CONST_STRING_OPEN_CHARACTER);
-                        writer.write(Character.toString(array[index]));
+                        writer.write(array[index]);
                         writer.write(CONST_STRING_CLOSE_CHARACTER);
                     } else {
-                        writer.write(Integer.toString(array[index]));
+                        numberWriter.writeLong(writer, array[index]);
                     }
                 }
             }
@@ -484,7 +601,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                 if (array[index] == null) {
                     writer.write(CONST_NULL_CHARACTER);
                 } else {
-                    writer.write(array[index].toString());
+                    this.encodeNumber(writer, numberWriter, array[index]);
                 }
             }
 
@@ -496,194 +613,415 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
         return false;
     }
 
+    /**
+     * Writes the indent of the pretty format.
+     *
+     * @param writer the writer
+     * @param indent the depth of the indent
+     * @throws IOException if an I/O error occurs
+     */
+    private void encodeIndent(@NotNull Writer writer, int indent) throws IOException {
+        for (int i = 0; i < indent; i++) {
+            writer.write(CONST_PRETTY_INDENT_CHARACTER);
+        }
+    }
+
+    /**
+     * Encodes the value, the literal is written directly and the container is opened by pushing its items and its frame.
+     * The items of the object are pushed as the pairs of the value and the key, so that the entries are written in the reverse order of the iteration.
+     *
+     * @param writer       the writer
+     * @param encodeStack  the encode stack to push the items of the container
+     * @param frameStack   the frame stack to push the frame of the container
+     * @param numberWriter the number writer to write the numbers without creating the strings
+     * @param value        the value to encode
+     * @param indent       the indent of the value if the value is an object, or -1 if the value is written on one line
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in json format
+     */
+    private void encodeValue(@NotNull Writer writer, @NotNull FastStack<Object> encodeStack, @NotNull JsonFrameStack frameStack, @NotNull JsonNumberWriter numberWriter, Object value, int indent) throws IOException {
+        if (this.encodeLiteral(writer, numberWriter, value)) {
+            return;
+        }
+
+        if (value.getClass() == OpackObject.class) {
+            OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) value;
+            Map<Object, Object> opackObjectMap = null;
+
+            try {
+                opackObjectMap = UnsafeOpackValue.getMap(opackObject);
+            } catch (InvocationTargetException | IllegalAccessException exception) {
+                throw new IOException("Can't access opack object map.", exception);
+            }
+
+            writer.write(CONST_OBJECT_OPEN_CHARACTER);
+
+            if (this.usePrettyFormat && indent != -1) {
+                writer.write(CONST_PRETTY_LINE_CHARACTER);
+            }
+
+            for (Map.Entry<Object, Object> entry : opackObjectMap.entrySet()) {
+                Object key = entry.getKey();
+
+                if (!this.allowOpackValueToKeyValue && key instanceof OpackValue) {
+                    throw new IllegalArgumentException("Object type keys are not allowed in json format.");
+                }
+
+                encodeStack.push(entry.getValue());
+                encodeStack.push(key);
+            }
+
+            frameStack.push(true, opackObjectMap.size() << 1, indent);
+        } else {
+            OpackArray<Object> opackArray = (OpackArray<Object>) value;
+            List<Object> opackArrayList = null;
+
+            try {
+                opackArrayList = UnsafeOpackValue.getList(opackArray);
+            } catch (InvocationTargetException | IllegalAccessException exception) {
+                throw new IOException("Can't access opack array list.", exception);
+            }
+
+            if (opackArrayList instanceof NativeList && this.encodeNativeArray(writer, numberWriter, (NativeList) opackArrayList)) {
+                return;
+            }
+
+            writer.write(CONST_ARRAY_OPEN_CHARACTER);
+
+            int reverseStart = encodeStack.getSize();
+
+            for (Object element : opackArrayList) {
+                encodeStack.push(element);
+            }
+
+            encodeStack.reverse(reverseStart, encodeStack.getSize() - 1);
+            frameStack.push(false, encodeStack.getSize() - reverseStart, -1);
+        }
+    }
+
     /**
      * Encodes the {@link OpackValue OpackValue} to json string.
+     * The containers are walked through the frame stack, and every token is written to the writer in order.
      *
      * @param opackValue the opack value to encode
      * @throws IllegalArgumentException if the type of data to be encoded is not allowed in json format
      */
     @Override
     protected void doEncode(Writer writer, OpackValue opackValue) throws IOException {
-        this.encodeLiteralStringWriter.reset();
-        this.encodeStack.reset();
+        Context context = this.contexts.get();
 
-        FastStack<Integer> prettyIndentStack = null;
-
-        if (this.usePrettyFormat) {
-            prettyIndentStack = new FastStack<>();
-            prettyIndentStack.push(0);
+        try {
+            this.encodeFrames(writer, context, opackValue);
+        } finally {
+            context.encodeStack.reset(CONST_MAX_RETAINED_LENGTH);
+            context.encodeFrameStack.reset(CONST_MAX_RETAINED_LENGTH);
         }
+    }
 
-        this.encodeStack.push(opackValue);
+    /**
+     * Encodes the {@link OpackValue OpackValue} to json string through the scratch state of the thread.
+     *
+     * @param writer     the writer to write the json
+     * @param context    the scratch state of the thread
+     * @param opackValue the opack value to encode
+     * @throws IOException              if an I/O error occurs when writing the json
+     * @throws IllegalArgumentException if the type of data to be encoded is not allowed in json format
+     */
+    private void encodeFrames(Writer writer, Context context, OpackValue opackValue) throws IOException {
+        FastStack<Object> encodeStack = context.encodeStack;
+        JsonFrameStack encodeFrameStack = context.encodeFrameStack;
+        JsonNumberWriter encodeNumberWriter = context.encodeNumberWriter;
 
-        while (!this.encodeStack.isEmpty()) {
-            Object object = this.encodeStack.pop();
-            Class<?> objectType = object == null ? null : object.getClass();
+        encodeStack.reset();
+        encodeFrameStack.reset();
 
-            if (objectType == char[].class) {
-                writer.write((char[]) object);
-            } else if (objectType == OpackObject.class) {
-                OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) object;
-                Map<Object, Object> opackObjectMap = null;
+        this.encodeValue(writer, encodeStack, encodeFrameStack, encodeNumberWriter, opackValue, this.usePrettyFormat ? 0 : -1);
 
-                try {
-                    opackObjectMap = UnsafeOpackValue.getMap(opackObject);
-                } catch (InvocationTargetException | IllegalAccessException exception) {
-                    throw new IOException("Can't access opack object map.", exception);
-                }
+        while (!encodeFrameStack.isEmpty()) {
+            boolean object = encodeFrameStack.isObject();
+            int indent = encodeFrameStack.getIndent();
 
-                int currentIndent = -1;
+            if (!encodeFrameStack.hasNext()) {
+                if (object) {
+                    if (this.usePrettyFormat && indent != -1) {
+                        writer.write(CONST_PRETTY_LINE_CHARACTER);
+                        this.encodeIndent(writer, indent);
+                    }
 
-                if (this.usePrettyFormat) {
-                    currentIndent = prettyIndentStack.pop();
+                    writer.write(CONST_OBJECT_CLOSE_CHARACTER);
+                } else {
+                    writer.write(CONST_ARRAY_CLOSE_CHARACTER);
                 }
 
-                writer.write(CONST_OBJECT_OPEN_CHARACTER);
-                this.encodeStack.push(CONST_OBJECT_CLOSE_CHARACTER);
+                encodeFrameStack.pop();
+                continue;
+            }
 
-                if (this.usePrettyFormat && currentIndent != -1) {
-                    writer.write(CONST_PRETTY_LINE_CHARACTER);
-                    for (int i = 0; i < currentIndent; i++) {
-                        this.encodeStack.push(CONST_PRETTY_INDENT_CHARACTER);
-                    }
-                    this.encodeStack.push(CONST_PRETTY_LINE_CHARACTER);
-                }
+            int position = encodeFrameStack.next();
+            int valueIndent = -1;
 
-                int index = 0;
-                for (Map.Entry<Object, Object> entry : opackObjectMap.entrySet()) {
-                    Object key = entry.getKey();
-                    Object value = entry.getValue();
+            if (object) {
+                if ((position & 1) == 0) {
+                    if (position != 0) {
+                        writer.write(CONST_SEPARATOR_CHARACTER);
 
-                    if (index != 0) {
                         if (this.usePrettyFormat) {
-                            if (currentIndent != -1) {
-                                this.encodeStack.push(CONST_PRETTY_LINE_CHARACTER);
-                            } else {
-                                this.encodeStack.push(CONST_PRETTY_SPACE_CHARACTER);
-                            }
+                            writer.write(indent != -1 ? CONST_PRETTY_LINE_CHARACTER : CONST_PRETTY_SPACE_CHARACTER);
                         }
-
-                        this.encodeStack.push(CONST_SEPARATOR_CHARACTER);
                     }
 
-                    if (!this.allowOpackValueToKeyValue && key instanceof OpackValue) {
-                        throw new IllegalArgumentException("Object type keys are not allowed in json format.");
+                    if (this.usePrettyFormat && indent != -1) {
+                        this.encodeIndent(writer, indent + 1);
                     }
+                } else {
+                    writer.write(CONST_OBJECT_MAP_CHARACTER);
 
                     if (this.usePrettyFormat) {
-                        if (value instanceof OpackObject) {
-                            prettyIndentStack.push(currentIndent == -1 ? -1 : currentIndent + 1);
-                        }
-
-                        if (key instanceof OpackObject) {
-                            prettyIndentStack.push(currentIndent == -1 ? -1 : currentIndent + 1);
-                        }
+                        writer.write(CONST_PRETTY_SPACE_CHARACTER);
                     }
+                }
 
-                    this.encodeStack.push(value);
+                if (indent != -1) {
+                    valueIndent = indent + 1;
+                }
+            } else if (position != 0) {
+                writer.write(CONST_SEPARATOR_CHARACTER);
 
-                    if (this.usePrettyFormat) {
-                        this.encodeStack.push(CONST_PRETTY_SPACE_CHARACTER);
-                    }
+                if (this.usePrettyFormat) {
+                    writer.write(CONST_PRETTY_SPACE_CHARACTER);
+                }
+            }
 
-                    this.encodeStack.push(CONST_OBJECT_MAP_CHARACTER);
-                    this.encodeStack.push(key);
+            this.encodeValue(writer, encodeStack, encodeFrameStack, encodeNumberWriter, encodeStack.pop(), valueIndent);
+        }
+    }
 
-                    if (this.usePrettyFormat && currentIndent != -1) {
-                        for (int i = 0; i < currentIndent + 1; i++) {
-                            this.encodeStack.push(CONST_PRETTY_INDENT_CHARACTER);
-                        }
-                    }
+    /**
+     * Encodes the OpackValue to json string.
+     *
+     * @param opackValue the opack value to encode
+     * @return returns encoded string
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec
+     */
+    public String encode(OpackValue opackValue) throws EncodeException {
+        StringWriter encodeStringWriter = this.contexts.get().encodeStringWriter;
 
-                    index++;
-                }
-            } else if (objectType == OpackArray.class) {
-                OpackArray<Object> opackArray = (OpackArray<Object>) object;
-                int size = opackArray.length();
-                List<Object> opackArrayList = null;
-
-                try {
-                    opackArrayList = UnsafeOpackValue.getList(opackArray);
-                } catch (InvocationTargetException | IllegalAccessException exception) {
-                    throw new IOException("Can't access opack array list.", exception);
-                }
+        encodeStringWriter.reset();
 
-                this.encodeLiteralStringWriter.reset();
+        try {
+            this.encode(encodeStringWriter, opackValue);
+            return encodeStringWriter.toString();
+        } finally {
+            encodeStringWriter.reset(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
 
-                boolean optimized = false;
+    /**
+     * Returns the UTF-8 writer of the current thread.
+     *
+     * @return the UTF-8 writer
+     */
+    private JsonUTF8Writer getUTF8Writer() {
+        Context context = this.contexts.get();
 
-                if (opackArrayList instanceof NativeList) {
-                    NativeList nativeList = (NativeList) opackArrayList;
+        if (context.utf8Writer == null) {
+            context.utf8Writer = new JsonUTF8Writer(this.encodeStringBufferSize, this.encodeBufferSize);
+        }
 
-                    optimized = encodeNativeArray(writer, nativeList);
-                }
+        return context.utf8Writer;
+    }
 
-                if (!optimized) {
-                    writer.write(CONST_ARRAY_OPEN_CHARACTER);
+    /**
+     * Finishes the encoding through the UTF-8 writer, and detaches the output from the writer even if the encoding failed.
+     *
+     * @param utf8Writer the UTF-8 writer
+     * @param opackValue the opack value to encode
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec; if the byte buffer has no room for the json
+     */
+    private void encodeUTF8(@NotNull JsonUTF8Writer utf8Writer, OpackValue opackValue) throws EncodeException {
+        try {
+            this.doEncode(utf8Writer, opackValue);
+            utf8Writer.finish();
+        } catch (Exception exception) {
+            utf8Writer.reset();
+            throw new EncodeException(exception);
+        }
+    }
 
-                    int reverseStart = this.encodeStack.getSize();
-                    int index = 0;
+    /**
+     * Encodes the OpackValue to json encoded in UTF-8, the strings are escaped and encoded in UTF-8 at once without creating the json string.
+     *
+     * @param opackValue the opack value to encode
+     * @return the byte array containing the json encoded in UTF-8
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec
+     */
+    public byte[] encodeToBytes(OpackValue opackValue) throws EncodeException {
+        JsonUTF8Writer utf8Writer = this.getUTF8Writer();
 
-                    for (Object value : opackArrayList) {
-                        if (!this.encodeLiteral(this.encodeLiteralStringWriter, value)) {
-                            if (this.usePrettyFormat) {
-                                if (value instanceof OpackObject) {
-                                    prettyIndentStack.push(-1);
-                                }
-                            }
+        utf8Writer.reset();
 
-                            if (this.encodeLiteralStringWriter.getLength() > 0) {
-                                this.encodeStack.push(this.encodeLiteralStringWriter.toCharArray());
-                                this.encodeStack.swap(this.encodeStack.getSize() - 1, this.encodeStack.getSize() - 2);
-                            }
+        try {
+            this.encodeUTF8(utf8Writer, opackValue);
+            return utf8Writer.toByteArray();
+        } finally {
+            utf8Writer.trim(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
 
-                            if (index != size - 1) {
-                                this.encodeStack.push(CONST_SEPARATOR_CHARACTER);
+    /**
+     * Encodes the OpackValue to json encoded in UTF-8 written to the output stream through the fixed size buffer, so the whole json is not held in memory.
+     * The buffer is written to the output stream whenever it is full, and the output stream is neither flushed nor closed.
+     *
+     * @param outputStream the output stream to write the json encoded in UTF-8
+     * @param opackValue   the opack value to encode
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec
+     */
+    public void encode(@NotNull OutputStream outputStream, OpackValue opackValue) throws EncodeException {
+        JsonUTF8Writer utf8Writer = this.getUTF8Writer();
 
-                                if (this.usePrettyFormat) {
-                                    this.encodeStack.push(CONST_PRETTY_SPACE_CHARACTER);
-                                }
-                            }
+        utf8Writer.reset(outputStream);
 
-                            this.encodeLiteralStringWriter.reset();
-                        } else {
-                            if (index != size - 1) {
-                                this.encodeLiteralStringWriter.write(CONST_SEPARATOR_CHARACTER);
+        try {
+            this.encodeUTF8(utf8Writer, opackValue);
+        } finally {
+            utf8Writer.trim(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
 
-                                if (this.usePrettyFormat) {
-                                    this.encodeLiteralStringWriter.write(CONST_PRETTY_SPACE_CHARACTER);
-                                }
-                            }
-                        }
+    /**
+     * Encodes the OpackValue to json encoded in UTF-8 written from the position of the byte buffer, and advances the position past the json.
+     * The heap byte buffer is written in place, and the direct byte buffer is written through the fixed size buffer.
+     *
+     * @param byteBuffer the byte buffer to write the json encoded in UTF-8
+     * @param opackValue the opack value to encode
+     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec; if the byte buffer is read only; if the byte buffer has no room for the json
+     */
+    public void encode(@NotNull ByteBuffer byteBuffer, OpackValue opackValue) throws EncodeException {
+        JsonUTF8Writer utf8Writer = this.getUTF8Writer();
 
-                        index++;
-                    }
+        try {
+            utf8Writer.reset(byteBuffer);
+        } catch (IllegalArgumentException exception) {
+            throw new EncodeException(exception);
+        }
 
-                    if (this.encodeLiteralStringWriter.getLength() > 0) {
-                        this.encodeStack.push(this.encodeLiteralStringWriter.toCharArray());
-                        this.encodeLiteralStringWriter.reset();
-                    }
+        try {
+            this.encodeUTF8(utf8Writer, opackValue);
+        } finally {
+            utf8Writer.trim(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
+
+    /**
+     * Decodes the json read from the reader through the fixed size buffer, so the whole json is not loaded in memory as a string.
+     * The reader is read until the end, and is not closed.
+     *
+     * @param reader the reader to read the json
+     * @return decoded value
+     * @throws DecodeException if a problem occurs during decoding; if the json is malformed; if the root value is not an object or an array
+     */
+    public OpackValue decode(Reader reader) throws DecodeException {
+        Context context = this.contexts.get();
 
-                    this.encodeStack.push(CONST_ARRAY_CLOSE_CHARACTER);
-                    this.encodeStack.reverse(reverseStart, this.encodeStack.getSize() - 1);
+        if (context.streamDecoder == null) {
+            context.streamDecoder = new JsonStreamDecoder(this.decodeBufferSize, this.decodeStackInitialSize, this.stringCache);
+        }
+
+        try {
+            return context.streamDecoder.decode(reader);
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
+        }
+    }
+
+    /**
+     * Returns the UTF-8 decoder of the current thread.
+     *
+     * @return the UTF-8 decoder
+     */
+    private JsonUTF8Decoder getUTF8Decoder() {
+        Context context = this.contexts.get();
+
+        if (context.utf8Decoder == null) {
+            context.utf8Decoder = new JsonUTF8Decoder(this.decodeBufferSize, this.decodeStackInitialSize, this.stringCache);
+        }
+
+        return context.utf8Decoder;
+    }
+
+    /**
+     * Decodes the json encoded in UTF-8 read from the input stream through the fixed size buffer, the bytes are parsed without transcoding them to characters.
+     * The input stream is read until the end, and is not closed.
+     *
+     * @param inputStream the input stream to read the json encoded in UTF-8
+     * @return decoded value
+     * @throws DecodeException if a problem occurs during decoding; if the json is malformed; if the root value is not an object or an array
+     */
+    public OpackValue decode(InputStream inputStream) throws DecodeException {
+        try {
+            return this.getUTF8Decoder().decode(inputStream);
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
+        }
+    }
+
+    /**
+     * Calls {@code decode(bytes, 0, bytes.length)}
+     *
+     * @param bytes the byte array containing the json encoded in UTF-8
+     * @return decoded value
+     * @throws DecodeException if a problem occurs during decoding; if the json is malformed; if the root value is not an object or an array
+     */
+    public OpackValue decode(byte @NotNull [] bytes) throws DecodeException {
+        return this.decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decodes the json encoded in UTF-8 in the byte array, the structure is scanned on the bytes and only the string literals are decoded from UTF-8.
+     * If the structural index is used, the structure is indexed by 64-byte blocks first, and the opack value is built from the index.
+     *
+     * @param bytes  the byte array containing the json encoded in UTF-8
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes of the json
+     * @return decoded value
+     * @throws DecodeException if a problem occurs during decoding; if the range is out of the byte array; if the json is malformed; if the root value is not an object or an array
+     */
+    public OpackValue decode(byte @NotNull [] bytes, int offset, int length) throws DecodeException {
+        try {
+            if (this.useStructuralIndex) {
+                Context context = this.contexts.get();
+
+                if (context.indexDecoder == null) {
+                    context.indexDecoder = new JsonIndexDecoder(this.decodeStackInitialSize, this.stringCache);
                 }
-            } else {
-                this.encodeLiteral(writer, object);
+
+                return context.indexDecoder.decode(bytes, offset, length);
             }
+
+            return this.getUTF8Decoder().decode(bytes, offset, length);
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
         }
     }
 
     /**
-     * Encodes the OpackValue to json string.
+     * Decodes the json encoded in UTF-8 between the position and the limit of the byte buffer, the position of the byte buffer is not changed.
+     * The heap byte buffer is parsed in place, and the direct byte buffer is copied through the fixed size buffer.
      *
-     * @param opackValue the opack value to encode
-     * @return returns encoded string
-     * @throws EncodeException if a problem occurs during encoding; if the type of data to be encoded is not allowed in specific codec
+     * @param byteBuffer the byte buffer containing the json encoded in UTF-8
+     * @return decoded value
+     * @throws DecodeException if a problem occurs during decoding; if the json is malformed; if the root value is not an object or an array
      */
-    public synchronized String encode(OpackValue opackValue) throws EncodeException {
-        this.encodeStringWriter.reset();
-        this.encode(this.encodeStringWriter, opackValue);
-        return this.encodeStringWriter.toString();
+    public OpackValue decode(@NotNull ByteBuffer byteBuffer) throws DecodeException {
+        if (byteBuffer.hasArray()) {
+            return this.decode(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        }
+
+        try {
+            return this.getUTF8Decoder().decode(byteBuffer);
+        } catch (IOException | RuntimeException exception) {
+            throw new DecodeException(exception);
+        }
     }
 
     /**
@@ -695,9 +1033,33 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
      */
     @Override
     protected OpackValue doDecode(String data) throws IOException {
-        this.decodeBaseStack.reset();
-        this.decodeValueStack.reset();
-        this.decodeStringWriter.reset();
+        Context context = this.contexts.get();
+
+        try {
+            return this.decodeString(data, context);
+        } finally {
+            context.decodeBaseStack.reset(CONST_MAX_RETAINED_LENGTH);
+            context.decodeValueStack.reset(CONST_MAX_RETAINED_LENGTH);
+            context.decodeStringWriter.reset(CONST_MAX_RETAINED_LENGTH);
+        }
+    }
+
+    /**
+     * Decodes the json string to {@link OpackValue OpackValue} through the scratch state of the thread.
+     *
+     * @param data    the json string to decode
+     * @param context the scratch state of the thread
+     * @return OpackValue
+     * @throws IOException if there is a syntax problem with the json string; if the json string has a unicode whose unknown pattern
+     */
+    private OpackValue decodeString(String data, Context context) throws IOException {
+        FastStack<Integer> decodeBaseStack = context.decodeBaseStack;
+        FastStack<Object> decodeValueStack = context.decodeValueStack;
+        StringWriter decodeStringWriter = context.decodeStringWriter;
+
+        decodeBaseStack.reset();
+        decodeValueStack.reset();
+        decodeStringWriter.reset();
 
         int pointer = 0;
 
@@ -717,22 +1079,22 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                     Syntax Parse
                  */
                 case '{':
-                    currentContextIndex = this.decodeBaseStack.push(this.decodeValueStack.getSize());
-                    currentContext = (OpackValue) this.decodeValueStack.push(new OpackObject<>());
+                    currentContextIndex = decodeBaseStack.push(decodeValueStack.getSize());
+                    currentContext = (OpackValue) decodeValueStack.push(new OpackObject<>());
                     currentContextType = currentContext.getClass();
                     literalMode = true;
 
                     break;
                 case '[':
-                    currentContextIndex = this.decodeBaseStack.push(this.decodeValueStack.getSize());
-                    currentContext = (OpackValue) this.decodeValueStack.push(new OpackArray<>());
+                    currentContextIndex = decodeBaseStack.push(decodeValueStack.getSize());
+                    currentContext = (OpackValue) decodeValueStack.push(new OpackArray<>());
                     currentContextType = currentContext.getClass();
                     literalMode = true;
 
                     break;
                 case '}':
                 case ']':
-                    int valueSize = this.decodeValueStack.getSize() - currentContextIndex - 1;
+                    int valueSize = decodeValueStack.getSize() - currentContextIndex - 1;
 
                     if (currentContextType == OpackObject.class) {
                         OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) currentContext;
@@ -743,22 +1105,22 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                             opackObjectMap = UnsafeOpackValue.getMap(opackObject);
 
                             for (int i = 0; i < valueSize; i += 2) {
-                                Object value = this.decodeValueStack.pop();
-                                Object key = this.decodeValueStack.pop();
+                                Object value = decodeValueStack.pop();
+                                Object key = decodeValueStack.pop();
 
                                 opackObjectMap.put(key, value);
                             }
                         } catch (InvocationTargetException | IllegalAccessException exception) {
                             for (int i = 0; i < valueSize; i += 2) {
-                                Object value = this.decodeValueStack.pop();
-                                Object key = this.decodeValueStack.pop();
+                                Object value = decodeValueStack.pop();
+                                Object key = decodeValueStack.pop();
 
                                 opackObject.put(key, value);
                             }
                         }
                     } else if (currentContextType == OpackArray.class) {
                         OpackArray<Object> opackArray = (OpackArray<Object>) currentContext;
-                        int currentSize = this.decodeValueStack.getSize();
+                        int currentSize = decodeValueStack.getSize();
 
                         List<Object> opackArrayList = null;
 
@@ -766,24 +1128,24 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                             opackArrayList = UnsafeOpackValue.getList(opackArray);
 
                             for (int i = currentSize - valueSize; i < currentSize; i++) {
-                                opackArrayList.add(this.decodeValueStack.get(i));
+                                opackArrayList.add(decodeValueStack.get(i));
                             }
                         } catch (InvocationTargetException | IllegalAccessException exception) {
                             for (int i = currentSize - valueSize; i < currentSize; i++) {
-                                opackArray.add(this.decodeValueStack.get(i));
+                                opackArray.add(decodeValueStack.get(i));
                             }
                         }
 
-                        this.decodeValueStack.remove(valueSize);
+                        decodeValueStack.remove(valueSize);
                     } else {
                         throw new IOException("Caught corrupted stack, got " + (currentContextType == null ? "null" : currentContextType.getSimpleName()) + ".");
                     }
 
-                    this.decodeBaseStack.pop();
+                    decodeBaseStack.pop();
 
-                    if (!this.decodeBaseStack.isEmpty()) {
-                        currentContextIndex = this.decodeBaseStack.peek();
-                        currentContext = (OpackValue) this.decodeValueStack.get(currentContextIndex);
+                    if (!decodeBaseStack.isEmpty()) {
+                        currentContextIndex = decodeBaseStack.peek();
+                        currentContext = (OpackValue) decodeValueStack.get(currentContextIndex);
                         currentContextType = currentContext.getClass();
                     }
 
@@ -824,24 +1186,33 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                                     char literalChar = charArray[pointer++];
 
                                     if (literalChar == '\"') {
-                                        this.decodeStringWriter.write(charArray, startAnchor, pointer - startAnchor - 1);
+                                        if (this.stringCache != null && decodeStringWriter.getLength() == 0) {
+                                            decodeValueStack.push(this.stringCache.get(charArray, startAnchor, pointer - startAnchor - 1));
+                                            break STRING_LOOP;
+                                        }
+
+                                        decodeStringWriter.write(charArray, startAnchor, pointer - startAnchor - 1);
 
-                                        this.decodeValueStack.push(this.decodeStringWriter.toString());
-                                        this.decodeStringWriter.reset();
+                                        decodeValueStack.push(decodeStringWriter.toString());
+                                        decodeStringWriter.reset();
 
                                         break STRING_LOOP;
                                     } else if (literalChar == '\\') {
-                                        this.decodeStringWriter.write(charArray, startAnchor, pointer - startAnchor - 1);
+                                        decodeStringWriter.write(charArray, startAnchor, pointer - startAnchor - 1);
 
                                         char nextChar = charArray[pointer++];
 
                                         switch (nextChar) {
                                             case '"':
-                                                this.decodeStringWriter.write('\"');
+                                                decodeStringWriter.write('\"');
 
                                                 break;
                                             case '\\':
-                                                this.decodeStringWriter.write('\\');
+                                                decodeStringWriter.write('\\');
+
+                                                break;
+                                            case '/':
+                                                decodeStringWriter.write('/');
 
                                                 break;
                                             case 'u':
@@ -863,27 +1234,27 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                                                     }
                                                 }
 
-                                                this.decodeStringWriter.write(result);
+                                                decodeStringWriter.write(result);
 
                                                 break;
                                             case 'b':
-                                                this.decodeStringWriter.write('\b');
+                                                decodeStringWriter.write('\b');
 
                                                 break;
                                             case 'f':
-                                                this.decodeStringWriter.write('\f');
+                                                decodeStringWriter.write('\f');
 
                                                 break;
                                             case 'n':
-                                                this.decodeStringWriter.write('\n');
+                                                decodeStringWriter.write('\n');
 
                                                 break;
                                             case 'r':
-                                                this.decodeStringWriter.write('\r');
+                                                decodeStringWriter.write('\r');
 
                                                 break;
                                             case 't':
-                                                this.decodeStringWriter.write('\t');
+                                                decodeStringWriter.write('\t');
 
                                                 break;
                                         }
@@ -906,16 +1277,11 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                             case '-':
                                 pointer--;
 
-                                boolean decimal = false;
-
                                 NUMBER_LOOP:
                                 while (pointer < length) {
                                     char literalChar = charArray[pointer++];
 
                                     switch (literalChar) {
-                                        case '.':
-                                            decimal = true;
-                                            break;
                                         case '0':
                                         case '1':
                                         case '2':
@@ -926,6 +1292,7 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                                         case '7':
                                         case '8':
                                         case '9':
+                                        case '.':
                                         case 'E':
                                         case 'e':
                                         case '+':
@@ -936,29 +1303,23 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
                                     }
                                 }
 
-                                String numberString = new String(charArray, startAnchor - 1, pointer - startAnchor);
-
-                                if (decimal) {
-                                    this.decodeValueStack.push(Double.parseDouble(numberString));
-                                } else {
-                                    this.decodeValueStack.push(Long.parseLong(numberString));
-                                }
+                                decodeValueStack.push(JsonNumberParser.parse(charArray, startAnchor - 1, pointer - startAnchor));
 
                                 pointer--;
 
                                 break;
                             case 't':
-                                this.decodeValueStack.push(true);
+                                decodeValueStack.push(true);
                                 pointer = pointer + 3;
 
                                 break;
                             case 'f':
-                                this.decodeValueStack.push(false);
+                                decodeValueStack.push(false);
                                 pointer = pointer + 4;
 
                                 break;
                             case 'n':
-                                this.decodeValueStack.push(null);
+                                decodeValueStack.push(null);
                                 pointer = pointer + 3;
 
                                 break;
@@ -973,6 +1334,6 @@ public final class JsonCodec extends OpackCodec<String, Writer> {
             }
         }
 
-        return (OpackValue) this.decodeValueStack.get(0);
+        return (OpackValue) decodeValueStack.get(0);
     }
 }
\ No newline at end of file
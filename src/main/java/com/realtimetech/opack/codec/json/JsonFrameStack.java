@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import java.util.EmptyStackException;
+
+final class JsonFrameStack {
+    private boolean[] objects;
+    private int[] sizes;
+    private int[] positions;
+    private int[] indents;
+
+    private int currentIndex;
+
+    private final int initialSize;
+
+    /**
+     * Constructs a JsonFrameStack with initial size.
+     *
+     * @param initialSize the initial size
+     */
+    JsonFrameStack(int initialSize) {
+        int size = Math.max(initialSize, 2);
+
+        this.objects = new boolean[size];
+        this.sizes = new int[size];
+        this.positions = new int[size];
+        this.indents = new int[size];
+
+        this.currentIndex = 0;
+
+        this.initialSize = size;
+    }
+
+    /**
+     * Double the stack size.
+     */
+    private void growArray() {
+        int size = this.objects.length << 1;
+
+        boolean[] oldObjects = this.objects;
+        int[] oldSizes = this.sizes;
+        int[] oldPositions = this.positions;
+        int[] oldIndents = this.indents;
+
+        this.objects = new boolean[size];
+        this.sizes = new int[size];
+        this.positions = new int[size];
+        this.indents = new int[size];
+
+        System.arraycopy(oldObjects, 0, this.objects, 0, this.currentIndex);
+        System.arraycopy(oldSizes, 0, this.sizes, 0, this.currentIndex);
+        System.arraycopy(oldPositions, 0, this.positions, 0, this.currentIndex);
+        System.arraycopy(oldIndents, 0, this.indents, 0, this.currentIndex);
+    }
+
+    /**
+     * Pushes the frame of the container being written.
+     *
+     * @param object whether the container is an object, the items of an object frame are the keys and the values in turn
+     * @param size   the number of the items in the container
+     * @param indent the indent of the container, or -1 if the container is written on one line
+     */
+    void push(boolean object, int size, int indent) {
+        if (this.currentIndex >= this.objects.length) {
+            this.growArray();
+        }
+
+        this.objects[this.currentIndex] = object;
+        this.sizes[this.currentIndex] = size;
+        this.positions[this.currentIndex] = 0;
+        this.indents[this.currentIndex] = indent;
+
+        this.currentIndex++;
+    }
+
+    /**
+     * Removes the frame at the top of this stack.
+     */
+    void pop() {
+        if (this.currentIndex == 0)
+            throw new EmptyStackException();
+
+        this.currentIndex--;
+    }
+
+    /**
+     * @return true if this stack is empty
+     */
+    boolean isEmpty() {
+        return this.currentIndex == 0;
+    }
+
+    /**
+     * @return true if the frame at the top of this stack is an object
+     */
+    boolean isObject() {
+        return this.objects[this.currentIndex - 1];
+    }
+
+    /**
+     * @return the indent of the frame at the top of this stack
+     */
+    int getIndent() {
+        return this.indents[this.currentIndex - 1];
+    }
+
+    /**
+     * @return true if the frame at the top of this stack has the items to write
+     */
+    boolean hasNext() {
+        return this.positions[this.currentIndex - 1] < this.sizes[this.currentIndex - 1];
+    }
+
+    /**
+     * Advances the frame at the top of this stack to the next item.
+     *
+     * @return the position of the item in the frame
+     */
+    int next() {
+        return this.positions[this.currentIndex - 1]++;
+    }
+
+    /**
+     * Reset this stack.
+     */
+    void reset() {
+        this.currentIndex = 0;
+    }
+
+    /**
+     * Reset this stack, and drop the arrays if they have grown over both the max size and the initial size, so that a reused stack does not retain its largest arrays.
+     *
+     * @param maxSize the max size of the arrays to keep
+     */
+    void reset(int maxSize) {
+        this.currentIndex = 0;
+
+        if (this.objects.length > Math.max(maxSize, this.initialSize)) {
+            this.objects = new boolean[this.initialSize];
+            this.sizes = new int[this.initialSize];
+            this.positions = new int[this.initialSize];
+            this.indents = new int[this.initialSize];
+        }
+    }
+}
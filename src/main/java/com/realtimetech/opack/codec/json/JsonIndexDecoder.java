@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.util.UTF8Util;
+import com.realtimetech.opack.value.OpackValue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class JsonIndexDecoder extends AbstractJsonDecoder {
+    private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long CONST_LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long CONST_HIGH_BITS = 0x8080808080808080L;
+    private static final long CONST_GATHER_MAGIC = 0x0002040810204081L;
+    private static final long CONST_EVEN_BITS = 0x5555555555555555L;
+
+    private static final long CONST_QUOTE_BYTES = broadcast('\"');
+    private static final long CONST_BACKSLASH_BYTES = broadcast('\\');
+    private static final long CONST_COLON_BYTES = broadcast(':');
+    private static final long CONST_COMMA_BYTES = broadcast(',');
+    private static final long CONST_OPEN_BYTES = broadcast('{');
+    private static final long CONST_CLOSE_BYTES = broadcast('}');
+    private static final long CONST_LOWER_CASE_BYTES = broadcast(0x20);
+    private static final long CONST_SPACE_BYTES = broadcast(' ');
+    private static final long CONST_WHITESPACE_BOUND_BYTES = broadcast(0x7F - ' ');
+
+    /**
+     * Returns the word whose bytes are all the value.
+     *
+     * @param value the byte value
+     * @return the word
+     */
+    private static long broadcast(int value) {
+        return (value & 0xFFL) * 0x0101010101010101L;
+    }
+
+    /**
+     * Returns the word whose high bit of each byte is set if the byte of the word equals the byte of the pattern, without the carries between the bytes.
+     *
+     * @param word    the word to compare
+     * @param pattern the broadcast byte to find
+     * @return the high bits of the equal bytes
+     */
+    private static long equalBytes(long word, long pattern) {
+        long x = word ^ pattern;
+
+        return ~(((x & CONST_LOW_BITS) + CONST_LOW_BITS) | x | CONST_LOW_BITS);
+    }
+
+    /**
+     * Returns the word whose high bit of each byte is set if the byte is a whitespace or a control character, that is less than or equal to the space.
+     *
+     * @param word the word to compare
+     * @return the high bits of the whitespace bytes
+     */
+    private static long whitespaceBytes(long word) {
+        return ~(((word & CONST_LOW_BITS) + CONST_WHITESPACE_BOUND_BYTES) | word) & CONST_HIGH_BITS;
+    }
+
+    /**
+     * Gathers the high bits of the 8 bytes to the low 8 bits, the bit n is the high bit of the byte n.
+     *
+     * @param highBits the word whose high bits of the bytes are the flags
+     * @return the 8-bit mask
+     */
+    private static long gather(long highBits) {
+        return ((highBits & CONST_HIGH_BITS) * CONST_GATHER_MAGIC) >>> 56;
+    }
+
+    /**
+     * Returns the prefix xor of the bits, so the bits between an opening quote and a closing quote are set.
+     *
+     * @param bits the bits of the quotes
+     * @return the prefix xor
+     */
+    private static long prefixXor(long bits) {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+
+        return bits;
+    }
+
+    private final byte[] tail;
+
+    private byte[] input;
+    private int position;
+    private int limit;
+    private int offset;
+
+    private int[] structurals;
+    private int structuralCount;
+    private int structuralIndex;
+
+    private long[] escapeBlocks;
+    private long previousOddBackslash;
+
+    private char[] stringChars;
+
+    /**
+     * Constructs the JsonIndexDecoder that decodes the json encoded in UTF-8 in two stages through the structural index.
+     *
+     * @param stackInitialSize the initial size of the decode stacks
+     * @param stringCache      the string cache to canonicalize the decoded strings, or null if not used
+     */
+    JsonIndexDecoder(int stackInitialSize, StringCache stringCache) {
+        super(stackInitialSize, stringCache);
+
+        this.tail = new byte[64];
+        this.structurals = new int[1024];
+        this.escapeBlocks = new long[16];
+        this.stringChars = new char[64];
+    }
+
+    /**
+     * Decodes the json in the byte array, the first stage indexes the structural characters, the quotes and the starts of the scalars by 64-byte blocks.
+     * The second stage builds the opack value by jumping over the index, so the whitespaces and the strings are not scanned again.
+     *
+     * @param bytes  the byte array containing the json encoded in UTF-8
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes of the json
+     * @return the decoded opack value
+     * @throws IOException if the json is malformed; if the root value is not an object or an array
+     */
+    OpackValue decode(byte[] bytes, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") is out of bounds for length " + bytes.length + ".");
+        }
+
+        this.input = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+        this.offset = offset;
+
+        try {
+            this.index(bytes, offset, length);
+            this.structuralIndex = 0;
+
+            return this.parse();
+        } finally {
+            this.input = null;
+            this.reset();
+        }
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+
+        if (this.structurals.length > JsonCodec.CONST_MAX_RETAINED_LENGTH) {
+            this.structurals = new int[1024];
+        }
+
+        if (this.escapeBlocks.length > JsonCodec.CONST_MAX_RETAINED_LENGTH) {
+            this.escapeBlocks = new long[16];
+        }
+
+        if (this.stringChars.length > JsonCodec.CONST_MAX_RETAINED_LENGTH) {
+            this.stringChars = new char[64];
+        }
+    }
+
+    /**
+     * Builds the structural index of the json by 64-byte blocks, the bytes are classified 8 bytes at a time in the words.
+     *
+     * @param bytes  the byte array containing the json encoded in UTF-8
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes of the json
+     * @throws IOException if a control character is outside the strings; if a string is not closed
+     */
+    private void index(byte[] bytes, int offset, int length) throws IOException {
+        int blockCount = (length + 63) >>> 6;
+        int escapeBlockWords = (blockCount + 63) >>> 6;
+
+        if (this.escapeBlocks.length < escapeBlockWords) {
+            this.escapeBlocks = new long[escapeBlockWords];
+        } else {
+            Arrays.fill(this.escapeBlocks, 0, escapeBlockWords, 0);
+        }
+
+        int[] structurals = this.structurals;
+        int count = 0;
+
+        long previousInString = 0;
+        long previousScalar = 0;
+        this.previousOddBackslash = 0;
+
+        for (int block = 0; block < blockCount; block++) {
+            int base = offset + (block << 6);
+            byte[] source = bytes;
+            int sourceIndex = base;
+
+            if (base + 64 > offset + length) {
+                Arrays.fill(this.tail, (byte) ' ');
+                System.arraycopy(bytes, base, this.tail, 0, offset + length - base);
+
+                source = this.tail;
+                sourceIndex = 0;
+            }
+
+            long quote = 0;
+            long backslash = 0;
+            long operator = 0;
+            long whitespace = 0;
+            long space = 0;
+
+            for (int word = 0; word < 8; word++) {
+                long value = (long) LONG_HANDLE.get(source, sourceIndex + (word << 3));
+                long lowerCase = value | CONST_LOWER_CASE_BYTES;
+                int shift = word << 3;
+
+                quote |= gather(equalBytes(value, CONST_QUOTE_BYTES)) << shift;
+                backslash |= gather(equalBytes(value, CONST_BACKSLASH_BYTES)) << shift;
+                operator |= gather(equalBytes(lowerCase, CONST_OPEN_BYTES) | equalBytes(lowerCase, CONST_CLOSE_BYTES) | equalBytes(value, CONST_COLON_BYTES) | equalBytes(value, CONST_COMMA_BYTES)) << shift;
+                whitespace |= gather(whitespaceBytes(value)) << shift;
+                space |= gather(equalBytes(value, CONST_SPACE_BYTES)) << shift;
+            }
+
+            if (backslash != 0 || this.previousOddBackslash != 0) {
+                if (backslash != 0) {
+                    this.escapeBlocks[block >>> 6] |= 1L << block;
+                }
+
+                quote &= ~this.findEscaped(backslash);
+            }
+
+            long inString = prefixXor(quote) ^ previousInString;
+            previousInString = inString >> 63;
+
+            long outside = ~inString & ~quote;
+            operator &= outside;
+            whitespace &= outside;
+
+            long scalar = ~(operator | whitespace) & outside;
+            long scalarStart = scalar & ~((scalar << 1) | previousScalar);
+            previousScalar = scalar >>> 63;
+
+            long control = whitespace & ~space;
+
+            while (control != 0) {
+                byte character = source[sourceIndex + Long.numberOfTrailingZeros(control)];
+
+                if (character != '\n' && character != '\r' && character != '\t') {
+                    throw new IOException("Expected whitespace, but got control character " + (int) character + " at " + (base + Long.numberOfTrailingZeros(control) - offset) + ".");
+                }
+
+                control &= control - 1;
+            }
+
+            long structural = operator | quote | scalarStart;
+
+            if (count + 64 > structurals.length) {
+                structurals = this.structurals = Arrays.copyOf(structurals, Math.max(count + 64, structurals.length << 1));
+            }
+
+            while (structural != 0) {
+                structurals[count++] = base + Long.numberOfTrailingZeros(structural);
+                structural &= structural - 1;
+            }
+        }
+
+        if (previousInString != 0) {
+            throw new EOFException("Expected close of string, but reached the end of json at " + length + ".");
+        }
+
+        this.structuralCount = count;
+    }
+
+    /**
+     * Finds the characters escaped by the odd-length sequences of the backslashes, the sequences continued from the previous block are carried over.
+     *
+     * @param backslash the bits of the backslashes in the block
+     * @return the bits of the escaped characters
+     */
+    private long findEscaped(long backslash) {
+        long startEdges = backslash & ~(backslash << 1);
+        long evenStartMask = CONST_EVEN_BITS ^ this.previousOddBackslash;
+        long evenStarts = startEdges & evenStartMask;
+        long oddStarts = startEdges & ~evenStartMask;
+
+        long evenCarries = backslash + evenStarts;
+        long oddCarries = backslash + oddStarts;
+        boolean endsOddBackslash = Long.compareUnsigned(oddCarries, backslash) < 0;
+
+        oddCarries |= this.previousOddBackslash;
+        this.previousOddBackslash = endsOddBackslash ? 1 : 0;
+
+        long evenCarryEnds = evenCarries & ~backslash;
+        long oddCarryEnds = oddCarries & ~backslash;
+
+        return (evenCarryEnds & ~CONST_EVEN_BITS) | (oddCarryEnds & CONST_EVEN_BITS);
+    }
+
+    @Override
+    protected long getPosition() {
+        return this.position - this.offset;
+    }
+
+    @Override
+    protected int next() {
+        if (this.position == this.limit) {
+            return -1;
+        }
+
+        return this.input[this.position++] & 0xFF;
+    }
+
+    /**
+     * Returns the character at the next structural index, the scalar must be followed by a whitespace or a structural character.
+     *
+     * @return the next character, or -1 if the index reaches the end
+     * @throws IOException if the scalar is followed by the other character
+     */
+    @Override
+    protected int nextToken() throws IOException {
+        int next = this.structuralIndex == this.structuralCount ? this.limit : this.structurals[this.structuralIndex];
+
+        if (this.position < next) {
+            byte character = this.input[this.position];
+
+            if (character != ' ' && character != '\n' && character != '\r' && character != '\t') {
+                throw this.unexpected("delimiter", character & 0xFF);
+            }
+        }
+
+        if (next == this.limit) {
+            this.position = this.limit;
+            return -1;
+        }
+
+        this.structuralIndex++;
+        this.position = next + 1;
+
+        return this.input[next] & 0xFF;
+    }
+
+    /**
+     * Reads the string whose open quote is already read, the close quote is the next structural index.
+     * The string in the blocks without the backslashes is created directly from the bytes, otherwise the bytes between the escapes are decoded from UTF-8.
+     *
+     * @return the string
+     * @throws IOException if the string has an unknown escape
+     */
+    @Override
+    protected String readString() throws IOException {
+        int start = this.position;
+        int end = this.structurals[this.structuralIndex++];
+        this.position = end + 1;
+
+        if (!this.hasEscape(start, end)) {
+            int length = end - start;
+
+            return this.stringCache != null ? this.stringCache.get(this.input, start, length) : new String(this.input, start, length, StandardCharsets.UTF_8);
+        }
+
+        if (this.stringChars.length < end - start) {
+            this.stringChars = new char[Math.max(end - start, this.stringChars.length << 1)];
+        }
+
+        byte[] input = this.input;
+        int segment = start;
+        this.position = start;
+
+        while (this.position < end) {
+            if (input[this.position] == '\\') {
+                this.stringWriter.write(this.stringChars, 0, UTF8Util.decodeUTF8(input, segment, this.position - segment, this.stringChars, 0));
+                this.position++;
+
+                this.readEscape();
+
+                segment = this.position;
+            } else {
+                this.position++;
+            }
+        }
+
+        this.stringWriter.write(this.stringChars, 0, UTF8Util.decodeUTF8(input, segment, end - segment, this.stringChars, 0));
+        this.position = end + 1;
+
+        String string = this.stringWriter.toString();
+        this.stringWriter.reset();
+
+        return string;
+    }
+
+    /**
+     * Returns whether the blocks covering the range have the backslashes.
+     *
+     * @param start the start index of the range
+     * @param end   the end index of the range
+     * @return true if any block of the range has a backslash
+     */
+    private boolean hasEscape(int start, int end) {
+        int lastBlock = (end - this.offset) >>> 6;
+
+        for (int block = (start - this.offset) >>> 6; block <= lastBlock; block++) {
+            if ((this.escapeBlocks[block >>> 6] & (1L << block)) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the number whose first character is already read, the characters of the number are collected to the number buffer and parsed in place.
+     *
+     * @param first the first character of the number
+     * @return the number
+     * @throws IOException if the number is malformed
+     */
+    @Override
+    protected Object readNumber(char first) throws IOException {
+        byte[] input = this.input;
+        int length = this.appendNumber(0, first);
+
+        while (this.position < this.limit) {
+            byte character = input[this.position];
+
+            if ((character < '0' || character > '9') && character != '.' && character != 'e' && character != 'E' && character != '-' && character != '+') {
+                break;
+            }
+
+            length = this.appendNumber(length, (char) character);
+            this.position++;
+        }
+
+        return this.parseNumber(length);
+    }
+}
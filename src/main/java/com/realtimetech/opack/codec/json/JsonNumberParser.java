@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import java.math.BigInteger;
+
+final class JsonNumberParser {
+    private static final int CONST_SMALLEST_POWER_OF_TEN = -342;
+    private static final int CONST_LARGEST_POWER_OF_TEN = 308;
+    private static final int CONST_MAX_SIGNIFICANT_DIGITS = 19;
+
+    private static final long CONST_POSITIVE_INFINITY_BITS = 0x7FF0000000000000L;
+    private static final long CONST_NOT_ROUNDED = -1L;
+
+    private static final double[] CONST_EXACT_POWERS_OF_TEN = new double[]{
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long[] CONST_POWERS_OF_FIVE = createPowersOfFive();
+
+    /**
+     * Creates the 128-bit approximations of the powers of five from 5^-342 to 5^308, normalized so the most significant bit is set.
+     * The negative powers are rounded up, so the product with the approximation never underestimates the exact product.
+     *
+     * @return the array of the high and low 64 bits of each approximation
+     */
+    private static long[] createPowersOfFive() {
+        BigInteger five = BigInteger.valueOf(5);
+        long[] powers = new long[(CONST_LARGEST_POWER_OF_TEN - CONST_SMALLEST_POWER_OF_TEN + 1) * 2];
+
+        for (int exponent = CONST_SMALLEST_POWER_OF_TEN; exponent <= CONST_LARGEST_POWER_OF_TEN; exponent++) {
+            BigInteger value;
+
+            if (exponent >= 0) {
+                value = five.pow(exponent);
+            } else {
+                BigInteger power = five.pow(-exponent);
+                int bitLength = power.bitLength();
+
+                value = BigInteger.ONE.shiftLeft(exponent >= -27 ? bitLength + 127 : 2 * bitLength + 128).divide(power).add(BigInteger.ONE);
+            }
+
+            int bitLength = value.bitLength();
+            value = bitLength > 128 ? value.shiftRight(bitLength - 128) : value.shiftLeft(128 - bitLength);
+
+            int index = (exponent - CONST_SMALLEST_POWER_OF_TEN) << 1;
+            powers[index] = value.shiftRight(64).longValue();
+            powers[index + 1] = value.longValue();
+        }
+
+        return powers;
+    }
+
+    private JsonNumberParser() {
+    }
+
+    /**
+     * Parses the json number in the characters without creating the string, to double if it has a fraction or an exponent, otherwise to long.
+     * The integers are accumulated digit by digit, and the decimals are rounded correctly by the Clinger fast path and the Eisel-Lemire algorithm.
+     * Only the decimals with more than 19 significant digits whose rounding is ambiguous fall back to {@link Double#parseDouble(String) parseDouble}.
+     *
+     * @param chars  the character array containing the number
+     * @param offset the start offset in the character array
+     * @param length the number of characters of the number
+     * @return the parsed Long or Double
+     * @throws NumberFormatException if the number is malformed; if the integer is out of the range of long
+     */
+    static Object parse(char[] chars, int offset, int length) {
+        int limit = offset + length;
+        int index = offset;
+        boolean negative = index < limit && chars[index] == '-';
+
+        if (negative) {
+            index++;
+        }
+
+        int integerStart = index;
+
+        while (index < limit && isDigit(chars[index])) {
+            index++;
+        }
+
+        if (index == limit) {
+            if (index == integerStart) {
+                throw malformed(chars, offset, length);
+            }
+
+            return parseLong(chars, offset, length, integerStart, negative);
+        }
+
+        return parseDouble(chars, offset, length, integerStart, index, negative);
+    }
+
+    /**
+     * Parses the digits to long, the digits are accumulated as the negative value so the minimum value of long does not overflow.
+     *
+     * @param chars        the character array containing the number
+     * @param offset       the start offset of the number
+     * @param length       the number of characters of the number
+     * @param integerStart the index of the first digit
+     * @param negative     true if the number has the minus sign
+     * @return the parsed long
+     * @throws NumberFormatException if the integer is out of the range of long
+     */
+    private static long parseLong(char[] chars, int offset, int length, int integerStart, boolean negative) {
+        int limit = offset + length;
+        long value = 0;
+
+        if (limit - integerStart < CONST_MAX_SIGNIFICANT_DIGITS) {
+            for (int index = integerStart; index < limit; index++) {
+                value = value * 10 - (chars[index] - '0');
+            }
+        } else {
+            for (int index = integerStart; index < limit; index++) {
+                int digit = chars[index] - '0';
+
+                if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit) {
+                    throw new NumberFormatException("Integer " + new String(chars, offset, length) + " is out of the range of long.");
+                }
+
+                value = value * 10 - digit;
+            }
+        }
+
+        if (negative) {
+            return value;
+        }
+
+        if (value == Long.MIN_VALUE) {
+            throw new NumberFormatException("Integer " + new String(chars, offset, length) + " is out of the range of long.");
+        }
+
+        return -value;
+    }
+
+    /**
+     * Parses the decimal to double, the first 19 significant digits are accumulated to the unsigned significand and the rest adjust the exponent.
+     *
+     * @param chars        the character array containing the number
+     * @param offset       the start offset of the number
+     * @param length       the number of characters of the number
+     * @param integerStart the index of the first digit of the integer part
+     * @param integerEnd   the index after the last digit of the integer part
+     * @param negative     true if the number has the minus sign
+     * @return the parsed double
+     * @throws NumberFormatException if the number is malformed
+     */
+    private static double parseDouble(char[] chars, int offset, int length, int integerStart, int integerEnd, boolean negative) {
+        int limit = offset + length;
+        long significand = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+
+        for (int index = integerStart; index < integerEnd; index++) {
+            int digit = chars[index] - '0';
+
+            if (significantDigits < CONST_MAX_SIGNIFICANT_DIGITS) {
+                if (significantDigits > 0 || digit != 0) {
+                    significand = significand * 10 + digit;
+                    significantDigits++;
+                }
+            } else {
+                exponent++;
+                truncated |= digit != 0;
+            }
+        }
+
+        int index = integerEnd;
+        int digits = integerEnd - integerStart;
+
+        if (chars[index] == '.') {
+            index++;
+
+            while (index < limit && isDigit(chars[index])) {
+                int digit = chars[index] - '0';
+
+                if (significantDigits < CONST_MAX_SIGNIFICANT_DIGITS) {
+                    if (significantDigits > 0 || digit != 0) {
+                        significand = significand * 10 + digit;
+                        significantDigits++;
+                    }
+
+                    exponent--;
+                } else {
+                    truncated |= digit != 0;
+                }
+
+                digits++;
+                index++;
+            }
+        }
+
+        if (digits == 0) {
+            throw malformed(chars, offset, length);
+        }
+
+        if (index < limit && (chars[index] == 'e' || chars[index] == 'E')) {
+            index++;
+
+            boolean negativeExponent = index < limit && chars[index] == '-';
+
+            if (index < limit && (chars[index] == '-' || chars[index] == '+')) {
+                index++;
+            }
+
+            int exponentStart = index;
+            int exponentValue = 0;
+
+            while (index < limit && isDigit(chars[index])) {
+                if (exponentValue < 100000) {
+                    exponentValue = exponentValue * 10 + (chars[index] - '0');
+                }
+
+                index++;
+            }
+
+            if (index == exponentStart) {
+                throw malformed(chars, offset, length);
+            }
+
+            exponent += negativeExponent ? -exponentValue : exponentValue;
+        }
+
+        if (index != limit) {
+            throw malformed(chars, offset, length);
+        }
+
+        double value;
+
+        if (significand == 0) {
+            value = 0;
+        } else if (!truncated && Long.compareUnsigned(significand, 1L << 53) <= 0 && exponent >= -22 && exponent <= 22) {
+            value = significand;
+            value = exponent < 0 ? value / CONST_EXACT_POWERS_OF_TEN[-exponent] : value * CONST_EXACT_POWERS_OF_TEN[exponent];
+        } else {
+            long bits = eiselLemire(significand, exponent);
+
+            if (truncated && bits != CONST_NOT_ROUNDED && bits != eiselLemire(significand + 1, exponent)) {
+                bits = CONST_NOT_ROUNDED;
+            }
+
+            if (bits == CONST_NOT_ROUNDED) {
+                return Double.parseDouble(new String(chars, offset, length));
+            }
+
+            value = Double.longBitsToDouble(bits);
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Computes the bits of the double nearest to the significand times the power of ten, by the Eisel-Lemire algorithm.
+     *
+     * @param significand the unsigned non-zero significand
+     * @param exponent    the power of ten
+     * @return the bits of the positive double, or {@link #CONST_NOT_ROUNDED} if the rounding can not be decided
+     */
+    private static long eiselLemire(long significand, int exponent) {
+        if (exponent < CONST_SMALLEST_POWER_OF_TEN) {
+            return 0;
+        }
+
+        if (exponent > CONST_LARGEST_POWER_OF_TEN) {
+            return CONST_POSITIVE_INFINITY_BITS;
+        }
+
+        int leadingZeros = Long.numberOfLeadingZeros(significand);
+        long normalized = significand << leadingZeros;
+        int index = (exponent - CONST_SMALLEST_POWER_OF_TEN) << 1;
+
+        long high = unsignedMultiplyHigh(normalized, CONST_POWERS_OF_FIVE[index]);
+        long low = normalized * CONST_POWERS_OF_FIVE[index];
+
+        if ((high & 0x1FF) == 0x1FF) {
+            long secondHigh = unsignedMultiplyHigh(normalized, CONST_POWERS_OF_FIVE[index + 1]);
+
+            low += secondHigh;
+
+            if (Long.compareUnsigned(secondHigh, low) > 0) {
+                high++;
+            }
+        }
+
+        if (low == -1L && (exponent < -27 || exponent > 55)) {
+            return CONST_NOT_ROUNDED;
+        }
+
+        int upperBit = (int) (high >>> 63);
+        long mantissa = high >>> (upperBit + 9);
+        int power = (((152170 + 65536) * exponent) >> 16) + 63 + upperBit - leadingZeros + 1023;
+
+        if (power <= 0) {
+            if (-power + 1 >= 64) {
+                return 0;
+            }
+
+            mantissa >>>= -power + 1;
+            mantissa += (mantissa & 1);
+            mantissa >>>= 1;
+
+            return mantissa;
+        }
+
+        if ((low == 0 || low == 1) && exponent >= -4 && exponent <= 23 && (mantissa & 3) == 1 && (mantissa << (upperBit + 9)) == high) {
+            mantissa &= ~1L;
+        }
+
+        mantissa += (mantissa & 1);
+        mantissa >>>= 1;
+
+        if (mantissa >= (2L << 52)) {
+            mantissa = 1L << 52;
+            power++;
+        }
+
+        if (power >= 0x7FF) {
+            return CONST_POSITIVE_INFINITY_BITS;
+        }
+
+        return (mantissa & ~(1L << 52)) | ((long) power << 52);
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product.
+     *
+     * @param x the first unsigned value
+     * @param y the second unsigned value
+     * @return the high 64 bits of the product
+     */
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * Returns whether the character is a decimal digit.
+     *
+     * @param character the character
+     * @return true if the character is between '0' and '9'
+     */
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    /**
+     * Creates the exception of the malformed number.
+     *
+     * @param chars  the character array containing the number
+     * @param offset the start offset of the number
+     * @param length the number of characters of the number
+     * @return the created exception
+     */
+    private static NumberFormatException malformed(char[] chars, int offset, int length) {
+        return new NumberFormatException("Malformed number " + new String(chars, offset, length) + ".");
+    }
+}
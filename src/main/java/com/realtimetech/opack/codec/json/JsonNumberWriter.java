@@ -0,0 +1,616 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+
+final class JsonNumberWriter {
+    private static final int CONST_DOUBLE_PRECISION = 53;
+    private static final int CONST_DOUBLE_MIN_EXPONENT = -1074;
+    private static final long CONST_DOUBLE_MIN_SIGNIFICAND = 1L << (CONST_DOUBLE_PRECISION - 1);
+    private static final long CONST_DOUBLE_TINY_SIGNIFICAND = 3;
+
+    private static final int CONST_FLOAT_PRECISION = 24;
+    private static final int CONST_FLOAT_MIN_EXPONENT = -149;
+    private static final int CONST_FLOAT_MIN_SIGNIFICAND = 1 << (CONST_FLOAT_PRECISION - 1);
+    private static final int CONST_FLOAT_TINY_SIGNIFICAND = 8;
+
+    private static final int CONST_MIN_POWER_OF_TEN = -324;
+    private static final int CONST_MAX_POWER_OF_TEN = 292;
+
+    private static final long CONST_MASK_63 = 0x7FFFFFFFFFFFFFFFL;
+    private static final long CONST_MASK_32 = 0xFFFFFFFFL;
+
+    private static final long[] CONST_POWERS_OF_TEN = createPowersOfTen();
+    private static final long[] CONST_SCALED_POWERS_OF_TEN = createScaledPowersOfTen();
+
+    private static final char[] CONST_NAN_CHARACTER = "NaN".toCharArray();
+    private static final char[] CONST_INFINITY_CHARACTER = "Infinity".toCharArray();
+    private static final char[] CONST_NEGATIVE_INFINITY_CHARACTER = "-Infinity".toCharArray();
+
+    private static final char[] CONST_DIGIT_TENS = new char[100];
+    private static final char[] CONST_DIGIT_ONES = new char[100];
+
+    static {
+        for (int index = 0; index < 100; index++) {
+            CONST_DIGIT_TENS[index] = (char) ('0' + index / 10);
+            CONST_DIGIT_ONES[index] = (char) ('0' + index % 10);
+        }
+    }
+
+    /**
+     * Creates the powers of ten from 10^0 to 10^18.
+     *
+     * @return the powers of ten
+     */
+    private static long[] createPowersOfTen() {
+        long[] powers = new long[19];
+        powers[0] = 1;
+
+        for (int index = 1; index < powers.length; index++) {
+            powers[index] = powers[index - 1] * 10;
+        }
+
+        return powers;
+    }
+
+    /**
+     * Creates the 126-bit approximations g of the powers of ten from 10^-292 to 10^324, such that (g - 1) 2^r &lt;= 10^-k &lt; g 2^r and 2^125 &lt; g &lt;= 2^126.
+     *
+     * @return the array of the high and low 63 bits of each approximation
+     */
+    private static long[] createScaledPowersOfTen() {
+        long[] powers = new long[(CONST_MAX_POWER_OF_TEN - CONST_MIN_POWER_OF_TEN + 1) * 2];
+
+        for (int k = CONST_MIN_POWER_OF_TEN; k <= CONST_MAX_POWER_OF_TEN; k++) {
+            int shift = 125 - flog2pow10(-k);
+            BigInteger value;
+
+            if (k <= 0) {
+                BigInteger power = BigInteger.TEN.pow(-k);
+                value = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                value = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(k));
+            }
+
+            value = value.add(BigInteger.ONE);
+
+            int index = (k - CONST_MIN_POWER_OF_TEN) << 1;
+            powers[index] = value.shiftRight(63).longValue();
+            powers[index + 1] = value.longValue() & CONST_MASK_63;
+        }
+
+        return powers;
+    }
+
+    /**
+     * Returns floor(log10(2^exponent)).
+     *
+     * @param exponent the power of two, valid in the range of the doubles
+     * @return the floor of the logarithm
+     */
+    private static int flog10pow2(int exponent) {
+        return (int) (exponent * 661_971_961_083L >> 41);
+    }
+
+    /**
+     * Returns floor(log10(3/4 2^exponent)).
+     *
+     * @param exponent the power of two, valid in the range of the doubles
+     * @return the floor of the logarithm
+     */
+    private static int flog10threeQuartersPow2(int exponent) {
+        return (int) (exponent * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    /**
+     * Returns floor(log2(10^exponent)).
+     *
+     * @param exponent the power of ten, valid in the range of the doubles
+     * @return the floor of the logarithm
+     */
+    private static int flog2pow10(int exponent) {
+        return (int) (exponent * 913_124_641_741L >> 38);
+    }
+
+    private final char[] buffer;
+    private final char[] digits;
+    private int index;
+
+    /**
+     * Constructs the JsonNumberWriter with the scratch buffer for a number.
+     */
+    JsonNumberWriter() {
+        this.buffer = new char[32];
+        this.digits = new char[17];
+        this.index = 0;
+    }
+
+    /**
+     * Writes the long in decimal without creating the string, two digits at a time.
+     *
+     * @param writer the writer to write
+     * @param value  the long to write
+     * @throws IOException if an I/O error occurs
+     */
+    void writeLong(Writer writer, long value) throws IOException {
+        char[] buffer = this.buffer;
+        int index = buffer.length;
+        long negative = value < 0 ? value : -value;
+
+        while (negative <= -100) {
+            long quotient = negative / 100;
+            int remainder = (int) (quotient * 100 - negative);
+
+            buffer[--index] = CONST_DIGIT_ONES[remainder];
+            buffer[--index] = CONST_DIGIT_TENS[remainder];
+            negative = quotient;
+        }
+
+        int remainder = (int) -negative;
+
+        buffer[--index] = CONST_DIGIT_ONES[remainder];
+
+        if (remainder >= 10) {
+            buffer[--index] = CONST_DIGIT_TENS[remainder];
+        }
+
+        if (value < 0) {
+            buffer[--index] = '-';
+        }
+
+        writer.write(buffer, index, buffer.length - index);
+    }
+
+    /**
+     * Writes the shortest decimal that rounds to the double, in the layout of {@link Double#toString(double) toString}, without creating the string.
+     * The digits are computed by the Schubfach algorithm, so the output may be shorter than the toString of the runtimes older than 19.
+     *
+     * @param writer the writer to write
+     * @param value  the double to write, the non-finite values are written as toString does
+     * @throws IOException if an I/O error occurs
+     */
+    void writeDouble(Writer writer, double value) throws IOException {
+        long bits = Double.doubleToRawLongBits(value);
+        long fraction = bits & (CONST_DOUBLE_MIN_SIGNIFICAND - 1);
+        int biasedExponent = (int) (bits >>> (CONST_DOUBLE_PRECISION - 1)) & 0x7FF;
+
+        if (biasedExponent == 0x7FF) {
+            writer.write(Double.isNaN(value) ? CONST_NAN_CHARACTER : value > 0 ? CONST_INFINITY_CHARACTER : CONST_NEGATIVE_INFINITY_CHARACTER);
+            return;
+        }
+
+        this.index = 0;
+
+        if (bits < 0) {
+            this.append('-');
+        }
+
+        if (biasedExponent != 0) {
+            int negativeExponent = -CONST_DOUBLE_MIN_EXPONENT + 1 - biasedExponent;
+            long significand = CONST_DOUBLE_MIN_SIGNIFICAND | fraction;
+
+            if (0 < negativeExponent && negativeExponent < CONST_DOUBLE_PRECISION) {
+                long integer = significand >> negativeExponent;
+
+                if (integer << negativeExponent == significand) {
+                    this.appendDecimal(integer, 0);
+                    writer.write(this.buffer, 0, this.index);
+                    return;
+                }
+            }
+
+            this.toDecimal(-negativeExponent, significand, 0);
+        } else if (fraction != 0) {
+            if (fraction < CONST_DOUBLE_TINY_SIGNIFICAND) {
+                this.toDecimal(CONST_DOUBLE_MIN_EXPONENT, 10 * fraction, -1);
+            } else {
+                this.toDecimal(CONST_DOUBLE_MIN_EXPONENT, fraction, 0);
+            }
+        } else {
+            this.append('0');
+            this.append('.');
+            this.append('0');
+        }
+
+        writer.write(this.buffer, 0, this.index);
+    }
+
+    /**
+     * Computes the shortest decimal in the rounding interval of the double c 2^q, and appends it.
+     *
+     * @param q  the binary exponent
+     * @param c  the binary significand
+     * @param dk the adjustment of the decimal exponent for the tiny subnormals
+     */
+    private void toDecimal(int q, long c, int dk) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+
+        if (c != CONST_DOUBLE_MIN_SIGNIFICAND | q == CONST_DOUBLE_MIN_EXPONENT) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+
+        int h = q + flog2pow10(-k) + 2;
+        int powerIndex = (k - CONST_MIN_POWER_OF_TEN) << 1;
+        long g1 = CONST_SCALED_POWERS_OF_TEN[powerIndex];
+        long g0 = CONST_SCALED_POWERS_OF_TEN[powerIndex + 1];
+
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+
+        if (s >= 100) {
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+
+            if (upin != wpin) {
+                this.appendDecimal(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+
+        if (uin != win) {
+            this.appendDecimal(uin ? s : t, k + dk);
+            return;
+        }
+
+        long cmp = vb - (s + t << 1);
+        this.appendDecimal(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * Returns the product of the 126-bit g and cp, rounded to odd.
+     *
+     * @param g1 the high 63 bits of g
+     * @param g0 the low 63 bits of g
+     * @param cp the scaled binary significand
+     * @return the rounded product
+     */
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+
+        return vbp | (z & CONST_MASK_63) + CONST_MASK_63 >>> 63;
+    }
+
+    /**
+     * Appends the decimal f 10^e, whose significand has at most 17 digits.
+     *
+     * @param f the decimal significand
+     * @param e the decimal exponent
+     */
+    private void appendDecimal(long f, int e) {
+        int length = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+
+        if (f >= CONST_POWERS_OF_TEN[length]) {
+            length++;
+        }
+
+        f *= CONST_POWERS_OF_TEN[17 - length];
+
+        long hm = f / 100_000_000L;
+        int l = (int) (f - 100_000_000L * hm);
+        int h = (int) (hm / 100_000_000L);
+        int m = (int) (hm - 100_000_000L * h);
+
+        this.digits[0] = (char) ('0' + h);
+        write8Digits(this.digits, 1, m);
+        write8Digits(this.digits, 9, l);
+
+        this.appendDigits(17, e + length);
+    }
+
+    /**
+     * Writes the shortest decimal that rounds to the float, in the layout of {@link Float#toString(float) toString}, without creating the string.
+     * The digits are computed by the Schubfach algorithm, so the output may be shorter than the toString of the runtimes older than 19.
+     *
+     * @param writer the writer to write
+     * @param value  the float to write, the non-finite values are written as toString does
+     * @throws IOException if an I/O error occurs
+     */
+    void writeFloat(Writer writer, float value) throws IOException {
+        int bits = Float.floatToRawIntBits(value);
+        int fraction = bits & (CONST_FLOAT_MIN_SIGNIFICAND - 1);
+        int biasedExponent = (bits >>> (CONST_FLOAT_PRECISION - 1)) & 0xFF;
+
+        if (biasedExponent == 0xFF) {
+            writer.write(Float.isNaN(value) ? CONST_NAN_CHARACTER : value > 0 ? CONST_INFINITY_CHARACTER : CONST_NEGATIVE_INFINITY_CHARACTER);
+            return;
+        }
+
+        this.index = 0;
+
+        if (bits < 0) {
+            this.append('-');
+        }
+
+        if (biasedExponent != 0) {
+            int negativeExponent = -CONST_FLOAT_MIN_EXPONENT + 1 - biasedExponent;
+            int significand = CONST_FLOAT_MIN_SIGNIFICAND | fraction;
+
+            if (0 < negativeExponent && negativeExponent < CONST_FLOAT_PRECISION) {
+                int integer = significand >> negativeExponent;
+
+                if (integer << negativeExponent == significand) {
+                    this.appendFloatDecimal(integer, 0);
+                    writer.write(this.buffer, 0, this.index);
+                    return;
+                }
+            }
+
+            this.toFloatDecimal(-negativeExponent, significand, 0);
+        } else if (fraction != 0) {
+            if (fraction < CONST_FLOAT_TINY_SIGNIFICAND) {
+                this.toFloatDecimal(CONST_FLOAT_MIN_EXPONENT, 10 * fraction, -1);
+            } else {
+                this.toFloatDecimal(CONST_FLOAT_MIN_EXPONENT, fraction, 0);
+            }
+        } else {
+            this.append('0');
+            this.append('.');
+            this.append('0');
+        }
+
+        writer.write(this.buffer, 0, this.index);
+    }
+
+    /**
+     * Computes the shortest decimal in the rounding interval of the float c 2^q, and appends it.
+     *
+     * @param q  the binary exponent
+     * @param c  the binary significand
+     * @param dk the adjustment of the decimal exponent for the tiny subnormals
+     */
+    private void toFloatDecimal(int q, int c, int dk) {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+
+        if (c != CONST_FLOAT_MIN_SIGNIFICAND | q == CONST_FLOAT_MIN_EXPONENT) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+
+        int h = q + flog2pow10(-k) + 33;
+        long g = CONST_SCALED_POWERS_OF_TEN[(k - CONST_MIN_POWER_OF_TEN) << 1] + 1;
+
+        int vb = roundToOdd(g, cb << h);
+        int vbl = roundToOdd(g, cbl << h);
+        int vbr = roundToOdd(g, cbr << h);
+
+        int s = vb >> 2;
+
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+
+            if (upin != wpin) {
+                this.appendFloatDecimal(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+
+        if (uin != win) {
+            this.appendFloatDecimal(uin ? s : t, k + dk);
+            return;
+        }
+
+        int cmp = vb - (s + t << 1);
+        this.appendFloatDecimal(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * Returns the product of the 63-bit g and cp, rounded to odd.
+     *
+     * @param g  the high 63 bits of the power of ten plus one
+     * @param cp the scaled binary significand
+     * @return the rounded product
+     */
+    private static int roundToOdd(long g, long cp) {
+        long x1 = Math.multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+
+        return (int) (vbp | (x1 & CONST_MASK_32) + CONST_MASK_32 >>> 32);
+    }
+
+    /**
+     * Appends the decimal f 10^e, whose significand has at most 9 digits.
+     *
+     * @param f the decimal significand
+     * @param e the decimal exponent
+     */
+    private void appendFloatDecimal(int f, int e) {
+        int length = flog10pow2(Integer.SIZE - Integer.numberOfLeadingZeros(f));
+
+        if (f >= CONST_POWERS_OF_TEN[length]) {
+            length++;
+        }
+
+        f *= (int) CONST_POWERS_OF_TEN[9 - length];
+
+        int h = f / 100_000_000;
+        int l = f - 100_000_000 * h;
+
+        this.digits[0] = (char) ('0' + h);
+        write8Digits(this.digits, 1, l);
+
+        this.appendDigits(9, e + length);
+    }
+
+    /**
+     * Writes the 8 digits to the character array two digits at a time, the leading zeroes included.
+     *
+     * @param chars the character array to write
+     * @param index the start index in the character array
+     * @param value the 8 digits
+     */
+    private static void write8Digits(char[] chars, int index, int value) {
+        int high = value / 10000;
+        int low = value - high * 10000;
+        int highHigh = high / 100;
+        int highLow = high - highHigh * 100;
+        int lowHigh = low / 100;
+        int lowLow = low - lowHigh * 100;
+
+        chars[index] = CONST_DIGIT_TENS[highHigh];
+        chars[index + 1] = CONST_DIGIT_ONES[highHigh];
+        chars[index + 2] = CONST_DIGIT_TENS[highLow];
+        chars[index + 3] = CONST_DIGIT_ONES[highLow];
+        chars[index + 4] = CONST_DIGIT_TENS[lowHigh];
+        chars[index + 5] = CONST_DIGIT_ONES[lowHigh];
+        chars[index + 6] = CONST_DIGIT_TENS[lowLow];
+        chars[index + 7] = CONST_DIGIT_ONES[lowLow];
+    }
+
+    /**
+     * Appends the digits 0.d 10^e in the layout of toString, plain if 10^-3 &lt;= 0.d 10^e &lt; 10^7, otherwise computerized scientific notation.
+     * The trailing zeroes are removed, but one digit is kept after the decimal point.
+     *
+     * @param count the number of the digits, the first digit is not zero
+     * @param e     the decimal exponent of 0.d
+     */
+    private void appendDigits(int count, int e) {
+        char[] digits = this.digits;
+        char[] buffer = this.buffer;
+        int index = this.index;
+
+        while (count > 1 && digits[count - 1] == '0') {
+            count--;
+        }
+
+        if (0 < e && e <= 7) {
+            for (int digit = 0; digit < e; digit++) {
+                buffer[index++] = digit < count ? digits[digit] : '0';
+            }
+
+            buffer[index++] = '.';
+
+            if (count <= e) {
+                buffer[index++] = '0';
+            } else {
+                System.arraycopy(digits, e, buffer, index, count - e);
+                index += count - e;
+            }
+
+            this.index = index;
+        } else if (-3 < e && e <= 0) {
+            buffer[index++] = '0';
+            buffer[index++] = '.';
+
+            for (; e < 0; e++) {
+                buffer[index++] = '0';
+            }
+
+            System.arraycopy(digits, 0, buffer, index, count);
+            this.index = index + count;
+        } else {
+            buffer[index++] = digits[0];
+            buffer[index++] = '.';
+
+            if (count == 1) {
+                buffer[index++] = '0';
+            } else {
+                System.arraycopy(digits, 1, buffer, index, count - 1);
+                index += count - 1;
+            }
+
+            this.index = index;
+            this.appendExponent(e - 1);
+        }
+    }
+
+    /**
+     * Appends the exponent of the computerized scientific notation.
+     *
+     * @param e the decimal exponent
+     */
+    private void appendExponent(int e) {
+        this.append('E');
+
+        if (e < 0) {
+            this.append('-');
+            e = -e;
+        }
+
+        if (e >= 100) {
+            int d = e * 1_311 >>> 17;
+            this.appendDigit(d);
+            e -= 100 * d;
+            this.appendDigit(e / 10);
+        } else if (e >= 10) {
+            this.appendDigit(e / 10);
+        }
+
+        this.appendDigit(e % 10);
+    }
+
+    /**
+     * Appends the digit.
+     *
+     * @param digit the digit from 0 to 9
+     */
+    private void appendDigit(int digit) {
+        this.buffer[this.index++] = (char) ('0' + digit);
+    }
+
+    /**
+     * Appends the character.
+     *
+     * @param character the character
+     */
+    private void append(char character) {
+        this.buffer[this.index++] = character;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.util.StringWriter;
+import com.realtimetech.opack.value.OpackValue;
+
+import java.io.IOException;
+import java.io.Reader;
+
+final class JsonStreamDecoder extends AbstractJsonDecoder {
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private long consumed;
+
+    private Reader reader;
+
+    /**
+     * Constructs the JsonStreamDecoder that decodes the json through the fixed size buffer.
+     *
+     * @param bufferSize       the number of characters of the buffer
+     * @param stackInitialSize the initial size of the decode stacks
+     * @param stringCache      the string cache to canonicalize the decoded strings, or null if not used
+     * @throws IllegalArgumentException if the buffer size is smaller than 1
+     */
+    JsonStreamDecoder(int bufferSize, int stackInitialSize, StringCache stringCache) {
+        super(stackInitialSize, stringCache);
+
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive, but got " + bufferSize + ".");
+        }
+
+        this.buffer = new char[bufferSize];
+        this.position = 0;
+        this.limit = 0;
+        this.consumed = 0;
+    }
+
+    /**
+     * Decodes the json read from the reader, the tokens spanning the buffer boundaries are accumulated while refilling the buffer.
+     * The reader is read until the end, and is not closed.
+     *
+     * @param reader the reader to read the json
+     * @return the decoded opack value
+     * @throws IOException if an I/O error occurs; if the json is malformed; if the root value is not an object or an array
+     */
+    OpackValue decode(Reader reader) throws IOException {
+        this.reader = reader;
+        this.position = 0;
+        this.limit = 0;
+        this.consumed = 0;
+
+        try {
+            return this.parse();
+        } finally {
+            this.reader = null;
+            this.reset();
+        }
+    }
+
+    /**
+     * Refills the buffer from the reader, the characters in the buffer are discarded.
+     *
+     * @return false if the reader reaches the end
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException {
+        this.consumed += this.limit;
+        this.position = 0;
+        this.limit = 0;
+
+        int read;
+
+        do {
+            read = this.reader.read(this.buffer, 0, this.buffer.length);
+        } while (read == 0);
+
+        if (read < 0) {
+            return false;
+        }
+
+        this.limit = read;
+
+        return true;
+    }
+
+    @Override
+    protected long getPosition() {
+        return this.consumed + this.position;
+    }
+
+    @Override
+    protected int next() throws IOException {
+        if (this.position == this.limit && !this.fill()) {
+            return -1;
+        }
+
+        return this.buffer[this.position++];
+    }
+
+    @Override
+    protected int nextToken() throws IOException {
+        while (true) {
+            while (this.position < this.limit) {
+                char character = this.buffer[this.position++];
+
+                if (character != ' ' && character != '\n' && character != '\r' && character != '\t') {
+                    return character;
+                }
+            }
+
+            if (!this.fill()) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Reads the string whose open quote is already read, the string in the buffer is created without copying to the string writer.
+     *
+     * @return the string
+     * @throws IOException if an I/O error occurs; if the string is not closed; if the string has an unknown escape
+     */
+    @Override
+    protected String readString() throws IOException {
+        StringWriter stringWriter = this.stringWriter;
+        char[] buffer = this.buffer;
+        int start = this.position;
+
+        while (true) {
+            while (this.position < this.limit) {
+                char character = buffer[this.position];
+
+                if (character == '\"') {
+                    String string;
+
+                    if (stringWriter.getLength() == 0) {
+                        int length = this.position - start;
+                        string = this.stringCache != null ? this.stringCache.get(buffer, start, length) : new String(buffer, start, length);
+                    } else {
+                        stringWriter.write(buffer, start, this.position - start);
+                        string = stringWriter.toString();
+                        stringWriter.reset();
+                    }
+
+                    this.position++;
+
+                    return string;
+                } else if (character == '\\') {
+                    stringWriter.write(buffer, start, this.position - start);
+                    this.position++;
+
+                    this.readEscape();
+
+                    start = this.position;
+                } else {
+                    this.position++;
+                }
+            }
+
+            stringWriter.write(buffer, start, this.position - start);
+
+            if (!this.fill()) {
+                throw this.unexpected("close of string", -1);
+            }
+
+            start = 0;
+        }
+    }
+
+    /**
+     * Reads the number whose first character is already read, the characters of the number are collected to the number buffer and parsed in place.
+     *
+     * @param first the first character of the number
+     * @return the number
+     * @throws IOException if an I/O error occurs; if the number is malformed
+     */
+    @Override
+    protected Object readNumber(char first) throws IOException {
+        int length = this.appendNumber(0, first);
+
+        while (this.position < this.limit || this.fill()) {
+            char character = this.buffer[this.position];
+
+            if ((character < '0' || character > '9') && character != '.' && character != 'e' && character != 'E' && character != '-' && character != '+') {
+                break;
+            }
+
+            length = this.appendNumber(length, character);
+            this.position++;
+        }
+
+        return this.parseNumber(length);
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.util.StringWriter;
+import com.realtimetech.opack.util.UTF8Util;
+import com.realtimetech.opack.value.OpackValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class JsonUTF8Decoder extends AbstractJsonDecoder {
+    private final int bufferSize;
+    private byte[] buffer;
+
+    private byte[] input;
+    private int position;
+    private int limit;
+    private long consumed;
+
+    private InputStream inputStream;
+    private ByteBuffer byteBuffer;
+
+    private byte[] stringBytes;
+    private int stringLength;
+    private char[] stringChars;
+
+    /**
+     * Constructs the JsonUTF8Decoder that decodes the json encoded in UTF-8 without transcoding it to the string.
+     *
+     * @param bufferSize       the number of bytes of the buffer to read the input streams and the direct byte buffers
+     * @param stackInitialSize the initial size of the decode stacks
+     * @param stringCache      the string cache to canonicalize the decoded strings, or null if not used
+     * @throws IllegalArgumentException if the buffer size is smaller than 1
+     */
+    JsonUTF8Decoder(int bufferSize, int stackInitialSize, StringCache stringCache) {
+        super(stackInitialSize, stringCache);
+
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive, but got " + bufferSize + ".");
+        }
+
+        this.bufferSize = bufferSize;
+
+        this.stringBytes = new byte[64];
+        this.stringLength = 0;
+        this.stringChars = new char[64];
+    }
+
+    /**
+     * Decodes the json in the byte array, the bytes are parsed in place without copying.
+     *
+     * @param bytes  the byte array containing the json encoded in UTF-8
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes of the json
+     * @return the decoded opack value
+     * @throws IOException if the json is malformed; if the root value is not an object or an array
+     */
+    OpackValue decode(byte[] bytes, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") is out of bounds for length " + bytes.length + ".");
+        }
+
+        this.input = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+        this.consumed = -offset;
+
+        try {
+            return this.parse();
+        } finally {
+            this.input = null;
+            this.reset();
+        }
+    }
+
+    /**
+     * Decodes the json read from the input stream through the fixed size buffer.
+     * The input stream is read until the end, and is not closed.
+     *
+     * @param inputStream the input stream to read the json encoded in UTF-8
+     * @return the decoded opack value
+     * @throws IOException if an I/O error occurs; if the json is malformed; if the root value is not an object or an array
+     */
+    OpackValue decode(InputStream inputStream) throws IOException {
+        this.inputStream = inputStream;
+
+        try {
+            return this.decodeBuffered();
+        } finally {
+            this.inputStream = null;
+        }
+    }
+
+    /**
+     * Decodes the json between the position and the limit of the byte buffer, the position of the byte buffer is not changed.
+     * The array of the heap byte buffer is parsed in place, and the direct byte buffer is copied through the fixed size buffer.
+     *
+     * @param byteBuffer the byte buffer containing the json encoded in UTF-8
+     * @return the decoded opack value
+     * @throws IOException if the json is malformed; if the root value is not an object or an array
+     */
+    OpackValue decode(ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.hasArray()) {
+            return this.decode(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        }
+
+        this.byteBuffer = byteBuffer.duplicate();
+
+        try {
+            return this.decodeBuffered();
+        } finally {
+            this.byteBuffer = null;
+        }
+    }
+
+    /**
+     * Decodes the json read through the fixed size buffer.
+     *
+     * @return the decoded opack value
+     * @throws IOException if an I/O error occurs; if the json is malformed; if the root value is not an object or an array
+     */
+    private OpackValue decodeBuffered() throws IOException {
+        if (this.buffer == null) {
+            this.buffer = new byte[this.bufferSize];
+        }
+
+        this.input = this.buffer;
+        this.position = 0;
+        this.limit = 0;
+        this.consumed = 0;
+
+        try {
+            return this.parse();
+        } finally {
+            this.input = null;
+            this.reset();
+        }
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+
+        this.stringLength = 0;
+
+        if (this.stringBytes.length > JsonCodec.CONST_MAX_RETAINED_LENGTH) {
+            this.stringBytes = new byte[64];
+        }
+
+        if (this.stringChars.length > JsonCodec.CONST_MAX_RETAINED_LENGTH) {
+            this.stringChars = new char[64];
+        }
+    }
+
+    /**
+     * Refills the buffer from the input stream or the direct byte buffer, the bytes in the buffer are discarded.
+     *
+     * @return false if the input reaches the end
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException {
+        this.consumed += this.limit;
+        this.position = 0;
+        this.limit = 0;
+
+        int read = -1;
+
+        if (this.inputStream != null) {
+            do {
+                read = this.inputStream.read(this.input, 0, this.input.length);
+            } while (read == 0);
+        } else if (this.byteBuffer != null && this.byteBuffer.hasRemaining()) {
+            read = Math.min(this.byteBuffer.remaining(), this.input.length);
+            this.byteBuffer.get(this.input, 0, read);
+        }
+
+        if (read < 0) {
+            return false;
+        }
+
+        this.limit = read;
+
+        return true;
+    }
+
+    @Override
+    protected long getPosition() {
+        return this.consumed + this.position;
+    }
+
+    @Override
+    protected int next() throws IOException {
+        if (this.position == this.limit && !this.fill()) {
+            return -1;
+        }
+
+        return this.input[this.position++] & 0xFF;
+    }
+
+    @Override
+    protected int nextToken() throws IOException {
+        while (true) {
+            byte[] input = this.input;
+
+            while (this.position < this.limit) {
+                byte character = input[this.position++];
+
+                if (character != ' ' && character != '\n' && character != '\r' && character != '\t') {
+                    return character & 0xFF;
+                }
+            }
+
+            if (!this.fill()) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Reads the string whose open quote is already read, only the bytes of the string are decoded from UTF-8.
+     * The string without escapes in the buffer is created directly from the bytes, as Latin-1 if all the bytes are ASCII.
+     * Otherwise, the bytes between the escapes and the buffer boundaries are accumulated, and decoded at each escape and at the close quote.
+     *
+     * @return the string
+     * @throws IOException if an I/O error occurs; if the string is not closed; if the string has an unknown escape
+     */
+    @Override
+    protected String readString() throws IOException {
+        StringWriter stringWriter = this.stringWriter;
+        int start = this.position;
+        int bits = 0;
+
+        while (true) {
+            byte[] input = this.input;
+
+            while (this.position < this.limit) {
+                byte character = input[this.position];
+
+                if (character == '\"') {
+                    String string;
+
+                    if (stringWriter.getLength() == 0 && this.stringLength == 0) {
+                        int length = this.position - start;
+
+                        if (this.stringCache != null) {
+                            string = this.stringCache.get(input, start, length);
+                        } else {
+                            string = new String(input, start, length, bits < 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+                        }
+                    } else {
+                        this.appendStringBytes(input, start, this.position - start);
+                        this.flushStringBytes();
+
+                        string = stringWriter.toString();
+                        stringWriter.reset();
+                    }
+
+                    this.position++;
+
+                    return string;
+                } else if (character == '\\') {
+                    this.appendStringBytes(input, start, this.position - start);
+                    this.flushStringBytes();
+                    this.position++;
+
+                    this.readEscape();
+
+                    start = this.position;
+                } else {
+                    bits |= character;
+                    this.position++;
+                }
+            }
+
+            this.appendStringBytes(input, start, this.position - start);
+
+            if (!this.fill()) {
+                throw this.unexpected("close of string", -1);
+            }
+
+            start = 0;
+        }
+    }
+
+    /**
+     * Appends the UTF-8 bytes of the string to the string bytes, the multibyte sequences split by the buffer boundaries are joined here.
+     *
+     * @param bytes  the byte array containing the bytes
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes
+     */
+    private void appendStringBytes(byte[] bytes, int offset, int length) {
+        int need = this.stringLength + length;
+
+        if (need > this.stringBytes.length) {
+            this.stringBytes = Arrays.copyOf(this.stringBytes, Math.max(need, this.stringBytes.length << 1));
+        }
+
+        System.arraycopy(bytes, offset, this.stringBytes, this.stringLength, length);
+        this.stringLength = need;
+    }
+
+    /**
+     * Decodes the string bytes to the string writer, and clears the string bytes.
+     */
+    private void flushStringBytes() {
+        if (this.stringLength == 0) {
+            return;
+        }
+
+        if (this.stringLength > this.stringChars.length) {
+            this.stringChars = new char[Math.max(this.stringLength, this.stringChars.length << 1)];
+        }
+
+        int length = UTF8Util.decodeUTF8(this.stringBytes, 0, this.stringLength, this.stringChars, 0);
+
+        this.stringWriter.write(this.stringChars, 0, length);
+        this.stringLength = 0;
+    }
+
+    /**
+     * Reads the number whose first character is already read, the characters of the number are collected to the number buffer and parsed in place.
+     *
+     * @param first the first character of the number
+     * @return the number
+     * @throws IOException if an I/O error occurs; if the number is malformed
+     */
+    @Override
+    protected Object readNumber(char first) throws IOException {
+        int length = this.appendNumber(0, first);
+
+        while (this.position < this.limit || this.fill()) {
+            byte character = this.input[this.position];
+
+            if ((character < '0' || character > '9') && character != '.' && character != 'e' && character != 'E' && character != '-' && character != '+') {
+                break;
+            }
+
+            length = this.appendNumber(length, (char) character);
+            this.position++;
+        }
+
+        return this.parseNumber(length);
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.codec.json;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+final class JsonUTF8Writer extends Writer {
+    private static final int CONST_MODE_ARRAY = 0;
+    private static final int CONST_MODE_STREAM = 1;
+    private static final int CONST_MODE_HEAP_BUFFER = 2;
+    private static final int CONST_MODE_DIRECT_BUFFER = 3;
+
+    private static final byte CONST_UNMAPPABLE_BYTE = '?';
+
+    private static final byte[] CONST_U2028_BYTES = {'\\', 'u', '2', '0', '2', '8'};
+    private static final byte[] CONST_U2029_BYTES = {'\\', 'u', '2', '0', '2', '9'};
+
+    private static final byte[][] CONST_REPLACEMENT_BYTES;
+
+    static {
+        CONST_REPLACEMENT_BYTES = new byte[128][];
+        for (int i = 0; i <= 0x1F; i++) {
+            CONST_REPLACEMENT_BYTES[i] = new byte[]{'\\', 'u', '0', '0', (byte) Character.forDigit(i >> 4, 16), (byte) Character.forDigit(i & 0xF, 16)};
+        }
+        CONST_REPLACEMENT_BYTES['"'] = new byte[]{'\\', '\"'};
+        CONST_REPLACEMENT_BYTES['\\'] = new byte[]{'\\', '\\'};
+        CONST_REPLACEMENT_BYTES['\t'] = new byte[]{'\\', 't'};
+        CONST_REPLACEMENT_BYTES['\b'] = new byte[]{'\\', 'b'};
+        CONST_REPLACEMENT_BYTES['\n'] = new byte[]{'\\', 'n'};
+        CONST_REPLACEMENT_BYTES['\r'] = new byte[]{'\\', 'r'};
+        CONST_REPLACEMENT_BYTES['\f'] = new byte[]{'\\', 'f'};
+    }
+
+    private final byte[] buffer;
+    private byte[] array;
+    private final int initialSize;
+
+    private byte[] bytes;
+    private int index;
+    private int limit;
+
+    private int mode;
+    private OutputStream outputStream;
+    private ByteBuffer byteBuffer;
+
+    private char highSurrogate;
+
+    /**
+     * Constructs a JsonUTF8Writer.
+     *
+     * @param initialSize the initial size of the byte array to encode the whole json in
+     * @param bufferSize  the size of the buffer to flush the bytes to the output stream or the direct byte buffer
+     */
+    JsonUTF8Writer(int initialSize, int bufferSize) {
+        this.buffer = new byte[bufferSize];
+        this.array = new byte[Math.max(initialSize, 16)];
+        this.initialSize = this.array.length;
+
+        this.reset();
+    }
+
+    /**
+     * Resets this writer to encode the whole json in the reusable byte array.
+     */
+    void reset() {
+        this.open(CONST_MODE_ARRAY, this.array, 0, this.array.length);
+    }
+
+    /**
+     * Resets this writer to encode the whole json in the reusable byte array, and drops the byte array if it has grown over both the max length and the initial size, so that the writer of a thread does not retain the array of its largest json.
+     *
+     * @param maxLength the max length of the byte array to keep
+     */
+    void trim(int maxLength) {
+        if (this.array.length > Math.max(maxLength, this.initialSize)) {
+            this.array = new byte[this.initialSize];
+        }
+
+        this.reset();
+    }
+
+    /**
+     * Resets this writer to write the bytes to the output stream, the bytes are flushed to the output stream whenever the buffer is full.
+     *
+     * @param outputStream the output stream to write the bytes
+     */
+    void reset(@NotNull OutputStream outputStream) {
+        this.open(CONST_MODE_STREAM, this.buffer, 0, this.buffer.length);
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Resets this writer to write the bytes from the position of the byte buffer.
+     * The heap byte buffer is written in place, and the direct byte buffer is written through the buffer.
+     *
+     * @param byteBuffer the byte buffer to write the bytes
+     */
+    void reset(@NotNull ByteBuffer byteBuffer) {
+        if (byteBuffer.isReadOnly()) {
+            throw new IllegalArgumentException("Byte buffer is read only.");
+        }
+
+        if (byteBuffer.hasArray()) {
+            this.open(CONST_MODE_HEAP_BUFFER, byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.arrayOffset() + byteBuffer.limit());
+        } else {
+            this.open(CONST_MODE_DIRECT_BUFFER, this.buffer, 0, this.buffer.length);
+        }
+
+        this.byteBuffer = byteBuffer;
+    }
+
+    /**
+     * Opens the bytes to write.
+     *
+     * @param mode  the mode of the target
+     * @param bytes the bytes to write
+     * @param index the index to write the first byte
+     * @param limit the index after the last byte to write
+     */
+    private void open(int mode, byte @NotNull [] bytes, int index, int limit) {
+        this.mode = mode;
+        this.bytes = bytes;
+        this.index = index;
+        this.limit = limit;
+
+        this.outputStream = null;
+        this.byteBuffer = null;
+        this.highSurrogate = 0;
+    }
+
+    /**
+     * Makes room for the bytes, by growing the byte array or by flushing the buffer to the target.
+     *
+     * @param size the number of the bytes to write
+     * @throws IOException             if an I/O error occurs
+     * @throws BufferOverflowException if the byte buffer has no room for the bytes
+     */
+    private void drain(int size) throws IOException {
+        if (this.mode == CONST_MODE_ARRAY) {
+            int length = this.bytes.length;
+
+            do {
+                length = length << 1;
+            } while (this.index + size > length);
+
+            byte[] bytes = new byte[length];
+            System.arraycopy(this.bytes, 0, bytes, 0, this.index);
+
+            this.array = bytes;
+            this.bytes = bytes;
+            this.limit = length;
+        } else if (this.mode == CONST_MODE_HEAP_BUFFER) {
+            throw new BufferOverflowException();
+        } else {
+            this.flushBuffer();
+        }
+    }
+
+    /**
+     * Flushes the bytes in the buffer to the output stream or the direct byte buffer, the bytes in the byte array or the heap byte buffer are already in place.
+     *
+     * @throws IOException             if an I/O error occurs
+     * @throws BufferOverflowException if the byte buffer has no room for the bytes
+     */
+    private void flushBuffer() throws IOException {
+        if (this.index > 0) {
+            if (this.mode == CONST_MODE_STREAM) {
+                this.outputStream.write(this.bytes, 0, this.index);
+                this.index = 0;
+            } else if (this.mode == CONST_MODE_DIRECT_BUFFER) {
+                this.byteBuffer.put(this.bytes, 0, this.index);
+                this.index = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes the byte.
+     *
+     * @param value the byte to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeByte(int value) throws IOException {
+        if (this.index >= this.limit) {
+            this.drain(1);
+        }
+
+        this.bytes[this.index++] = (byte) value;
+    }
+
+    /**
+     * Writes the bytes.
+     *
+     * @param value the bytes to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeBytes(byte @NotNull [] value) throws IOException {
+        if (this.index + value.length > this.limit) {
+            this.drain(value.length);
+        }
+
+        System.arraycopy(value, 0, this.bytes, this.index, value.length);
+        this.index += value.length;
+    }
+
+    /**
+     * Writes the character of the basic multilingual plane, which is not a surrogate, in UTF-8.
+     *
+     * @param character the character to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeMultiByte(char character) throws IOException {
+        if (character < 0x800) {
+            if (this.index + 2 > this.limit) {
+                this.drain(2);
+            }
+
+            this.bytes[this.index++] = (byte) (0xC0 | (character >> 6));
+            this.bytes[this.index++] = (byte) (0x80 | (character & 0x3F));
+        } else {
+            if (this.index + 3 > this.limit) {
+                this.drain(3);
+            }
+
+            this.bytes[this.index++] = (byte) (0xE0 | (character >> 12));
+            this.bytes[this.index++] = (byte) (0x80 | ((character >> 6) & 0x3F));
+            this.bytes[this.index++] = (byte) (0x80 | (character & 0x3F));
+        }
+    }
+
+    /**
+     * Writes the supplementary code point in UTF-8.
+     *
+     * @param codePoint the code point to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeSupplementary(int codePoint) throws IOException {
+        if (this.index + 4 > this.limit) {
+            this.drain(4);
+        }
+
+        this.bytes[this.index++] = (byte) (0xF0 | (codePoint >> 18));
+        this.bytes[this.index++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        this.bytes[this.index++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        this.bytes[this.index++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    /**
+     * Writes the character in UTF-8, the high surrogate is held until the next character.
+     * The unpaired surrogate is written as '?', same as {@link String#getBytes(java.nio.charset.Charset) String.getBytes}.
+     *
+     * @param character the character to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeCharacter(char character) throws IOException {
+        if (this.highSurrogate != 0) {
+            char highSurrogate = this.highSurrogate;
+            this.highSurrogate = 0;
+
+            if (Character.isLowSurrogate(character)) {
+                this.writeSupplementary(Character.toCodePoint(highSurrogate, character));
+                return;
+            }
+
+            this.writeByte(CONST_UNMAPPABLE_BYTE);
+        }
+
+        if (character < 0x80) {
+            this.writeByte(character);
+        } else if (Character.isHighSurrogate(character)) {
+            this.highSurrogate = character;
+        } else if (Character.isLowSurrogate(character)) {
+            this.writeByte(CONST_UNMAPPABLE_BYTE);
+        } else {
+            this.writeMultiByte(character);
+        }
+    }
+
+    /**
+     * Writes the string literal quoted and escaped, the escaping is done while encoding the characters in UTF-8.
+     *
+     * @param string the string to write
+     * @throws IOException if an I/O error occurs
+     */
+    void writeString(@NotNull String string) throws IOException {
+        this.writeCharacter('\"');
+
+        int length = string.length();
+        int index = 0;
+
+        while (index < length) {
+            byte[] bytes = this.bytes;
+            int position = this.index;
+            int end = Math.min(length, index + (this.limit - position));
+
+            while (index < end) {
+                char character = string.charAt(index);
+
+                if (character >= 0x80 || CONST_REPLACEMENT_BYTES[character] != null) {
+                    break;
+                }
+
+                bytes[position++] = (byte) character;
+                index++;
+            }
+
+            this.index = position;
+
+            if (index == length) {
+                break;
+            }
+
+            char character = string.charAt(index);
+
+            if (character < 0x80) {
+                byte[] replacement = CONST_REPLACEMENT_BYTES[character];
+
+                if (replacement == null) {
+                    this.drain(1);
+                    continue;
+                }
+
+                this.writeBytes(replacement);
+            } else if (character == '\u2028') {
+                this.writeBytes(CONST_U2028_BYTES);
+            } else if (character == '\u2029') {
+                this.writeBytes(CONST_U2029_BYTES);
+            } else if (Character.isSurrogate(character)) {
+                if (Character.isHighSurrogate(character) && index + 1 < length && Character.isLowSurrogate(string.charAt(index + 1))) {
+                    this.writeSupplementary(Character.toCodePoint(character, string.charAt(++index)));
+                } else {
+                    this.writeByte(CONST_UNMAPPABLE_BYTE);
+                }
+            } else {
+                this.writeMultiByte(character);
+            }
+
+            index++;
+        }
+
+        this.writeByte('\"');
+    }
+
+    /**
+     * Writes a single character.
+     *
+     * @param character the character to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(int character) throws IOException {
+        this.writeCharacter((char) character);
+    }
+
+    /**
+     * Writes a portion of an array of characters.
+     *
+     * @param src    the source array to write
+     * @param offset the starting position in the source array
+     * @param length the number of characters to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(char @NotNull [] src, int offset, int length) throws IOException {
+        int index = offset;
+        int end = offset + length;
+
+        while (index < end) {
+            if (this.highSurrogate == 0) {
+                byte[] bytes = this.bytes;
+                int position = this.index;
+                int runEnd = Math.min(end, index + (this.limit - position));
+
+                while (index < runEnd && src[index] < 0x80) {
+                    bytes[position++] = (byte) src[index++];
+                }
+
+                this.index = position;
+
+                if (index == end) {
+                    break;
+                }
+            }
+
+            this.writeCharacter(src[index++]);
+        }
+    }
+
+    /**
+     * Writes a portion of a string.
+     *
+     * @param string the string to write
+     * @param offset the starting position in the string
+     * @param length the number of characters to write
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(@NotNull String string, int offset, int length) throws IOException {
+        int end = offset + length;
+
+        for (int index = offset; index < end; index++) {
+            this.writeCharacter(string.charAt(index));
+        }
+    }
+
+    /**
+     * Writes the held surrogate and the bytes left in the buffer to the target, and detaches the target from this writer.
+     * The output stream is neither flushed nor closed, and the position of the byte buffer is advanced past the written bytes.
+     *
+     * @throws IOException             if an I/O error occurs
+     * @throws BufferOverflowException if the byte buffer has no room for the bytes
+     */
+    void finish() throws IOException {
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            this.writeByte(CONST_UNMAPPABLE_BYTE);
+        }
+
+        if (this.mode == CONST_MODE_HEAP_BUFFER) {
+            this.byteBuffer.position(this.index - this.byteBuffer.arrayOffset());
+        } else {
+            this.flushBuffer();
+        }
+
+        this.outputStream = null;
+        this.byteBuffer = null;
+    }
+
+    /**
+     * Returns the number of the bytes written in the byte array.
+     *
+     * @return the number of the bytes
+     */
+    int getLength() {
+        return this.index;
+    }
+
+    /**
+     * @return an array containing all the bytes written in the byte array
+     */
+    byte[] toByteArray() {
+        byte[] byteArray = new byte[this.index];
+        System.arraycopy(this.bytes, 0, byteArray, 0, this.index);
+        return byteArray;
+    }
+
+    /**
+     * Flushes the bytes in the buffer to the output stream and flushes the output stream, or to the direct byte buffer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        this.flushBuffer();
+
+        if (this.mode == CONST_MODE_STREAM) {
+            this.outputStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reset();
+    }
+}
@@ -0,0 +1,749 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.util;
+
+import com.realtimetech.opack.util.structure.FastStack;
+import com.realtimetech.opack.util.structure.NativeList;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class OpackDiff {
+    /*
+        DO NOT CHANGE PATCH KEYS
+     */
+    private static final String CONST_VALUE_KEY = "v";
+    private static final String CONST_LENGTH_KEY = "l";
+    private static final String CONST_SET_KEYS_KEY = "sk";
+    private static final String CONST_SET_VALUES_KEY = "sv";
+    private static final String CONST_REMOVE_KEYS_KEY = "rk";
+    private static final String CONST_PATCH_KEYS_KEY = "pk";
+    private static final String CONST_PATCH_VALUES_KEY = "pv";
+
+    private static final Object CONST_REPLACE = new Object();
+    private static final Object CONST_PENDING = new Object();
+
+    private abstract static class DiffFrame {
+        /**
+         * Moves to the next pair of the children to compare.
+         *
+         * @return false if all children are compared
+         */
+        abstract boolean next();
+
+        /**
+         * @return the old value of the current child
+         */
+        abstract Object getOldChild();
+
+        /**
+         * @return the new value of the current child
+         */
+        abstract Object getNewChild();
+
+        /**
+         * Accepts the result of comparing the current child.
+         *
+         * @param childPatch null if the child is equal, CONST_REPLACE if the child should be set as a whole, otherwise the patch of the child
+         * @return false if the whole container should be set instead
+         */
+        abstract boolean accept(Object childPatch);
+
+        /**
+         * Finishes the comparison after all children are accepted.
+         *
+         * @return null if the containers are equal, CONST_REPLACE if the new container should be set as a whole, otherwise the patch
+         */
+        abstract Object finish();
+    }
+
+    private static final class ObjectDiffFrame extends DiffFrame {
+        private final OpackObject<Object, Object> oldObject;
+        private final OpackObject<Object, Object> newObject;
+        private final Iterator<Map.Entry<Object, Object>> iterator;
+
+        private Object key;
+        private Object newValue;
+
+        private OpackArray<Object> setKeys;
+        private OpackArray<Object> setValues;
+        private OpackArray<Object> patchKeys;
+        private OpackArray<Object> patchValues;
+
+        /**
+         * Constructs the frame comparing the old opack object with the new opack object.
+         *
+         * @param oldObject the old opack object
+         * @param newObject the new opack object
+         */
+        ObjectDiffFrame(OpackObject<Object, Object> oldObject, OpackObject<Object, Object> newObject) {
+            this.oldObject = oldObject;
+            this.newObject = newObject;
+            this.iterator = newObject.entrySet().iterator();
+        }
+
+        @Override
+        boolean next() {
+            while (this.iterator.hasNext()) {
+                Map.Entry<Object, Object> entry = this.iterator.next();
+
+                this.key = entry.getKey();
+                this.newValue = entry.getValue();
+
+                if (this.oldObject.containsKey(this.key)) {
+                    return true;
+                }
+
+                this.accept(CONST_REPLACE);
+            }
+
+            return false;
+        }
+
+        @Override
+        Object getOldChild() {
+            return this.oldObject.get(this.key);
+        }
+
+        @Override
+        Object getNewChild() {
+            return this.newValue;
+        }
+
+        @Override
+        boolean accept(Object childPatch) {
+            if (childPatch == CONST_REPLACE) {
+                if (this.setKeys == null) {
+                    this.setKeys = new OpackArray<>();
+                    this.setValues = new OpackArray<>();
+                }
+
+                this.setKeys.add(this.key);
+                this.setValues.add(this.newValue);
+            } else if (childPatch != null) {
+                if (this.patchKeys == null) {
+                    this.patchKeys = new OpackArray<>();
+                    this.patchValues = new OpackArray<>();
+                }
+
+                this.patchKeys.add(this.key);
+                this.patchValues.add(childPatch);
+            }
+
+            return true;
+        }
+
+        @Override
+        Object finish() {
+            OpackArray<Object> removeKeys = null;
+
+            for (Object key : this.oldObject.keySet()) {
+                if (!this.newObject.containsKey(key)) {
+                    if (removeKeys == null) {
+                        removeKeys = new OpackArray<>();
+                    }
+
+                    removeKeys.add(key);
+                }
+            }
+
+            if (this.setKeys == null && removeKeys == null && this.patchKeys == null) {
+                return null;
+            }
+
+            OpackObject<Object, Object> patch = new OpackObject<>(5);
+
+            if (this.setKeys != null) {
+                patch.put(CONST_SET_KEYS_KEY, this.setKeys);
+                patch.put(CONST_SET_VALUES_KEY, this.setValues);
+            }
+
+            if (removeKeys != null) {
+                patch.put(CONST_REMOVE_KEYS_KEY, removeKeys);
+            }
+
+            if (this.patchKeys != null) {
+                patch.put(CONST_PATCH_KEYS_KEY, this.patchKeys);
+                patch.put(CONST_PATCH_VALUES_KEY, this.patchValues);
+            }
+
+            return patch;
+        }
+    }
+
+    private static final class ArrayDiffFrame extends DiffFrame {
+        private final List<Object> oldList;
+        private final List<Object> newList;
+        private final int commonLength;
+
+        private int index;
+
+        private int[] setIndexes;
+        private int setCount;
+        private OpackArray<Object> patchIndexes;
+        private OpackArray<Object> patchValues;
+
+        /**
+         * Constructs the frame comparing the old opack array with the new opack array by the indexes.
+         *
+         * @param oldList the list of the old opack array
+         * @param newList the list of the new opack array
+         */
+        ArrayDiffFrame(List<Object> oldList, List<Object> newList) {
+            this.oldList = oldList;
+            this.newList = newList;
+            this.commonLength = Math.min(oldList.size(), newList.size());
+
+            this.index = -1;
+
+            this.setIndexes = new int[8];
+            this.setCount = 0;
+        }
+
+        @Override
+        boolean next() {
+            if (this.index + 1 < this.commonLength) {
+                this.index++;
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        Object getOldChild() {
+            return this.oldList.get(this.index);
+        }
+
+        @Override
+        Object getNewChild() {
+            return this.newList.get(this.index);
+        }
+
+        @Override
+        boolean accept(Object childPatch) {
+            if (childPatch == CONST_REPLACE) {
+                if (this.setCount == this.setIndexes.length) {
+                    this.setIndexes = Arrays.copyOf(this.setIndexes, this.setCount << 1);
+                }
+
+                this.setIndexes[this.setCount++] = this.index;
+
+                return this.setCount << 1 <= this.newList.size();
+            } else if (childPatch != null) {
+                if (this.patchIndexes == null) {
+                    this.patchIndexes = new OpackArray<>();
+                    this.patchValues = new OpackArray<>();
+                }
+
+                this.patchIndexes.add(this.index);
+                this.patchValues.add(childPatch);
+            }
+
+            return true;
+        }
+
+        @Override
+        Object finish() {
+            return createArrayPatch(this.oldList.size(), this.newList, this.setIndexes, this.setCount, this.patchIndexes, this.patchValues);
+        }
+    }
+
+    /**
+     * Compares the old value with the new value, and returns the patch that rebuilds the new value from the old value by {@link #apply(OpackValue, OpackObject) apply}.
+     * The patch is an opack object, so it can be encoded by any codec, and it is empty if the values are equal.
+     * (patch protocol: new root value(v), or new array length(l), set keys(sk) and values(sv), removed keys(rk), patched keys(pk) and child patches(pv))
+     *
+     * @param oldValue the old value
+     * @param newValue the new value
+     * @return the patch
+     */
+    public static @NotNull OpackObject<Object, Object> diff(@NotNull OpackValue oldValue, @NotNull OpackValue newValue) {
+        Object patch = diffValue(oldValue, newValue);
+
+        if (patch == null) {
+            return new OpackObject<>(0);
+        }
+
+        if (patch == CONST_REPLACE) {
+            OpackObject<Object, Object> replacePatch = new OpackObject<>(1);
+            replacePatch.put(CONST_VALUE_KEY, newValue);
+            return replacePatch;
+        }
+
+        return (OpackObject<Object, Object>) patch;
+    }
+
+    /**
+     * Applies the patch created by {@link #diff(OpackValue, OpackValue) diff} to the old value in place.
+     * The returned value must be used as the new value, because the root is replaced if the patch replaces the root or resizes the root native array.
+     *
+     * @param oldValue the old value to patch
+     * @param patch    the patch
+     * @return the new value
+     * @throws IllegalArgumentException if the patch does not match the old value; if the patch is malformed
+     */
+    public static @NotNull OpackValue apply(@NotNull OpackValue oldValue, @NotNull OpackObject<Object, Object> patch) {
+        if (patch.containsKey(CONST_VALUE_KEY)) {
+            Object value = patch.get(CONST_VALUE_KEY);
+
+            if (!(value instanceof OpackValue)) {
+                throw new IllegalArgumentException("Patch replaces the root with " + (value == null ? "null" : value.getClass()) + ". (root value must be opack value)");
+            }
+
+            return (OpackValue) value;
+        }
+
+        try {
+            return (OpackValue) applyValue(oldValue, patch);
+        } catch (ClassCastException | IndexOutOfBoundsException exception) {
+            throw new IllegalArgumentException("Patch is malformed or does not match the value.", exception);
+        }
+    }
+
+    /**
+     * Returns the underlying list of the opack array.
+     *
+     * @param opackArray the opack array
+     * @return the underlying list
+     */
+    private static List<Object> getList(OpackArray<Object> opackArray) {
+        try {
+            return UnsafeOpackValue.getList(opackArray);
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new IllegalStateException("Failed to access the native list object in OpackArray.");
+        }
+    }
+
+    /**
+     * Compares the old value with the new value, the containers are walked through the frame stack instead of the recursive calls.
+     *
+     * @param oldValue the old value
+     * @param newValue the new value
+     * @return null if the values are equal, CONST_REPLACE if the new value should be set as a whole, otherwise the patch
+     */
+    private static Object diffValue(Object oldValue, Object newValue) {
+        FastStack<DiffFrame> frameStack = new FastStack<>();
+        Object result = compareValue(frameStack, oldValue, newValue);
+
+        FRAME_LOOP:
+        while (!frameStack.isEmpty()) {
+            DiffFrame frame = frameStack.peek();
+            boolean replace = result != CONST_PENDING && !frame.accept(result);
+
+            while (!replace && frame.next()) {
+                result = compareValue(frameStack, frame.getOldChild(), frame.getNewChild());
+
+                if (result == CONST_PENDING) {
+                    continue FRAME_LOOP;
+                }
+
+                replace = !frame.accept(result);
+            }
+
+            frameStack.pop();
+            result = replace ? CONST_REPLACE : frame.finish();
+        }
+
+        return result;
+    }
+
+    /**
+     * Compares the old value with the new value, or pushes the frame of the containers to compare their children.
+     *
+     * @param frameStack the frame stack
+     * @param oldValue   the old value
+     * @param newValue   the new value
+     * @return null if the values are equal, CONST_REPLACE if the new value should be set as a whole, CONST_PENDING if the frame is pushed, otherwise the patch
+     */
+    private static Object compareValue(FastStack<DiffFrame> frameStack, Object oldValue, Object newValue) {
+        if (oldValue == newValue) {
+            return null;
+        }
+
+        if (oldValue instanceof OpackObject && newValue instanceof OpackObject) {
+            frameStack.push(new ObjectDiffFrame((OpackObject<Object, Object>) oldValue, (OpackObject<Object, Object>) newValue));
+            return CONST_PENDING;
+        }
+
+        if (oldValue instanceof OpackArray && newValue instanceof OpackArray) {
+            List<Object> oldList = getList((OpackArray<Object>) oldValue);
+            List<Object> newList = getList((OpackArray<Object>) newValue);
+
+            if (oldList instanceof NativeList) {
+                if (newList instanceof NativeList && ((NativeList) oldList).getArrayObject().getClass() == ((NativeList) newList).getArrayObject().getClass()) {
+                    return diffNativeArray((NativeList) oldList, (NativeList) newList);
+                }
+
+                return isEqualList(oldList, newList) ? null : CONST_REPLACE;
+            }
+
+            frameStack.push(new ArrayDiffFrame(oldList, newList));
+            return CONST_PENDING;
+        }
+
+        if (oldValue instanceof OpackValue || newValue instanceof OpackValue) {
+            return CONST_REPLACE;
+        }
+
+        return Objects.equals(oldValue, newValue) ? null : CONST_REPLACE;
+    }
+
+    /**
+     * Returns true if the lists have the equal elements, the elements of the native list are compared as the boxed values.
+     *
+     * @param oldList the old list
+     * @param newList the new list
+     * @return true if the lists are equal
+     */
+    private static boolean isEqualList(List<Object> oldList, List<Object> newList) {
+        if (oldList.size() != newList.size()) {
+            return false;
+        }
+
+        for (int index = 0; index < oldList.size(); index++) {
+            if (!Objects.equals(oldList.get(index), newList.get(index))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares the old native array with the new native array of the same type by the indexes without boxing.
+     *
+     * @param oldList the old native list
+     * @param newList the new native list of the same type
+     * @return null if the arrays are equal, CONST_REPLACE if the new array should be set as a whole, otherwise the patch
+     */
+    private static Object diffNativeArray(NativeList oldList, NativeList newList) {
+        Object oldArrayObject = oldList.getArrayObject();
+        Object newArrayObject = newList.getArrayObject();
+
+        int newLength = newList.size();
+        int commonLength = Math.min(oldList.size(), newLength);
+
+        int[] setIndexes = new int[8];
+        int setCount = 0;
+        int index = 0;
+
+        while ((index = findMismatch(oldArrayObject, newArrayObject, index, commonLength)) != -1) {
+            if (setCount == setIndexes.length) {
+                setIndexes = Arrays.copyOf(setIndexes, setCount << 1);
+            }
+
+            setIndexes[setCount++] = index++;
+
+            if (setCount << 1 > newLength) {
+                return CONST_REPLACE;
+            }
+        }
+
+        return createArrayPatch(oldList.size(), newList, setIndexes, setCount, null, null);
+    }
+
+    /**
+     * Creates the patch of the array from the set indexes and the child patches, the appended elements of the new array are set too.
+     * If more than half of the new array is set, the new array should be set as a whole.
+     *
+     * @param oldLength    the length of the old array
+     * @param newList      the list of the new array
+     * @param setIndexes   the indexes to set in the common length
+     * @param setCount     the number of the indexes to set
+     * @param patchIndexes the indexes of the child patches, or null if there is no child patch
+     * @param patchValues  the child patches, or null if there is no child patch
+     * @return null if the arrays are equal, CONST_REPLACE if the new array should be set as a whole, otherwise the patch
+     */
+    private static Object createArrayPatch(int oldLength, List<Object> newList, int[] setIndexes, int setCount, OpackArray<Object> patchIndexes, OpackArray<Object> patchValues) {
+        int newLength = newList.size();
+        int commonLength = Math.min(oldLength, newLength);
+
+        if ((setCount + newLength - commonLength) << 1 > newLength && newLength > 0) {
+            return CONST_REPLACE;
+        }
+
+        if (setCount == 0 && patchIndexes == null && oldLength == newLength) {
+            return null;
+        }
+
+        OpackObject<Object, Object> patch = new OpackObject<>(5);
+
+        if (oldLength != newLength) {
+            patch.put(CONST_LENGTH_KEY, newLength);
+        }
+
+        if (setCount > 0 || newLength > oldLength) {
+            int[] indexes = Arrays.copyOf(setIndexes, setCount + newLength - commonLength);
+            OpackArray<Object> values = new OpackArray<>(indexes.length);
+
+            for (int index = commonLength; index < newLength; index++) {
+                indexes[setCount++] = index;
+            }
+
+            for (int index : indexes) {
+                values.add(newList.get(index));
+            }
+
+            patch.put(CONST_SET_KEYS_KEY, OpackArray.createWithArrayObject(indexes));
+            patch.put(CONST_SET_VALUES_KEY, values);
+        }
+
+        if (patchIndexes != null) {
+            patch.put(CONST_PATCH_KEYS_KEY, patchIndexes);
+            patch.put(CONST_PATCH_VALUES_KEY, patchValues);
+        }
+
+        return patch;
+    }
+
+    /**
+     * Returns the first index in the range where the native arrays of the same type differ, the arrays are compared by {@link Arrays#mismatch(int[], int, int, int[], int, int) mismatch} without boxing.
+     *
+     * @param oldArrayObject the old native array
+     * @param newArrayObject the new native array of the same type
+     * @param fromIndex      the first index to compare
+     * @param toIndex        the index after the last index to compare
+     * @return the first index where the arrays differ, or -1 if the range is equal
+     */
+    private static int findMismatch(Object oldArrayObject, Object newArrayObject, int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return -1;
+        }
+
+        int mismatch;
+
+        if (oldArrayObject instanceof int[]) {
+            mismatch = Arrays.mismatch((int[]) oldArrayObject, fromIndex, toIndex, (int[]) newArrayObject, fromIndex, toIndex);
+        } else if (oldArrayObject instanceof long[]) {
+            mismatch = Arrays.mismatch((long[]) oldArrayObject, fromIndex, toIndex, (long[]) newArrayObject, fromIndex, toIndex);
+        } else if (oldArrayObject instanceof double[]) {
+            mismatch = Arrays.mismatch((double[]) oldArrayObject, fromIndex, toIndex, (double[]) newArrayObject, fromIndex, toIndex);
+        } else if (oldArrayObject instanceof float[]) {
+            mismatch = Arrays.mismatch((float[]) oldArrayObject, fromIndex, toIndex, (float[]) newArrayObject, fromIndex, toIndex);
+        } else if (oldArrayObject instanceof byte[]) {
+            mismatch = Arrays.mismatch((byte[]) oldArrayObject, fromIndex, toIndex, (byte[]) newArrayObject, fromIndex, toIndex);
+        } else if (oldArrayObject instanceof short[]) {
+            mismatch = Arrays.mismatch((short[]) oldArrayObject, fromIndex, toIndex, (short[]) newArrayObject, fromIndex, toIndex);
+        } else if (oldArrayObject instanceof char[]) {
+            mismatch = Arrays.mismatch((char[]) oldArrayObject, fromIndex, toIndex, (char[]) newArrayObject, fromIndex, toIndex);
+        } else if (oldArrayObject instanceof boolean[]) {
+            mismatch = Arrays.mismatch((boolean[]) oldArrayObject, fromIndex, toIndex, (boolean[]) newArrayObject, fromIndex, toIndex);
+        } else {
+            mismatch = Arrays.mismatch((Object[]) oldArrayObject, fromIndex, toIndex, (Object[]) newArrayObject, fromIndex, toIndex);
+        }
+
+        return mismatch == -1 ? -1 : fromIndex + mismatch;
+    }
+
+    /**
+     * Converts the value of the patch to the component type of the native array.
+     * The codecs may decode the numbers in the wider types, e.g. the json codec decodes the integers as long and the decimals as double, and may decode the characters as the strings.
+     *
+     * @param componentType the component type of the native array
+     * @param value         the value to convert
+     * @return the converted value, or the value itself if it can not be converted
+     */
+    private static Object convertElement(Class<?> componentType, Object value) {
+        if (value instanceof Number) {
+            Number number = (Number) value;
+
+            if (componentType == int.class || componentType == Integer.class) {
+                return number.intValue();
+            } else if (componentType == long.class || componentType == Long.class) {
+                return number.longValue();
+            } else if (componentType == short.class || componentType == Short.class) {
+                return number.shortValue();
+            } else if (componentType == byte.class || componentType == Byte.class) {
+                return number.byteValue();
+            } else if (componentType == float.class || componentType == Float.class) {
+                return number.floatValue();
+            } else if (componentType == double.class || componentType == Double.class) {
+                return number.doubleValue();
+            } else if (componentType == char.class || componentType == Character.class) {
+                return (char) number.intValue();
+            }
+        } else if (value instanceof String && (componentType == char.class || componentType == Character.class)) {
+            String string = (String) value;
+
+            if (string.length() == 1) {
+                return string.charAt(0);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Applies the patch to the value in place, the child patches are applied through the apply stack instead of the recursive calls.
+     *
+     * @param value the value to patch
+     * @param patch the patch of the value
+     * @return the patched value, which is a new opack array if the native array is resized
+     * @throws IllegalArgumentException if the patch does not match the value
+     */
+    private static Object applyValue(Object value, OpackObject<Object, Object> patch) {
+        FastStack<Object> applyStack = new FastStack<>();
+        Object rootValue = applyEntries(applyStack, value, patch);
+
+        while (!applyStack.isEmpty()) {
+            OpackObject<Object, Object> childPatch = (OpackObject<Object, Object>) applyStack.pop();
+            Object key = applyStack.pop();
+            Object container = applyStack.pop();
+
+            if (container instanceof OpackObject) {
+                OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) container;
+
+                if (!opackObject.containsKey(key)) {
+                    throw new IllegalArgumentException("Patch has a child patch of " + key + ", but the key does not exist.");
+                }
+
+                opackObject.put(key, applyEntries(applyStack, opackObject.get(key), childPatch));
+            } else {
+                OpackArray<Object> opackArray = (OpackArray<Object>) container;
+                int arrayIndex = ((Number) key).intValue();
+
+                opackArray.set(arrayIndex, applyEntries(applyStack, opackArray.get(arrayIndex), childPatch));
+            }
+        }
+
+        return rootValue;
+    }
+
+    /**
+     * Applies the set, removed and resized entries of the patch to the value in place, and pushes the child patches to the apply stack as (container, key, child patch).
+     *
+     * @param applyStack the apply stack
+     * @param value      the value to patch
+     * @param patch      the patch of the value
+     * @return the patched value, which is a new opack array if the native array is resized
+     * @throws IllegalArgumentException if the patch does not match the value
+     */
+    private static Object applyEntries(FastStack<Object> applyStack, Object value, OpackObject<Object, Object> patch) {
+        OpackArray<Object> setKeys = (OpackArray<Object>) patch.get(CONST_SET_KEYS_KEY);
+        OpackArray<Object> setValues = (OpackArray<Object>) patch.get(CONST_SET_VALUES_KEY);
+        OpackArray<Object> patchKeys = (OpackArray<Object>) patch.get(CONST_PATCH_KEYS_KEY);
+        OpackArray<Object> patchValues = (OpackArray<Object>) patch.get(CONST_PATCH_VALUES_KEY);
+
+        if ((setKeys == null) != (setValues == null) || (setKeys != null && setKeys.length() != setValues.length())) {
+            throw new IllegalArgumentException("Patch has unpaired set keys and values.");
+        }
+
+        if ((patchKeys == null) != (patchValues == null) || (patchKeys != null && patchKeys.length() != patchValues.length())) {
+            throw new IllegalArgumentException("Patch has unpaired patch keys and child patches.");
+        }
+
+        OpackValue container;
+
+        if (value instanceof OpackObject) {
+            OpackObject<Object, Object> opackObject = (OpackObject<Object, Object>) value;
+            OpackArray<Object> removeKeys = (OpackArray<Object>) patch.get(CONST_REMOVE_KEYS_KEY);
+
+            if (removeKeys != null) {
+                for (int index = 0; index < removeKeys.length(); index++) {
+                    opackObject.remove(removeKeys.get(index));
+                }
+            }
+
+            if (setKeys != null) {
+                for (int index = 0; index < setKeys.length(); index++) {
+                    opackObject.put(setKeys.get(index), setValues.get(index));
+                }
+            }
+
+            container = opackObject;
+        } else if (value instanceof OpackArray) {
+            OpackArray<Object> opackArray = (OpackArray<Object>) value;
+            List<Object> list = getList(opackArray);
+
+            if (patch.containsKey(CONST_LENGTH_KEY)) {
+                int length = ((Number) patch.get(CONST_LENGTH_KEY)).intValue();
+
+                if (length < 0) {
+                    throw new IllegalArgumentException("Patch has negative array length. (got " + length + ")");
+                }
+
+                if (list instanceof NativeList) {
+                    Object arrayObject = ((NativeList) list).getArrayObject();
+                    Object resizedArrayObject = Array.newInstance(arrayObject.getClass().getComponentType(), length);
+
+                    System.arraycopy(arrayObject, 0, resizedArrayObject, 0, Math.min(length, list.size()));
+
+                    opackArray = (OpackArray<Object>) OpackArray.createWithArrayObject(resizedArrayObject);
+                    list = getList(opackArray);
+                } else {
+                    while (list.size() > length) {
+                        list.remove(list.size() - 1);
+                    }
+
+                    while (list.size() < length) {
+                        list.add(null);
+                    }
+                }
+            }
+
+            if (setKeys != null) {
+                for (int index = 0; index < setKeys.length(); index++) {
+                    int arrayIndex = ((Number) setKeys.get(index)).intValue();
+                    Object setValue = setValues.get(index);
+
+                    if (list instanceof NativeList) {
+                        Object arrayObject = ((NativeList) list).getArrayObject();
+                        Class<?> componentType = arrayObject.getClass().getComponentType();
+
+                        try {
+                            Array.set(arrayObject, arrayIndex, convertElement(componentType, setValue));
+                        } catch (IllegalArgumentException exception) {
+                            throw new IllegalArgumentException("Patch sets " + setValue + " at " + arrayIndex + ", but it can not be stored in " + componentType + " array.", exception);
+                        }
+                    } else {
+                        opackArray.set(arrayIndex, setValue);
+                    }
+                }
+            }
+
+            container = opackArray;
+        } else {
+            throw new IllegalArgumentException("Patch can not be applied to " + (value == null ? "null" : value.getClass()) + ". (only opack value can be patched)");
+        }
+
+        if (patchKeys != null) {
+            for (int index = 0; index < patchKeys.length(); index++) {
+                applyStack.push(container);
+                applyStack.push(patchKeys.get(index));
+                applyStack.push(patchValues.get(index));
+            }
+        }
+
+        return container;
+    }
+}
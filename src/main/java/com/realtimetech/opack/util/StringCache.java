@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+
+public class StringCache {
+    private final String @NotNull [] strings;
+    private final int @NotNull [] hashes;
+
+    private final int mask;
+    private final int maxLength;
+
+    private long hitCount;
+    private long missCount;
+    private long bypassCount;
+
+    /**
+     * Constructs a bounded StringCache that returns the canonical instances of the decoded short strings.
+     * The cache is two-way set associative, a missed string evicts the older string of the same set, so the memory is bounded by the capacity.
+     * The cache can be shared by the threads of a codec, a racing lookup compares the whole content so it only misses, but the statistics are approximate.
+     *
+     * @param capacity  the number of slots, rounded up to the power of two
+     * @param maxLength the max length of the string to be cached, in bytes for UTF-8 and in characters for characters
+     * @throws IllegalArgumentException if the capacity is not in [2, 2^30]; if the max length is smaller than 1
+     */
+    public StringCache(int capacity, int maxLength) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be in [2, 2^30], but got " + capacity + ".");
+        }
+
+        if (maxLength < 1) {
+            throw new IllegalArgumentException("Max length must be at least 1, but got " + maxLength + ".");
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        this.strings = new String[size];
+        this.hashes = new int[size];
+
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int getCapacity() {
+        return this.strings.length;
+    }
+
+    /**
+     * @return the max length of the string to be cached
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * @return the number of lookups that returned a cached instance
+     */
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * @return the number of lookups that created and cached a new instance
+     */
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * @return the number of lookups that were not cached because the string is longer than the max length
+     */
+    public long getBypassCount() {
+        return this.bypassCount;
+    }
+
+    /**
+     * Returns the ratio of the hits to the all lookups including the bypassed lookups.
+     *
+     * @return the hit rate in [0, 1], or 0 if there is no lookup
+     */
+    public double getHitRate() {
+        long total = this.hitCount + this.missCount + this.bypassCount;
+
+        return total == 0 ? 0 : (double) this.hitCount / total;
+    }
+
+    /**
+     * Resets the hit, miss and bypass counts.
+     */
+    public void resetStatistics() {
+        this.hitCount = 0;
+        this.missCount = 0;
+        this.bypassCount = 0;
+    }
+
+    /**
+     * Removes all cached strings.
+     */
+    public void clear() {
+        for (int index = 0; index < this.strings.length; index++) {
+            this.strings[index] = null;
+            this.hashes[index] = 0;
+        }
+    }
+
+    /**
+     * Records a lookup that is not cached because the string is longer than the max length, for the decoder that decodes the long string by itself.
+     */
+    public void recordBypass() {
+        this.bypassCount++;
+    }
+
+    /**
+     * Returns the first slot index of the set of the hash, each set has two slots.
+     *
+     * @param hash the hash of the string
+     * @return the first slot index of the set
+     */
+    private int getSlot(int hash) {
+        return (hash ^ (hash >>> 16)) & this.mask & ~1;
+    }
+
+    /**
+     * Puts the missed string to the first slot of the set, the string in the first slot is moved to the second slot.
+     *
+     * @param slot   the first slot index of the set
+     * @param string the string to put
+     * @param hash   the hash of the string
+     */
+    private void put(int slot, @NotNull String string, int hash) {
+        this.strings[slot + 1] = this.strings[slot];
+        this.hashes[slot + 1] = this.hashes[slot];
+
+        this.strings[slot] = string;
+        this.hashes[slot] = hash;
+
+        this.missCount++;
+    }
+
+    /**
+     * Returns the canonical instance of the string of the UTF-8 bytes.
+     * The ASCII bytes are hashed and compared without creating the string, so the hit does not allocate.
+     *
+     * @param bytes  the byte array containing the UTF-8 bytes
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes
+     * @return the cached string, or the new string if it is missed
+     */
+    public @NotNull String get(byte @NotNull [] bytes, int offset, int length) {
+        if (length > this.maxLength) {
+            this.bypassCount++;
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+
+        int limit = offset + length;
+        int hash = 0;
+
+        for (int index = offset; index < limit; index++) {
+            byte value = bytes[index];
+
+            if (value < 0) {
+                return this.get(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            }
+
+            hash = 31 * hash + value;
+        }
+
+        int slot = this.getSlot(hash);
+
+        for (int way = slot; way < slot + 2; way++) {
+            String string = this.strings[way];
+
+            if (string != null && this.hashes[way] == hash && string.length() == length) {
+                int index = 0;
+
+                while (index < length && string.charAt(index) == bytes[offset + index]) {
+                    index++;
+                }
+
+                if (index == length) {
+                    this.hitCount++;
+                    return string;
+                }
+            }
+        }
+
+        String string = new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        this.put(slot, string, hash);
+
+        return string;
+    }
+
+    /**
+     * Returns the canonical instance of the string of the characters, the hit does not allocate.
+     *
+     * @param chars  the character array
+     * @param offset the start offset in the character array
+     * @param length the number of characters
+     * @return the cached string, or the new string if it is missed
+     */
+    public @NotNull String get(char @NotNull [] chars, int offset, int length) {
+        if (length > this.maxLength) {
+            this.bypassCount++;
+            return new String(chars, offset, length);
+        }
+
+        int limit = offset + length;
+        int hash = 0;
+
+        for (int index = offset; index < limit; index++) {
+            hash = 31 * hash + chars[index];
+        }
+
+        int slot = this.getSlot(hash);
+
+        for (int way = slot; way < slot + 2; way++) {
+            String string = this.strings[way];
+
+            if (string != null && this.hashes[way] == hash && string.length() == length) {
+                int index = 0;
+
+                while (index < length && string.charAt(index) == chars[offset + index]) {
+                    index++;
+                }
+
+                if (index == length) {
+                    this.hitCount++;
+                    return string;
+                }
+            }
+        }
+
+        String string = new String(chars, offset, length);
+        this.put(slot, string, hash);
+
+        return string;
+    }
+
+    /**
+     * Returns the canonical instance of the string.
+     *
+     * @param string the string
+     * @return the cached string, or the string itself if it is missed
+     */
+    private @NotNull String get(@NotNull String string) {
+        int hash = string.hashCode();
+        int slot = this.getSlot(hash);
+
+        for (int way = slot; way < slot + 2; way++) {
+            String cached = this.strings[way];
+
+            if (cached != null && this.hashes[way] == hash && cached.equals(string)) {
+                this.hitCount++;
+                return cached;
+            }
+        }
+
+        this.put(slot, string, hash);
+
+        return string;
+    }
+}
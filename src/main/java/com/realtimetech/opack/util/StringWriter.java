@@ -33,6 +33,8 @@ public class StringWriter extends Writer {
     private int currentIndex;
     private int actualLength;
 
+    private final int initialLength;
+
     /**
      * Calls {@code new StringWriter(1024)}
      */
@@ -50,6 +52,8 @@ public class StringWriter extends Writer {
         this.actualLength = 1;
 
         this.increaseArray(initialSize);
+
+        this.initialLength = this.actualLength;
     }
 
     /**
@@ -90,6 +94,22 @@ public class StringWriter extends Writer {
         this.currentIndex += length;
     }
 
+    /**
+     * Writes a portion of a string, the characters are copied to the buffer at once without the intermediate array.
+     *
+     * @param string String to be written
+     * @param offset the starting position in the string
+     * @param length the number of characters to write
+     */
+    @Override
+    public void write(@NotNull String string, int offset, int length) {
+        this.increaseArray(length);
+
+        string.getChars(offset, offset + length, this.chars, this.currentIndex);
+
+        this.currentIndex += length;
+    }
+
     /**
      * Writes a single character.
      *
@@ -179,6 +199,20 @@ public class StringWriter extends Writer {
         this.currentIndex = 0;
     }
 
+    /**
+     * Reset this string writer, and drop the array if it has grown over both the max length and the initial size, so that a reused writer does not retain its largest array.
+     *
+     * @param maxLength the max length of the array to keep
+     */
+    public void reset(int maxLength) {
+        this.currentIndex = 0;
+
+        if (this.actualLength > Math.max(maxLength, this.initialLength)) {
+            this.chars = new char[this.initialLength];
+            this.actualLength = this.initialLength;
+        }
+    }
+
     /**
      * Returns a string created through this string writer.
      *
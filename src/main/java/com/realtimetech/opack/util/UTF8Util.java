@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.util;
+
+import org.jetbrains.annotations.NotNull;
+
+public class UTF8Util {
+    /**
+     * Returns the number of bytes of the string encoded in UTF-8 without encoding it, an unpaired surrogate is counted as '?' like {@link String#getBytes(java.nio.charset.Charset) getBytes}.
+     *
+     * @param string the string to measure
+     * @return the number of bytes
+     */
+    public static int getUTF8Length(@NotNull String string) {
+        int length = string.length();
+        int utf8Length = length;
+
+        for (int charIndex = 0; charIndex < length; charIndex++) {
+            char character = string.charAt(charIndex);
+
+            if (character >= 0x80) {
+                if (character < 0x800) {
+                    utf8Length += 1;
+                } else if (Character.isSurrogate(character)) {
+                    if (Character.isHighSurrogate(character) && charIndex + 1 < length && Character.isLowSurrogate(string.charAt(charIndex + 1))) {
+                        charIndex++;
+                        utf8Length += 2;
+                    }
+                } else {
+                    utf8Length += 2;
+                }
+            }
+        }
+
+        return utf8Length;
+    }
+
+    /**
+     * Encodes the string in UTF-8 directly into the byte array, an unpaired surrogate is written as '?' like {@link String#getBytes(java.nio.charset.Charset) getBytes}.
+     * The leading ASCII characters are copied by the tight loop without transcoding.
+     *
+     * @param string     the string to encode
+     * @param utf8Length the number of bytes of the string encoded in UTF-8, see {@link #getUTF8Length(String) getUTF8Length}
+     * @param bytes      the byte array to write, must have utf8Length bytes from the index
+     * @param index      the start index in the byte array
+     * @return the index after the encoded bytes
+     * @throws IllegalArgumentException if the utf8Length does not match the string
+     */
+    public static int encodeUTF8(@NotNull String string, int utf8Length, byte @NotNull [] bytes, int index) {
+        int startIndex = index;
+        int length = string.length();
+        int charIndex = 0;
+
+        for (; charIndex < length; charIndex++) {
+            char character = string.charAt(charIndex);
+
+            if (character >= 0x80) {
+                break;
+            }
+
+            bytes[index++] = (byte) character;
+        }
+
+        for (; charIndex < length; charIndex++) {
+            char character = string.charAt(charIndex);
+
+            if (character < 0x80) {
+                bytes[index++] = (byte) character;
+            } else if (character < 0x800) {
+                bytes[index++] = (byte) (0xC0 | (character >> 6));
+                bytes[index++] = (byte) (0x80 | (character & 0x3F));
+            } else if (Character.isSurrogate(character)) {
+                if (Character.isHighSurrogate(character) && charIndex + 1 < length && Character.isLowSurrogate(string.charAt(charIndex + 1))) {
+                    int codePoint = Character.toCodePoint(character, string.charAt(++charIndex));
+
+                    bytes[index++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[index++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[index++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[index++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    bytes[index++] = '?';
+                }
+            } else {
+                bytes[index++] = (byte) (0xE0 | (character >> 12));
+                bytes[index++] = (byte) (0x80 | ((character >> 6) & 0x3F));
+                bytes[index++] = (byte) (0x80 | (character & 0x3F));
+            }
+        }
+
+        if (index - startIndex != utf8Length) {
+            throw new IllegalArgumentException("UTF-8 length of string does not match the given length. (expected " + utf8Length + ", got " + (index - startIndex) + ")");
+        }
+
+        return index;
+    }
+
+    /**
+     * Decodes the UTF-8 bytes directly into the character array, a malformed byte is decoded as U+FFFD and the decoding continues at the next byte.
+     * The leading ASCII bytes are copied by the tight loop without transcoding.
+     *
+     * @param bytes  the byte array containing the UTF-8 bytes
+     * @param offset the start offset in the byte array
+     * @param length the number of bytes to decode
+     * @param chars  the character array to write, must have length characters from the index
+     * @param index  the start index in the character array
+     * @return the index after the decoded characters
+     */
+    public static int decodeUTF8(byte @NotNull [] bytes, int offset, int length, char @NotNull [] chars, int index) {
+        int limit = offset + length;
+        int byteIndex = offset;
+
+        for (; byteIndex < limit; byteIndex++) {
+            byte value = bytes[byteIndex];
+
+            if (value < 0) {
+                break;
+            }
+
+            chars[index++] = (char) value;
+        }
+
+        while (byteIndex < limit) {
+            int value = bytes[byteIndex++];
+
+            if (value >= 0) {
+                chars[index++] = (char) value;
+            } else if ((value & 0xE0) == 0xC0) {
+                if (byteIndex < limit && isContinuation(bytes[byteIndex]) && (value & 0x1E) != 0) {
+                    chars[index++] = (char) (((value & 0x1F) << 6) | (bytes[byteIndex++] & 0x3F));
+                } else {
+                    chars[index++] = '\uFFFD';
+                }
+            } else if ((value & 0xF0) == 0xE0) {
+                if (byteIndex + 1 < limit && isContinuation(bytes[byteIndex]) && isContinuation(bytes[byteIndex + 1])) {
+                    char character = (char) (((value & 0x0F) << 12) | ((bytes[byteIndex] & 0x3F) << 6) | (bytes[byteIndex + 1] & 0x3F));
+
+                    if (character >= 0x800 && !Character.isSurrogate(character)) {
+                        chars[index++] = character;
+                        byteIndex += 2;
+                        continue;
+                    }
+                }
+
+                chars[index++] = '\uFFFD';
+            } else if ((value & 0xF8) == 0xF0) {
+                if (byteIndex + 2 < limit && isContinuation(bytes[byteIndex]) && isContinuation(bytes[byteIndex + 1]) && isContinuation(bytes[byteIndex + 2])) {
+                    int codePoint = ((value & 0x07) << 18) | ((bytes[byteIndex] & 0x3F) << 12) | ((bytes[byteIndex + 1] & 0x3F) << 6) | (bytes[byteIndex + 2] & 0x3F);
+
+                    if (codePoint >= 0x10000 && codePoint <= Character.MAX_CODE_POINT) {
+                        chars[index++] = Character.highSurrogate(codePoint);
+                        chars[index++] = Character.lowSurrogate(codePoint);
+                        byteIndex += 3;
+                        continue;
+                    }
+                }
+
+                chars[index++] = '\uFFFD';
+            } else {
+                chars[index++] = '\uFFFD';
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns whether the byte is a continuation byte of the UTF-8 sequence.
+     *
+     * @param value the byte
+     * @return true if the byte is 10xxxxxx
+     */
+    private static boolean isContinuation(byte value) {
+        return (value & 0xC0) == 0x80;
+    }
+}
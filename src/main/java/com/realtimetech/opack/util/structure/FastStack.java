@@ -179,6 +179,22 @@ public class FastStack<T> {
         this.currentIndex = 0;
     }
 
+    /**
+     * Reset this stack, and drop the array if it has grown over the max size, so that a reused stack does not retain its largest array.
+     *
+     * @param maxSize the max size of the array to keep
+     */
+    public void reset(int maxSize) {
+        this.currentIndex = 0;
+
+        if (this.currentSize > maxSize) {
+            this.objects = null;
+            this.currentSize = 1;
+
+            this.growArray();
+        }
+    }
+
     /**
      * Returns the number of elements in this stack.
      *
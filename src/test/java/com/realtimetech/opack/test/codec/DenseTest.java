@@ -24,18 +24,91 @@ package com.realtimetech.opack.test.codec;
 
 import com.realtimetech.opack.Opacker;
 import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.dense.DenseIncrementalDecoder;
+import com.realtimetech.opack.codec.dense.DenseIndex;
+import com.realtimetech.opack.codec.dense.DenseProjection;
+import com.realtimetech.opack.codec.dense.RecordReader;
+import com.realtimetech.opack.codec.dense.RecordWriter;
+import com.realtimetech.opack.codec.dense.reader.BitReader;
+import com.realtimetech.opack.codec.dense.reader.BufferedInputStreamReader;
+import com.realtimetech.opack.codec.dense.reader.ByteArrayReader;
+import com.realtimetech.opack.codec.dense.reader.ByteBufferReader;
+import com.realtimetech.opack.codec.dense.reader.ChannelReader;
+import com.realtimetech.opack.codec.dense.reader.MappedFileReader;
+import com.realtimetech.opack.codec.dense.reader.Reader;
+import com.realtimetech.opack.codec.dense.writer.BitWriter;
+import com.realtimetech.opack.codec.dense.writer.BufferedOutputStreamWriter;
+import com.realtimetech.opack.codec.dense.writer.ByteArrayWriter;
+import com.realtimetech.opack.codec.dense.writer.ByteBufferWriter;
+import com.realtimetech.opack.codec.dense.writer.ChannelWriter;
+import com.realtimetech.opack.codec.dense.writer.MappedFileWriter;
+import com.realtimetech.opack.codec.dense.writer.OutputStreamWriter;
+import com.realtimetech.opack.codec.dense.writer.Writer;
+import com.realtimetech.opack.codec.dense.compression.LZ4BlockCompressor;
+import com.realtimetech.opack.exception.BakeException;
 import com.realtimetech.opack.exception.DecodeException;
 import com.realtimetech.opack.exception.DeserializeException;
 import com.realtimetech.opack.exception.EncodeException;
 import com.realtimetech.opack.exception.SerializeException;
 import com.realtimetech.opack.test.OpackAssert;
 import com.realtimetech.opack.test.opacker.other.ComplexTest;
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.util.UTF8Util;
+import com.realtimetech.opack.value.OpackArray;
 import com.realtimetech.opack.value.OpackObject;
 import com.realtimetech.opack.value.OpackValue;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class DenseTest {
+    public static class ProjectedChildClass {
+        private int value;
+        private String label;
+
+        public ProjectedChildClass() {
+        }
+
+        public ProjectedChildClass(int value, String label) {
+            this.value = value;
+            this.label = label;
+        }
+    }
+
+    public static class ProjectedClass {
+        private int id;
+        private ProjectedChildClass child;
+        private ProjectedChildClass[] children;
+    }
+
+    public static class FullClass {
+        private int id;
+        private String description;
+        private double[] samples;
+        private ProjectedChildClass child;
+        private ProjectedChildClass[] children;
+    }
+
     @Test
     public void bytes_to_object_to_bytes_object() throws DecodeException, EncodeException {
         OpackValue opackValue = CommonOpackValue.create();
@@ -71,4 +144,1267 @@ public class DenseTest {
 
         OpackAssert.assertEquals(originalObject, deserialized);
     }
+
+    @Test
+    public void bytes_to_object_with_compression() throws DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = (OpackObject<Object, Object>) CommonOpackValue.create();
+        OpackArray<Object> repeated = new OpackArray<>();
+
+        for (int index = 0; index < 1000; index++) {
+            repeated.add(CommonOpackValue.create());
+        }
+
+        opackValue.put("repeated", repeated);
+        opackValue.put("doubles", OpackArray.createWithArrayObject(new double[4096]));
+
+        DenseCodec plainCodec = new DenseCodec.Builder().create();
+        byte[] plainBytes = plainCodec.encode(opackValue);
+
+        for (int blockSize : new int[]{16, 1000, 65536}) {
+            DenseCodec denseCodec = new DenseCodec.Builder()
+                    .setCompressionBlockSize(blockSize)
+                    .create();
+
+            byte[] compressedBytes = denseCodec.encode(opackValue);
+
+            if (blockSize >= 1000) {
+                Assertions.assertTrue(compressedBytes.length < plainBytes.length, "Compressed frame must be smaller than plain data (block size " + blockSize + ")");
+            }
+
+            Assertions.assertEquals(opackValue, denseCodec.decode(compressedBytes));
+            Assertions.assertEquals(opackValue, plainCodec.decode(compressedBytes));
+        }
+    }
+
+    @Test
+    public void lz4_block_round_trip() throws IOException {
+        Random random = new Random(0);
+        LZ4BlockCompressor compressor = new LZ4BlockCompressor();
+
+        byte[] text = String.join(" ", Collections.nCopies(512, "opack dense codec")).getBytes(StandardCharsets.UTF_8);
+        byte[] noise = new byte[70000];
+        random.nextBytes(noise);
+        byte[] mixed = new byte[200000];
+        for (int index = 0; index < mixed.length; index++) {
+            mixed[index] = (byte) (random.nextInt(8) == 0 ? random.nextInt() : index % 251);
+        }
+
+        for (byte[] source : new byte[][]{new byte[0], new byte[]{1}, new byte[13], text, noise, mixed, new byte[100000]}) {
+            byte[] compressed = new byte[LZ4BlockCompressor.maxCompressedLength(source.length) + 3];
+            int compressedLength = compressor.compress(source, 0, source.length, compressed, 3);
+
+            byte[] decompressed = new byte[source.length];
+            int decompressedLength = LZ4BlockCompressor.decompress(compressed, 3, compressedLength, decompressed, 0, decompressed.length);
+
+            Assertions.assertEquals(source.length, decompressedLength);
+            Assertions.assertArrayEquals(source, decompressed);
+        }
+
+        byte[] compressed = new byte[LZ4BlockCompressor.maxCompressedLength(text.length)];
+        int compressedLength = compressor.compress(text, 0, text.length, compressed, 0);
+
+        Assertions.assertTrue(compressedLength < text.length / 10);
+        Assertions.assertThrows(IOException.class, () -> LZ4BlockCompressor.decompress(compressed, 0, compressedLength, new byte[text.length / 2], 0, text.length / 2));
+        Assertions.assertThrows(IOException.class, () -> LZ4BlockCompressor.decompress(Arrays.copyOf(compressed, compressedLength / 2), 0, compressedLength / 2, new byte[text.length], 0, text.length));
+    }
+
+    @Test
+    public void bytes_to_object_with_incremental_decoder() throws DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = (OpackObject<Object, Object>) CommonOpackValue.create();
+        opackValue.put("doubles", OpackArray.createWithArrayObject(new double[1024]));
+        opackValue.put("text", String.join(",", Collections.nCopies(2048, "incremental")));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        byte[] bytes = denseCodec.encode(opackValue);
+        byte[] nativeBytes = denseCodec.encode(OpackArray.createWithArrayObject(new int[]{1, 2, 3}));
+
+        byte[] concatenated = Arrays.copyOf(bytes, bytes.length + nativeBytes.length);
+        System.arraycopy(nativeBytes, 0, concatenated, bytes.length, nativeBytes.length);
+
+        for (int chunkSize : new int[]{1, 7, 64, 4096}) {
+            for (boolean direct : new boolean[]{false, true}) {
+                DenseIncrementalDecoder decoder = denseCodec.createIncrementalDecoder();
+                int offset = 0;
+
+                for (int index = 0; index < 2; index++) {
+                    ByteBuffer chunk = null;
+
+                    while (!decoder.isCompleted()) {
+                        Assertions.assertThrows(IllegalStateException.class, decoder::getResult);
+
+                        if (chunk == null || !chunk.hasRemaining()) {
+                            int length = Math.min(chunkSize, concatenated.length - offset);
+                            chunk = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+                            chunk.put(concatenated, offset, length).flip();
+                            offset += length;
+                        }
+
+                        decoder.feed(chunk);
+                    }
+
+                    if (index == 0) {
+                        Assertions.assertEquals(opackValue, decoder.getResult());
+                    } else {
+                        OpackArray<?> opackArray = (OpackArray<?>) decoder.getResult();
+
+                        Assertions.assertEquals(3, opackArray.length());
+                        Assertions.assertEquals(3, opackArray.get(2));
+                    }
+
+                    offset -= chunk.remaining();
+                    decoder.reset();
+                }
+
+                Assertions.assertEquals(concatenated.length, offset);
+            }
+        }
+
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteBuffer littleEndianBuffer = (direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length)).order(ByteOrder.LITTLE_ENDIAN);
+            littleEndianBuffer.put(bytes).flip();
+
+            DenseIncrementalDecoder decoder = denseCodec.createIncrementalDecoder();
+
+            Assertions.assertTrue(decoder.feed(littleEndianBuffer));
+            Assertions.assertEquals(opackValue, decoder.getResult());
+            Assertions.assertEquals(ByteOrder.LITTLE_ENDIAN, littleEndianBuffer.order());
+        }
+    }
+
+    @Test
+    public void incremental_decoder_copies_only_straddling_blocks() throws DecodeException, EncodeException {
+        OpackArray<Object> opackValue = new OpackArray<>();
+        for (int index = 0; index < 1000; index++) {
+            opackValue.add("value " + index);
+        }
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        byte[] bytes = denseCodec.encode(opackValue);
+
+        int chunkSize = 64;
+        int chunkCount = 0;
+
+        DenseIncrementalDecoder decoder = denseCodec.createIncrementalDecoder();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            decoder.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+            chunkCount++;
+        }
+
+        Assertions.assertTrue(decoder.isCompleted());
+        Assertions.assertEquals(opackValue, decoder.getResult());
+
+        // Each chunk leaves at most one straddling block, whose bytes are the only ones copied
+        Assertions.assertTrue(decoder.getCopiedBytes() <= (long) chunkCount * 16, decoder.getCopiedBytes() + " bytes copied of " + bytes.length);
+
+        decoder.reset();
+        Assertions.assertEquals(0, decoder.getCopiedBytes());
+    }
+
+    @Test
+    public void record_stream_seek_and_iterate() throws IOException, DecodeException, EncodeException {
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        Path path = Files.createTempFile("opack-record", ".dense");
+
+        try {
+            int recordCount = 2500;
+
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path))) {
+                RecordWriter recordWriter = new RecordWriter(denseCodec, new OutputStreamWriter(outputStream), 64);
+
+                for (int index = 0; index < recordCount; index++) {
+                    OpackObject<Object, Object> record = new OpackObject<>();
+                    record.put("index", index);
+                    record.put("text", String.join("", Collections.nCopies(index % 50, "r")));
+                    record.put("values", OpackArray.createWithArrayObject(new long[index % 7]));
+
+                    Assertions.assertEquals(index, recordWriter.write(record));
+                }
+
+                recordWriter.finish();
+            }
+
+            try (RecordReader recordReader = new RecordReader(denseCodec, path)) {
+                Assertions.assertTrue(recordReader.isIndexed());
+                Assertions.assertEquals(recordCount, recordReader.getRecordCount());
+
+                for (int index : new int[]{1234, 0, recordCount - 1, 63, 64, 65}) {
+                    OpackObject<Object, Object> record = (OpackObject<Object, Object>) recordReader.read(index);
+
+                    Assertions.assertEquals(index, record.get("index"));
+                    Assertions.assertEquals(index % 50, ((String) record.get("text")).length());
+                }
+
+                recordReader.seek(2000);
+                int index = 2000;
+
+                while (recordReader.hasNext()) {
+                    Assertions.assertEquals(index++, ((OpackObject<Object, Object>) recordReader.next()).get("index"));
+                }
+
+                Assertions.assertEquals(recordCount, index);
+                Assertions.assertThrows(IndexOutOfBoundsException.class, () -> recordReader.read(recordCount));
+            }
+
+            byte[] bytes = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(bytes, bytes.length - 4 - 8 * 4 - 100));
+
+            try (RecordReader recordReader = new RecordReader(denseCodec, path)) {
+                Assertions.assertFalse(recordReader.isIndexed());
+                Assertions.assertTrue(recordReader.getRecordCount() > recordCount - 10 && recordReader.getRecordCount() < recordCount);
+
+                long index = recordReader.getRecordCount() - 1;
+                Assertions.assertEquals((int) index, ((OpackObject<Object, Object>) recordReader.read(index)).get("index"));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void mapped_file_round_trip() throws IOException, DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = (OpackObject<Object, Object>) CommonOpackValue.create();
+        opackValue.put("longs", OpackArray.createWithArrayObject(new long[]{1, Long.MIN_VALUE, Long.MAX_VALUE, 4, 5, 6, 7}));
+        opackValue.put("text", String.join(",", Collections.nCopies(300, "mapped")));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        byte[] expected = denseCodec.encode(opackValue);
+        Path path = Files.createTempFile("opack-mapped", ".dense");
+
+        try {
+            for (int regionSize : new int[]{8, 61, 1 << 20}) {
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    MappedFileWriter mappedFileWriter = new MappedFileWriter(fileChannel, regionSize);
+                    denseCodec.encode(mappedFileWriter, opackValue);
+                    mappedFileWriter.close();
+
+                    Assertions.assertEquals(expected.length, fileChannel.size());
+                }
+
+                Assertions.assertArrayEquals(expected, Files.readAllBytes(path));
+
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    MappedFileReader mappedFileReader = new MappedFileReader(fileChannel, regionSize);
+
+                    Assertions.assertEquals(opackValue, denseCodec.decode(mappedFileReader));
+                    Assertions.assertEquals(expected.length, mappedFileReader.getPosition());
+                    Assertions.assertThrows(IOException.class, mappedFileReader::readByte);
+                }
+
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    MappedFileReader mappedFileReader = new MappedFileReader(fileChannel, regionSize);
+                    OpackObject<Object, Object> projected = (OpackObject<Object, Object>) denseCodec.decode(mappedFileReader, new DenseProjection.Builder().addPath("longs").create());
+
+                    Assertions.assertEquals(opackValue.get("longs"), projected.get("longs"));
+                    Assertions.assertFalse(projected.containsKey("text"));
+                    Assertions.assertEquals(expected.length, mappedFileReader.getPosition());
+                    Assertions.assertThrows(IOException.class, () -> mappedFileReader.skipBytes(1));
+                }
+            }
+
+            byte[] existing = new byte[expected.length * 3];
+            Arrays.fill(existing, (byte) 0x7F);
+
+            for (int regionSize : new int[]{8, 1 << 20}) {
+                Files.write(path, existing);
+
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    fileChannel.position(expected.length);
+
+                    MappedFileWriter mappedFileWriter = new MappedFileWriter(fileChannel, regionSize);
+                    denseCodec.encode(mappedFileWriter, opackValue);
+                    mappedFileWriter.close();
+
+                    Assertions.assertEquals(existing.length, fileChannel.size());
+                    Assertions.assertEquals(expected.length * 2L, fileChannel.position());
+                }
+
+                byte[] bytes = Files.readAllBytes(path);
+
+                Assertions.assertArrayEquals(expected, Arrays.copyOfRange(bytes, expected.length, expected.length * 2));
+                Assertions.assertArrayEquals(Arrays.copyOfRange(existing, 0, expected.length), Arrays.copyOfRange(bytes, 0, expected.length));
+                Assertions.assertArrayEquals(Arrays.copyOfRange(existing, expected.length * 2, existing.length), Arrays.copyOfRange(bytes, expected.length * 2, bytes.length));
+            }
+
+            try (MappedFileWriter mappedFileWriter = new MappedFileWriter(path)) {
+                denseCodec.encode(mappedFileWriter, opackValue);
+            }
+
+            try (MappedFileReader mappedFileReader = new MappedFileReader(path)) {
+                Assertions.assertEquals(opackValue, denseCodec.decode(mappedFileReader));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void byte_buffer_and_channel_round_trip() throws IOException, DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = (OpackObject<Object, Object>) CommonOpackValue.create();
+        opackValue.put("text", String.join(",", Collections.nCopies(3000, "channel")));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        byte[] expected = denseCodec.encode(opackValue);
+
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteBufferWriter byteBufferWriter = new ByteBufferWriter(16, direct);
+            denseCodec.encode(byteBufferWriter, opackValue);
+
+            ByteBuffer byteBuffer = byteBufferWriter.getByteBuffer();
+            byteBuffer.flip();
+
+            Assertions.assertEquals(direct, byteBuffer.isDirect());
+            Assertions.assertEquals(ByteBuffer.wrap(expected), byteBuffer);
+            Assertions.assertEquals(opackValue, denseCodec.decode(new ByteBufferReader(byteBuffer)));
+            Assertions.assertFalse(byteBuffer.hasRemaining());
+        }
+
+        for (ByteOrder byteOrder : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ChannelWriter channelWriter = new ChannelWriter(Channels.newChannel(outputStream), 64, byteOrder);
+
+            denseCodec.encode(channelWriter, opackValue);
+            denseCodec.encode(channelWriter, opackValue);
+            channelWriter.flush();
+
+            byte[] bytes = outputStream.toByteArray();
+            Assertions.assertEquals(expected.length * 2, bytes.length);
+
+            if (byteOrder == ByteOrder.BIG_ENDIAN) {
+                Assertions.assertArrayEquals(expected, Arrays.copyOf(bytes, expected.length));
+            }
+
+            ChannelReader channelReader = new ChannelReader(Channels.newChannel(new ByteArrayInputStream(bytes)), 64, byteOrder);
+
+            Assertions.assertEquals(opackValue, denseCodec.decode(channelReader));
+            Assertions.assertEquals(opackValue, denseCodec.decode(channelReader));
+            Assertions.assertThrows(IOException.class, channelReader::readByte);
+
+            if (byteOrder == ByteOrder.BIG_ENDIAN) {
+                ChannelReader projectedChannelReader = new ChannelReader(Channels.newChannel(new ByteArrayInputStream(bytes)), 64, byteOrder);
+                DenseProjection projection = new DenseProjection.Builder().addPath("unicode").create();
+
+                for (int index = 0; index < 2; index++) {
+                    OpackObject<Object, Object> projected = (OpackObject<Object, Object>) denseCodec.decode(projectedChannelReader, projection);
+
+                    Assertions.assertEquals(opackValue.get("unicode"), projected.get("unicode"));
+                    Assertions.assertFalse(projected.containsKey("text"));
+                }
+
+                Assertions.assertThrows(IOException.class, () -> projectedChannelReader.skipBytes(1));
+            }
+        }
+    }
+
+    @Test
+    public void reader_and_writer_without_ranged_methods() throws IOException, DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = (OpackObject<Object, Object>) CommonOpackValue.create();
+        opackValue.put("ids", OpackArray.createWithArrayObject(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}));
+        opackValue.put("text", String.join(",", Collections.nCopies(300, "ranged")));
+
+        DenseCodec denseCodec = new DenseCodec.Builder()
+                .setPackNativeArrays(true)
+                .setCompressionBlockSize(64)
+                .create();
+
+        ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+        Writer writer = new Writer() {
+            @Override
+            public void writeByte(int value) throws IOException {
+                byteArrayWriter.writeByte(value);
+            }
+
+            @Override
+            public void writeChar(char value) throws IOException {
+                byteArrayWriter.writeChar(value);
+            }
+
+            @Override
+            public void writeShort(short value) throws IOException {
+                byteArrayWriter.writeShort(value);
+            }
+
+            @Override
+            public void writeInt(int value) throws IOException {
+                byteArrayWriter.writeInt(value);
+            }
+
+            @Override
+            public void writeFloat(float value) throws IOException {
+                byteArrayWriter.writeFloat(value);
+            }
+
+            @Override
+            public void writeLong(long value) throws IOException {
+                byteArrayWriter.writeLong(value);
+            }
+
+            @Override
+            public void writeDouble(double value) throws IOException {
+                byteArrayWriter.writeDouble(value);
+            }
+
+            @Override
+            public void writeBytes(byte[] bytes) throws IOException {
+                byteArrayWriter.writeBytes(bytes);
+            }
+        };
+
+        writer.writeBytes(new byte[]{9, 8, 7, 6}, 1, 2);
+        denseCodec.encode(writer, opackValue);
+
+        byte[] bytes = byteArrayWriter.toByteArray();
+        Assertions.assertArrayEquals(new byte[]{8, 7}, Arrays.copyOfRange(bytes, 0, 2));
+        Assertions.assertArrayEquals(denseCodec.encode(opackValue), Arrays.copyOfRange(bytes, 2, bytes.length));
+
+        ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+        Reader reader = new Reader() {
+            @Override
+            public int readByte() throws IOException {
+                return byteArrayReader.readByte();
+            }
+
+            @Override
+            public char readChar() throws IOException {
+                return byteArrayReader.readChar();
+            }
+
+            @Override
+            public short readShort() throws IOException {
+                return byteArrayReader.readShort();
+            }
+
+            @Override
+            public int readInt() throws IOException {
+                return byteArrayReader.readInt();
+            }
+
+            @Override
+            public float readFloat() throws IOException {
+                return byteArrayReader.readFloat();
+            }
+
+            @Override
+            public long readLong() throws IOException {
+                return byteArrayReader.readLong();
+            }
+
+            @Override
+            public double readDouble() throws IOException {
+                return byteArrayReader.readDouble();
+            }
+
+            @Override
+            public void readBytes(byte[] bytes) throws IOException {
+                byteArrayReader.readBytes(bytes);
+            }
+        };
+
+        byte[] range = new byte[8];
+        reader.readBytes(range, 3, 2);
+        Assertions.assertArrayEquals(new byte[]{0, 0, 0, 8, 7, 0, 0, 0}, range);
+
+        Assertions.assertEquals(opackValue, denseCodec.decode(reader));
+
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> writer.writeBytes(range, 6, 3));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> reader.readBytes(range, -1, 2));
+    }
+
+    @Test
+    public void buffered_stream_round_trip() throws IOException, DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = (OpackObject<Object, Object>) CommonOpackValue.create();
+        opackValue.put("text", String.join(",", Collections.nCopies(3000, "stream")));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        byte[] expected = denseCodec.encode(opackValue);
+
+        for (int bufferSize : new int[]{8, 61, 8192}) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            BufferedOutputStreamWriter bufferedOutputStreamWriter = new BufferedOutputStreamWriter(outputStream, bufferSize);
+
+            denseCodec.encode(bufferedOutputStreamWriter, opackValue);
+            denseCodec.encode(bufferedOutputStreamWriter, opackValue);
+            bufferedOutputStreamWriter.flush();
+
+            byte[] bytes = outputStream.toByteArray();
+            Assertions.assertArrayEquals(expected, Arrays.copyOf(bytes, expected.length));
+            Assertions.assertArrayEquals(expected, Arrays.copyOfRange(bytes, expected.length, bytes.length));
+
+            BufferedInputStreamReader bufferedInputStreamReader = new BufferedInputStreamReader(new ByteArrayInputStream(bytes), bufferSize);
+
+            Assertions.assertEquals(opackValue, denseCodec.decode(bufferedInputStreamReader));
+            Assertions.assertEquals(opackValue, denseCodec.decode(bufferedInputStreamReader));
+            Assertions.assertThrows(EOFException.class, bufferedInputStreamReader::readByte);
+
+            BufferedInputStreamReader truncatedReader = new BufferedInputStreamReader(new ByteArrayInputStream(Arrays.copyOf(expected, expected.length - 1)), bufferSize);
+            DecodeException decodeException = Assertions.assertThrows(DecodeException.class, () -> denseCodec.decode(truncatedReader));
+            Assertions.assertTrue(decodeException.getCause() instanceof EOFException);
+        }
+    }
+
+    @Test
+    public void measure_and_encode_exact_size() throws IOException, DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = (OpackObject<Object, Object>) CommonOpackValue.create();
+        opackValue.put("unicode", "a\u00e9\u4e2d\ud83d\ude00\ud83d?\ude00z");
+        opackValue.put("wrappers", OpackArray.createWithArrayObject(new Integer[]{1, null, 3}));
+        opackValue.put("chars", OpackArray.createWithArrayObject(new char[]{'a', '\u4e2d'}));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+        denseCodec.encode(byteArrayWriter, opackValue);
+        byte[] expected = byteArrayWriter.toByteArray();
+
+        Assertions.assertEquals(expected.length, denseCodec.measure(opackValue));
+        Assertions.assertArrayEquals(expected, denseCodec.encode(opackValue));
+
+        byte[] bytes = new byte[expected.length + 10];
+        Assertions.assertEquals(expected.length, denseCodec.encode(opackValue, bytes, 7));
+        Assertions.assertArrayEquals(expected, Arrays.copyOfRange(bytes, 7, 7 + expected.length));
+
+        Assertions.assertThrows(EncodeException.class, () -> denseCodec.encode(opackValue, bytes, 11));
+    }
+
+    @Test
+    public void measured_encode_with_array_plans() throws DecodeException, EncodeException {
+        Random random = new Random(0);
+
+        OpackArray<Object> rows = new OpackArray<>();
+        OpackArray<Object> mixedRows = new OpackArray<>();
+        OpackArray<Object> nested = new OpackArray<>();
+
+        for (int index = 0; index < 200; index++) {
+            OpackObject<Object, Object> row = new OpackObject<>();
+            row.put("id", index);
+            row.put("name", index % 3 == 0 ? null : "name" + (index % 5));
+            rows.add(row);
+
+            OpackObject<Object, Object> mixedRow = new OpackObject<>();
+            mixedRow.put("id", index % 2 == 0 ? (Object) index : (Object) ("id" + index));
+            mixedRows.add(mixedRow);
+        }
+
+        for (int index = 0; index < 20; index++) {
+            int[] ids = new int[64];
+            double[] values = new double[64];
+
+            for (int valueIndex = 0; valueIndex < 64; valueIndex++) {
+                ids[valueIndex] = index % 2 == 0 ? valueIndex : random.nextInt();
+                values[valueIndex] = index % 2 == 0 ? 1.5 : random.nextDouble();
+            }
+
+            OpackArray<Object> pair = new OpackArray<>();
+            pair.add(OpackArray.createWithArrayObject(ids));
+            pair.add(OpackArray.createWithArrayObject(values));
+            pair.add(rows);
+            nested.add(pair);
+        }
+
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("rows", rows);
+        opackValue.put("mixed_rows", mixedRows);
+        opackValue.put("nested", nested);
+        opackValue.put("longs", OpackArray.createWithArrayObject(new long[]{5, 5, 5, 5, 5, 5, 5, 5, 5, 5}));
+        opackValue.put("floats", OpackArray.createWithArrayObject(new float[]{1.0f, 1.0f, 1.0f, 1.0f, 1.0f, 1.0f, 1.0f, 1.0f}));
+        opackValue.put("bytes", OpackArray.createWithArrayObject(new byte[]{1, 2, 3}));
+
+        DenseCodec denseCodec = new DenseCodec.Builder()
+                .setPackNativeArrays(true)
+                .setPackFloatingArrays(true)
+                .setColumnarArrays(true)
+                .create();
+
+        ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+        denseCodec.encode(byteArrayWriter, opackValue);
+        byte[] expected = byteArrayWriter.toByteArray();
+
+        Assertions.assertEquals(expected.length, denseCodec.measure(opackValue));
+        Assertions.assertArrayEquals(expected, denseCodec.encode(opackValue));
+        Assertions.assertArrayEquals(expected, denseCodec.encode(opackValue));
+
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(expected);
+        for (Object key : opackValue.keySet()) {
+            Assertions.assertEquals(opackValue.get(key), decoded.get(key));
+        }
+    }
+
+    @Test
+    public void reuse_after_oversized_value() throws DecodeException, EncodeException {
+        int length = 1 << 17;
+        Random random = new Random(0);
+
+        OpackArray<Object> rows = new OpackArray<>();
+        long[] values = new long[length];
+
+        for (int index = 0; index < length; index++) {
+            OpackObject<Object, Object> row = new OpackObject<>();
+            row.put("id", index);
+            row.put("name", "name" + (index % 7));
+            rows.add(row);
+
+            values[index] = random.nextInt(1 << 20);
+        }
+
+        String longKey = "k".repeat(length);
+
+        OpackObject<Object, Object> largeValue = new OpackObject<>();
+        largeValue.put("rows", rows);
+        largeValue.put("values", OpackArray.createWithArrayObject(values));
+        largeValue.put(longKey, "long");
+
+        OpackArray<Object> deepValue = new OpackArray<>();
+        OpackArray<Object> current = deepValue;
+
+        for (int depth = 0; depth < length; depth++) {
+            OpackArray<Object> child = new OpackArray<>();
+            current.add(child);
+            current = child;
+        }
+
+        current.add("bottom");
+
+        OpackObject<Object, Object> smallValue = new OpackObject<>();
+        smallValue.put("rows", new OpackArray<>(Arrays.asList(rows.get(0), rows.get(1), rows.get(2))));
+        smallValue.put("values", OpackArray.createWithArrayObject(new long[]{1, 2, 3, 4, 5, 6, 7, 8}));
+        smallValue.put("k", "short");
+
+        DenseCodec denseCodec = new DenseCodec.Builder()
+                .setPackNativeArrays(true)
+                .setColumnarArrays(true)
+                .create();
+
+        for (OpackValue opackValue : new OpackValue[]{largeValue, deepValue, smallValue, largeValue, deepValue, smallValue}) {
+            byte[] bytes = denseCodec.encode(opackValue);
+
+            ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+            denseCodec.encode(byteArrayWriter, opackValue);
+
+            Assertions.assertArrayEquals(bytes, byteArrayWriter.toByteArray());
+            Assertions.assertEquals(bytes.length, denseCodec.measure(opackValue));
+
+            OpackValue decoded = denseCodec.decode(bytes);
+
+            if (opackValue == deepValue) {
+                Assertions.assertArrayEquals(bytes, denseCodec.encode(decoded));
+            } else {
+                Assertions.assertEquals(opackValue, decoded);
+            }
+        }
+
+        for (OpackObject<Object, Object> opackValue : Arrays.asList(largeValue, smallValue, largeValue)) {
+            OpackObject<Object, Object> projected = (OpackObject<Object, Object>) denseCodec.decode(denseCodec.encode(opackValue), new DenseProjection.Builder().addPath(longKey).addPath("k").create());
+
+            Assertions.assertEquals(opackValue.get(longKey), projected.get(longKey));
+            Assertions.assertEquals(opackValue.get("k"), projected.get("k"));
+        }
+    }
+
+    @Test
+    public void utf8_strings_match_jdk_encoding() throws IOException, DecodeException, EncodeException {
+        String[] strings = new String[]{
+                "",
+                "ascii only",
+                "latin-1 \u00e9\u00ff\u0080",
+                "cjk \u4e2d\u6587",
+                "emoji \ud83d\ude00",
+                "unpaired \ud83d? \ude00",
+                String.join("", Collections.nCopies(5000, "\u4e2da"))
+        };
+
+        for (String string : strings) {
+            byte[] expected = string.getBytes(StandardCharsets.UTF_8);
+            int utf8Length = UTF8Util.getUTF8Length(string);
+
+            Assertions.assertEquals(expected.length, utf8Length);
+
+            ByteArrayWriter byteArrayWriter = new ByteArrayWriter(1);
+            byteArrayWriter.writeUTF8(string, utf8Length);
+            Assertions.assertArrayEquals(expected, byteArrayWriter.toByteArray());
+
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            BufferedOutputStreamWriter bufferedOutputStreamWriter = new BufferedOutputStreamWriter(byteArrayOutputStream, 64);
+            bufferedOutputStreamWriter.writeUTF8(string, utf8Length);
+            bufferedOutputStreamWriter.flush();
+            Assertions.assertArrayEquals(expected, byteArrayOutputStream.toByteArray());
+
+            String decoded = new String(expected, StandardCharsets.UTF_8);
+
+            Assertions.assertEquals(decoded, new ByteArrayReader(expected).readUTF8(expected.length));
+            Assertions.assertEquals(decoded, new ByteBufferReader(ByteBuffer.wrap(expected)).readUTF8(expected.length));
+            Assertions.assertEquals(decoded, new BufferedInputStreamReader(new ByteArrayInputStream(expected), 64).readUTF8(expected.length));
+        }
+
+        OpackArray<Object> opackArray = new OpackArray<>();
+        for (String string : strings) {
+            opackArray.add(string);
+        }
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        denseCodec.encode(new OutputStreamWriter(byteArrayOutputStream), opackArray);
+
+        byte[] bytes = denseCodec.encode(opackArray);
+        Assertions.assertArrayEquals(byteArrayOutputStream.toByteArray(), bytes);
+
+        OpackArray<Object> decoded = (OpackArray<Object>) denseCodec.decode(bytes);
+        for (int index = 0; index < strings.length; index++) {
+            Assertions.assertEquals(new String(strings[index].getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), decoded.get(index));
+        }
+    }
+
+    @Test
+    public void decode_with_string_cache() throws DecodeException, EncodeException {
+        String longString = String.join("", Collections.nCopies(64, "long"));
+
+        OpackArray<Object> opackArray = new OpackArray<>();
+        for (int index = 0; index < 100; index++) {
+            opackArray.add(index % 2 == 0 ? "KR" : "\uac12");
+            opackArray.add(longString);
+        }
+
+        StringCache stringCache = new StringCache(100, 16);
+        DenseCodec denseCodec = new DenseCodec.Builder().setStringCache(stringCache).create();
+
+        OpackArray<Object> decoded = (OpackArray<Object>) denseCodec.decode(denseCodec.encode(opackArray));
+
+        Assertions.assertEquals(128, stringCache.getCapacity());
+        Assertions.assertEquals(opackArray, decoded);
+        Assertions.assertSame(decoded.get(0), decoded.get(4));
+        Assertions.assertSame(decoded.get(2), decoded.get(6));
+        Assertions.assertNotSame(decoded.get(1), decoded.get(3));
+
+        Assertions.assertEquals(2, stringCache.getMissCount());
+        Assertions.assertEquals(98, stringCache.getHitCount());
+        Assertions.assertEquals(100, stringCache.getBypassCount());
+        Assertions.assertEquals(0.49, stringCache.getHitRate(), 0.0001);
+
+        stringCache.resetStatistics();
+        Assertions.assertEquals(0, stringCache.getHitRate());
+    }
+
+    @Test
+    public void indexed_random_access() throws DecodeException, EncodeException {
+        OpackArray<Object> records = new OpackArray<>();
+        for (int index = 0; index < 1000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("id", index);
+            record.put("name", "record " + index);
+            record.put(7L, index % 2 == 0 ? null : new OpackArray<>());
+            records.add(record);
+        }
+
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("records", records);
+        opackValue.put("Aa", "same hash as BB");
+        opackValue.put("BB", "same hash as Aa");
+        opackValue.put("ints", OpackArray.createWithArrayObject(new int[]{1, 2, 3}));
+        opackValue.put(1.5, true);
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        byte[] bytes = denseCodec.encodeIndexed(opackValue);
+        DenseIndex denseIndex = new DenseIndex(denseCodec, bytes);
+
+        Assertions.assertEquals("record 500", denseIndex.get("records", 500, "name"));
+        Assertions.assertEquals(999, denseIndex.get("records", 999, "id"));
+        Assertions.assertNull(denseIndex.get("records", 2, 7L));
+        Assertions.assertEquals(0, ((OpackArray<?>) denseIndex.get("records", 3, 7L)).length());
+        Assertions.assertEquals("same hash as BB", denseIndex.get("Aa"));
+        Assertions.assertEquals("same hash as Aa", denseIndex.get("BB"));
+        Assertions.assertEquals(2, denseIndex.get("ints", 1));
+        Assertions.assertEquals(true, denseIndex.get(1.5));
+        Assertions.assertEquals("record 1", ((OpackObject<Object, Object>) denseIndex.get("records", 1)).get("name"));
+
+        Assertions.assertNull(denseIndex.get("missing"));
+        Assertions.assertNull(denseIndex.get("records", 1000));
+        Assertions.assertNull(denseIndex.get("records", "0"));
+        Assertions.assertNull(denseIndex.get("Aa", 0));
+        Assertions.assertNull(denseIndex.get("ints", 3));
+
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(bytes);
+        Assertions.assertEquals(records, decoded.get("records"));
+        Assertions.assertEquals("same hash as BB", decoded.get("Aa"));
+        Assertions.assertEquals(3, ((OpackArray<?>) decoded.get("ints")).length());
+
+        DenseIncrementalDecoder incrementalDecoder = denseCodec.createIncrementalDecoder();
+        for (int offset = 0; offset < bytes.length; offset += 7) {
+            incrementalDecoder.feed(ByteBuffer.wrap(bytes, offset, Math.min(7, bytes.length - offset)));
+        }
+        Assertions.assertEquals(records, ((OpackObject<Object, Object>) incrementalDecoder.getResult()).get("records"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DenseIndex(denseCodec, denseCodec.encode(opackValue)));
+    }
+
+    @Test
+    public void decode_with_projection() throws DecodeException, EncodeException, SerializeException, DeserializeException, BakeException {
+        OpackArray<Object> records = new OpackArray<>();
+        for (int index = 0; index < 100; index++) {
+            OpackObject<Object, Object> meta = new OpackObject<>();
+            meta.put("owner", "owner " + index);
+            meta.put("created", (long) index);
+
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("id", index);
+            record.put("name", "record " + index);
+            record.put("payload", String.join(",", Collections.nCopies(100, "payload")));
+            record.put("ints", OpackArray.createWithArrayObject(new int[]{index, index + 1}));
+            record.put("wrappers", OpackArray.createWithArrayObject(new Integer[]{index, index + 1}));
+            record.put("meta", meta);
+            record.put(7L, new OpackArray<>());
+            records.add(record);
+        }
+
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("records", records);
+        opackValue.put("skipped", CommonOpackValue.create());
+        opackValue.put("count", 100);
+        opackValue.put("nullables", OpackArray.createWithArrayObject(new Long[]{null, 1L, null}));
+
+        DenseProjection projection = new DenseProjection.Builder()
+                .addPath("records", "id")
+                .addPath("records", "meta", "owner")
+                .addPath("records", 7L)
+                .addPath("missing", "key")
+                .create();
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+
+        for (byte[] bytes : new byte[][]{denseCodec.encode(opackValue), denseCodec.encodeIndexed(opackValue)}) {
+            for (OpackValue decodedValue : new OpackValue[]{denseCodec.decode(bytes, projection), denseCodec.decode(new BufferedInputStreamReader(new ByteArrayInputStream(bytes), 16), projection)}) {
+                OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) decodedValue;
+                Assertions.assertEquals(1, decoded.size());
+
+                OpackArray<Object> decodedRecords = (OpackArray<Object>) decoded.get("records");
+                Assertions.assertEquals(100, decodedRecords.length());
+
+                for (int index = 0; index < 100; index++) {
+                    OpackObject<Object, Object> record = (OpackObject<Object, Object>) decodedRecords.get(index);
+                    Assertions.assertEquals(3, record.size());
+                    Assertions.assertEquals(index, record.get("id"));
+                    Assertions.assertEquals(0, ((OpackArray<?>) record.get(7L)).length());
+
+                    OpackObject<Object, Object> meta = (OpackObject<Object, Object>) record.get("meta");
+                    Assertions.assertEquals(1, meta.size());
+                    Assertions.assertEquals("owner " + index, meta.get("owner"));
+                }
+            }
+
+            OpackObject<Object, Object> prefixDecoded = (OpackObject<Object, Object>) denseCodec.decode(bytes, new DenseProjection.Builder().addPath("records").addPath("records", "id").addPath("skipped").create());
+            Assertions.assertEquals(2, prefixDecoded.size());
+            Assertions.assertEquals(records, prefixDecoded.get("records"));
+            Assertions.assertEquals(opackValue.get("skipped"), prefixDecoded.get("skipped"));
+            Assertions.assertEquals(records, ((OpackObject<Object, Object>) denseCodec.decode(bytes, new DenseProjection.Builder().addPath().create())).get("records"));
+        }
+
+        Opacker opacker = new Opacker.Builder().create();
+
+        FullClass fullObject = new FullClass();
+        fullObject.id = 10;
+        fullObject.description = "not projected";
+        fullObject.samples = new double[]{1.0, 2.0, 3.0};
+        fullObject.child = new ProjectedChildClass(1, "child");
+        fullObject.children = new ProjectedChildClass[]{new ProjectedChildClass(2, "first"), null, new ProjectedChildClass(3, "third")};
+
+        byte[] bytes = denseCodec.encode(opacker.serialize(fullObject));
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(bytes, DenseProjection.fromType(opacker, ProjectedClass.class));
+
+        Assertions.assertEquals(3, decoded.size());
+        Assertions.assertFalse(decoded.containsKey("description"));
+        Assertions.assertFalse(decoded.containsKey("samples"));
+
+        ProjectedClass projectedObject = opacker.deserialize(ProjectedClass.class, decoded);
+        Assertions.assertEquals(10, projectedObject.id);
+        Assertions.assertEquals("child", projectedObject.child.label);
+        Assertions.assertEquals(3, projectedObject.children.length);
+        Assertions.assertNull(projectedObject.children[1]);
+        Assertions.assertEquals(3, projectedObject.children[2].value);
+
+        Assertions.assertThrows(DecodeException.class, () -> denseCodec.decode(Arrays.copyOf(bytes, bytes.length - 1), DenseProjection.fromType(opacker, ProjectedClass.class)));
+    }
+
+    @Test
+    public void decode_deep_value_with_projection() throws DecodeException, EncodeException {
+        OpackObject<Object, Object> leaf = new OpackObject<>();
+        leaf.put("x", 1);
+        leaf.put("y", "not projected");
+        leaf.put(7L, "not projected");
+
+        OpackArray<Object> deepValue = new OpackArray<>();
+        OpackArray<Object> current = deepValue;
+        for (int index = 0; index < 50000; index++) {
+            OpackArray<Object> next = new OpackArray<>();
+            current.add(next);
+            current = next;
+        }
+        current.add(leaf);
+
+        OpackObject<Object, Object> keyObject = new OpackObject<>();
+        keyObject.put("key", OpackArray.createWithArrayObject(new int[]{1, 2, 3}));
+
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("deep", deepValue);
+        opackValue.put(keyObject, "not projected");
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseProjection projection = new DenseProjection.Builder().addPath("deep", "x").create();
+
+        for (byte[] bytes : new byte[][]{denseCodec.encode(opackValue), denseCodec.encodeIndexed(opackValue)}) {
+            OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(bytes, projection);
+            Assertions.assertEquals(1, decoded.size());
+
+            Object decodedCurrent = decoded.get("deep");
+            for (int index = 0; index < 50000; index++) {
+                OpackArray<Object> decodedArray = (OpackArray<Object>) decodedCurrent;
+                Assertions.assertEquals(1, decodedArray.length());
+
+                decodedCurrent = decodedArray.get(0);
+            }
+
+            OpackArray<Object> decodedLeafArray = (OpackArray<Object>) decodedCurrent;
+            OpackObject<Object, Object> decodedLeaf = (OpackObject<Object, Object>) decodedLeafArray.get(0);
+            Assertions.assertEquals(1, decodedLeaf.size());
+            Assertions.assertEquals(1, decodedLeaf.get("x"));
+        }
+    }
+
+    @Test
+    public void pack_native_arrays() throws DecodeException, EncodeException {
+        Random random = new Random(0);
+
+        long[] timestamps = new long[1000];
+        int[] ids = new int[1000];
+        int[] levels = new int[1000];
+        long[] states = new long[1000];
+        int[] randoms = new int[1000];
+
+        for (int index = 0; index < 1000; index++) {
+            timestamps[index] = 1666000000000L + index * 1000L + random.nextInt(10);
+            ids[index] = 100000 + index;
+            levels[index] = random.nextInt(100) - 50;
+            states[index] = index / 100;
+            randoms[index] = random.nextInt();
+        }
+
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("timestamps", OpackArray.createWithArrayObject(timestamps));
+        opackValue.put("ids", OpackArray.createWithArrayObject(ids));
+        opackValue.put("levels", OpackArray.createWithArrayObject(levels));
+        opackValue.put("states", OpackArray.createWithArrayObject(states));
+        opackValue.put("randoms", OpackArray.createWithArrayObject(randoms));
+        opackValue.put("empty", OpackArray.createWithArrayObject(new long[0]));
+        opackValue.put("extremes", OpackArray.createWithArrayObject(new long[]{Long.MIN_VALUE, Long.MAX_VALUE, 0, Long.MIN_VALUE, Long.MAX_VALUE, -1}));
+        opackValue.put("int_extremes", OpackArray.createWithArrayObject(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE}));
+        opackValue.put("last", "after arrays");
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec packingDenseCodec = new DenseCodec.Builder().setPackNativeArrays(true).create();
+
+        byte[] bytes = denseCodec.encode(opackValue);
+        byte[] packedBytes = packingDenseCodec.encode(opackValue);
+
+        Assertions.assertTrue(packedBytes.length < bytes.length / 3);
+        Assertions.assertEquals(packedBytes.length, packingDenseCodec.measure(opackValue));
+
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(packedBytes);
+        for (Object key : opackValue.keySet()) {
+            Assertions.assertEquals(opackValue.get(key), decoded.get(key));
+        }
+
+        DenseIncrementalDecoder incrementalDecoder = packingDenseCodec.createIncrementalDecoder();
+        for (int offset = 0; offset < packedBytes.length; offset += 5) {
+            incrementalDecoder.feed(ByteBuffer.wrap(packedBytes, offset, Math.min(5, packedBytes.length - offset)));
+        }
+        Assertions.assertEquals(opackValue.get("ids"), ((OpackObject<Object, Object>) incrementalDecoder.getResult()).get("ids"));
+
+        OpackObject<Object, Object> projected = (OpackObject<Object, Object>) denseCodec.decode(packedBytes, new DenseProjection.Builder().addPath("last").create());
+        Assertions.assertEquals("after arrays", projected.get("last"));
+
+        byte[] indexedBytes = packingDenseCodec.encodeIndexed(opackValue);
+        Assertions.assertEquals(ids[10], new DenseIndex(denseCodec, indexedBytes).get("ids", 10));
+
+        byte[] corruptedBytes = packedBytes.clone();
+        byte[] runLengthHeader = new byte[]{0x01, 0x00, 0x00, 0x03, (byte) 0xE8, 0x66};
+        int position = 0;
+        while (!Arrays.equals(corruptedBytes, position, position + runLengthHeader.length, runLengthHeader, 0, runLengthHeader.length)) {
+            position++;
+        }
+        corruptedBytes[position + runLengthHeader.length + 4] = 0x7F;
+        Assertions.assertThrows(DecodeException.class, () -> denseCodec.decode(corruptedBytes));
+    }
+
+    @Test
+    public void versions_of_packed_streams() throws DecodeException, EncodeException {
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("ids", OpackArray.createWithArrayObject(new int[]{100, 101, 102, 103, 104, 105, 106, 107}));
+        opackValue.put("values", OpackArray.createWithArrayObject(new double[]{1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5}));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec[] packingDenseCodecs = new DenseCodec[]{
+                new DenseCodec.Builder().setPackNativeArrays(true).create(),
+                new DenseCodec.Builder().setPackFloatingArrays(true).create(),
+                new DenseCodec.Builder().setColumnarArrays(true).create()
+        };
+
+        byte[] bytes = denseCodec.encode(opackValue);
+        Assertions.assertArrayEquals(new byte[]{0x00, 0x01}, Arrays.copyOfRange(bytes, 4, 6));
+        Assertions.assertArrayEquals(new byte[]{0x00, 0x01}, Arrays.copyOfRange(denseCodec.encodeIndexed(opackValue), 4, 6));
+
+        for (DenseCodec packingDenseCodec : packingDenseCodecs) {
+            byte[] packedBytes = packingDenseCodec.encode(opackValue);
+
+            Assertions.assertArrayEquals(new byte[]{0x00, 0x02}, Arrays.copyOfRange(packedBytes, 4, 6));
+            Assertions.assertArrayEquals(new byte[]{0x00, 0x02}, Arrays.copyOfRange(packingDenseCodec.encodeIndexed(opackValue), 4, 6));
+
+            Assertions.assertEquals(opackValue, denseCodec.decode(packedBytes));
+            Assertions.assertEquals(opackValue, packingDenseCodec.decode(packedBytes));
+            Assertions.assertEquals(opackValue, packingDenseCodec.decode(bytes));
+        }
+
+        byte[] unknownBytes = bytes.clone();
+        unknownBytes[5] = 0x03;
+        Assertions.assertThrows(DecodeException.class, () -> denseCodec.decode(unknownBytes));
+        Assertions.assertEquals(opackValue, new DenseCodec.Builder().setIgnoreVersionCompare(true).create().decode(unknownBytes));
+    }
+
+    @Test
+    public void bit_writer_and_reader_round_trip() throws IOException {
+        Random random = new Random(0);
+        long[] values = new long[1000];
+        int[] bitCounts = new int[1000];
+
+        ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+        BitWriter bitWriter = new BitWriter(byteArrayWriter);
+
+        for (int index = 0; index < values.length; index++) {
+            values[index] = random.nextLong();
+            bitCounts[index] = random.nextInt(65);
+
+            bitWriter.writeBits(values[index], bitCounts[index]);
+        }
+
+        long bitLength = bitWriter.getBitLength();
+        bitWriter.flush();
+
+        Assertions.assertEquals((bitLength + 7) / 8, byteArrayWriter.getLength());
+
+        byte[] bytes = byteArrayWriter.toByteArray();
+        BitReader bitReader = new BitReader(new ByteArrayReader(bytes), bytes.length);
+
+        for (int index = 0; index < values.length; index++) {
+            long mask = bitCounts[index] == 64 ? -1L : (1L << bitCounts[index]) - 1;
+            Assertions.assertEquals(values[index] & mask, bitReader.readBits(bitCounts[index]));
+        }
+
+        Assertions.assertEquals(0, bitReader.getRemaining());
+        Assertions.assertThrows(EOFException.class, () -> bitReader.readBits(8));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bitWriter.writeBits(0, 65));
+    }
+
+    @Test
+    public void pack_floating_arrays() throws DecodeException, EncodeException {
+        Random random = new Random(0);
+
+        double[] temperatures = new double[1000];
+        float[] pressures = new float[1000];
+        double[] randoms = new double[1000];
+        double temperature = 20.0;
+
+        for (int index = 0; index < 1000; index++) {
+            temperature += random.nextInt(3) - 1;
+            temperatures[index] = index % 10 == 0 ? temperature + 0.5 : temperature;
+            pressures[index] = 1013.25f + (index / 50);
+            randoms[index] = random.nextDouble();
+        }
+
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("temperatures", OpackArray.createWithArrayObject(temperatures));
+        opackValue.put("pressures", OpackArray.createWithArrayObject(pressures));
+        opackValue.put("randoms", OpackArray.createWithArrayObject(randoms));
+        opackValue.put("specials", OpackArray.createWithArrayObject(new double[]{Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN}));
+        opackValue.put("float_specials", OpackArray.createWithArrayObject(new float[]{Float.NaN, -0.0f, 0.0f, Float.MIN_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE}));
+        opackValue.put("empty", OpackArray.createWithArrayObject(new double[0]));
+        opackValue.put("last", "after arrays");
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec packingDenseCodec = new DenseCodec.Builder().setPackFloatingArrays(true).create();
+
+        byte[] bytes = denseCodec.encode(opackValue);
+        byte[] packedBytes = packingDenseCodec.encode(opackValue);
+
+        Assertions.assertTrue(packedBytes.length < bytes.length * 2 / 3);
+        Assertions.assertEquals(packedBytes.length, packingDenseCodec.measure(opackValue));
+
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(packedBytes);
+        for (Object key : opackValue.keySet()) {
+            Assertions.assertEquals(opackValue.get(key), decoded.get(key));
+        }
+
+        OpackArray<Object> specials = (OpackArray<Object>) decoded.get("specials");
+        Assertions.assertTrue(Double.isNaN((Double) specials.get(0)));
+        Assertions.assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits((Double) specials.get(1)));
+
+        DenseIncrementalDecoder incrementalDecoder = packingDenseCodec.createIncrementalDecoder();
+        for (int offset = 0; offset < packedBytes.length; offset += 5) {
+            incrementalDecoder.feed(ByteBuffer.wrap(packedBytes, offset, Math.min(5, packedBytes.length - offset)));
+        }
+        Assertions.assertEquals(opackValue.get("temperatures"), ((OpackObject<Object, Object>) incrementalDecoder.getResult()).get("temperatures"));
+
+        OpackObject<Object, Object> projected = (OpackObject<Object, Object>) denseCodec.decode(packedBytes, new DenseProjection.Builder().addPath("last").create());
+        Assertions.assertEquals("after arrays", projected.get("last"));
+    }
+
+    @Test
+    public void columnar_arrays() throws DecodeException, EncodeException {
+        Random random = new Random(0);
+
+        OpackArray<Object> records = new OpackArray<>();
+        for (int index = 0; index < 300; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("id", 100000 + index);
+            record.put("timestamp", 1666000000000L + index * 1000L);
+            record.put("level", new String[]{"INFO", "WARN", "ERROR"}[random.nextInt(3)]);
+            record.put("score", index % 7 == 0 ? null : random.nextDouble());
+            record.put("active", random.nextBoolean());
+            record.put("missing", null);
+            records.add(record);
+        }
+
+        OpackArray<Object> mixedRecords = new OpackArray<>();
+        for (int index = 0; index < 10; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("value", index % 2 == 0 ? (Object) index : (Object) ("value" + index));
+            mixedRecords.add(record);
+        }
+
+        OpackObject<Object, Object> opackValue = new OpackObject<>();
+        opackValue.put("records", records);
+        opackValue.put("mixed", mixedRecords);
+        opackValue.put("last", "after records");
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec columnarDenseCodec = new DenseCodec.Builder().setColumnarArrays(true).create();
+
+        byte[] bytes = denseCodec.encode(opackValue);
+        byte[] columnarBytes = columnarDenseCodec.encode(opackValue);
+
+        Assertions.assertTrue(columnarBytes.length < bytes.length / 2);
+        Assertions.assertEquals(columnarBytes.length, columnarDenseCodec.measure(opackValue));
+
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(columnarBytes);
+        Assertions.assertEquals("after records", decoded.get("last"));
+
+        OpackArray<Object> decodedRecords = (OpackArray<Object>) decoded.get("records");
+        Assertions.assertEquals(records.length(), decodedRecords.length());
+        for (int index = 0; index < records.length(); index++) {
+            OpackObject<Object, Object> record = (OpackObject<Object, Object>) records.get(index);
+            OpackObject<Object, Object> decodedRecord = (OpackObject<Object, Object>) decodedRecords.get(index);
+
+            Assertions.assertEquals(record.size(), decodedRecord.size());
+            for (Object key : record.keySet()) {
+                Assertions.assertTrue(decodedRecord.containsKey(key));
+                Assertions.assertEquals(record.get(key), decodedRecord.get(key));
+            }
+        }
+
+        OpackArray<Object> decodedMixedRecords = (OpackArray<Object>) decoded.get("mixed");
+        for (int index = 0; index < mixedRecords.length(); index++) {
+            Assertions.assertEquals(((OpackObject<Object, Object>) mixedRecords.get(index)).get("value"), ((OpackObject<Object, Object>) decodedMixedRecords.get(index)).get("value"));
+        }
+
+        DenseCodec columnsDenseCodec = new DenseCodec.Builder().setDecodeColumns(true).create();
+        OpackObject<Object, Object> columns = (OpackObject<Object, Object>) ((OpackObject<Object, Object>) columnsDenseCodec.decode(columnarBytes)).get("records");
+        OpackArray<Object> ids = (OpackArray<Object>) columns.get("id");
+        OpackArray<Object> scores = (OpackArray<Object>) columns.get("score");
+        OpackArray<Object> levels = (OpackArray<Object>) columns.get("level");
+        Assertions.assertEquals(records.length(), ids.length());
+        Assertions.assertEquals(100010, ids.get(10));
+        Assertions.assertNull(scores.get(7));
+        Assertions.assertEquals(((OpackObject<Object, Object>) records.get(20)).get("level"), levels.get(20));
+        Assertions.assertNull(((OpackArray<Object>) columns.get("missing")).get(0));
+
+        StringCache stringCache = new StringCache(100, 16);
+        DenseCodec cachedDenseCodec = new DenseCodec.Builder().setStringCache(stringCache).create();
+        OpackArray<Object> firstCachedRecords = (OpackArray<Object>) ((OpackObject<Object, Object>) cachedDenseCodec.decode(columnarBytes)).get("records");
+        OpackArray<Object> secondCachedRecords = (OpackArray<Object>) ((OpackObject<Object, Object>) cachedDenseCodec.decode(columnarBytes)).get("records");
+        Assertions.assertSame(((OpackObject<Object, Object>) firstCachedRecords.get(0)).get("level"), ((OpackObject<Object, Object>) secondCachedRecords.get(0)).get("level"));
+        Assertions.assertTrue(stringCache.getHitCount() >= 3);
+
+        DenseIncrementalDecoder incrementalDecoder = columnarDenseCodec.createIncrementalDecoder();
+        for (int offset = 0; offset < columnarBytes.length; offset += 7) {
+            incrementalDecoder.feed(ByteBuffer.wrap(columnarBytes, offset, Math.min(7, columnarBytes.length - offset)));
+        }
+        OpackArray<Object> incrementalRecords = (OpackArray<Object>) ((OpackObject<Object, Object>) incrementalDecoder.getResult()).get("records");
+        Assertions.assertEquals(((OpackObject<Object, Object>) records.get(42)).get("timestamp"), ((OpackObject<Object, Object>) incrementalRecords.get(42)).get("timestamp"));
+
+        OpackObject<Object, Object> projected = (OpackObject<Object, Object>) denseCodec.decode(columnarBytes, new DenseProjection.Builder().addPath("records", "id").addPath("last").create());
+        OpackObject<Object, Object> projectedRecord = (OpackObject<Object, Object>) ((OpackArray<Object>) projected.get("records")).get(5);
+        Assertions.assertEquals(100005, projectedRecord.get("id"));
+        Assertions.assertFalse(projectedRecord.containsKey("level"));
+        Assertions.assertEquals("after records", projected.get("last"));
+
+        byte[] corruptedBytes = columnarBytes.clone();
+        byte[] columnarHeader = new byte[]{0x04, 0x00, 0x00, 0x01, 0x2C, 0x00, 0x00, 0x00, 0x06};
+        int position = 0;
+        while (!Arrays.equals(corruptedBytes, position, position + columnarHeader.length, columnarHeader, 0, columnarHeader.length)) {
+            position++;
+        }
+        corruptedBytes[position + columnarHeader.length + 4] = 0x01;
+        Assertions.assertThrows(DecodeException.class, () -> denseCodec.decode(corruptedBytes));
+    }
+
+    @Test
+    public void encode_and_decode_on_threads() throws Exception {
+        DenseCodec denseCodec = new DenseCodec.Builder()
+                .setPackNativeArrays(true)
+                .setColumnarArrays(true)
+                .setStringCache(new StringCache(256, 16))
+                .create();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        Future<?>[] futures = new Future[8];
+
+        try {
+            for (int thread = 0; thread < futures.length; thread++) {
+                int threadIndex = thread;
+
+                futures[thread] = executorService.submit(() -> {
+                    OpackArray<Object> records = new OpackArray<>();
+                    for (int index = 0; index < 50; index++) {
+                        OpackObject<Object, Object> record = new OpackObject<>();
+                        record.put("id", threadIndex * 1000 + index);
+                        record.put("name", "thread-" + threadIndex);
+                        records.add(record);
+                    }
+
+                    int[] values = new int[100];
+                    for (int index = 0; index < values.length; index++) {
+                        values[index] = threadIndex * 100000 + index;
+                    }
+
+                    OpackObject<Object, Object> opackValue = new OpackObject<>();
+                    opackValue.put("thread", threadIndex);
+                    opackValue.put("records", records);
+                    opackValue.put("values", OpackArray.createWithArrayObject(values));
+
+                    for (int loop = 0; loop < 200; loop++) {
+                        byte[] bytes = denseCodec.encode(opackValue);
+                        Assertions.assertEquals(bytes.length, denseCodec.measure(opackValue));
+
+                        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) denseCodec.decode(bytes);
+                        Assertions.assertEquals(threadIndex, decoded.get("thread"));
+                        Assertions.assertEquals(opackValue.get("values"), decoded.get("values"));
+
+                        OpackObject<Object, Object> record = (OpackObject<Object, Object>) ((OpackArray<Object>) decoded.get("records")).get(49);
+                        Assertions.assertEquals(threadIndex * 1000 + 49, record.get("id"));
+                        Assertions.assertEquals("thread-" + threadIndex, record.get("name"));
+                    }
+
+                    return null;
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
 }
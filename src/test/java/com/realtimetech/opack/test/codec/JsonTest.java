@@ -30,11 +30,26 @@ import com.realtimetech.opack.exception.EncodeException;
 import com.realtimetech.opack.exception.SerializeException;
 import com.realtimetech.opack.test.OpackAssert;
 import com.realtimetech.opack.test.opacker.other.ComplexTest;
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.value.OpackArray;
 import com.realtimetech.opack.value.OpackObject;
 import com.realtimetech.opack.value.OpackValue;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class JsonTest {
     @Test
     public void object_to_string_to_object() throws DecodeException, EncodeException {
@@ -115,4 +130,537 @@ public class JsonTest {
 
         OpackAssert.assertEquals(originalObject, deserialized);
     }
+
+    @Test
+    public void decode_with_string_cache() throws DecodeException {
+        StringCache stringCache = new StringCache(64, 8);
+        JsonCodec jsonCodec = new JsonCodec.Builder().setStringCache(stringCache).create();
+
+        OpackArray<Object> decoded = (OpackArray<Object>) jsonCodec.decode("[{\"code\": \"KR\"}, {\"code\": \"KR\"}, \"K\\u0052\", \"long string value\"]");
+
+        OpackObject<Object, Object> first = (OpackObject<Object, Object>) decoded.get(0);
+        OpackObject<Object, Object> second = (OpackObject<Object, Object>) decoded.get(1);
+
+        Assertions.assertSame(first.get("code"), second.get("code"));
+        Assertions.assertEquals("KR", decoded.get(2));
+        Assertions.assertEquals("long string value", decoded.get(3));
+
+        Assertions.assertEquals(2, stringCache.getMissCount());
+        Assertions.assertEquals(2, stringCache.getHitCount());
+        Assertions.assertEquals(1, stringCache.getBypassCount());
+    }
+
+    @Test
+    public void encode_and_decode_on_threads() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        Future<?>[] futures = new Future[8];
+
+        try {
+            for (int thread = 0; thread < futures.length; thread++) {
+                int threadIndex = thread;
+
+                futures[thread] = executorService.submit(() -> {
+                    OpackArray<Object> values = new OpackArray<>();
+                    for (int index = 0; index < 50; index++) {
+                        values.add("thread-" + threadIndex + "-" + index);
+                    }
+
+                    OpackObject<Object, Object> opackValue = new OpackObject<>();
+                    opackValue.put("thread", threadIndex);
+                    opackValue.put("values", values);
+
+                    String expected = jsonCodec.encode(opackValue);
+
+                    for (int loop = 0; loop < 200; loop++) {
+                        String json = jsonCodec.encode(opackValue);
+                        Assertions.assertEquals(expected, json);
+
+                        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) jsonCodec.decode(json);
+                        Assertions.assertEquals((long) threadIndex, decoded.get("thread"));
+                        Assertions.assertEquals(values, decoded.get("values"));
+                    }
+
+                    return null;
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void decode_from_reader() throws DecodeException, EncodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        JsonCodec prettyJsonCodec = new JsonCodec.Builder().setUsePrettyFormat(true).create();
+
+        String json = jsonCodec.encode(CommonOpackValue.create());
+        OpackValue expected = jsonCodec.decode(json);
+
+        for (int bufferSize : new int[]{1, 2, 3, 7, 64, 8192}) {
+            JsonCodec streamJsonCodec = new JsonCodec.Builder().setDecodeBufferSize(bufferSize).create();
+
+            Assertions.assertEquals(expected, streamJsonCodec.decode(new StringReader(json)));
+            Assertions.assertEquals(expected, streamJsonCodec.decode(new StringReader(prettyJsonCodec.encode(expected))));
+            Assertions.assertEquals(expected, streamJsonCodec.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+        }
+
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) new JsonCodec.Builder().setDecodeBufferSize(4).create()
+                .decode(new StringReader(" {\"escape\" : \"a\\/b\\u00e9\\n\", \"numbers\": [-12, 1.5e3, 2E-2, 9223372036854775807], \"empty\": {}, \"list\": [], \"flags\": [true, false, null]} "));
+
+        Assertions.assertEquals("a/b\u00e9\n", decoded.get("escape"));
+        Assertions.assertEquals(new OpackArray<>(new Object[]{-12L, 1500.0, 0.02, Long.MAX_VALUE}), decoded.get("numbers"));
+        Assertions.assertEquals(0, ((OpackObject<Object, Object>) decoded.get("empty")).size());
+        Assertions.assertEquals(0, ((OpackArray<Object>) decoded.get("list")).length());
+        Assertions.assertEquals(true, ((OpackArray<Object>) decoded.get("flags")).get(0));
+
+        for (String malformed : new String[]{"", "{", "[1,]", "{\"a\" 1}", "[1] [2]", "{\"a\": tru}", "[\"open", "[1}", "\"root\"", "[\"\\x\"]"}) {
+            Assertions.assertThrows(DecodeException.class, () -> jsonCodec.decode(new StringReader(malformed)), malformed);
+        }
+    }
+
+    @Test
+    public void decode_from_bytes() throws DecodeException, EncodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+        OpackObject<Object, Object> multilingual = new OpackObject<>();
+        multilingual.put("ascii", "plain text");
+        multilingual.put("\ud55c\uae00", "\ud55c\uad6d\uc5b4 \u65e5\u672c\u8a9e caf\u00e9 \ud83d\ude00\ud83c\udf89");
+        multilingual.put("escaped", "line\n\"quoted\" \u00e9\u4e2d\ud83d\ude00\ttab");
+        multilingual.put("common", CommonOpackValue.create());
+
+        String json = jsonCodec.encode(multilingual);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        OpackValue expected = jsonCodec.decode(json);
+
+        Assertions.assertEquals(expected, jsonCodec.decode(bytes));
+        Assertions.assertEquals(expected, jsonCodec.decode(ByteBuffer.wrap(bytes)));
+
+        byte[] padded = new byte[bytes.length + 6];
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+        Assertions.assertEquals(expected, jsonCodec.decode(padded, 3, bytes.length));
+        Assertions.assertEquals(expected, jsonCodec.decode(ByteBuffer.wrap(padded, 3, bytes.length).slice()));
+
+        for (int bufferSize : new int[]{1, 2, 3, 5, 64, 8192}) {
+            JsonCodec streamJsonCodec = new JsonCodec.Builder().setDecodeBufferSize(bufferSize).create();
+            ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+            directBuffer.flip();
+
+            Assertions.assertEquals(expected, streamJsonCodec.decode(new ByteArrayInputStream(bytes)));
+            Assertions.assertEquals(expected, streamJsonCodec.decode(directBuffer));
+            Assertions.assertEquals(0, directBuffer.position());
+        }
+
+        JsonCodec cacheJsonCodec = new JsonCodec.Builder().setStringCache(new StringCache(256, 64)).create();
+        Assertions.assertEquals(expected, cacheJsonCodec.decode(bytes));
+
+        OpackObject<Object, Object> decoded = (OpackObject<Object, Object>) jsonCodec.decode(new byte[]{'{', '"', 'a', '"', ':', '"', (byte) 0xC3, '"', '}'});
+        Assertions.assertEquals("\ufffd", decoded.get("a"));
+
+        for (String malformed : new String[]{"", "{", "[1,]", "{\"a\" 1}", "[1] [2]", "{\"a\": tru}", "[\"open", "[1}", "\"root\"", "[\"\\x\"]"}) {
+            Assertions.assertThrows(DecodeException.class, () -> jsonCodec.decode(malformed.getBytes(StandardCharsets.UTF_8)), malformed);
+        }
+
+        Assertions.assertThrows(DecodeException.class, () -> jsonCodec.decode(bytes, 1, bytes.length));
+    }
+
+    private static void assertNumbers(JsonCodec jsonCodec, JsonCodec streamJsonCodec, List<String> numbers) throws DecodeException {
+        String json = "[" + String.join(",", numbers) + "]";
+        OpackArray<Object>[] decodedArrays = new OpackArray[]{
+                (OpackArray<Object>) jsonCodec.decode(json),
+                (OpackArray<Object>) jsonCodec.decode(json.getBytes(StandardCharsets.UTF_8)),
+                (OpackArray<Object>) streamJsonCodec.decode(new StringReader(json))
+        };
+
+        for (int index = 0; index < numbers.size(); index++) {
+            String number = numbers.get(index);
+            boolean decimal = number.indexOf('.') != -1 || number.indexOf('e') != -1 || number.indexOf('E') != -1;
+
+            for (OpackArray<Object> decodedArray : decodedArrays) {
+                Object decoded = decodedArray.get(index);
+
+                if (decimal) {
+                    Assertions.assertEquals(Double.doubleToRawLongBits(Double.parseDouble(number)), Double.doubleToRawLongBits((Double) decoded), number);
+                } else {
+                    Assertions.assertEquals(Long.parseLong(number), decoded, number);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void decode_numbers() throws DecodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        JsonCodec streamJsonCodec = new JsonCodec.Builder().setDecodeBufferSize(3).create();
+        Random random = new Random(0);
+        List<String> numbers = new ArrayList<>();
+
+        for (int exponent = -350; exponent <= 320; exponent++) {
+            numbers.add("1e" + exponent);
+            numbers.add("-9.999999999999999e" + exponent);
+            numbers.add("4.9406564584124654e" + exponent);
+            numbers.add("2.2250738585072011e" + exponent);
+            numbers.add("1.7976931348623157e" + exponent);
+        }
+
+        for (double value : new double[]{0.0, -0.0, Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, Math.nextDown(Double.MIN_NORMAL), Math.nextUp(1.0), Math.nextDown(1.0), 0.1, 0.3, 9007199254740993.0}) {
+            numbers.add(Double.toString(value));
+        }
+
+        numbers.add("9007199254740993.0");
+        numbers.add("2.4703282292062327e-324");
+        numbers.add("2.4703282292062328e-324");
+        numbers.add("1.7976931348623158e308");
+        numbers.add("1.7976931348623159e308");
+        numbers.add("0.000000000000000000000000000000000000000000001");
+        numbers.add("123456789012345678901234567890.123456789012345678901234567890");
+        numbers.add("2.22507385850720113605740979670913197593481954635164564e-308");
+        numbers.add("00012.50");
+        numbers.add("1E+2");
+
+        for (int significand = 0; significand < 10000; significand++) {
+            numbers.add(significand + "." + significand + "e" + (significand % 700 - 350));
+        }
+
+        for (int index = 0; index < 200000; index++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                numbers.add(Double.toString(value));
+            }
+
+            numbers.add(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+
+            StringBuilder digits = new StringBuilder();
+            int digitCount = 1 + random.nextInt(25);
+
+            for (int digit = 0; digit < digitCount; digit++) {
+                digits.append((char) ('0' + random.nextInt(10)));
+            }
+
+            digits.insert(1 + random.nextInt(digitCount), '.');
+            numbers.add(digits + "e" + (random.nextInt(700) - 350));
+        }
+
+        for (long value : new long[]{0, -1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE / 10, Long.MIN_VALUE / 10, 999999999999999999L, 1000000000000000000L}) {
+            numbers.add(Long.toString(value));
+        }
+
+        for (int index = 0; index < 100000; index++) {
+            numbers.add(Long.toString(random.nextLong() >> random.nextInt(64)));
+        }
+
+        assertNumbers(jsonCodec, streamJsonCodec, numbers);
+
+        for (String malformed : new String[]{"[-]", "[1-2]", "[1e]", "[1e+]", "[--1]", "[1.2.3]", "[1ee5]", "[-e5]", "[9223372036854775808]", "[-9223372036854775809]", "[99999999999999999999]"}) {
+            Assertions.assertThrows(DecodeException.class, () -> jsonCodec.decode(malformed), malformed);
+            Assertions.assertThrows(DecodeException.class, () -> jsonCodec.decode(malformed.getBytes(StandardCharsets.UTF_8)), malformed);
+            Assertions.assertThrows(DecodeException.class, () -> streamJsonCodec.decode(new StringReader(malformed)), malformed);
+        }
+    }
+
+    @Test
+    public void encode_numbers() throws DecodeException, EncodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        Random random = new Random(0);
+
+        OpackArray<Object> literals = new OpackArray<>();
+        literals.add(1.0E23);
+        literals.add(100.0);
+        literals.add(0.001);
+        literals.add(-0.0);
+        literals.add(1.0E7);
+        literals.add(Double.MIN_VALUE);
+        literals.add(0.1f);
+        literals.add(Long.MIN_VALUE);
+        literals.add(-120);
+        literals.add((short) 7);
+        literals.add((byte) -8);
+        Assertions.assertEquals("[1.0E23,100.0,0.001,-0.0,1.0E7,4.9E-324,0.1,-9223372036854775808,-120,7,-8]", jsonCodec.encode(literals));
+
+        double[] doubles = new double[100000];
+        float[] floats = new float[100000];
+        long[] longs = new long[100000];
+        int[] ints = new int[100000];
+
+        for (int index = 0; index < doubles.length; index++) {
+            do {
+                doubles[index] = index % 2 == 0 ? Double.longBitsToDouble(random.nextLong()) : random.nextInt(1000000) / 100.0;
+            } while (Double.isNaN(doubles[index]) || Double.isInfinite(doubles[index]));
+
+            do {
+                floats[index] = index % 2 == 0 ? Float.intBitsToFloat(random.nextInt()) : random.nextInt(100000) / 100.0f;
+            } while (Float.isNaN(floats[index]) || Float.isInfinite(floats[index]));
+
+            longs[index] = random.nextLong() >> random.nextInt(64);
+            ints[index] = random.nextInt() >> random.nextInt(32);
+        }
+
+        OpackArray<Object> decodedDoubles = (OpackArray<Object>) jsonCodec.decode(jsonCodec.encode(OpackArray.createWithArrayObject(doubles)));
+        OpackArray<Object> decodedFloats = (OpackArray<Object>) jsonCodec.decode(jsonCodec.encode(OpackArray.createWithArrayObject(floats)));
+        OpackArray<Object> decodedLongs = (OpackArray<Object>) jsonCodec.decode(jsonCodec.encode(OpackArray.createWithArrayObject(longs)));
+        OpackArray<Object> decodedInts = (OpackArray<Object>) jsonCodec.decode(jsonCodec.encode(OpackArray.createWithArrayObject(ints)));
+
+        for (int index = 0; index < doubles.length; index++) {
+            Assertions.assertEquals(doubles[index], (double) decodedDoubles.get(index));
+            Assertions.assertEquals(floats[index], (float) (double) decodedFloats.get(index));
+            Assertions.assertEquals(longs[index], decodedLongs.get(index));
+            Assertions.assertEquals((long) ints[index], decodedInts.get(index));
+
+            String doubleString = jsonCodec.encode(new OpackArray<>(new Object[]{doubles[index]}));
+            Assertions.assertTrue(doubleString.length() <= Double.toString(doubles[index]).length() + 2, doubleString);
+        }
+    }
+
+    @Test
+    public void encode_layout() throws DecodeException, EncodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        JsonCodec prettyJsonCodec = new JsonCodec.Builder().setUsePrettyFormat(true).create();
+
+        OpackObject<Object, Object> inner = new OpackObject<>();
+        inner.put("b", new OpackArray<>(new Object[]{1, "x", null}));
+
+        OpackObject<Object, Object> element = new OpackObject<>();
+        element.put("c", true);
+
+        OpackArray<Object> list = new OpackArray<>(new Object[]{element, 2.5, OpackArray.createWithArrayObject(new int[]{3, 4}), new OpackArray<>()});
+
+        OpackObject<Object, Object> root = new OpackObject<>();
+        root.put("a", inner);
+        root.put("d", list);
+        root.put("e", new OpackObject<>());
+
+        Assertions.assertEquals("{\"e\":{},\"d\":[{\"c\":true},2.5,[3,4],[]],\"a\":{\"b\":[1,\"x\",null]}}", jsonCodec.encode(root));
+        Assertions.assertEquals("{\r\n    \"e\": {\r\n\r\n    },\r\n    \"d\": [{\"c\": true}, 2.5, [3,4], []],\r\n    \"a\": {\r\n        \"b\": [1, \"x\", null]\r\n    }\r\n}", prettyJsonCodec.encode(root));
+        Assertions.assertEquals("[{\"c\": true}, 2.5, [3,4], []]", prettyJsonCodec.encode(list));
+
+        OpackArray<Object> deep = new OpackArray<>();
+        OpackArray<Object> current = deep;
+
+        for (int depth = 0; depth < 10000; depth++) {
+            OpackArray<Object> next = new OpackArray<>();
+
+            current.add(depth);
+            current.add(next);
+            current = next;
+        }
+
+        String deepJson = jsonCodec.encode(deep);
+
+        Assertions.assertEquals(deepJson, jsonCodec.encode(jsonCodec.decode(deepJson)));
+    }
+
+    @Test
+    public void encode_escaped_strings() throws DecodeException, EncodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+        OpackArray<Object> strings = new OpackArray<>(new Object[]{"", "plain", "\"start", "end\\", "mid\u0001dle\n", "\u2028\u2029\t\b\f\r", "\ud83d\ude00 caf\u00e9"});
+        String expected = "[\"\",\"plain\",\"\\\"start\",\"end\\\\\",\"mid\\u0001dle\\n\",\"\\u2028\\u2029\\t\\b\\f\\r\",\"\ud83d\ude00 caf\u00e9\"]";
+
+        Assertions.assertEquals(expected, jsonCodec.encode(strings));
+
+        java.io.StringWriter writer = new java.io.StringWriter();
+        jsonCodec.encode(writer, strings);
+        Assertions.assertEquals(expected, writer.toString());
+
+        Assertions.assertEquals(strings, jsonCodec.decode(expected));
+    }
+
+    @Test
+    public void encode_to_utf8_bytes() throws DecodeException, EncodeException {
+        OpackObject<Object, Object> value = new OpackObject<>();
+        value.put("common", CommonOpackValue.create());
+        value.put("escape", "quote\" backslash\\ control\u0001\n\t line\u2028\u2029");
+        value.put("multilingual", "caf\u00e9 \u07ff \u0800 \ud55c\uae00 \uffff \ud83d\ude00");
+        value.put("surrogate", new OpackArray<>(new Object[]{"\ud83d", "\ude00", "a\ud83d\ud83d\ude00b", '\ud83d', '\ude00'}));
+
+        for (JsonCodec jsonCodec : new JsonCodec[]{
+                new JsonCodec.Builder().setEncodeBufferSize(8).create(),
+                new JsonCodec.Builder().setUsePrettyFormat(true).setEnableConvertCharacterToString(true).create()
+        }) {
+            byte[] expected = jsonCodec.encode(value).getBytes(StandardCharsets.UTF_8);
+
+            Assertions.assertArrayEquals(expected, jsonCodec.encodeToBytes(value));
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            jsonCodec.encode(outputStream, value);
+            Assertions.assertArrayEquals(expected, outputStream.toByteArray());
+
+            for (ByteBuffer byteBuffer : new ByteBuffer[]{ByteBuffer.allocate(expected.length + 16), ByteBuffer.allocateDirect(expected.length + 16)}) {
+                byteBuffer.position(7);
+                jsonCodec.encode(byteBuffer, value);
+                Assertions.assertEquals(7 + expected.length, byteBuffer.position());
+
+                byte[] written = new byte[expected.length];
+                byteBuffer.position(7);
+                byteBuffer.get(written);
+                Assertions.assertArrayEquals(expected, written);
+
+                byteBuffer.position(7);
+                byteBuffer.limit(7 + expected.length);
+                Assertions.assertEquals(jsonCodec.decode(new String(expected, StandardCharsets.UTF_8)), jsonCodec.decode(byteBuffer));
+            }
+
+            ByteBuffer smallBuffer = ByteBuffer.allocate(expected.length - 1);
+            EncodeException overflow = Assertions.assertThrows(EncodeException.class, () -> jsonCodec.encode(smallBuffer, value));
+            Assertions.assertTrue(overflow.getCause() instanceof BufferOverflowException);
+            Assertions.assertThrows(EncodeException.class, () -> jsonCodec.encode(ByteBuffer.allocateDirect(expected.length - 1), value));
+            Assertions.assertThrows(EncodeException.class, () -> jsonCodec.encode(ByteBuffer.allocate(expected.length).asReadOnlyBuffer(), value));
+
+            Assertions.assertArrayEquals(expected, jsonCodec.encodeToBytes(value));
+        }
+
+        List<Integer> writeSizes = new ArrayList<>();
+        new JsonCodec.Builder().setEncodeBufferSize(64).create().encode(new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                writeSizes.add(length);
+                super.write(bytes, offset, length);
+            }
+        }, value);
+
+        Assertions.assertTrue(writeSizes.size() > 1);
+        Assertions.assertTrue(writeSizes.stream().allMatch(size -> size <= 64));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new JsonCodec.Builder().setEncodeBufferSize(4).create());
+    }
+
+    @Test
+    public void decode_with_structural_index() throws DecodeException, EncodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        JsonCodec prettyJsonCodec = new JsonCodec.Builder().setUsePrettyFormat(true).create();
+        JsonCodec indexJsonCodec = new JsonCodec.Builder().setUseStructuralIndex(true).create();
+
+        OpackObject<Object, Object> value = new OpackObject<>();
+        value.put("common", CommonOpackValue.create());
+        value.put("\ud55c\uae00", "\ud55c\uad6d\uc5b4 \u65e5\u672c\u8a9e caf\u00e9 \ud83d\ude00");
+        value.put("escaped", "line\n\"quoted\" back\\slash \\\\\" \u00e9\ttab");
+
+        for (String json : new String[]{jsonCodec.encode(value), prettyJsonCodec.encode(value)}) {
+            OpackValue expected = jsonCodec.decode(json);
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+            Assertions.assertEquals(expected, indexJsonCodec.decode(bytes));
+            Assertions.assertEquals(expected, indexJsonCodec.decode(ByteBuffer.wrap(bytes)));
+        }
+
+        String[] contents = new String[]{"a\\\\", "\\\"quoted\\\"", "\\\\\\\\\\\"", "x\\u00e9\\/", "\u00e9\u4e2d\ud83d\ude00", "\\\\\\\\"};
+
+        for (int padding = 0; padding < 140; padding++) {
+            for (String content : contents) {
+                StringBuilder builder = new StringBuilder("{");
+
+                for (int index = 0; index < padding; index++) {
+                    builder.append(' ');
+                }
+
+                String json = builder.append("\"key\": [\"").append(content).append("\", -1.5e3, true, null, \"").append(content).append("\"]}").toString();
+
+                Assertions.assertEquals(jsonCodec.decode(json), indexJsonCodec.decode(json.getBytes(StandardCharsets.UTF_8)), json);
+            }
+        }
+
+        Random random = new Random(0);
+        char[] alphabet = new char[]{'a', ' ', '\\', '\"', '/', '\n', '{', '}', '[', ']', ':', ',', '\u00e9', '\u4e2d', '\ud83d', '\ude00'};
+
+        for (int document = 0; document < 300; document++) {
+            OpackArray<Object> array = new OpackArray<>();
+
+            for (int element = 0; element < 1 + random.nextInt(30); element++) {
+                StringBuilder builder = new StringBuilder();
+
+                for (int index = 0; index < random.nextInt(100); index++) {
+                    char character = alphabet[random.nextInt(alphabet.length - 2)];
+                    builder.append(character);
+
+                    if (random.nextInt(20) == 0) {
+                        builder.append(alphabet[alphabet.length - 2]).append(alphabet[alphabet.length - 1]);
+                    }
+                }
+
+                array.add(random.nextBoolean() ? builder.toString() : random.nextInt(3) == 0 ? (Object) random.nextDouble() : (Object) random.nextLong());
+            }
+
+            String json = (document % 2 == 0 ? jsonCodec : prettyJsonCodec).encode(array);
+            Assertions.assertEquals(jsonCodec.decode(json), indexJsonCodec.decode(json.getBytes(StandardCharsets.UTF_8)), json);
+        }
+
+        for (String malformed : new String[]{"", "{", "[1,]", "{\"a\" 1}", "[1] [2]", "{\"a\": tru}", "[\"open", "[1}", "\"root\"", "[\"\\x\"]", "[1x]", "[truex]", "[true false]", "[\"a\"b]", "[\u0001]", "[\"\\\"]", "[1] x"}) {
+            Assertions.assertThrows(DecodeException.class, () -> indexJsonCodec.decode(malformed.getBytes(StandardCharsets.UTF_8)), malformed);
+        }
+    }
+
+    @Test
+    public void decode_escaped_solidus() throws DecodeException {
+        String json = "{\"a\\/b\": [\"\\/\", \"a\\/b\\/\", \"\\/\\u00e9\"]}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        OpackArray<Object> expected = new OpackArray<>(new Object[]{"/", "a/b/", "/\u00e9"});
+
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        JsonCodec indexJsonCodec = new JsonCodec.Builder().setUseStructuralIndex(true).create();
+
+        for (OpackValue opackValue : new OpackValue[]{jsonCodec.decode(json), jsonCodec.decode(new StringReader(json)), jsonCodec.decode(bytes), jsonCodec.decode(new ByteArrayInputStream(bytes)), indexJsonCodec.decode(bytes)}) {
+            Assertions.assertEquals(expected, ((OpackObject<Object, Object>) opackValue).get("a/b"));
+        }
+    }
+
+    @Test
+    public void reuse_after_oversized_value() throws DecodeException, EncodeException {
+        int length = 1 << 17;
+
+        StringBuilder builder = new StringBuilder();
+        OpackArray<Object> numbers = new OpackArray<>();
+
+        for (int index = 0; index < length; index++) {
+            builder.append(index % 64 == 0 ? "\uAC00\"" : "a");
+            numbers.add(index);
+        }
+
+        OpackObject<Object, Object> keyed = new OpackObject<>();
+        keyed.put(builder.toString(), "long");
+
+        OpackArray<Object> largeValue = new OpackArray<>();
+        largeValue.add(builder.toString());
+        largeValue.add(numbers);
+        largeValue.add(keyed);
+
+        OpackArray<Object> deepValue = new OpackArray<>();
+        OpackArray<Object> current = deepValue;
+
+        for (int depth = 0; depth < length; depth++) {
+            OpackArray<Object> child = new OpackArray<>();
+            current.add(child);
+            current = child;
+        }
+
+        current.add("bottom");
+
+        OpackArray<Object> smallValue = new OpackArray<>();
+        smallValue.add("\uAC00\"small");
+        smallValue.add(new OpackArray<>(new Object[]{1, 2, 3}));
+
+        for (JsonCodec jsonCodec : new JsonCodec[]{new JsonCodec.Builder().create(), new JsonCodec.Builder().setUseStructuralIndex(true).create()}) {
+            for (OpackValue opackValue : new OpackValue[]{largeValue, deepValue, smallValue, largeValue, deepValue, smallValue}) {
+                String json = jsonCodec.encode(opackValue);
+                byte[] bytes = jsonCodec.encodeToBytes(opackValue);
+
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                jsonCodec.encode(byteArrayOutputStream, opackValue);
+
+                Assertions.assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), bytes);
+                Assertions.assertArrayEquals(bytes, byteArrayOutputStream.toByteArray());
+
+                Assertions.assertEquals(json, jsonCodec.encode(jsonCodec.decode(json)));
+                Assertions.assertEquals(json, jsonCodec.encode(jsonCodec.decode(new StringReader(json))));
+                Assertions.assertEquals(json, jsonCodec.encode(jsonCodec.decode(bytes)));
+                Assertions.assertEquals(json, jsonCodec.encode(jsonCodec.decode(new ByteArrayInputStream(bytes))));
+            }
+        }
+    }
 }
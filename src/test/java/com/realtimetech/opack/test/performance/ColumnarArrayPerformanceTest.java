@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ColumnarArrayPerformanceTest {
+    @Test
+    public void dense_columnar_arrays() throws Exception {
+        Random random = new Random(0);
+        String[] statuses = new String[]{"OK", "PENDING", "FAILED", "RETRYING"};
+
+        OpackArray<Object> rows = new OpackArray<>();
+        for (int index = 0; index < 100000; index++) {
+            OpackObject<Object, Object> row = new OpackObject<>();
+            row.put("id", 1000000000L + index);
+            row.put("status", statuses[random.nextInt(statuses.length)]);
+            row.put("latency", random.nextDouble() * 100);
+            row.put("retries", index % 10 == 0 ? random.nextInt(3) : null);
+            row.put("cached", random.nextBoolean());
+            rows.add(row);
+        }
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec columnarDenseCodec = new DenseCodec.Builder().setColumnarArrays(true).create();
+        DenseCodec columnsDenseCodec = new DenseCodec.Builder().setDecodeColumns(true).create();
+
+        int warmLoop = 8;
+        int loop = 16;
+
+        byte[][] encoded = new byte[2][];
+        OpackValue[] decoded = new OpackValue[1];
+
+        PerformanceClass.ExceptionRunnable encodeRunnable = () -> {
+            encoded[0] = denseCodec.encode(rows);
+        };
+        PerformanceClass.ExceptionRunnable columnarEncodeRunnable = () -> {
+            encoded[1] = columnarDenseCodec.encode(rows);
+        };
+        PerformanceClass.ExceptionRunnable decodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(encoded[0]);
+        };
+        PerformanceClass.ExceptionRunnable columnarDecodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(encoded[1]);
+        };
+        PerformanceClass.ExceptionRunnable columnsDecodeRunnable = () -> {
+            decoded[0] = columnsDenseCodec.decode(encoded[1]);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, encodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, columnarEncodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, decodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, columnarDecodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, columnsDecodeRunnable);
+
+        long encodeTime = PerformanceClass.measureRunningTime(loop, encodeRunnable);
+        long columnarEncodeTime = PerformanceClass.measureRunningTime(loop, columnarEncodeRunnable);
+        long decodeTime = PerformanceClass.measureRunningTime(loop, decodeRunnable);
+        long columnarDecodeTime = PerformanceClass.measureRunningTime(loop, columnarDecodeRunnable);
+        long columnsDecodeTime = PerformanceClass.measureRunningTime(loop, columnsDecodeRunnable);
+
+        OpackObject<Object, Object> columns = (OpackObject<Object, Object>) decoded[0];
+        Assertions.assertEquals(((OpackObject<Object, Object>) rows.get(77)).get("status"), ((OpackArray<Object>) columns.get("status")).get(77));
+
+        System.out.println("# " + this.getClass().getSimpleName());
+        System.out.println(" Rows\t\t: " + encoded[0].length + " bytes, encode " + encodeTime + "ms, decode " + decodeTime + "ms (" + loop + " loops)");
+        System.out.println(" Columnar\t: " + encoded[1].length + " bytes, encode " + columnarEncodeTime + "ms, decode to rows " + columnarDecodeTime + "ms, decode to columns " + columnsDecodeTime + "ms (" + loop + " loops)");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.Opacker;
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.dense.reader.ByteArrayReader;
+import com.realtimetech.opack.codec.dense.reader.CompressedReader;
+import com.realtimetech.opack.codec.dense.writer.ByteArrayWriter;
+import com.realtimetech.opack.codec.dense.writer.CompressedWriter;
+import com.realtimetech.opack.test.codec.CommonOpackValue;
+import com.realtimetech.opack.value.OpackArray;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompressionPerformanceTest {
+    @Test
+    public void dense_compression() throws Exception {
+        Opacker opacker = new Opacker.Builder().create();
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+
+        OpackArray<Object> corpus = new OpackArray<>();
+        for (int index = 0; index < 4; index++) {
+            corpus.add(opacker.serialize(new PerformanceClass()));
+        }
+        for (int index = 0; index < 4096; index++) {
+            corpus.add(CommonOpackValue.create());
+        }
+
+        byte[] plainBytes = denseCodec.encode(corpus);
+
+        int warmLoop = 16;
+        int loop = 64;
+
+        System.out.println("# " + this.getClass().getSimpleName());
+        System.out.println(" Corpus\t: " + plainBytes.length + " bytes");
+
+        for (int blockSize : new int[]{4096, 65536, 1 << 20}) {
+            ByteArrayWriter byteArrayWriter = new ByteArrayWriter(plainBytes.length);
+            byte[] readBytes = new byte[plainBytes.length];
+
+            PerformanceClass.ExceptionRunnable compressRunnable = () -> {
+                byteArrayWriter.reset();
+
+                CompressedWriter compressedWriter = new CompressedWriter(byteArrayWriter, blockSize);
+                compressedWriter.writeBytes(plainBytes);
+                compressedWriter.finish();
+            };
+
+            compressRunnable.run();
+            byte[] compressedBytes = byteArrayWriter.toByteArray();
+
+            PerformanceClass.ExceptionRunnable decompressRunnable = () -> {
+                CompressedReader compressedReader = new CompressedReader(new ByteArrayReader(compressedBytes), blockSize);
+                compressedReader.readBytes(readBytes);
+                compressedReader.finish();
+            };
+
+            // Warm up!
+            PerformanceClass.measureRunningTime(warmLoop, compressRunnable);
+            PerformanceClass.measureRunningTime(warmLoop, decompressRunnable);
+
+            long compressTime = PerformanceClass.measureRunningTime(loop, compressRunnable);
+            long decompressTime = PerformanceClass.measureRunningTime(loop, decompressRunnable);
+
+            Assertions.assertArrayEquals(plainBytes, readBytes);
+
+            double megabytes = (double) plainBytes.length * loop / (1024 * 1024);
+
+            System.out.println(" Block " + blockSize + "\t: ratio " + String.format("%.3f", (double) compressedBytes.length / plainBytes.length) +
+                    ", compress " + String.format("%.1f", megabytes * 1000 / Math.max(compressTime, 1)) + "MB/s" +
+                    ", decompress " + String.format("%.1f", megabytes * 1000 / Math.max(decompressTime, 1)) + "MB/s");
+        }
+    }
+}
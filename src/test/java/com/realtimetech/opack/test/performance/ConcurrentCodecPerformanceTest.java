@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentCodecPerformanceTest {
+    private static OpackValue createMessage() {
+        Random random = new Random(0);
+        OpackArray<Object> records = new OpackArray<>();
+
+        for (int index = 0; index < 32; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("id", random.nextLong());
+            record.put("name", "record-" + random.nextInt(100000));
+            record.put("score", random.nextDouble());
+            record.put("active", random.nextBoolean());
+            records.add(record);
+        }
+
+        OpackObject<Object, Object> message = new OpackObject<>();
+        message.put("records", records);
+        message.put("samples", OpackArray.createWithArrayObject(new int[256]));
+
+        return message;
+    }
+
+    private static long measureThroughput(int threadCount, int loop, Object lock, PerformanceClass.ExceptionRunnable runnable) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        Future<?>[] futures = new Future[threadCount];
+
+        try {
+            long start = System.nanoTime();
+
+            for (int thread = 0; thread < threadCount; thread++) {
+                futures[thread] = executorService.submit(() -> {
+                    for (int index = 0; index < loop; index++) {
+                        if (lock != null) {
+                            synchronized (lock) {
+                                runnable.run();
+                            }
+                        } else {
+                            runnable.run();
+                        }
+                    }
+
+                    return null;
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            long elapsed = System.nanoTime() - start;
+
+            return (long) threadCount * loop * 1_000_000_000L / Math.max(1, elapsed);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static void measureCodec(String name, PerformanceClass.ExceptionRunnable runnable) throws Exception {
+        Object lock = new Object();
+
+        // Warm up!
+        measureThroughput(4, 2000, null, runnable);
+
+        for (int threadCount = 1; threadCount <= 64; threadCount <<= 1) {
+            int loop = Math.max(200, 8000 / threadCount);
+
+            long lockedThroughput = measureThroughput(threadCount, loop, lock, runnable);
+            long throughput = measureThroughput(threadCount, loop, null, runnable);
+
+            System.out.println(" " + name + "\t: " + threadCount + " threads, shared codec " + throughput + " ops/s, globally locked " + lockedThroughput + " ops/s");
+        }
+    }
+
+    @Test
+    public void shared_codec_throughput() throws Exception {
+        OpackValue message = createMessage();
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+
+        System.out.println("# " + ConcurrentCodecPerformanceTest.class.getSimpleName() + " (" + Runtime.getRuntime().availableProcessors() + " processors)");
+
+        measureCodec("Dense", () -> {
+            denseCodec.decode(denseCodec.encode(message));
+        });
+        measureCodec("Json", () -> {
+            jsonCodec.decode(jsonCodec.encode(message));
+        });
+    }
+}
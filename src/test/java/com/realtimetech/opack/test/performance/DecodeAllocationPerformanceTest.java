@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.dense.DenseProjection;
+import com.realtimetech.opack.codec.dense.writer.ByteArrayWriter;
+import com.realtimetech.opack.util.StringCache;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class DecodeAllocationPerformanceTest {
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    @Test
+    public void dense_decode_allocation() throws Exception {
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+
+        OpackArray<Object> message = new OpackArray<>();
+        int containerCount = 1;
+
+        for (int index = 0; index < 100000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            OpackArray<Object> tags = new OpackArray<>();
+
+            tags.add(index);
+            record.put(1, index);
+            record.put(2, tags);
+
+            message.add(record);
+            containerCount += 2;
+        }
+
+        byte[] bytes = denseCodec.encode(message);
+
+        int warmLoop = 8;
+        int loop = 16;
+
+        OpackValue[] decoded = new OpackValue[1];
+        PerformanceClass.ExceptionRunnable decodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(bytes);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, decodeRunnable);
+
+        long allocatedBytes = getAllocatedBytes();
+        long time = PerformanceClass.measureRunningTime(loop, decodeRunnable);
+        allocatedBytes = getAllocatedBytes() - allocatedBytes;
+
+        Assertions.assertEquals(message.length(), ((OpackArray<?>) decoded[0]).length());
+
+        System.out.println("# " + this.getClass().getSimpleName());
+        System.out.println(" Containers\t: " + containerCount + " per decode");
+        System.out.println(" Decode\t: " + time + "ms (" + loop + " loops)");
+        System.out.println(" Allocated\t: " + (allocatedBytes / loop) + " bytes per decode, " + (allocatedBytes / loop / containerCount) + " bytes per container");
+    }
+
+    @Test
+    public void dense_string_allocation() throws Exception {
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+
+        OpackArray<Object> message = new OpackArray<>();
+        int stringCount = 100000;
+
+        for (int index = 0; index < stringCount; index++) {
+            message.add(index % 4 == 0 ? "\uac12 " + index : "value " + index);
+        }
+
+        byte[] bytes = denseCodec.encode(message);
+
+        int warmLoop = 8;
+        int loop = 16;
+
+        ByteArrayWriter byteArrayWriter = new ByteArrayWriter(bytes.length);
+        PerformanceClass.ExceptionRunnable encodeRunnable = () -> {
+            byteArrayWriter.reset();
+            denseCodec.encode(byteArrayWriter, message);
+        };
+        PerformanceClass.ExceptionRunnable decodeRunnable = () -> {
+            denseCodec.decode(bytes);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, encodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, decodeRunnable);
+
+        long encodeAllocatedBytes = getAllocatedBytes();
+        long encodeTime = PerformanceClass.measureRunningTime(loop, encodeRunnable);
+        encodeAllocatedBytes = getAllocatedBytes() - encodeAllocatedBytes;
+
+        long decodeAllocatedBytes = getAllocatedBytes();
+        long decodeTime = PerformanceClass.measureRunningTime(loop, decodeRunnable);
+        decodeAllocatedBytes = getAllocatedBytes() - decodeAllocatedBytes;
+
+        System.out.println("# " + this.getClass().getSimpleName() + " (strings)");
+        System.out.println(" Strings\t: " + stringCount + " per message");
+        System.out.println(" Encode\t: " + encodeTime + "ms (" + loop + " loops), " + (encodeAllocatedBytes / loop / stringCount) + " bytes per string");
+        System.out.println(" Decode\t: " + decodeTime + "ms (" + loop + " loops), " + (decodeAllocatedBytes / loop / stringCount) + " bytes per string");
+    }
+
+    @Test
+    public void dense_string_cache_allocation() throws Exception {
+        String[] codes = new String[]{"KR", "US", "JP", "DE", "FR", "GB", "CN", "IN", "OK", "NOT_FOUND", "PENDING", "ACTIVE", "\uc11c\uc6b8", "\ubd80\uc0b0", "RED", "BLUE"};
+
+        OpackArray<Object> message = new OpackArray<>();
+        int stringCount = 100000;
+
+        for (int index = 0; index < stringCount; index++) {
+            message.add(codes[index % codes.length]);
+        }
+
+        StringCache stringCache = new StringCache(256, 32);
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec cachedDenseCodec = new DenseCodec.Builder().setStringCache(stringCache).create();
+
+        byte[] bytes = denseCodec.encode(message);
+
+        int warmLoop = 8;
+        int loop = 16;
+
+        PerformanceClass.ExceptionRunnable decodeRunnable = () -> {
+            denseCodec.decode(bytes);
+        };
+        PerformanceClass.ExceptionRunnable cachedDecodeRunnable = () -> {
+            cachedDenseCodec.decode(bytes);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, decodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, cachedDecodeRunnable);
+        stringCache.resetStatistics();
+
+        long allocatedBytes = getAllocatedBytes();
+        long time = PerformanceClass.measureRunningTime(loop, decodeRunnable);
+        allocatedBytes = getAllocatedBytes() - allocatedBytes;
+
+        long cachedAllocatedBytes = getAllocatedBytes();
+        long cachedTime = PerformanceClass.measureRunningTime(loop, cachedDecodeRunnable);
+        cachedAllocatedBytes = getAllocatedBytes() - cachedAllocatedBytes;
+
+        System.out.println("# " + this.getClass().getSimpleName() + " (string cache)");
+        System.out.println(" Strings\t: " + stringCount + " per message, " + codes.length + " distinct");
+        System.out.println(" No cache\t: " + time + "ms (" + loop + " loops), " + (allocatedBytes / loop / stringCount) + " bytes per string");
+        System.out.println(" Cache\t: " + cachedTime + "ms (" + loop + " loops), " + (cachedAllocatedBytes / loop / stringCount) + " bytes per string, hit rate " + stringCache.getHitRate());
+    }
+
+    @Test
+    public void dense_projected_decode_allocation() throws Exception {
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+
+        OpackArray<Object> message = new OpackArray<>();
+        int recordCount = 20000;
+
+        for (int index = 0; index < recordCount; index++) {
+            OpackObject<Object, Object> detail = new OpackObject<>();
+            detail.put("description", "description of the record " + index);
+            detail.put("samples", OpackArray.createWithArrayObject(new double[]{index, index * 0.5, index * 0.25}));
+            OpackArray<Object> tags = new OpackArray<>();
+            tags.add("a" + index);
+            tags.add("b" + index);
+            tags.add("c" + index);
+
+            detail.put("tags", tags);
+
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("id", index);
+            record.put("name", "record " + index);
+            record.put("detail", detail);
+
+            message.add(record);
+        }
+
+        DenseProjection projection = new DenseProjection.Builder().addPath("id").create();
+
+        byte[] bytes = denseCodec.encode(message);
+
+        int warmLoop = 8;
+        int loop = 16;
+
+        OpackValue[] decoded = new OpackValue[1];
+        PerformanceClass.ExceptionRunnable decodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(bytes);
+        };
+        PerformanceClass.ExceptionRunnable projectedDecodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(bytes, projection);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, decodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, projectedDecodeRunnable);
+
+        long allocatedBytes = getAllocatedBytes();
+        long time = PerformanceClass.measureRunningTime(loop, decodeRunnable);
+        allocatedBytes = getAllocatedBytes() - allocatedBytes;
+
+        long projectedAllocatedBytes = getAllocatedBytes();
+        long projectedTime = PerformanceClass.measureRunningTime(loop, projectedDecodeRunnable);
+        projectedAllocatedBytes = getAllocatedBytes() - projectedAllocatedBytes;
+
+        Assertions.assertEquals(recordCount, ((OpackArray<?>) decoded[0]).length());
+
+        System.out.println("# " + this.getClass().getSimpleName() + " (projection)");
+        System.out.println(" Records\t: " + recordCount + " per message, " + bytes.length + " bytes");
+        System.out.println(" Full\t: " + time + "ms (" + loop + " loops), " + (allocatedBytes / loop / recordCount) + " bytes per record");
+        System.out.println(" Projected\t: " + projectedTime + "ms (" + loop + " loops), " + (projectedAllocatedBytes / loop / recordCount) + " bytes per record");
+    }
+}
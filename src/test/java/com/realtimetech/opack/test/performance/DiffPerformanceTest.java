@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.util.OpackDiff;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class DiffPerformanceTest {
+    @Test
+    public void dense_diff_replication() throws Exception {
+        Random random = new Random(0);
+
+        OpackObject<Object, Object> oldState = new OpackObject<>();
+        for (int index = 0; index < 10000; index++) {
+            OpackObject<Object, Object> entity = new OpackObject<>();
+            entity.put("name", "entity-" + index);
+            entity.put("x", random.nextDouble());
+            entity.put("y", random.nextDouble());
+            entity.put("hp", 100L);
+            entity.put("inventory", OpackArray.createWithArrayObject(new int[64]));
+            oldState.put("entity-" + index, entity);
+        }
+
+        OpackObject<Object, Object> newState = oldState.clone();
+        for (int index = 0; index < 100; index++) {
+            OpackObject<Object, Object> entity = (OpackObject<Object, Object>) newState.get("entity-" + random.nextInt(10000));
+            entity.put("x", random.nextDouble());
+            int[] inventory = new int[64];
+            inventory[random.nextInt(64)] = 1;
+            entity.put("inventory", OpackArray.createWithArrayObject(inventory));
+        }
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+
+        int warmLoop = 8;
+        int loop = 32;
+
+        byte[][] encoded = new byte[2][];
+        OpackValue[] patched = new OpackValue[1];
+
+        PerformanceClass.ExceptionRunnable fullRunnable = () -> {
+            encoded[0] = denseCodec.encode(newState);
+        };
+        PerformanceClass.ExceptionRunnable diffRunnable = () -> {
+            encoded[1] = denseCodec.encode(OpackDiff.diff(oldState, newState));
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, fullRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, diffRunnable);
+
+        long fullTime = PerformanceClass.measureRunningTime(loop, fullRunnable);
+        long diffTime = PerformanceClass.measureRunningTime(loop, diffRunnable);
+
+        OpackObject<Object, Object> patch = (OpackObject<Object, Object>) denseCodec.decode(encoded[1]);
+        OpackObject<Object, Object>[] oldStates = new OpackObject[loop];
+        for (int index = 0; index < loop; index++) {
+            oldStates[index] = oldState.clone();
+        }
+
+        int[] applyIndex = new int[1];
+        long applyTime = PerformanceClass.measureRunningTime(loop, () -> {
+            patched[0] = OpackDiff.apply(oldStates[applyIndex[0]++], patch);
+        });
+
+        Assertions.assertEquals(newState.get("entity-42"), ((OpackObject<Object, Object>) patched[0]).get("entity-42"));
+
+        System.out.println("# " + this.getClass().getSimpleName());
+        System.out.println(" Full\t: " + encoded[0].length + " bytes, encode " + fullTime + "ms (" + loop + " loops)");
+        System.out.println(" Patch\t: " + encoded[1].length + " bytes, diff and encode " + diffTime + "ms, apply " + applyTime + "ms (" + loop + " loops)");
+    }
+}
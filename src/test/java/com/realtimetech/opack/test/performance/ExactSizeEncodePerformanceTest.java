@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.dense.writer.ByteArrayWriter;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ExactSizeEncodePerformanceTest {
+    private static OpackArray<Object> createMessage(long targetSize, Random random) {
+        OpackArray<Object> message = new OpackArray<>();
+        long size = 0;
+
+        while (size < targetSize) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("id", random.nextLong());
+            record.put("name", "record-" + random.nextInt(100000) + "-é中");
+            record.put("score", random.nextDouble());
+            record.put("active", random.nextBoolean());
+
+            if (targetSize >= 1 << 20) {
+                record.put("samples", OpackArray.createWithArrayObject(new double[1024]));
+            }
+
+            message.add(record);
+            size += targetSize >= 1 << 20 ? 8192 + 64 : 64;
+        }
+
+        return message;
+    }
+
+    @Test
+    public void dense_exact_size_encode() throws Exception {
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        Random random = new Random(0);
+
+        System.out.println("# " + this.getClass().getSimpleName());
+
+        for (long targetSize : new long[]{100, 10_000, 1_000_000, 10_000_000, 100_000_000}) {
+            OpackArray<Object> message = createMessage(targetSize, random);
+            int loop = (int) Math.max(4, Math.min(20000, 200_000_000 / targetSize));
+
+            PerformanceClass.ExceptionRunnable growingRunnable = () -> {
+                ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+                denseCodec.encode(byteArrayWriter, message);
+                byteArrayWriter.toByteArray();
+            };
+            PerformanceClass.ExceptionRunnable exactRunnable = () -> {
+                denseCodec.encode(message);
+            };
+
+            // Warm up!
+            PerformanceClass.measureRunningTime(Math.max(1, loop / 4), growingRunnable);
+            PerformanceClass.measureRunningTime(Math.max(1, loop / 4), exactRunnable);
+
+            long growingTime = PerformanceClass.measureRunningTime(loop, growingRunnable);
+            long exactTime = PerformanceClass.measureRunningTime(loop, exactRunnable);
+
+            ByteArrayWriter byteArrayWriter = new ByteArrayWriter();
+            denseCodec.encode(byteArrayWriter, message);
+            byte[] bytes = denseCodec.encode(message);
+
+            Assertions.assertArrayEquals(byteArrayWriter.toByteArray(), bytes);
+
+            System.out.println(" " + bytes.length + " bytes\t: growing " + growingTime + "ms, exact " + exactTime + "ms (" + loop + " loops)");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.dense.DenseIndex;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class IndexedPerformanceTest {
+    @Test
+    public void dense_indexed_point_read() throws Exception {
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        Random random = new Random(0);
+
+        OpackArray<Object> records = new OpackArray<>();
+        for (int index = 0; index < 200000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            record.put("id", index);
+            record.put("name", "record-" + random.nextInt(100000));
+            record.put("score", random.nextDouble());
+            record.put("tags", OpackArray.createWithArrayObject(new int[]{index, index + 1}));
+            records.add(record);
+        }
+
+        OpackObject<Object, Object> document = new OpackObject<>();
+        document.put("records", records);
+
+        byte[] bytes = denseCodec.encode(document);
+        byte[] indexedBytes = denseCodec.encodeIndexed(document);
+        DenseIndex denseIndex = new DenseIndex(denseCodec, indexedBytes);
+
+        int fullLoop = 8;
+        int pointLoop = 100000;
+
+        Object[] result = new Object[1];
+        PerformanceClass.ExceptionRunnable fullRunnable = () -> {
+            OpackValue opackValue = denseCodec.decode(bytes);
+            OpackObject<Object, Object> record = (OpackObject<Object, Object>) ((OpackArray<Object>) ((OpackObject<Object, Object>) opackValue).get("records")).get(123456);
+            result[0] = record.get("name");
+        };
+        PerformanceClass.ExceptionRunnable pointRunnable = () -> {
+            result[0] = denseIndex.get("records", 123456, "name");
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(fullLoop, fullRunnable);
+        PerformanceClass.measureRunningTime(pointLoop, pointRunnable);
+
+        long fullTime = PerformanceClass.measureRunningTime(fullLoop, fullRunnable);
+        Object expected = result[0];
+        long pointTime = PerformanceClass.measureRunningTime(pointLoop, pointRunnable);
+
+        Assertions.assertEquals(expected, result[0]);
+
+        System.out.println("# " + this.getClass().getSimpleName());
+        System.out.println(" Size\t: " + bytes.length + " bytes, indexed " + indexedBytes.length + " bytes");
+        System.out.println(" Full decode\t: " + (fullTime * 1000 / fullLoop) + "us per read");
+        System.out.println(" Indexed\t: " + (pointTime * 1000000 / pointLoop) + "ns per read");
+    }
+}
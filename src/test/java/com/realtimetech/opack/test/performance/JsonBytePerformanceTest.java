@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class JsonBytePerformanceTest {
+    private static final String[] CONST_ASCII_WORDS = new String[]{"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+    private static final String[] CONST_MULTILINGUAL_WORDS = new String[]{"한국어", "日本語", "中文", "Ελληνικά", "русский", "café", "😀🎉", "naïve"};
+
+    private static byte[] createCorpus(JsonCodec jsonCodec, String[] words) throws Exception {
+        Random random = new Random(0);
+        OpackArray<Object> records = new OpackArray<>();
+
+        for (int index = 0; index < 50000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            StringBuilder text = new StringBuilder();
+
+            for (int word = 0; word < 6; word++) {
+                text.append(words[random.nextInt(words.length)]).append(' ');
+            }
+
+            record.put("id", random.nextInt(1000000));
+            record.put("title", words[random.nextInt(words.length)]);
+            record.put("text", text.toString());
+            record.put("active", random.nextBoolean());
+            records.add(record);
+        }
+
+        return jsonCodec.encode(records).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void measure(JsonCodec jsonCodec, String name, byte[] bytes) throws Exception {
+        int warmLoop = 4;
+        int loop = 8;
+
+        String json = new String(bytes, StandardCharsets.UTF_8);
+
+        OpackValue[] decoded = new OpackValue[3];
+        PerformanceClass.ExceptionRunnable transcodeRunnable = () -> {
+            decoded[0] = jsonCodec.decode(new String(bytes, StandardCharsets.UTF_8));
+        };
+        PerformanceClass.ExceptionRunnable stringRunnable = () -> {
+            decoded[1] = jsonCodec.decode(json);
+        };
+        PerformanceClass.ExceptionRunnable byteRunnable = () -> {
+            decoded[2] = jsonCodec.decode(bytes);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, transcodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, stringRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, byteRunnable);
+
+        long transcodeTime = PerformanceClass.measureRunningTime(loop, transcodeRunnable);
+        long stringTime = PerformanceClass.measureRunningTime(loop, stringRunnable);
+        long byteTime = PerformanceClass.measureRunningTime(loop, byteRunnable);
+
+        Assertions.assertEquals(((OpackArray<Object>) decoded[0]).get(12345), ((OpackArray<Object>) decoded[2]).get(12345));
+
+        System.out.println("# " + this.getClass().getSimpleName() + " " + name + " (" + bytes.length / 1024 + "KB json, " + loop + " loops)");
+        System.out.println(" Bytes to String + decode(String)\t: " + transcodeTime + "ms");
+        System.out.println(" decode(String) only\t: " + stringTime + "ms");
+        System.out.println(" decode(byte[])\t: " + byteTime + "ms");
+    }
+
+    @Test
+    public void ascii_heavy() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+        this.measure(jsonCodec, "ASCII", createCorpus(jsonCodec, CONST_ASCII_WORDS));
+    }
+
+    @Test
+    public void multilingual() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+        this.measure(jsonCodec, "Multilingual", createCorpus(jsonCodec, CONST_MULTILINGUAL_WORDS));
+    }
+}
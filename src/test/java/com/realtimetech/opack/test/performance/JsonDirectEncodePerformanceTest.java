@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.util.StringWriter;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+public class JsonDirectEncodePerformanceTest {
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    private OpackArray<Object> createRecords() {
+        Random random = new Random(0);
+        OpackArray<Object> records = new OpackArray<>();
+
+        for (int index = 0; index < 50000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            OpackObject<Object, Object> address = new OpackObject<>();
+            OpackArray<Object> tags = new OpackArray<>();
+            OpackArray<Object> events = new OpackArray<>();
+            OpackArray<Object> history = new OpackArray<>();
+
+            address.put("city", "city-" + random.nextInt(100));
+            address.put("zip", random.nextInt(100000));
+
+            for (int tag = 0; tag < 4; tag++) {
+                tags.add("tag" + random.nextInt(50));
+            }
+
+            for (int event = 0; event < 3; event++) {
+                OpackObject<Object, Object> item = new OpackObject<>();
+
+                item.put("type", random.nextBoolean() ? "click" : "view");
+                item.put("count", random.nextInt(1000));
+                item.put("valid", random.nextBoolean());
+                events.add(item);
+            }
+
+            for (int point = 0; point < 16; point++) {
+                history.add(random.nextInt(10000));
+                history.add(random.nextDouble());
+
+                if (point % 4 == 0) {
+                    OpackArray<Object> range = new OpackArray<>();
+
+                    range.add(random.nextInt(100));
+                    range.add(random.nextInt(100));
+                    history.add(range);
+                }
+            }
+
+            record.put("id", index);
+            record.put("name", "record-" + random.nextInt(100000));
+            record.put("active", random.nextBoolean());
+            record.put("parent", null);
+            record.put("address", address);
+            record.put("tags", tags);
+            record.put("events", events);
+            record.put("history", history);
+
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    private void measure(String name, JsonCodec jsonCodec, OpackArray<Object> records) throws Exception {
+        int warmLoop = 4;
+        int loop = 8;
+
+        StringWriter writer = new StringWriter();
+        PerformanceClass.ExceptionRunnable encodeRunnable = () -> {
+            writer.reset();
+            jsonCodec.encode(writer, records);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, encodeRunnable);
+
+        long allocatedBytes = getAllocatedBytes();
+        long encodeTime = PerformanceClass.measureRunningTime(loop, encodeRunnable);
+        allocatedBytes = getAllocatedBytes() - allocatedBytes;
+
+        Assertions.assertEquals(records.length(), ((OpackArray<?>) jsonCodec.decode(writer.toString())).length());
+
+        System.out.println("# " + this.getClass().getSimpleName() + " " + name + " (" + records.length() + " records, " + writer.getLength() / 1024 / 1024 + "MB, " + loop + " loops)");
+        System.out.println(" encode\t: " + encodeTime + "ms, " + (allocatedBytes / loop / 1024) + "KB allocated per encode");
+    }
+
+    @Test
+    public void nested_records() throws Exception {
+        OpackArray<Object> records = this.createRecords();
+
+        this.measure("Compact", new JsonCodec.Builder().create(), records);
+        this.measure("Pretty", new JsonCodec.Builder().setUsePrettyFormat(true).create(), records);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class JsonIndexPerformanceTest {
+    private static OpackArray<Object> createRecords() {
+        Random random = new Random(0);
+        OpackArray<Object> records = new OpackArray<>();
+
+        for (int index = 0; index < 100000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            StringBuilder description = new StringBuilder();
+
+            for (int word = 0; word < 12; word++) {
+                description.append("word").append(random.nextInt(1000)).append(' ');
+            }
+
+            record.put("id", random.nextInt(1000000));
+            record.put("name", "record-" + random.nextInt(100000));
+            record.put("description", description.toString());
+            record.put("score", random.nextDouble());
+            record.put("active", random.nextBoolean());
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    private void measure(String name, String json) throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        JsonCodec indexJsonCodec = new JsonCodec.Builder().setUseStructuralIndex(true).create();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        int warmLoop = 4;
+        int loop = 8;
+
+        OpackValue[] decoded = new OpackValue[3];
+        PerformanceClass.ExceptionRunnable stringRunnable = () -> {
+            decoded[0] = jsonCodec.decode(json);
+        };
+        PerformanceClass.ExceptionRunnable byteRunnable = () -> {
+            decoded[1] = jsonCodec.decode(bytes);
+        };
+        PerformanceClass.ExceptionRunnable indexRunnable = () -> {
+            decoded[2] = indexJsonCodec.decode(bytes);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, stringRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, byteRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, indexRunnable);
+
+        long stringTime = PerformanceClass.measureRunningTime(loop, stringRunnable);
+        long byteTime = PerformanceClass.measureRunningTime(loop, byteRunnable);
+        long indexTime = PerformanceClass.measureRunningTime(loop, indexRunnable);
+
+        Assertions.assertEquals(((OpackArray<Object>) decoded[1]).get(12345), ((OpackArray<Object>) decoded[2]).get(12345));
+
+        System.out.println("# " + this.getClass().getSimpleName() + " " + name + " (" + bytes.length / 1024 + "KB json, " + loop + " loops)");
+        System.out.println(" decode(String)\t: " + stringTime + "ms");
+        System.out.println(" decode(byte[]) scalar\t: " + byteTime + "ms");
+        System.out.println(" decode(byte[]) structural index\t: " + indexTime + "ms");
+    }
+
+    @Test
+    public void compact() throws Exception {
+        this.measure("Compact", new JsonCodec.Builder().create().encode(createRecords()));
+    }
+
+    @Test
+    public void pretty() throws Exception {
+        this.measure("Pretty", new JsonCodec.Builder().setUsePrettyFormat(true).create().encode(createRecords()));
+    }
+}
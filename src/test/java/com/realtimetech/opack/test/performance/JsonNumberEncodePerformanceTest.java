@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class JsonNumberEncodePerformanceTest {
+    @Test
+    public void double_array_heavy() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        Random random = new Random(0);
+
+        OpackObject<Object, Object> payload = new OpackObject<>();
+        double[] samples = new double[1000000];
+        long[] timestamps = new long[1000000];
+        OpackArray<Object> boxed = new OpackArray<>();
+
+        for (int index = 0; index < samples.length; index++) {
+            samples[index] = random.nextGaussian() * 1000;
+            timestamps[index] = 1600000000000L + index * 1000L;
+
+            if (index % 10 == 0) {
+                boxed.add(random.nextDouble());
+            }
+        }
+
+        payload.put("samples", OpackArray.createWithArrayObject(samples));
+        payload.put("timestamps", OpackArray.createWithArrayObject(timestamps));
+        payload.put("boxed", boxed);
+
+        int warmLoop = 4;
+        int loop = 8;
+
+        String[] encoded = new String[2];
+        StringBuilder reference = new StringBuilder();
+        PerformanceClass.ExceptionRunnable toStringRunnable = () -> {
+            reference.setLength(0);
+
+            for (double sample : samples) {
+                reference.append(Double.toString(sample)).append(',');
+            }
+
+            for (long timestamp : timestamps) {
+                reference.append(Long.toString(timestamp)).append(',');
+            }
+
+            encoded[0] = reference.toString();
+        };
+        PerformanceClass.ExceptionRunnable encodeRunnable = () -> {
+            encoded[1] = jsonCodec.encode(payload);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, toStringRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, encodeRunnable);
+
+        long toStringTime = PerformanceClass.measureRunningTime(loop, toStringRunnable);
+        long encodeTime = PerformanceClass.measureRunningTime(loop, encodeRunnable);
+
+        Assertions.assertEquals(samples[12345], (double) ((OpackArray<Object>) ((OpackObject<Object, Object>) jsonCodec.decode(encoded[1])).get("samples")).get(12345));
+
+        System.out.println("# " + this.getClass().getSimpleName() + " (" + samples.length + " doubles, " + timestamps.length + " longs, " + boxed.length() + " boxed doubles, " + loop + " loops)");
+        System.out.println(" Double.toString + Long.toString only\t: " + toStringTime + "ms");
+        System.out.println(" encode\t: " + encodeTime + "ms");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class JsonNumberPerformanceTest {
+    @Test
+    public void numbers_heavy() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        Random random = new Random(0);
+
+        OpackArray<Object> points = new OpackArray<>();
+
+        for (int index = 0; index < 200000; index++) {
+            OpackObject<Object, Object> point = new OpackObject<>();
+            point.put("lat", random.nextDouble() * 180 - 90);
+            point.put("lng", random.nextDouble() * 360 - 180);
+            point.put("price", Math.round(random.nextDouble() * 1000000) / 100.0);
+            point.put("count", (long) random.nextInt(100000));
+            points.add(point);
+        }
+
+        String json = jsonCodec.encode(points);
+        char[] chars = json.toCharArray();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        int numberCount = 0;
+        int[] numberStarts = new int[points.length() * 4];
+        int[] numberEnds = new int[points.length() * 4];
+
+        for (int index = 0; index < chars.length; index++) {
+            if (chars[index] == ':') {
+                int end = index + 1;
+
+                while (chars[end] != ',' && chars[end] != '}') {
+                    end++;
+                }
+
+                numberStarts[numberCount] = index + 1;
+                numberEnds[numberCount] = end;
+                numberCount++;
+            }
+        }
+
+        int finalNumberCount = numberCount;
+        int warmLoop = 4;
+        int loop = 8;
+
+        OpackValue[] decoded = new OpackValue[2];
+        double[] checksum = new double[1];
+        PerformanceClass.ExceptionRunnable stringParseRunnable = () -> {
+            double sum = 0;
+
+            for (int index = 0; index < finalNumberCount; index++) {
+                String numberString = new String(chars, numberStarts[index], numberEnds[index] - numberStarts[index]);
+
+                if (numberString.indexOf('.') != -1 || numberString.indexOf('E') != -1) {
+                    sum += Double.parseDouble(numberString);
+                } else {
+                    sum += Long.parseLong(numberString);
+                }
+            }
+
+            checksum[0] = sum;
+        };
+        PerformanceClass.ExceptionRunnable stringRunnable = () -> {
+            decoded[0] = jsonCodec.decode(json);
+        };
+        PerformanceClass.ExceptionRunnable byteRunnable = () -> {
+            decoded[1] = jsonCodec.decode(bytes);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, stringParseRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, stringRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, byteRunnable);
+
+        long stringParseTime = PerformanceClass.measureRunningTime(loop, stringParseRunnable);
+        long stringTime = PerformanceClass.measureRunningTime(loop, stringRunnable);
+        long byteTime = PerformanceClass.measureRunningTime(loop, byteRunnable);
+
+        Assertions.assertEquals(points.get(12345), ((OpackArray<Object>) decoded[0]).get(12345));
+        Assertions.assertEquals(points.get(12345), ((OpackArray<Object>) decoded[1]).get(12345));
+
+        System.out.println("# " + this.getClass().getSimpleName() + " (" + numberCount + " numbers, " + json.length() / 1024 + "KB json, " + loop + " loops)");
+        System.out.println(" new String + parseDouble/parseLong only\t: " + stringParseTime + "ms");
+        System.out.println(" decode(String)\t: " + stringTime + "ms");
+        System.out.println(" decode(byte[])\t: " + byteTime + "ms");
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class JsonStreamPerformanceTest {
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    @Test
+    public void json_stream_decode() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        Random random = new Random(0);
+
+        Path path = Files.createTempFile("opack-json-stream", ".json");
+
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(path)) {
+                for (int chunk = 0; chunk < 20; chunk++) {
+                    OpackArray<Object> records = new OpackArray<>();
+
+                    for (int index = 0; index < 20000; index++) {
+                        OpackObject<Object, Object> record = new OpackObject<>();
+                        record.put("id", random.nextLong());
+                        record.put("name", "record-" + random.nextInt(100000) + "-é中");
+                        record.put("score", random.nextDouble());
+                        record.put("active", random.nextBoolean());
+                        records.add(record);
+                    }
+
+                    String json = jsonCodec.encode(records);
+
+                    outputStream.write((chunk == 0 ? "[" : ",").getBytes(StandardCharsets.UTF_8));
+                    outputStream.write(json.substring(1, json.length() - 1).getBytes(StandardCharsets.UTF_8));
+                }
+
+                outputStream.write(']');
+            }
+
+            int warmLoop = 2;
+            int loop = 4;
+
+            OpackValue[] decoded = new OpackValue[2];
+            PerformanceClass.ExceptionRunnable stringRunnable = () -> {
+                decoded[0] = jsonCodec.decode(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            };
+            PerformanceClass.ExceptionRunnable streamRunnable = () -> {
+                try (InputStream inputStream = Files.newInputStream(path)) {
+                    decoded[1] = jsonCodec.decode(inputStream);
+                }
+            };
+
+            // Warm up!
+            PerformanceClass.measureRunningTime(warmLoop, stringRunnable);
+            PerformanceClass.measureRunningTime(warmLoop, streamRunnable);
+
+            long stringAllocated = getAllocatedBytes();
+            long stringTime = PerformanceClass.measureRunningTime(loop, stringRunnable);
+            stringAllocated = getAllocatedBytes() - stringAllocated;
+
+            long streamAllocated = getAllocatedBytes();
+            long streamTime = PerformanceClass.measureRunningTime(loop, streamRunnable);
+            streamAllocated = getAllocatedBytes() - streamAllocated;
+
+            Assertions.assertEquals(((OpackArray<Object>) decoded[0]).get(12345), ((OpackArray<Object>) decoded[1]).get(12345));
+
+            System.out.println("# " + this.getClass().getSimpleName() + " (" + Files.size(path) / 1024 / 1024 + "MB json)");
+            System.out.println(" String\t: " + stringTime + "ms, " + stringAllocated / loop / 1024 / 1024 + "MB allocated per decode (" + loop + " loops)");
+            System.out.println(" Stream\t: " + streamTime + "ms, " + streamAllocated / loop / 1024 / 1024 + "MB allocated per decode (" + loop + " loops)");
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
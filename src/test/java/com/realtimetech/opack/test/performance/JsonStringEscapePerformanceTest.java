@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.util.StringWriter;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+public class JsonStringEscapePerformanceTest {
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    @Test
+    public void key_heavy() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+        Random random = new Random(0);
+
+        OpackArray<Object> records = new OpackArray<>();
+        int stringCount = 0;
+
+        for (int index = 0; index < 20000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+
+            for (int field = 0; field < 20; field++) {
+                String value = "value-" + random.nextInt(100000);
+
+                if (random.nextInt(20) == 0) {
+                    value = value + "\n\"quoted\"\ttab";
+                }
+
+                record.put("field_name_" + field, value);
+                stringCount += 2;
+            }
+
+            records.add(record);
+        }
+
+        int warmLoop = 4;
+        int loop = 8;
+
+        StringWriter writer = new StringWriter();
+        PerformanceClass.ExceptionRunnable encodeRunnable = () -> {
+            writer.reset();
+            jsonCodec.encode(writer, records);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, encodeRunnable);
+
+        long allocatedBytes = getAllocatedBytes();
+        long encodeTime = PerformanceClass.measureRunningTime(loop, encodeRunnable);
+        allocatedBytes = getAllocatedBytes() - allocatedBytes;
+
+        Assertions.assertEquals(records.length(), ((OpackArray<?>) jsonCodec.decode(writer.toString())).length());
+
+        System.out.println("# " + this.getClass().getSimpleName() + " (" + stringCount + " strings, " + writer.getLength() / 1024 + "KB json, " + loop + " loops)");
+        System.out.println(" encode\t: " + encodeTime + "ms, " + (allocatedBytes / loop / stringCount) + " bytes allocated per string");
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class JsonUTF8EncodePerformanceTest {
+    private static final String[] CONST_ASCII_WORDS = new String[]{"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+    private static final String[] CONST_MULTILINGUAL_WORDS = new String[]{"한국어", "日本語", "中文", "Ελληνικά", "русский", "café", "😀🎉", "naïve"};
+
+    private static OpackArray<Object> createRecords(String[] words) {
+        Random random = new Random(0);
+        OpackArray<Object> records = new OpackArray<>();
+
+        for (int index = 0; index < 50000; index++) {
+            OpackObject<Object, Object> record = new OpackObject<>();
+            StringBuilder text = new StringBuilder();
+
+            for (int word = 0; word < 6; word++) {
+                text.append(words[random.nextInt(words.length)]).append(' ');
+            }
+
+            record.put("id", random.nextInt(1000000));
+            record.put("title", words[random.nextInt(words.length)]);
+            record.put("text", text.toString());
+            record.put("active", random.nextBoolean());
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    private void measure(String name, OpackArray<Object> records) throws Exception {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+        int warmLoop = 4;
+        int loop = 8;
+
+        byte[][] encoded = new byte[2][];
+        long[] streamLength = new long[1];
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int value) {
+                streamLength[0]++;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                streamLength[0] += length;
+            }
+        };
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(64 * 1024 * 1024);
+
+        PerformanceClass.ExceptionRunnable stringRunnable = () -> {
+            encoded[0] = jsonCodec.encode(records).getBytes(StandardCharsets.UTF_8);
+        };
+        PerformanceClass.ExceptionRunnable bytesRunnable = () -> {
+            encoded[1] = jsonCodec.encodeToBytes(records);
+        };
+        PerformanceClass.ExceptionRunnable streamRunnable = () -> {
+            streamLength[0] = 0;
+            jsonCodec.encode(outputStream, records);
+        };
+        PerformanceClass.ExceptionRunnable byteBufferRunnable = () -> {
+            byteBuffer.clear();
+            jsonCodec.encode(byteBuffer, records);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, stringRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, bytesRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, streamRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, byteBufferRunnable);
+
+        long stringTime = PerformanceClass.measureRunningTime(loop, stringRunnable);
+        long bytesTime = PerformanceClass.measureRunningTime(loop, bytesRunnable);
+        long streamTime = PerformanceClass.measureRunningTime(loop, streamRunnable);
+        long byteBufferTime = PerformanceClass.measureRunningTime(loop, byteBufferRunnable);
+
+        Assertions.assertArrayEquals(encoded[0], encoded[1]);
+        Assertions.assertEquals(encoded[0].length, streamLength[0]);
+        Assertions.assertEquals(encoded[0].length, byteBuffer.position());
+
+        System.out.println("# " + this.getClass().getSimpleName() + " " + name + " (" + encoded[0].length / 1024 + "KB json, " + loop + " loops)");
+        System.out.println(" encode(String) + getBytes\t: " + stringTime + "ms");
+        System.out.println(" encodeToBytes\t: " + bytesTime + "ms");
+        System.out.println(" encode(OutputStream)\t: " + streamTime + "ms");
+        System.out.println(" encode(ByteBuffer) direct\t: " + byteBufferTime + "ms");
+    }
+
+    @Test
+    public void ascii_heavy() throws Exception {
+        this.measure("ASCII", createRecords(CONST_ASCII_WORDS));
+    }
+
+    @Test
+    public void multilingual() throws Exception {
+        this.measure("Multilingual", createRecords(CONST_MULTILINGUAL_WORDS));
+    }
+}
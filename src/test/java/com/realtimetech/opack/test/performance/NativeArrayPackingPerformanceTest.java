@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class NativeArrayPackingPerformanceTest {
+    @Test
+    public void dense_pack_native_arrays() throws Exception {
+        Random random = new Random(0);
+
+        long[] timestamps = new long[1000000];
+        int[] ids = new int[1000000];
+        int[] levels = new int[1000000];
+
+        for (int index = 0; index < timestamps.length; index++) {
+            timestamps[index] = 1666000000000L + index * 100L + random.nextInt(10);
+            ids[index] = 100000 + index;
+            levels[index] = random.nextInt(16);
+        }
+
+        OpackObject<Object, Object> message = new OpackObject<>();
+        message.put("timestamps", OpackArray.createWithArrayObject(timestamps));
+        message.put("ids", OpackArray.createWithArrayObject(ids));
+        message.put("levels", OpackArray.createWithArrayObject(levels));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec packingDenseCodec = new DenseCodec.Builder().setPackNativeArrays(true).create();
+
+        int warmLoop = 8;
+        int loop = 16;
+
+        byte[][] encoded = new byte[2][];
+        OpackValue[] decoded = new OpackValue[1];
+
+        PerformanceClass.ExceptionRunnable encodeRunnable = () -> {
+            encoded[0] = denseCodec.encode(message);
+        };
+        PerformanceClass.ExceptionRunnable packedEncodeRunnable = () -> {
+            encoded[1] = packingDenseCodec.encode(message);
+        };
+        PerformanceClass.ExceptionRunnable decodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(encoded[0]);
+        };
+        PerformanceClass.ExceptionRunnable packedDecodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(encoded[1]);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, encodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, packedEncodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, decodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, packedDecodeRunnable);
+
+        long encodeTime = PerformanceClass.measureRunningTime(loop, encodeRunnable);
+        long packedEncodeTime = PerformanceClass.measureRunningTime(loop, packedEncodeRunnable);
+        long decodeTime = PerformanceClass.measureRunningTime(loop, decodeRunnable);
+        long packedDecodeTime = PerformanceClass.measureRunningTime(loop, packedDecodeRunnable);
+
+        Assertions.assertEquals(message.get("timestamps"), ((OpackObject<Object, Object>) decoded[0]).get("timestamps"));
+
+        System.out.println("# " + this.getClass().getSimpleName());
+        System.out.println(" Raw\t: " + encoded[0].length + " bytes, encode " + encodeTime + "ms, decode " + decodeTime + "ms (" + loop + " loops)");
+        System.out.println(" Packed\t: " + encoded[1].length + " bytes, encode " + packedEncodeTime + "ms, decode " + packedDecodeTime + "ms (" + loop + " loops)");
+    }
+
+    @Test
+    public void dense_pack_floating_arrays() throws Exception {
+        Random random = new Random(0);
+
+        double[] temperatures = new double[1000000];
+        double[] loads = new double[1000000];
+        float[] voltages = new float[1000000];
+
+        for (int index = 0; index < temperatures.length; index++) {
+            temperatures[index] = Math.round((20 + 5 * Math.sin(index / 1000.0) + random.nextGaussian() * 0.1) * 100) / 100.0;
+            loads[index] = index % 60 < 50 ? loads[Math.max(index - 1, 0)] : random.nextInt(100) / 4.0;
+            voltages[index] = 220f + random.nextInt(4) * 0.5f;
+        }
+
+        OpackObject<Object, Object> message = new OpackObject<>();
+        message.put("temperatures", OpackArray.createWithArrayObject(temperatures));
+        message.put("loads", OpackArray.createWithArrayObject(loads));
+        message.put("voltages", OpackArray.createWithArrayObject(voltages));
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        DenseCodec compressingDenseCodec = new DenseCodec.Builder().setCompressionBlockSize(1 << 16).create();
+        DenseCodec packingDenseCodec = new DenseCodec.Builder().setPackFloatingArrays(true).create();
+
+        int warmLoop = 8;
+        int loop = 16;
+
+        byte[][] encoded = new byte[2][];
+        OpackValue[] decoded = new OpackValue[1];
+
+        PerformanceClass.ExceptionRunnable encodeRunnable = () -> {
+            encoded[0] = denseCodec.encode(message);
+        };
+        PerformanceClass.ExceptionRunnable packedEncodeRunnable = () -> {
+            encoded[1] = packingDenseCodec.encode(message);
+        };
+        PerformanceClass.ExceptionRunnable decodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(encoded[0]);
+        };
+        PerformanceClass.ExceptionRunnable packedDecodeRunnable = () -> {
+            decoded[0] = denseCodec.decode(encoded[1]);
+        };
+
+        // Warm up!
+        PerformanceClass.measureRunningTime(warmLoop, encodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, packedEncodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, decodeRunnable);
+        PerformanceClass.measureRunningTime(warmLoop, packedDecodeRunnable);
+
+        long encodeTime = PerformanceClass.measureRunningTime(loop, encodeRunnable);
+        long packedEncodeTime = PerformanceClass.measureRunningTime(loop, packedEncodeRunnable);
+        long decodeTime = PerformanceClass.measureRunningTime(loop, decodeRunnable);
+        long packedDecodeTime = PerformanceClass.measureRunningTime(loop, packedDecodeRunnable);
+
+        Assertions.assertEquals(message.get("temperatures"), ((OpackObject<Object, Object>) decoded[0]).get("temperatures"));
+
+        int compressedLength = compressingDenseCodec.encode(message).length;
+        double megabytes = encoded[0].length * (double) loop / 1024 / 1024;
+
+        System.out.println("# " + this.getClass().getSimpleName() + " (floating)");
+        System.out.println(" Raw\t: " + encoded[0].length + " bytes, encode " + encodeTime + "ms, decode " + decodeTime + "ms (" + loop + " loops)");
+        System.out.println(" LZ4\t: " + compressedLength + " bytes, ratio " + String.format("%.2f", encoded[0].length / (double) compressedLength));
+        System.out.println(" Xor\t: " + encoded[1].length + " bytes, ratio " + String.format("%.2f", encoded[0].length / (double) encoded[1].length) + ", encode " + packedEncodeTime + "ms (" + String.format("%.0f", megabytes * 1000 / packedEncodeTime) + "MB/s), decode " + packedDecodeTime + "ms (" + String.format("%.0f", megabytes * 1000 / packedDecodeTime) + "MB/s)");
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.realtimetech.opack.test.performance;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.dense.reader.BufferedInputStreamReader;
+import com.realtimetech.opack.codec.dense.reader.InputStreamReader;
+import com.realtimetech.opack.codec.dense.reader.Reader;
+import com.realtimetech.opack.codec.dense.writer.BufferedOutputStreamWriter;
+import com.realtimetech.opack.codec.dense.writer.OutputStreamWriter;
+import com.realtimetech.opack.codec.dense.writer.Writer;
+import com.realtimetech.opack.test.codec.CommonOpackValue;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+public class StreamPerformanceTest {
+    private static final int CONST_LOOP = 8;
+
+    @Test
+    public void dense_stream_adapters() throws Exception {
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+
+        OpackArray<Object> corpus = new OpackArray<>();
+        for (int index = 0; index < 256; index++) {
+            corpus.add(CommonOpackValue.create());
+        }
+
+        int length = denseCodec.encode(corpus).length;
+
+        System.out.println("# " + this.getClass().getSimpleName());
+        System.out.println(" Corpus\t: " + length + " bytes");
+
+        this.measureFile(denseCodec, corpus, "Unbuffered", OutputStreamWriter::new, InputStreamReader::new);
+        this.measureFile(denseCodec, corpus, "Buffered", BufferedOutputStreamWriter::new, BufferedInputStreamReader::new);
+
+        this.measureSocket(denseCodec, corpus, "Unbuffered", OutputStreamWriter::new, InputStreamReader::new);
+        this.measureSocket(denseCodec, corpus, "Buffered", BufferedOutputStreamWriter::new, BufferedInputStreamReader::new);
+    }
+
+    private static void flush(Writer writer) throws Exception {
+        if (writer instanceof BufferedOutputStreamWriter) {
+            ((BufferedOutputStreamWriter) writer).flush();
+        }
+    }
+
+    private void measureFile(DenseCodec denseCodec, OpackValue corpus, String name, Function<OutputStream, Writer> writerFactory, Function<InputStream, Reader> readerFactory) throws Exception {
+        Path path = Files.createTempFile("opack-stream", ".dense");
+
+        try {
+            long writeTime = PerformanceClass.measureRunningTime(CONST_LOOP, () -> {
+                try (OutputStream outputStream = Files.newOutputStream(path)) {
+                    Writer writer = writerFactory.apply(outputStream);
+                    denseCodec.encode(writer, corpus);
+                    flush(writer);
+                }
+            });
+
+            OpackValue[] decoded = new OpackValue[1];
+            long readTime = PerformanceClass.measureRunningTime(CONST_LOOP, () -> {
+                try (InputStream inputStream = Files.newInputStream(path)) {
+                    decoded[0] = denseCodec.decode(readerFactory.apply(inputStream));
+                }
+            });
+
+            Assertions.assertEquals(corpus, decoded[0]);
+
+            System.out.println(" File " + name + "\t: write " + writeTime + "ms, read " + readTime + "ms (" + CONST_LOOP + " loops)");
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private void measureSocket(DenseCodec denseCodec, OpackValue corpus, String name, Function<OutputStream, Writer> writerFactory, Function<InputStream, Reader> readerFactory) throws Exception {
+        // Encode and decode are synchronized on the codec, so the writer thread uses its own codec
+        DenseCodec writerCodec = new DenseCodec.Builder().create();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Future<Long> writeFuture = executorService.submit(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    OutputStream outputStream = socket.getOutputStream();
+
+                    return PerformanceClass.measureRunningTime(CONST_LOOP, () -> {
+                        Writer writer = writerFactory.apply(outputStream);
+                        writerCodec.encode(writer, corpus);
+                        flush(writer);
+                    });
+                }
+            });
+
+            try (Socket socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort())) {
+                InputStream inputStream = socket.getInputStream();
+                Reader reader = readerFactory.apply(inputStream);
+
+                OpackValue[] decoded = new OpackValue[1];
+                long readTime = PerformanceClass.measureRunningTime(CONST_LOOP, () -> {
+                    decoded[0] = denseCodec.decode(reader);
+                });
+
+                Assertions.assertEquals(corpus, decoded[0]);
+
+                System.out.println(" Socket " + name + "\t: write " + writeFuture.get() + "ms, read " + readTime + "ms (" + CONST_LOOP + " loops)");
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2022 REALTIMETECH All Rights Reserved
+ *
+ * Licensed either under the Apache License, Version 2.0, or (at your option)
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation (subject to the "Classpath" exception),
+ * either version 2, or any later version (collectively, the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.gnu.org/licenses/
+ *     http://www.gnu.org/software/classpath/license.html
+ *
+ * or as provided in the LICENSE file that accompanied this code.
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.realtimetech.opack.test.util;
+
+import com.realtimetech.opack.codec.dense.DenseCodec;
+import com.realtimetech.opack.codec.json.JsonCodec;
+import com.realtimetech.opack.exception.DecodeException;
+import com.realtimetech.opack.exception.EncodeException;
+import com.realtimetech.opack.util.OpackDiff;
+import com.realtimetech.opack.value.OpackArray;
+import com.realtimetech.opack.value.OpackObject;
+import com.realtimetech.opack.value.OpackValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+public class OpackDiffTest {
+    private static int[] createSamples() {
+        int[] samples = new int[1000];
+        for (int index = 0; index < samples.length; index++) {
+            samples[index] = index * 3;
+        }
+
+        return samples;
+    }
+
+    private static OpackObject<Object, Object> createOldState() {
+        OpackArray<Object> players = new OpackArray<>();
+        for (int index = 0; index < 20; index++) {
+            OpackObject<Object, Object> player = new OpackObject<>();
+            player.put("name", "player-" + index);
+            player.put("score", (long) index * 100);
+            players.add(player);
+        }
+
+        OpackObject<Object, Object> oldState = new OpackObject<>();
+        oldState.put("tick", 1L);
+        oldState.put("players", players);
+        oldState.put("samples", OpackArray.createWithArrayObject(createSamples()));
+        oldState.put("history", OpackArray.createWithArrayObject(new long[]{1, 2, 3, 4, 5, 6, 7, 8}));
+        oldState.put("tags", new OpackArray<>(new Object[]{"a", "b", "c", "d"}));
+        oldState.put("removed", "value");
+        oldState.put("changed", new OpackObject<>());
+
+        return oldState;
+    }
+
+    private static OpackObject<Object, Object> createNewState(OpackObject<Object, Object> oldState) {
+        OpackObject<Object, Object> newState = oldState.clone();
+        newState.put("tick", 2L);
+        ((OpackObject<Object, Object>) ((OpackArray<Object>) newState.get("players")).get(7)).put("score", 9999L);
+        ((OpackArray<Object>) newState.get("players")).add(new OpackObject<>());
+        int[] newSamples = createSamples();
+        newSamples[10] = -1;
+        newSamples[999] = -2;
+        newState.put("samples", OpackArray.createWithArrayObject(newSamples));
+        newState.put("history", OpackArray.createWithArrayObject(new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9}));
+        newState.put("tags", new OpackArray<>(new Object[]{"a", "b", "c"}));
+        newState.remove("removed");
+        newState.put("added", 3.5);
+        newState.put("changed", "no longer an object");
+
+        return newState;
+    }
+
+    private static OpackArray<Object> createDeepArray(int depth, Object leaf) {
+        OpackArray<Object> root = new OpackArray<>();
+        OpackArray<Object> current = root;
+
+        for (int index = 0; index < depth; index++) {
+            OpackArray<Object> child = new OpackArray<>();
+            current.add(child);
+            current = child;
+        }
+
+        current.add(leaf);
+        return root;
+    }
+
+    @Test
+    public void diff_of_equal_values_is_empty() {
+        OpackObject<Object, Object> state = createOldState();
+
+        Assertions.assertEquals(0, OpackDiff.diff(state, state.clone()).size());
+    }
+
+    @Test
+    public void apply_patch_decoded_from_dense() throws DecodeException, EncodeException {
+        OpackObject<Object, Object> oldState = createOldState();
+        OpackObject<Object, Object> newState = createNewState(oldState);
+        OpackObject<Object, Object> patch = OpackDiff.diff(oldState, newState);
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        byte[] patchBytes = denseCodec.encode(patch);
+        Assertions.assertTrue(patchBytes.length < denseCodec.encode(newState).length / 8);
+
+        OpackObject<Object, Object> decodedPatch = (OpackObject<Object, Object>) denseCodec.decode(patchBytes);
+        Assertions.assertEquals(newState, OpackDiff.apply(oldState.clone(), decodedPatch));
+    }
+
+    @Test
+    public void apply_patch_decoded_from_json() throws DecodeException, EncodeException {
+        JsonCodec jsonCodec = new JsonCodec.Builder().create();
+
+        OpackObject<Object, Object> oldState = new OpackObject<>();
+        oldState.put("values", OpackArray.createWithArrayObject(new long[]{1, 2, 3, 4}));
+        OpackObject<Object, Object> newState = oldState.clone();
+        newState.put("values", OpackArray.createWithArrayObject(new long[]{1, 2, 30, 4, 5}));
+
+        OpackObject<Object, Object> patch = (OpackObject<Object, Object>) jsonCodec.decode(jsonCodec.encode(OpackDiff.diff(oldState, newState)));
+        Assertions.assertEquals(newState, OpackDiff.apply(oldState.clone(), patch));
+    }
+
+    @Test
+    public void apply_patch_to_native_arrays() throws DecodeException, EncodeException {
+        Supplier<OpackObject<Object, Object>> oldState = () -> {
+            OpackObject<Object, Object> state = new OpackObject<>();
+            state.put("ids", OpackArray.createWithArrayObject(new int[]{1, 2, 3, 8}));
+            state.put("shorts", OpackArray.createWithArrayObject(new short[]{1, 2}));
+            state.put("bytes", OpackArray.createWithArrayObject(new byte[]{1, 2}));
+            state.put("floats", OpackArray.createWithArrayObject(new float[]{1.5f, 2.5f}));
+            state.put("chars", OpackArray.createWithArrayObject(new char[]{'a', 'b'}));
+            state.put("boxed", OpackArray.createWithArrayObject(new Integer[]{1, null}));
+            return state;
+        };
+
+        OpackObject<Object, Object> newState = oldState.get();
+        newState.put("ids", OpackArray.createWithArrayObject(new int[]{1, 2, 3, 9}));
+        newState.put("shorts", OpackArray.createWithArrayObject(new short[]{1, -2}));
+        newState.put("bytes", OpackArray.createWithArrayObject(new byte[]{1, 2, 3}));
+        newState.put("floats", OpackArray.createWithArrayObject(new float[]{1.5f, 0.1f}));
+        newState.put("chars", OpackArray.createWithArrayObject(new char[]{'a', 'z'}));
+        newState.put("boxed", OpackArray.createWithArrayObject(new Integer[]{1, 7}));
+
+        OpackObject<Object, Object> patch = OpackDiff.diff(oldState.get(), newState);
+
+        for (JsonCodec jsonCodec : new JsonCodec[]{new JsonCodec.Builder().create(), new JsonCodec.Builder().setEnableConvertCharacterToString(true).create()}) {
+            OpackObject<Object, Object> decodedPatch = (OpackObject<Object, Object>) jsonCodec.decode(jsonCodec.encode(patch));
+            Assertions.assertEquals(newState, OpackDiff.apply(oldState.get(), decodedPatch));
+        }
+    }
+
+    @Test
+    public void replace_native_array_by_other_list() {
+        OpackArray<Object> oldArray = (OpackArray<Object>) OpackArray.createWithArrayObject(new int[]{1, 2, 3});
+
+        for (OpackArray<Object> newArray : new OpackArray[]{new OpackArray<>(new Object[]{1, 2, null}), new OpackArray<>(new Object[]{1, 2, "x"}), (OpackArray<Object>) OpackArray.createWithArrayObject(new long[]{1, 2, 3})}) {
+            OpackObject<Object, Object> patch = OpackDiff.diff(oldArray, newArray);
+
+            Assertions.assertEquals(newArray, patch.get("v"));
+            Assertions.assertEquals(newArray, OpackDiff.apply(oldArray.clone(), patch));
+        }
+
+        Assertions.assertEquals(0, OpackDiff.diff(oldArray, new OpackArray<>(new Object[]{1, 2, 3})).size());
+    }
+
+    @Test
+    public void replace_root() {
+        OpackObject<Object, Object> oldState = createOldState();
+        OpackArray<Object> newRoot = new OpackArray<>(new Object[]{"root"});
+
+        Assertions.assertEquals(newRoot, OpackDiff.apply(oldState.clone(), OpackDiff.diff(oldState, newRoot)));
+    }
+
+    @Test
+    public void diff_and_apply_deep_values() throws DecodeException, EncodeException {
+        int depth = 100000;
+        OpackArray<Object> oldArray = createDeepArray(depth, "old");
+        OpackArray<Object> newArray = createDeepArray(depth, "new");
+
+        OpackObject<Object, Object> patch = OpackDiff.diff(oldArray, newArray);
+
+        DenseCodec denseCodec = new DenseCodec.Builder().create();
+        OpackObject<Object, Object> decodedPatch = (OpackObject<Object, Object>) denseCodec.decode(denseCodec.encode(patch));
+        OpackValue patched = OpackDiff.apply(oldArray, decodedPatch);
+
+        Assertions.assertArrayEquals(denseCodec.encode(newArray), denseCodec.encode(patched));
+        Assertions.assertEquals(0, OpackDiff.diff(patched, newArray).size());
+    }
+
+    @Test
+    public void reject_mismatched_patch() {
+        OpackObject<Object, Object> mismatchedPatch = new OpackObject<>();
+        mismatchedPatch.put("sk", OpackArray.createWithArrayObject(new int[]{0}));
+        mismatchedPatch.put("sv", new OpackArray<>(new Object[]{"x"}));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpackDiff.apply(OpackArray.createWithArrayObject(new int[]{1}), mismatchedPatch));
+
+        OpackObject<Object, Object> missingKeyPatch = new OpackObject<>();
+        missingKeyPatch.put("pk", new OpackArray<>(new Object[]{"missing"}));
+        missingKeyPatch.put("pv", new OpackArray<>(new Object[]{new OpackObject<>()}));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpackDiff.apply(new OpackObject<>(), missingKeyPatch));
+    }
+}